@@ -25,6 +25,7 @@ import org.mmtk.utility.heap.HeapGrowthManager;
 import org.mmtk.utility.heap.Map;
 import org.mmtk.utility.heap.VMRequest;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.PinnedObjects;
 import org.mmtk.utility.options.*;
 import org.mmtk.utility.sanitychecker.SanityChecker;
 import org.mmtk.utility.statistics.PerfCounter;
@@ -952,6 +953,37 @@ public abstract class Plan implements Constants {
     return false;
   }
 
+  /**
+   * Prevent this object from moving until a matching call to
+   * <code>unpinObject</code>.  Used by the VM to hand out direct pointers
+   * to native code without copying the object or disabling GC.
+   *
+   * Copying and compacting spaces honour the pins recorded in
+   * <code>PinnedObjects</code>; plans with moving spaces that cannot
+   * should override this.
+   *
+   * @param object The object in question
+   * @return True if the object will not move until it is unpinned,
+   * false if it could not be pinned.
+   */
+  public boolean pinObject(ObjectReference object) {
+    if (willNeverMove(object))
+      return true;
+    return PinnedObjects.pin(object);
+  }
+
+  /**
+   * Undo one successful call to <code>pinObject</code>.
+   *
+   * @param object The object in question
+   * @return True if the object was pinned (or can never move)
+   */
+  public boolean unpinObject(ObjectReference object) {
+    if (willNeverMove(object))
+      return true;
+    return PinnedObjects.unpin(object);
+  }
+
   /****************************************************************************
    * Specialized Scanning
    */
@@ -15,6 +15,7 @@ package org.mmtk.plan;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.Constants;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.PinnedObjects;
 import org.mmtk.utility.options.*;
 import org.mmtk.utility.sanitychecker.SanityChecker;
 import org.mmtk.utility.statistics.Timer;
@@ -256,6 +257,7 @@ public abstract class Simple extends Plan implements Constants {
     }
 
     if (phaseId == COMPLETE) {
+      PinnedObjects.release();
       setGCStatus(NOT_IN_GC);
       Space.clearAllAllocationFailed();
       awaitingAsyncCollection = false;
@@ -118,7 +118,7 @@ public class CopyMS extends StopTheWorld {
    * @return True if a collection is requested by the plan.
    */
   public final boolean collectionRequired(boolean spaceFull) {
-    boolean nurseryFull = nurserySpace.reservedPages() > Options.nurserySize.getMaxNursery();
+    boolean nurseryFull = nurserySpace.reservedPages() - nurserySpace.retainedPages() > Options.nurserySize.getMaxNursery();
 
     return super.collectionRequired(spaceFull) || nurseryFull;
   }
@@ -142,7 +142,8 @@ public abstract class Gen extends StopTheWorld {
     }
 
     if (phaseId == PREPARE) {
-      nurserySpace.prepare(true);
+      // residents can only be evacuated when every reference to them is traced
+      nurserySpace.prepare(true, traceFullHeap());
       if (!traceFullHeap()) {
         ploSpace.prepare(false);
       } else {
@@ -192,7 +193,7 @@ public abstract class Gen extends StopTheWorld {
    * @return True if a collection is requested by the plan.
    */
   public final boolean collectionRequired(boolean spaceFull) {
-    int nurseryPages = nurserySpace.reservedPages();
+    int nurseryPages = nurserySpace.reservedPages() - nurserySpace.retainedPages();
 
     if (nurseryPages > Options.nurserySize.getMaxNursery()) {
       return true;
@@ -226,7 +227,7 @@ public abstract class Gen extends StopTheWorld {
       return true;
     }
 
-    if (nurserySpace.reservedPages() >= getMaturePhysicalPagesAvail()) {
+    if (nurserySpace.reservedPages() - nurserySpace.retainedPages() >= getMaturePhysicalPagesAvail()) {
       // Ensure we have the physical copy reserve required
       return true;
     }
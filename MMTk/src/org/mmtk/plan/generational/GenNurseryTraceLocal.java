@@ -16,6 +16,7 @@ import org.mmtk.plan.Plan;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.Trace;
 import org.mmtk.policy.Space;
+import org.mmtk.utility.PinnedObjects;
 import org.mmtk.utility.deque.*;
 import org.mmtk.vm.VM;
 
@@ -110,6 +111,9 @@ import org.vmmagic.unboxed.*;
         start = start.plus(BYTES_IN_ADDRESS);
       }
     }
+    // Objects left in the nursery by an earlier collection may be referenced
+    // from the mature space by edges that were never remembered
+    PinnedObjects.traceObjectsInSpace(this, Gen.NURSERY);
   }
 
   /**
@@ -172,7 +172,8 @@ import org.vmmagic.pragma.*;
    */
   @Inline
   public int getPagesUsed() {
-    return toSpace().reservedPages() + super.getPagesUsed();
+    // the from-space still holds any pages retained for pinned objects
+    return toSpace().reservedPages() + fromSpace().retainedPages() + super.getPagesUsed();
   }
 
   /**
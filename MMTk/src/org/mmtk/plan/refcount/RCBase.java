@@ -295,4 +295,29 @@ import org.vmmagic.unboxed.*;
       return true;
     return super.willNeverMove(object);
   }
+
+  /**
+   * Reference counting does not support leaving objects in the nursery,
+   * so only objects that never move can be pinned.
+   *
+   * @see org.mmtk.plan.Plan#pinObject
+   *
+   * @param object Object in question
+   * @return True if the object will never move
+   */
+  @Override
+  public boolean pinObject(ObjectReference object) {
+    return willNeverMove(object);
+  }
+
+  /**
+   * @see org.mmtk.plan.Plan#unpinObject
+   *
+   * @param object Object in question
+   * @return True if the object will never move
+   */
+  @Override
+  public boolean unpinObject(ObjectReference object) {
+    return willNeverMove(object);
+  }
 }
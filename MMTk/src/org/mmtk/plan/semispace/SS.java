@@ -159,7 +159,8 @@ public class SS extends StopTheWorld {
    * allocation, excluding space reserved for copying.
    */
   public int getPagesUsed() {
-    return super.getPagesUsed() + toSpace().reservedPages();
+    // the from-space still holds any pages retained for pinned objects
+    return super.getPagesUsed() + toSpace().reservedPages() + fromSpace().retainedPages();
   }
 
   /**
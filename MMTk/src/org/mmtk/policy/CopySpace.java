@@ -16,6 +16,7 @@ import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.heap.*;
 import org.mmtk.utility.Constants;
+import org.mmtk.utility.PinnedObjects;
 
 import org.mmtk.vm.VM;
 
@@ -61,6 +62,12 @@ import org.vmmagic.pragma.*;
    * Instance variables
    */
   private boolean fromSpace = true;
+  /** Are resident (previously pinned) objects evacuated in this collection? */
+  private boolean evacuateResidents = true;
+  /** Has an object been left in place in this from-space in this collection? */
+  private boolean keptObjectsInPlace = false;
+  /** Pages that were retained by the last release because of pinned objects */
+  private int retainedPages = 0;
 
   /****************************************************************************
    *
@@ -101,17 +108,49 @@ import org.vmmagic.pragma.*;
    *
    * @param fromSpace Set the fromSpace field to this value
    */
-  public void prepare(boolean fromSpace) { this.fromSpace = fromSpace; }
+  public void prepare(boolean fromSpace) { prepare(fromSpace, true); }
+
+  /**
+   * Prepare this space instance for a collection.
+   *
+   * @param fromSpace Set the fromSpace field to this value
+   * @param evacuateResidents Should objects that were left in place by a
+   * previous collection, and are no longer pinned, be evacuated?  This
+   * must be false unless every reference into this space will be traced
+   * (i.e. in a partial-heap collection).
+   */
+  public void prepare(boolean fromSpace, boolean evacuateResidents) {
+    this.fromSpace = fromSpace;
+    this.evacuateResidents = evacuateResidents;
+    this.keptObjectsInPlace = false;
+  }
 
   /**
    * Release this copy space after a collection.  This means releasing
-   * all pages associated with this (now empty) space.
+   * all pages associated with this (now empty) space, unless pinned
+   * objects were left in it, in which case the pages up to the highest
+   * of them are retained (allocation resumes after them) until a later
+   * collection empties it.
    */
   public void release() {
+    if (keptObjectsInPlace) {
+      keptObjectsInPlace = false;
+      retainedPages = ((MonotonePageResource) pr).releaseAboveKeptObjects();
+      if (!contiguous) lastDiscontiguousRegion = ((MonotonePageResource) pr).getCurrentRegion();
+      return;
+    }
     ((MonotonePageResource) pr).reset();
     lastDiscontiguousRegion = Address.zero();
+    retainedPages = 0;
   }
 
+  /**
+   * @return The number of pages that the last release retained because
+   * pinned objects were left in this space.  Plans that trigger
+   * collections on the size of a space should discount these.
+   */
+  public int retainedPages() { return retainedPages; }
+
   /**
    * Release an allocated page or pages.  In this case we do nothing
    * because we only release pages enmasse.
@@ -166,6 +205,15 @@ import org.vmmagic.pragma.*;
    */
   @Inline
   public ObjectReference traceObject(TransitiveClosure trace, ObjectReference object, int allocator) {
+    if (!PinnedObjects.isEmpty() && PinnedObjects.isTracked(object)) {
+      /* Pinned objects stay put, as do residents unless we are evacuating
+       * them. A resident found in to-space was not copied there in this
+       * collection, so nothing else will scan it. */
+      if (!fromSpace || !evacuateResidents || PinnedObjects.isPinned(object)) {
+        return traceObjectInPlace(trace, object);
+      }
+    }
+
     /* If the object in question is already in to-space, then do nothing */
     if (!fromSpace) return object;
 
@@ -192,14 +240,31 @@ import org.vmmagic.pragma.*;
     }
   }
 
+  /**
+   * Trace a pinned or resident object, leaving it where it is.
+   *
+   * @param trace The trace being conducted.
+   * @param object The object to be kept in place.
+   * @return The object.
+   */
+  @NoInline
+  private ObjectReference traceObjectInPlace(TransitiveClosure trace, ObjectReference object) {
+    if (fromSpace) keptObjectsInPlace = true;
+    if (PinnedObjects.keepInPlace(object)) {
+      trace.processNode(object);
+    }
+    return object;
+  }
+
   /**
    * Return true if this object is live in this GC
    *
    * @param object The object in question
-   * @return True if this object is live in this GC (has it been forwarded?)
+   * @return True if this object is live in this GC (has it been forwarded,
+   * or left in place because it is pinned?)
    */
   public boolean isLive(ObjectReference object) {
-    return isForwarded(object);
+    return isForwarded(object) || PinnedObjects.isKeptInPlace(object);
   }
 
   /**
@@ -210,7 +275,7 @@ import org.vmmagic.pragma.*;
    * @return True if the object is reachable.
    */
   public boolean isReachable(ObjectReference object) {
-    return !fromSpace || isForwarded(object);
+    return !fromSpace || isForwarded(object) || PinnedObjects.isKeptInPlace(object);
   }
 
   /****************************************************************************
@@ -14,6 +14,7 @@ package org.mmtk.policy;
 
 import org.mmtk.plan.markcompact.MC;
 import org.mmtk.utility.Conversions;
+import org.mmtk.utility.PinnedObjects;
 import org.mmtk.utility.alloc.Allocator;
 import org.mmtk.utility.alloc.BumpPointer;
 import org.mmtk.vm.VM;
@@ -79,8 +80,8 @@ import org.vmmagic.unboxed.ObjectReference;
         if (!copyTo.isNull() && Space.isInSpace(MC.MARK_COMPACT, copyTo)) {
           if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!MarkCompactSpace.isMarked(current));
           // To be copied.
-          if (copyTo.toAddress().GT(allocEnd) || copyTo.toAddress().LT(allocStart)) {
-            // changed regions.
+          while (copyTo.toAddress().GT(allocEnd) || copyTo.toAddress().LT(allocStart)) {
+            // changed regions (possibly several, if a pinned object was in the way).
 
             VM.memory.zero(allocCursor, allocEnd.diff(allocCursor).toWord().toExtent().plus(BYTES_IN_ADDRESS));
 
@@ -160,6 +161,20 @@ import org.vmmagic.unboxed.ObjectReference;
           if (VM.VERIFY_ASSERTIONS)
             VM.assertions._assert(MarkCompactSpace.getForwardingPointer(current).isNull());
 
+          if (!PinnedObjects.isEmpty() && PinnedObjects.isPinned(current)) {
+            // A pinned object stays put, and nothing may be compacted over it,
+            // so give up on any earlier regions we were still filling.
+            while (allocStart.NE(start)) {
+              allocStart = allocStart.plus(NEXT_REGION_OFFSET).loadAddress();
+            }
+            allocDataEnd = allocStart.plus(DATA_END_OFFSET).loadAddress();
+            allocLimit = (allocDataEnd.isZero() ? cursor : allocDataEnd);
+            MarkCompactSpace.setForwardingPointer(current, current);
+            allocCursor = VM.objectModel.getObjectEndAddress(current);
+            current = next;
+            continue;
+          }
+
           // Fake - allocate it.
           int size = VM.objectModel.getSizeWhenCopied(current);
           int align = VM.objectModel.getAlignWhenCopied(current);
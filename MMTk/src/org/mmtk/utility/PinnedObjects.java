@@ -0,0 +1,308 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility;
+
+import org.mmtk.plan.TraceLocal;
+import org.mmtk.policy.Space;
+import org.mmtk.vm.Lock;
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class records objects that the VM has asked not to be moved,
+ * for example because native code holds a direct pointer into them.
+ * Objects in spaces that never move are not recorded here (see
+ * <code>Plan.pinObject</code>); copying and compacting policies
+ * consult this table while tracing and leave pinned objects in place.
+ *
+ * An entry is either <i>pinned</i> (its pin count is non-zero) or
+ * <i>resident</i>: the pin count has dropped to zero, but a collection
+ * left the object in place in a space from which objects are normally
+ * evacuated, so it must still be treated specially by that space until
+ * a collection either evacuates it or finds it dead.
+ *
+ * The table is small and fixed size: pinning fails rather than
+ * allocating, and the caller is expected to fall back to some other
+ * strategy (such as copying the object's contents).  It is an open
+ * addressed hash table, so that the lookups made while tracing every
+ * object in a copying space don't cost a scan of the table.
+ */
+@Uninterruptible public final class PinnedObjects {
+
+  /****************************************************************************
+   *
+   * Class variables
+   */
+  private static final int CAPACITY = 256;
+  /** The table is kept at most half full, so that probe sequences are short */
+  private static final int LOG_TABLE_SIZE = 9;
+  private static final int TABLE_SIZE = 1 << LOG_TABLE_SIZE;
+  private static final int TABLE_MASK = TABLE_SIZE - 1;
+  private static final Lock lock = VM.newLock("PinnedObjects");
+
+  /* Use an AddressArray rather than ObjectReference array to *avoid* this
+     being traced.  Pinned objects are kept alive by their users, not by us.
+     A zero address marks an empty slot. */
+  private static final AddressArray objects = AddressArray.create(TABLE_SIZE);
+  private static final int[] pinCount = new int[TABLE_SIZE];
+  private static final boolean[] resident = new boolean[TABLE_SIZE];
+  private static final boolean[] keptInPlace = new boolean[TABLE_SIZE];
+  /** The number of live entries */
+  private static int entries;
+
+  /****************************************************************************
+   *
+   * Mutator-time interface
+   */
+
+  /**
+   * Increment the pin count of an object.
+   *
+   * @param object The object to pin
+   * @return True if the object is now pinned, false if the table is full
+   */
+  public static boolean pin(ObjectReference object) {
+    lock.acquire();
+    int index = find(object);
+    if (index < 0) {
+      if (entries == CAPACITY) {
+        lock.release();
+        return false;
+      }
+      index = hash(object.toAddress());
+      while (!objects.get(index).isZero()) index = (index + 1) & TABLE_MASK;
+      entries++;
+      objects.set(index, object.toAddress());
+      pinCount[index] = 0;
+      resident[index] = false;
+      keptInPlace[index] = false;
+    }
+    pinCount[index]++;
+    lock.release();
+    return true;
+  }
+
+  /**
+   * Decrement the pin count of an object.
+   *
+   * @param object The object to unpin
+   * @return True if the object was pinned
+   */
+  public static boolean unpin(ObjectReference object) {
+    lock.acquire();
+    int index = find(object);
+    if (index < 0 || pinCount[index] == 0) {
+      lock.release();
+      return false;
+    }
+    if (--pinCount[index] == 0 && !resident[index]) {
+      remove(index);
+    }
+    lock.release();
+    return true;
+  }
+
+  /****************************************************************************
+   *
+   * Collection-time interface
+   */
+
+  /**
+   * @return True if no objects are pinned or resident.  Policies use
+   * this to keep the common case to a single test.
+   */
+  @Inline
+  public static boolean isEmpty() {
+    return entries == 0;
+  }
+
+  /**
+   * Is the given object pinned?
+   *
+   * @param object The object in question
+   * @return True if the object's pin count is non-zero
+   */
+  public static boolean isPinned(ObjectReference object) {
+    if (isEmpty()) return false;
+    int index = find(object);
+    return index >= 0 && pinCount[index] > 0;
+  }
+
+  /**
+   * Is the given object pinned or resident?
+   *
+   * @param object The object in question
+   * @return True if the object has an entry in this table
+   */
+  public static boolean isTracked(ObjectReference object) {
+    if (isEmpty()) return false;
+    return find(object) >= 0;
+  }
+
+  /**
+   * Record that the given object has been reached in the current
+   * collection and left in place.
+   *
+   * @param object The object, which must be pinned or resident
+   * @return True if this is the first time the object has been
+   * reached in this collection, in which case the caller must
+   * arrange for it to be scanned.
+   */
+  public static boolean keepInPlace(ObjectReference object) {
+    lock.acquire();
+    int index = find(object);
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(index >= 0);
+    boolean first = !keptInPlace[index];
+    keptInPlace[index] = true;
+    lock.release();
+    return first;
+  }
+
+  /**
+   * Has the given object been left in place in the current collection?
+   *
+   * @param object The object in question
+   * @return True if keepInPlace has been called on the object during
+   * the current collection
+   */
+  public static boolean isKeptInPlace(ObjectReference object) {
+    if (isEmpty()) return false;
+    int index = find(object);
+    return index >= 0 && keptInPlace[index];
+  }
+
+  /**
+   * Trace every pinned or resident object in the given space.  This
+   * is used by partial-heap collections, where the collector cannot
+   * see every reference to such an object and therefore must not move
+   * or reclaim it.
+   *
+   * @param trace The trace being conducted
+   * @param descriptor The descriptor of the space of interest
+   */
+  public static void traceObjectsInSpace(TraceLocal trace, int descriptor) {
+    if (isEmpty()) return;
+    for (int i = 0; i < TABLE_SIZE; i++) {
+      if (objects.get(i).isZero()) continue;
+      ObjectReference object = objects.get(i).toObjectReference();
+      if (Space.isInSpace(descriptor, object)) {
+        trace.traceObject(object);
+      }
+    }
+  }
+
+  /**
+   * Find the end of the highest object in the given range of addresses
+   * that has been left in place in the current collection, so that the
+   * space holding them can release the pages above it.
+   *
+   * @param from The start of the range
+   * @param to The end of the range (exclusive)
+   * @return The end address of the object, or zero if no object in the
+   * range has been left in place
+   */
+  public static Address keptInPlaceLimit(Address from, Address to) {
+    Address limit = Address.zero();
+    if (isEmpty()) return limit;
+    for (int i = 0; i < TABLE_SIZE; i++) {
+      if (!keptInPlace[i]) continue;
+      Address object = objects.get(i);
+      if (object.GE(from) && object.LT(to)) {
+        Address end = VM.objectModel.getObjectEndAddress(object.toObjectReference());
+        if (end.GT(limit)) limit = end;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * Called at the end of each collection.  Objects that were left in
+   * place become resident; resident objects that were not (because
+   * they were evacuated, or are dead) are forgotten.
+   */
+  public static void release() {
+    if (isEmpty()) return;
+    /* Start just after an empty slot: removal only moves entries back
+     * within a run of full slots, and no run spans an empty slot, so
+     * every entry is visited exactly once. */
+    int start = 0;
+    while (!objects.get(start).isZero()) start++;
+    for (int k = 1; k <= TABLE_SIZE; k++) {
+      int i = (start + k) & TABLE_MASK;
+      while (!objects.get(i).isZero()) {
+        if (keptInPlace[i]) {
+          resident[i] = true;
+          keptInPlace[i] = false;
+        } else if (pinCount[i] == 0) {
+          remove(i); // a later entry of the run may have moved into slot i
+          continue;
+        }
+        break;
+      }
+    }
+  }
+
+  /****************************************************************************
+   *
+   * Implementation
+   */
+
+  /**
+   * @param object The object to look for
+   * @return The index of the object's entry, or -1 if it has none
+   */
+  private static int find(ObjectReference object) {
+    Address address = object.toAddress();
+    for (int i = hash(address); !objects.get(i).isZero(); i = (i + 1) & TABLE_MASK) {
+      if (objects.get(i).EQ(address)) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * @param address The address of an object
+   * @return The slot at which to start looking for the object
+   */
+  @Inline
+  private static int hash(Address address) {
+    return (address.toWord().toInt() * 0x9e3779b1) >>> (32 - LOG_TABLE_SIZE);
+  }
+
+  /**
+   * Remove an entry, moving later entries of the same run of full slots
+   * back so that none is separated from its hash slot by an empty slot.
+   *
+   * @param index The entry to remove
+   */
+  private static void remove(int index) {
+    int hole = index;
+    for (int i = (index + 1) & TABLE_MASK; !objects.get(i).isZero(); i = (i + 1) & TABLE_MASK) {
+      int home = hash(objects.get(i));
+      /* The entry may move back to the hole unless its hash slot lies
+       * (cyclically) after the hole */
+      if (((i - home) & TABLE_MASK) >= ((i - hole) & TABLE_MASK)) {
+        objects.set(hole, objects.get(i));
+        pinCount[hole] = pinCount[i];
+        resident[hole] = resident[i];
+        keptInPlace[hole] = keptInPlace[i];
+        hole = i;
+      }
+    }
+    objects.set(hole, Address.zero());
+    pinCount[hole] = 0;
+    resident[hole] = false;
+    keptInPlace[hole] = false;
+    entries--;
+  }
+}
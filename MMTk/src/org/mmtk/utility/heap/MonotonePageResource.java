@@ -16,6 +16,7 @@ import org.mmtk.utility.alloc.EmbeddedMetaData;
 import org.mmtk.utility.options.Options;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.Conversions;
+import org.mmtk.utility.PinnedObjects;
 import org.mmtk.utility.Constants;
 
 import org.mmtk.vm.VM;
@@ -220,6 +221,53 @@ public final class MonotonePageResource extends PageResource
     unlock();
   }
 
+  /**
+   * Release the pages of this page resource above the highest object
+   * that the current collection left in place (see
+   * <code>PinnedObjects</code>), keeping those below it in use.  A
+   * discontiguous resource frees whole the regions it acquired after the
+   * newest region holding such an object, and keeps the older ones.
+   *
+   * @return The number of pages kept
+   */
+  public int releaseAboveKeptObjects() {
+    lock();
+    Address limit = PinnedObjects.keptInPlaceLimit(start, cursor);
+    while (limit.isZero()) {
+      /* Nothing was left in this region */
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!contiguous);
+      Address next = Map.getNextContiguousRegion(start);
+      releasePages(start, cursor.diff(start).toWord().toExtent());
+      Map.freeContiguousChunks(start);
+      start = next;
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!start.isZero());
+      sentinel = start.plus(Map.getContiguousRegionSize(start));
+      cursor = sentinel;
+      limit = PinnedObjects.keptInPlaceLimit(start, cursor);
+    }
+    int pages = Conversions.bytesToPagesUp(limit.diff(start).toWord().toExtent());
+    Address newCursor = start.plus(Conversions.pagesToBytes(pages));
+    releasePages(newCursor, cursor.diff(newCursor).toWord().toExtent());
+    cursor = newCursor;
+    if (!contiguous) {
+      for (Address r = Map.getNextContiguousRegion(start); !r.isZero(); r = Map.getNextContiguousRegion(r)) {
+        pages += Conversions.bytesToPages(Map.getContiguousRegionSize(r));
+      }
+    }
+    reserved = pages;
+    committed = pages;
+    unlock();
+    return pages;
+  }
+
+  /**
+   * @return The start of the region allocation is currently from: for
+   * a discontiguous resource, the newest of its regions.
+   */
+  public Address getCurrentRegion() {
+    return start;
+  }
+
   /**
    * Notify that several pages are no longer in use.
    *
@@ -42,6 +42,8 @@ public final class VMThrowable {
   static VMThrowable fillInStackTrace(Throwable parent){
     if (!VM.fullyBooted) {
       return null;
+    } else if (VM_StackTrace.isTraceElided(parent)) {
+      return null;
     } else if (VM_Scheduler.getCurrentThread().getThreadForStackTrace().isGCThread()) {
       VM.sysWriteln("Exception in GC thread");
       VM_Scheduler.dumpVirtualMachine();
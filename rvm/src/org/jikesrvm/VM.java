@@ -21,6 +21,7 @@ import org.jikesrvm.annotations.NoSubArchCompile;
 import org.jikesrvm.classloader.VM_Atom;
 import org.jikesrvm.classloader.VM_BootstrapClassLoader;
 import org.jikesrvm.classloader.VM_Class;
+import org.jikesrvm.classloader.VM_ClassDataArchive;
 import org.jikesrvm.classloader.VM_ClassLoader;
 import org.jikesrvm.classloader.VM_Member;
 import org.jikesrvm.classloader.VM_MemberReference;
@@ -32,6 +33,8 @@ import org.jikesrvm.compilers.baseline.VM_EdgeCounts;
 import org.jikesrvm.compilers.common.VM_BootImageCompiler;
 import org.jikesrvm.compilers.common.VM_RuntimeCompiler;
 import org.jikesrvm.memorymanagers.mminterface.MM_Interface;
+import org.jikesrvm.objectmodel.VM_FieldLayoutAdvice;
+import org.jikesrvm.runtime.VM_AllocationProfile;
 import org.jikesrvm.runtime.VM_BootRecord;
 import org.jikesrvm.runtime.VM_DynamicLibrary;
 import org.jikesrvm.runtime.VM_EntrypointHelper;
@@ -410,6 +413,15 @@ public class VM extends VM_Properties implements VM_Constants, VM_ExitStatus {
     //
     VM_EdgeCounts.boot(EdgeCounterFile);
 
+    // Map the archive of application classes saved by an earlier run
+    VM_ClassDataArchive.boot(ClassDataArchive, DumpClassDataArchive);
+
+    // Read advice on which fields to place next to the object header
+    VM_FieldLayoutAdvice.readAdvice(FieldLayoutAdvice);
+
+    // Start the sampling allocation profiler if requested
+    VM_AllocationProfile.boot(AllocationProfileInterval);
+
     if (VM.BuildForAdaptiveSystem) {
       VM_CompilerAdvice.postBoot();
     }
@@ -293,7 +293,17 @@ abstract class VM_AnalyticModel extends VM_RecompilationStrategy {
    * @return estimate of future execution time to be spent in this method
    */
   double futureTimeForMethod(VM_HotMethodEvent hme) {
-    double numSamples = hme.getNumSamples();
+    return futureTimeForSamples(hme.getNumSamples());
+  }
+
+  /**
+   * How much time do we expect to spend in a method in the future, given
+   * the samples taken in it so far?
+   *
+   * @param numSamples the samples attributed to the method
+   * @return estimate of future execution time to be spent in the method
+   */
+  static double futureTimeForSamples(double numSamples) {
     double timePerSample = (double) VM.interruptQuantum;
     if (!VM.UseEpilogueYieldPoints) {
       // NOTE: we take two samples per timer interrupt, so we have to
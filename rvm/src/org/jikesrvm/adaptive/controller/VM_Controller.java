@@ -28,6 +28,7 @@ import org.jikesrvm.adaptive.recompilation.instrumentation.VM_CounterBasedSampli
 import org.jikesrvm.adaptive.util.VM_AOSLogging;
 import org.jikesrvm.adaptive.util.VM_AOSOptions;
 import org.jikesrvm.adaptive.util.VM_BlockingPriorityQueue;
+import org.jikesrvm.adaptive.util.VM_FieldLayoutAdviceGenerator;
 import org.jikesrvm.compilers.baseline.VM_EdgeCounts;
 import org.jikesrvm.compilers.common.VM_RecompilationManager;
 import org.jikesrvm.scheduler.greenthreads.VM_GreenProcessor;
@@ -301,6 +302,8 @@ public class VM_Controller implements VM_Callbacks.ExitMonitor,
       organizer.report();
     }
 
+    VM_FieldLayoutAdviceGenerator.report();
+
     if (options.FINAL_REPORT_LEVEL >= 2) {
       VM_EdgeCounts.dumpCounts();
       dcg.dumpGraph();
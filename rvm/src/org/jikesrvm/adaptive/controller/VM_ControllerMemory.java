@@ -19,6 +19,7 @@ import org.jikesrvm.VM_Constants;
 import org.jikesrvm.classloader.VM_Method;
 import org.jikesrvm.compilers.common.VM_CompiledMethod;
 import org.jikesrvm.compilers.common.VM_CompiledMethods;
+import org.jikesrvm.compilers.opt.OPT_Options;
 import org.jikesrvm.util.VM_HashMap;
 
 /**
@@ -49,6 +50,7 @@ public final class VM_ControllerMemory implements VM_Constants {
   private static int numMethodsConsidered = 0;
   private static int numMethodsScheduledForRecomp = 0;
   private static int numBase = 0;
+  private static int numOptFast = 0;
   private static int numOpt0 = 0;
   private static int numOpt1 = 0;
   private static int numOpt2 = 0;
@@ -65,6 +67,8 @@ public final class VM_ControllerMemory implements VM_Constants {
 
   public static int getNumBase() { return numBase; }
 
+  public static int getNumOptFast() { return numOptFast; }
+
   public static int getNumOpt0() { return numOpt0; }
 
   public static int getNumOpt1() { return numOpt1; }
@@ -85,6 +89,8 @@ public final class VM_ControllerMemory implements VM_Constants {
 
   public static void incrementNumBase() { numBase++; }
 
+  static void incrementNumOptFast() { numOptFast++; }
+
   static void incrementNumOpt0() { numOpt0++; }
 
   static void incrementNumOpt1() { numOpt1++; }
@@ -105,6 +111,9 @@ public final class VM_ControllerMemory implements VM_Constants {
     numMethodsScheduledForRecomp++;
     int optLevel = plan.getCompPlan().options.getOptLevel();
     switch (optLevel) {
+      case OPT_Options.FAST_OPT_LEVEL:
+        numOptFast++;
+        break;
       case 0:
         numOpt0++;
         break;
@@ -314,11 +323,13 @@ public final class VM_ControllerMemory implements VM_Constants {
     //    B           -> 2
     //    B      -> 1
     //
-    //  We encode these possibilities by turning on 1 of three bits for 0, 1, 2
+    //  (each optionally preceded by a compilation at the fast tier, -1)
+    //
+    //  We encode these possibilities by turning on 1 of four bits for -1, 0, 1, 2
     //  Also, for all methods that eventually get to level 2, they can be
     //  recompiled an arbitrary amount of times.  We record this in in a counter.
 
-    final int MAX_BIT_PATTERN = 7;
+    final int MAX_BIT_PATTERN = 15;
     int[] summaryArray = new int[MAX_BIT_PATTERN + 1];
     int[] recompsAtLevel2Array = new int[MAX_BIT_PATTERN + 1];
     int totalRecompsAtLevel2 = 0;
@@ -360,7 +371,7 @@ public final class VM_ControllerMemory implements VM_Constants {
     int totalUniqueMethods = 0;
     for (int i = 1; i <= MAX_BIT_PATTERN; i++) {
       log.print("    Base");
-      for (int optLevel = 0; optLevel <= 2; optLevel++) {
+      for (int optLevel = OPT_Options.FAST_OPT_LEVEL; optLevel <= 2; optLevel++) {
         if (bitIsSet(i, optLevel)) {
           log.print(" -> " + optLevel);
         }
@@ -386,7 +397,7 @@ public final class VM_ControllerMemory implements VM_Constants {
    */
   static int setBitPattern(int bitPattern, int optLevel) {
     int newPattern = 1;
-    newPattern = newPattern << optLevel;
+    newPattern = newPattern << (optLevel - OPT_Options.FAST_OPT_LEVEL);
     return newPattern | bitPattern;
   }
 
@@ -398,7 +409,7 @@ public final class VM_ControllerMemory implements VM_Constants {
    */
   static boolean bitIsSet(int bitPattern, int optLevel) {
     int newPattern = 1;
-    newPattern = newPattern << optLevel;
+    newPattern = newPattern << (optLevel - OPT_Options.FAST_OPT_LEVEL);
     return (newPattern & bitPattern) > 0;
   }
 
@@ -42,10 +42,12 @@ public final class VM_HotMethodRecompilationEvent extends VM_HotMethodEvent impl
 
   /**
    * This function defines how the controller handles a
-   * VM_HotMethodRecompilationEvent.  Simply passes the event to the
-   * recompilation strategy.
+   * VM_HotMethodRecompilationEvent.  Passes the event to the subarch
+   * migration strategy and then to the recompilation strategy.
    */
   public void process() {
+    VM_SubArchMigrationStrategy.considerHotMethod(this);
+
     VM_ControllerPlan plan = VM_Controller.recompilationStrategy.considerHotMethod(getCompiledMethod(), this);
 
     VM_ControllerMemory.incrementNumMethodsConsidered();
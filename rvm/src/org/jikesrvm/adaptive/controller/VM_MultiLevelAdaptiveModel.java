@@ -14,6 +14,7 @@ package org.jikesrvm.adaptive.controller;
 
 import org.jikesrvm.adaptive.recompilation.VM_CompilerDNA;
 import org.jikesrvm.compilers.common.VM_CompiledMethod;
+import org.jikesrvm.compilers.opt.OPT_Options;
 
 /**
  * Implements the multi-level adaptive strategy using an analytic
@@ -48,13 +49,15 @@ class VM_MultiLevelAdaptiveModel extends VM_AnalyticModel {
   void populateRecompilationChoices() {
     int maxOptLevel = VM_Controller.options.DERIVED_MAX_OPT_LEVEL;
     int maxCompiler = VM_CompilerDNA.getCompilerConstant(maxOptLevel);
-    allOptLevelChoices = new VM_RecompileOptChoice[maxOptLevel + 1];
+    int minOptLevel = VM_Controller.options.FAST_OPT_TIER ? OPT_Options.FAST_OPT_LEVEL : 0;
+    allOptLevelChoices = new VM_RecompileOptChoice[maxOptLevel - minOptLevel + 1];
 
     // Create one main list of all possible recompilation choices that
     // will be considered.  For each opt-level, create a recompilation
     // choice for that opt-level and record it indexed by opt-level
-    for (int optLevel = 0; optLevel <= maxOptLevel; optLevel++) {
-      allOptLevelChoices[optLevel] = new VM_RecompileOptChoice(optLevel);
+    // (relative to the lowest opt-level being considered)
+    for (int optLevel = minOptLevel; optLevel <= maxOptLevel; optLevel++) {
+      allOptLevelChoices[optLevel - minOptLevel] = new VM_RecompileOptChoice(optLevel);
     }
 
     // Given the above choices, create lookup table so that the
@@ -103,7 +103,8 @@ public abstract class VM_RecompilationStrategy {
                                                    OPT_InstrumentationPlan instPlan) {
 
     // Construct a plan from the basic pre-computed opt-levels
-    return new OPT_CompilationPlan(method, _optPlans[optLevel], null, _options[optLevel]);
+    int index = optLevel - OPT_Options.FAST_OPT_LEVEL;
+    return new OPT_CompilationPlan(method, _optPlans[index], null, _options[index]);
   }
 
   /**
@@ -230,6 +231,10 @@ public abstract class VM_RecompilationStrategy {
     return VM_Controller.options.DERIVED_MAX_OPT_LEVEL;
   }
 
+  /**
+   * The pre-computed <optimization plan, options> pairs, indexed by
+   * opt level relative to OPT_Options.FAST_OPT_LEVEL
+   */
   private OPT_OptimizationPlanElement[][] _optPlans;
   private OPT_Options[] _options;
 
@@ -241,13 +246,15 @@ public abstract class VM_RecompilationStrategy {
     OPT_Options options = new OPT_Options();
 
     int maxOptLevel = getMaxOptLevel();
-    _options = new OPT_Options[maxOptLevel + 1];
-    _optPlans = new OPT_OptimizationPlanElement[maxOptLevel + 1][];
+    int numOptLevels = Math.max(maxOptLevel - OPT_Options.FAST_OPT_LEVEL + 1, 0);
+    _options = new OPT_Options[numOptLevels];
+    _optPlans = new OPT_OptimizationPlanElement[numOptLevels][];
     String[] optCompilerOptions = VM_Controller.getOptCompilerOptions();
-    for (int i = 0; i <= maxOptLevel; i++) {
+    for (int i = 0; i < numOptLevels; i++) {
+      int optLevel = i + OPT_Options.FAST_OPT_LEVEL;
       _options[i] = options.dup();
-      _options[i].setOptLevel(i);               // set optimization level specific optimiations
-      processCommandLineOptions(_options[i], i, maxOptLevel, optCompilerOptions);
+      _options[i].setOptLevel(optLevel);        // set optimization level specific optimiations
+      processCommandLineOptions(_options[i], optLevel, maxOptLevel, optCompilerOptions);
       _optPlans[i] = OPT_OptimizationPlanner.createOptimizationPlan(_options[i]);
       if (_options[i].PRELOAD_CLASS != null) {
         VM.sysWrite("PRELOAD_CLASS should be specified with -X:irc not -X:recomp\n");
@@ -281,7 +288,7 @@ public abstract class VM_RecompilationStrategy {
                       "\n");
         }
       } else if (optCompilerOption.startsWith(prefix)) {
-        String option = optCompilerOption.substring(5);
+        String option = optCompilerOption.substring(prefix.length());
         if (!options.processAsOption("-X:recomp:" + prefix, option)) {
           VM.sysWrite("vm: Unrecognized optimizing compiler command line argument: \"" +
                       option +
@@ -0,0 +1,79 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.controller;
+
+/**
+ * The cost-benefit model used to decide whether calls to a hot method
+ * should be migrated to the subarch.  Like {@link VM_AnalyticModel} it
+ * assumes the method will run for as long in the future as it has so far,
+ * and compares that time with the time it would take on the subarch,
+ * including the cost of migrating each call and moving its working set.
+ *
+ * <p> The model is pure arithmetic on a future time estimate and a
+ * {@link VM_SubArchSuitability}, so decisions can be replayed from the
+ * {@link VM_SubArchMigrationProfile} records logged by the controller
+ * (LOGGING_LEVEL >= 2).
+ */
+final class VM_SubArchMigrationModel {
+
+  /** Time, in milliseconds, the main arch takes per bytecode executed */
+  static final double MILLIS_PER_BYTECODE = 0.00001;
+
+  /** Iterations we assume each loop makes per call */
+  static final int ASSUMED_TRIP_COUNT = 100;
+
+  /** Bytes of working set the subarch can fetch per millisecond */
+  static final double DMA_BYTES_PER_MILLI = 1.0e7;
+
+  /**
+   * Estimated time per call of the method on the main arch.
+   *
+   * @param s the method's suitability
+   * @return milliseconds
+   */
+  static double timePerCall(VM_SubArchSuitability s) {
+    return s.bytecodeLength * (1.0 + (double) s.backwardBranches * ASSUMED_TRIP_COUNT) * MILLIS_PER_BYTECODE;
+  }
+
+  /**
+   * Estimated future time if calls to the method are migrated.
+   *
+   * @param futureTime the time expected in the method if nothing is done
+   * @param s the method's suitability
+   * @param maxSpeedup the speedup on the subarch for fully suitable code
+   * @param migrationCost the fixed cost, in milliseconds, of one migration
+   * @return the expected time, in milliseconds, including migration costs
+   */
+  static double futureTimeOnSubArch(double futureTime, VM_SubArchSuitability s, double maxSpeedup,
+                                    double migrationCost) {
+    double speedup = 1.0 + (maxSpeedup - 1.0) * s.score();
+    double calls = futureTime / timePerCall(s);
+    double costPerCall = migrationCost + s.workingSet / DMA_BYTES_PER_MILLI;
+    return futureTime / speedup + calls * costPerCall;
+  }
+
+  /**
+   * Should calls to the method be migrated?
+   *
+   * @param futureTime the time expected in the method if nothing is done
+   * @param s the method's suitability
+   * @param maxSpeedup the speedup on the subarch for fully suitable code
+   * @param migrationCost the fixed cost, in milliseconds, of one migration
+   * @return true if migrating is expected to save time
+   */
+  static boolean shouldMigrate(double futureTime, VM_SubArchSuitability s, double maxSpeedup,
+                               double migrationCost) {
+    if (s.rejection != null || s.score() == 0.0) return false;
+    return futureTimeOnSubArch(futureTime, s, maxSpeedup, migrationCost) < futureTime;
+  }
+}
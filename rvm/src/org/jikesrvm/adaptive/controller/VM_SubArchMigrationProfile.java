@@ -0,0 +1,143 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.controller;
+
+import org.jikesrvm.classloader.VM_Method;
+
+/**
+ * Everything {@link VM_SubArchMigrationModel} is given when the controller
+ * considers migrating calls to a hot method.  The controller logs one of
+ * these (LOGGING_LEVEL >= 2) for each decision it makes; {@link #parse}
+ * reads the record back, from a line of the log, so that the decision can
+ * be replayed, for example after changing the model.
+ *
+ * <p> A record is a single line of space separated <code>key=value</code>
+ * fields, introduced by {@link #TAG}:
+ * <pre>
+ * subarch-profile method=LFoo;.bar(I)V futureTime=120.0 speedup=4.0 cost=0.1 length=64 loops=2 mainArchCalls=0 allocations=0 workingSet=1032
+ * </pre>
+ * Anything following the last field is ignored.
+ */
+public final class VM_SubArchMigrationProfile {
+
+  /** Introduces a record */
+  public static final String TAG = "subarch-profile";
+
+  /** The field keys, in the order they are written */
+  private static final String[] KEYS = {
+      "method", "futureTime", "speedup", "cost", "length", "loops", "mainArchCalls", "allocations", "workingSet"
+  };
+
+  /** The hot method, as class descriptor, name and descriptor */
+  private final String method;
+  /** The time expected in the method if nothing is done */
+  private final double futureTime;
+  /** The speedup on the subarch for fully suitable code */
+  private final double maxSpeedup;
+  /** The fixed cost, in milliseconds, of one migration */
+  private final double migrationCost;
+  /** The method's suitability for the subarch */
+  private final VM_SubArchSuitability suitability;
+
+  VM_SubArchMigrationProfile(String method, double futureTime, double maxSpeedup, double migrationCost,
+                             VM_SubArchSuitability suitability) {
+    this.method = method;
+    this.futureTime = futureTime;
+    this.maxSpeedup = maxSpeedup;
+    this.migrationCost = migrationCost;
+    this.suitability = suitability;
+  }
+
+  /**
+   * @param m a method
+   * @return the name of the method as it appears in a record
+   */
+  static String methodName(VM_Method m) {
+    return m.getDeclaringClass().getDescriptor() + "." + m.getName() + m.getDescriptor();
+  }
+
+  /**
+   * @return the hot method, as class descriptor, name and descriptor
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * @return the model's estimate of the future time if calls to the
+   * method are migrated
+   */
+  public double futureTimeOnSubArch() {
+    return VM_SubArchMigrationModel.futureTimeOnSubArch(futureTime, suitability, maxSpeedup, migrationCost);
+  }
+
+  /**
+   * @return the model's decision
+   */
+  public boolean shouldMigrate() {
+    return VM_SubArchMigrationModel.shouldMigrate(futureTime, suitability, maxSpeedup, migrationCost);
+  }
+
+  /**
+   * @return the record, as written to the log
+   */
+  public String toString() {
+    return TAG +
+           " method=" + method +
+           " futureTime=" + futureTime +
+           " speedup=" + maxSpeedup +
+           " cost=" + migrationCost +
+           " length=" + suitability.bytecodeLength +
+           " loops=" + suitability.backwardBranches +
+           " mainArchCalls=" + suitability.mainArchCalls +
+           " allocations=" + suitability.allocations +
+           " workingSet=" + suitability.workingSet;
+  }
+
+  /**
+   * Read a record.
+   *
+   * @param line a line holding a record, such as a line of the AOS log
+   * @return the record
+   * @throws IllegalArgumentException if the line holds no well formed record
+   */
+  public static VM_SubArchMigrationProfile parse(String line) {
+    int start = line.indexOf(TAG + " ");
+    if (start < 0) throw new IllegalArgumentException("no " + TAG + " in: " + line);
+    String[] fields = line.substring(start + TAG.length() + 1).split(" ");
+    if (fields.length < KEYS.length) throw new IllegalArgumentException("truncated " + TAG + ": " + line);
+    String[] values = new String[KEYS.length];
+    for (int i = 0; i < KEYS.length; i++) {
+      if (!fields[i].startsWith(KEYS[i] + "=")) {
+        throw new IllegalArgumentException("expected " + KEYS[i] + " but found " + fields[i]);
+      }
+      values[i] = fields[i].substring(KEYS[i].length() + 1);
+    }
+    try {
+      VM_SubArchSuitability s =
+          new VM_SubArchSuitability(null,
+                                    Integer.parseInt(values[4]),
+                                    Integer.parseInt(values[5]),
+                                    Integer.parseInt(values[6]),
+                                    Integer.parseInt(values[7]),
+                                    Integer.parseInt(values[8]));
+      return new VM_SubArchMigrationProfile(values[0],
+                                            Double.parseDouble(values[1]),
+                                            Double.parseDouble(values[2]),
+                                            Double.parseDouble(values[3]),
+                                            s);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("bad number in " + TAG + ": " + line);
+    }
+  }
+}
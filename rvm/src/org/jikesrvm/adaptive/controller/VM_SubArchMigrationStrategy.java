@@ -0,0 +1,86 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.controller;
+
+import org.jikesrvm.adaptive.util.VM_AOSLogging;
+import org.jikesrvm.cellspu.VM_SubArchBootRecord;
+import org.jikesrvm.classloader.VM_Method;
+import org.jikesrvm.compilers.common.VM_CompiledMethod;
+import org.jikesrvm.util.VM_HashMap;
+
+/**
+ * Chooses hot methods whose calls should be migrated to the subarch, as
+ * methods annotated with RunOnSubArch are.  A chosen method becomes a
+ * migration point for code compiled from then on; its baseline compiled
+ * callers in the dynamic call graph are reset so that they are recompiled,
+ * with the migration, on their next invocation.
+ *
+ * <p> Only the baseline compiler (and only on PPC) emits a migration at a
+ * call to a migration point, so opt compiled callers, which are usually
+ * the hot ones, keep calling the method on the main arch.  They are left
+ * alone rather than reset, as recompiling them with the baseline compiler
+ * to gain the migration would lose their optimizations; the number of
+ * them is logged with each migration so the effect can be judged.
+ */
+final class VM_SubArchMigrationStrategy {
+
+  /** Suitability of the methods considered so far */
+  private static final VM_HashMap<VM_Method, VM_SubArchSuitability> suitability =
+      new VM_HashMap<VM_Method, VM_SubArchSuitability>();
+
+  /**
+   * Consider migrating calls to a hot method.  Called by the controller
+   * thread only.
+   *
+   * @param hme the event saying the method is hot
+   */
+  static void considerHotMethod(VM_HotMethodEvent hme) {
+    if (!VM_Controller.options.SUBARCH_MIGRATION || !VM_SubArchBootRecord.isSubArchStarted()) return;
+    VM_Method m = hme.getMethod();
+    if (m.isSubArchMigrationPoint()) return;
+
+    VM_SubArchSuitability s = suitability.get(m);
+    if (s == null) {
+      s = VM_SubArchSuitability.analyze(m);
+      suitability.put(m, s);
+    }
+    if (s.rejection != null) return;
+
+    VM_SubArchMigrationProfile profile =
+        new VM_SubArchMigrationProfile(VM_SubArchMigrationProfile.methodName(m),
+                                       VM_AnalyticModel.futureTimeForSamples(hme.getNumSamples()),
+                                       VM_Controller.options.SUBARCH_SPEEDUP,
+                                       VM_Controller.options.SUBARCH_MIGRATION_COST,
+                                       s);
+    VM_AOSLogging.recordSubArchMigrationProfile(profile);
+    if (!profile.shouldMigrate()) return;
+
+    m.selectForSubArchMigration();
+    int reset = 0;
+    int optCallers = 0;
+    if (VM_Controller.dcg != null) {
+      for (VM_Method caller : VM_Controller.dcg.getCallers(m)) {
+        VM_CompiledMethod cm = caller.getCurrentCompiledMethod(false);
+        if (cm == null) continue;
+        if (cm.getCompilerType() == VM_CompiledMethod.BASELINE) {
+          // its next invocation compiles it again, with the migration
+          caller.replaceCompiledMethod(null, false);
+          reset++;
+        } else if (cm.getCompilerType() == VM_CompiledMethod.OPT) {
+          optCallers++;
+        }
+      }
+    }
+    VM_AOSLogging.subArchMigrationSelected(m, reset, optCallers);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.controller;
+
+import java.util.HashSet;
+import org.jikesrvm.classloader.VM_BytecodeConstants;
+import org.jikesrvm.classloader.VM_BytecodeStream;
+import org.jikesrvm.classloader.VM_FieldReference;
+import org.jikesrvm.classloader.VM_Method;
+import org.jikesrvm.classloader.VM_MethodReference;
+import org.jikesrvm.classloader.VM_NormalMethod;
+
+/**
+ * A static summary of how well a method's bytecodes suit the subarch, used
+ * by {@link VM_SubArchMigrationModel}.  Loops make a method a good
+ * candidate: the cost of migrating is paid once per call, the speedup on
+ * every iteration.  Calls to native code or I/O classes make it a poor one,
+ * as they must run on the main arch, and so does a working set too large
+ * for local store.
+ *
+ * <p> The summary is plain data, so it can be built from recorded numbers
+ * as well as from a method.
+ */
+final class VM_SubArchSuitability implements VM_BytecodeConstants {
+
+  /** Local store we assume is free for a migrated method's data, in bytes */
+  static final int LOCAL_STORE_BUDGET = 64 * 1024;
+
+  /** Bytes of working set we assume for each array accessed */
+  private static final int BYTES_PER_ARRAY_ACCESS = 1024;
+
+  /** Why the method can't be migrated at all, null if it can */
+  final String rejection;
+  /** Length of the bytecodes */
+  final int bytecodeLength;
+  /** Number of backward branches, ie loops */
+  final int backwardBranches;
+  /** Number of calls to native methods or to I/O classes */
+  final int mainArchCalls;
+  /** Number of allocation sites */
+  final int allocations;
+  /** Estimated bytes of data the method touches */
+  final int workingSet;
+
+  VM_SubArchSuitability(String rejection, int bytecodeLength, int backwardBranches, int mainArchCalls,
+                        int allocations, int workingSet) {
+    this.rejection = rejection;
+    this.bytecodeLength = bytecodeLength;
+    this.backwardBranches = backwardBranches;
+    this.mainArchCalls = mainArchCalls;
+    this.allocations = allocations;
+    this.workingSet = workingSet;
+  }
+
+  /**
+   * @return a score between 0 (no gain expected on the subarch) and 1
+   * (the full subarch speedup expected)
+   */
+  double score() {
+    if (rejection != null || backwardBranches == 0) return 0.0;
+    double score = 1.0;
+    // each trip back to the main arch is a long stall
+    for (int i = 0; i < mainArchCalls; i++) score *= 0.5;
+    // allocation needs the main arch's allocator slow paths
+    for (int i = 0; i < allocations; i++) score *= 0.9;
+    if (workingSet > LOCAL_STORE_BUDGET) {
+      score *= (double) LOCAL_STORE_BUDGET / workingSet;
+    }
+    return score;
+  }
+
+  public String toString() {
+    if (rejection != null) return "unsuitable (" + rejection + ")";
+    return "length " + bytecodeLength + " loops " + backwardBranches + " main arch calls " + mainArchCalls +
+           " allocations " + allocations + " working set " + workingSet;
+  }
+
+  /**
+   * Analyze a method.
+   *
+   * @param m the method
+   * @return its suitability for the subarch
+   */
+  static VM_SubArchSuitability analyze(VM_Method m) {
+    if (!m.isStatic()) return reject("not static");
+    if (!(m instanceof VM_NormalMethod)) return reject("no bytecodes");
+    if (m.isSynchronized()) return reject("synchronized");
+    if (!m.isCompilableForSubArch()) return reject("not compilable for the subarch");
+    if (m.isClassInitializer()) return reject("class initializer");
+    if (m.getDeclaringClass().isInBootImage()) return reject("in the boot image");
+
+    VM_NormalMethod nm = (VM_NormalMethod) m;
+    int backwardBranches = 0;
+    int mainArchCalls = 0;
+    int allocations = 0;
+    int arrayAccesses = 0;
+    int fieldBytes = 0;
+    HashSet<VM_FieldReference> fields = new HashSet<VM_FieldReference>();
+
+    VM_BytecodeStream bcodes = nm.getBytecodes();
+    while (bcodes.hasMoreBytecodes()) {
+      int index = bcodes.index();
+      int opcode = bcodes.nextInstruction();
+      switch (opcode) {
+        case JBC_ifeq: case JBC_ifne: case JBC_iflt: case JBC_ifge: case JBC_ifgt: case JBC_ifle:
+        case JBC_if_icmpeq: case JBC_if_icmpne: case JBC_if_icmplt: case JBC_if_icmpge:
+        case JBC_if_icmpgt: case JBC_if_icmple: case JBC_if_acmpeq: case JBC_if_acmpne:
+        case JBC_ifnull: case JBC_ifnonnull: case JBC_goto: case JBC_jsr:
+          if (bcodes.getBranchOffset() < 0) backwardBranches++;
+          break;
+        case JBC_goto_w: case JBC_jsr_w:
+          if (bcodes.getWideBranchOffset() < 0) backwardBranches++;
+          break;
+        case JBC_getstatic: case JBC_putstatic: case JBC_getfield: case JBC_putfield: {
+          VM_FieldReference fr = bcodes.getFieldReference();
+          if (fields.add(fr)) fieldBytes += fr.getFieldContentsType().getMemoryBytes();
+          break;
+        }
+        case JBC_invokevirtual: case JBC_invokespecial: case JBC_invokestatic: case JBC_invokeinterface: {
+          VM_MethodReference mr = bcodes.getMethodReference();
+          if (opcode == JBC_invokeinterface) bcodes.alignInvokeInterface();
+          if (runsOnMainArch(mr)) mainArchCalls++;
+          break;
+        }
+        case JBC_monitorenter:
+          return reject("synchronizes at bytecode " + index);
+        case JBC_new: case JBC_newarray: case JBC_anewarray: case JBC_multianewarray:
+          allocations++;
+          bcodes.skipInstruction();
+          break;
+        default:
+          if ((opcode >= JBC_iaload && opcode <= JBC_saload) || (opcode >= JBC_iastore && opcode <= JBC_sastore)) {
+            arrayAccesses++;
+          }
+          bcodes.skipInstruction();
+          break;
+      }
+    }
+    return new VM_SubArchSuitability(null, nm.getBytecodeLength(), backwardBranches, mainArchCalls, allocations,
+                                     fieldBytes + arrayAccesses * BYTES_PER_ARRAY_ACCESS);
+  }
+
+  private static VM_SubArchSuitability reject(String reason) {
+    return new VM_SubArchSuitability(reason, 0, 0, 0, 0, 0);
+  }
+
+  /** Does a call have to be made on the main arch? */
+  private static boolean runsOnMainArch(VM_MethodReference mr) {
+    VM_Method target = mr.peekResolvedMethod(false);
+    if (target != null && (target.isNative() || !target.isCompilableForSubArch())) return true;
+    String cls = mr.getType().getName().toString();
+    return cls.startsWith("Ljava/io/") || cls.startsWith("Ljava/nio/") || cls.startsWith("Ljava/net/") ||
+           cls.startsWith("Lgnu/java/nio/") || cls.startsWith("Lgnu/java/net/");
+  }
+}
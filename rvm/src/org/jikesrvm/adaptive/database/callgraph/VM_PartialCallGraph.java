@@ -18,6 +18,8 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.TreeSet;
 import org.jikesrvm.ArchitectureSpecific.VM_CodeArray;
 import org.jikesrvm.VM;
@@ -210,6 +212,22 @@ public final class VM_PartialCallGraph implements VM_Decayable, VM_Reportable {
     totalEdgeWeights += weight;
   }
 
+  /**
+   * @param callee a method
+   * @return the methods with an edge to callee
+   */
+  public synchronized HashSet<VM_Method> getCallers(final VM_Method callee) {
+    final HashSet<VM_Method> callers = new HashSet<VM_Method>();
+    for (final Map.Entry<VM_CallSite, VM_WeightedCallTargets> e : callGraph.entrySet()) {
+      e.getValue().visitTargets(new VM_WeightedCallTargets.Visitor() {
+        public void visit(VM_Method target, double weight) {
+          if (target == callee) callers.add(e.getKey().getMethod());
+        }
+      });
+    }
+    return callers;
+  }
+
   /**
    * Dump out set of edges in sorted order.
    */
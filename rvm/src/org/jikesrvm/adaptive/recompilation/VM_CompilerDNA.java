@@ -22,6 +22,7 @@ import org.jikesrvm.adaptive.controller.VM_Controller;
 import org.jikesrvm.adaptive.util.VM_AOSLogging;
 import org.jikesrvm.classloader.VM_NormalMethod;
 import org.jikesrvm.compilers.common.VM_RuntimeCompiler;
+import org.jikesrvm.compilers.opt.OPT_Options;
 
 /**
  * This class codifies the cost/benefit properties of the various compilers
@@ -38,11 +39,18 @@ import org.jikesrvm.compilers.common.VM_RuntimeCompiler;
  */
 public class VM_CompilerDNA implements VM_Constants {
 
-  private static final String[] compilerNames = {"Baseline", "Opt0", "Opt1", "Opt2"};
+  private static final String[] compilerNames = {"Baseline", "OptFast", "Opt0", "Opt1", "Opt2"};
   public static final int BASELINE = 0;
-  static final int OPT0 = 1;
-  static final int OPT1 = 2;
-  static final int OPT2 = 3;
+  static final int OPT_FAST = 1;
+  static final int OPT0 = 2;
+  static final int OPT1 = 3;
+  static final int OPT2 = 4;
+
+  /**
+   * The value returned by {@link #getOptLevel} for the baseline compiler.
+   * It must be below every opt level, including the fast tier's.
+   */
+  public static final int BASELINE_OPT_LEVEL = OPT_Options.FAST_OPT_LEVEL - 1;
 
   /**
    *  The number of compilers available
@@ -53,15 +61,19 @@ public class VM_CompilerDNA implements VM_Constants {
    * Average bytecodes compiled per millisecond.
    * These numbers were measured on July 1, 2007 on excalibur (AIX/PPC)
    * and July 1, 2007 on legato (Linux/IA32) using unweighted compilation rate.
+   * The fast tier's rates are estimates (roughly 4x O0) until they are
+   * measured on the same machines.
    */
   private static final double[] compilationRates;
 
   static {
     if (VM.BuildForPowerPC) {
       compilationRates = new double[]{525.53,             // base
+                                      61.12,              // opt fast
                                       15.28, 7.74, 7.68}; // opt 0...2
     } else if (VM.BuildForIA32) {
       compilationRates = new double[]{1246.22,              // base
+                                      120.12,               // opt fast
                                       30.03, 14.60, 14.59}; // opt 0...2
     } else {
       if (VM.VerifyAssertions) VM._assert(NOT_REACHED);
@@ -79,9 +91,11 @@ public class VM_CompilerDNA implements VM_Constants {
   static {
     if (VM.BuildForPowerPC) {
       speedupRates = new double[]{1.00,               // base
+                                  4.93,               // opt fast
                                   8.22, 13.25, 13.26};  // opt 0...2
     } else if (VM.BuildForIA32) {
       speedupRates = new double[]{1.00,               // base
+                                  3.40,               // opt fast
                                   4.86, 6.39, 6.40};  // opt 0...2
     } else {
       if (VM.VerifyAssertions) VM._assert(NOT_REACHED);
@@ -223,7 +237,7 @@ public class VM_CompilerDNA implements VM_Constants {
 
       LineNumberReader in = new LineNumberReader(new FileReader(filename));
 
-      // Expected Format
+      // Expected Format (one value per compiler: Baseline, OptFast, Opt0, Opt1, Opt2)
       //   CompilationRates  aaa.a  bbbb.b cccc.c dddd.d ....
       //   SpeedupRates      aaa.a  bbbb.b cccc.c dddd.d ....
       processOneLine(in, "CompilationRates", compilationRates);
@@ -279,7 +293,9 @@ public class VM_CompilerDNA implements VM_Constants {
   public static int getOptLevel(int compiler) {
     switch (compiler) {
       case BASELINE:
-        return -1;
+        return BASELINE_OPT_LEVEL;
+      case OPT_FAST:
+        return OPT_Options.FAST_OPT_LEVEL;
       case OPT0:
         return 0;
       case OPT1:
@@ -308,6 +324,8 @@ public class VM_CompilerDNA implements VM_Constants {
    */
   public static int getCompilerConstant(int optLevel) {
     switch (optLevel) {
+      case OPT_Options.FAST_OPT_LEVEL:
+        return OPT_FAST;
       case 0:
         return OPT0;
       case 1:
@@ -20,6 +20,7 @@ import org.jikesrvm.adaptive.controller.VM_Controller;
 import org.jikesrvm.adaptive.controller.VM_ControllerMemory;
 import org.jikesrvm.adaptive.controller.VM_ControllerPlan;
 import org.jikesrvm.adaptive.controller.VM_HotMethodEvent;
+import org.jikesrvm.adaptive.controller.VM_SubArchMigrationProfile;
 import org.jikesrvm.adaptive.database.callgraph.VM_CallSite;
 import org.jikesrvm.adaptive.recompilation.VM_CompilerDNA;
 import org.jikesrvm.classloader.VM_Method;
@@ -28,6 +29,7 @@ import org.jikesrvm.classloader.VM_NormalMethod;
 import org.jikesrvm.compilers.common.VM_CompiledMethod;
 import org.jikesrvm.compilers.common.VM_RuntimeCompiler;
 import org.jikesrvm.compilers.opt.OPT_CompilationPlan;
+import org.jikesrvm.compilers.opt.OPT_PhaseTelemetry;
 import org.jikesrvm.runtime.VM_Time;
 import org.jikesrvm.scheduler.VM_Scheduler;
 import org.jikesrvm.scheduler.VM_Thread;
@@ -250,6 +252,7 @@ public class VM_AOSLogging {
       int didNothing = VM_ControllerMemory.getNumDidNothing();
       int numMethodsConsidered = VM_ControllerMemory.getNumMethodsConsidered();
       int numMethodsScheduledForRecomp = VM_ControllerMemory.getNumMethodsScheduledForRecomp();
+      int numOptFast = VM_ControllerMemory.getNumOptFast();
       int numOpt0 = VM_ControllerMemory.getNumOpt0();
       int numOpt1 = VM_ControllerMemory.getNumOpt1();
       int numOpt2 = VM_ControllerMemory.getNumOpt2();
@@ -272,7 +275,11 @@ public class VM_AOSLogging {
                   " (" +
                   ((int) ((float) numMethodsScheduledForRecomp / numMethodsConsidered * 100)) +
                   "%)\n  Opt Levels Chosen: " +
-                  "\n\t Opt Level 0: " +
+                  "\n\t Opt Level Fast: " +
+                  numOptFast +
+                  " (" +
+                  ((int) ((float) numOptFast / numMethodsScheduledForRecomp * 100)) +
+                  "%)\n\t Opt Level 0: " +
                   numOpt0 +
                   " (" +
                   ((int) ((float) numOpt0 / numMethodsScheduledForRecomp * 100)) +
@@ -554,6 +561,44 @@ public class VM_AOSLogging {
     }
   }
 
+  /**
+   * Should opt compilations record per-phase telemetry for
+   * {@link #recordOptPhases}?
+   */
+  public static boolean logOptPhases() {
+    return booted && log != null && VM_Controller.options.LOG_OPT_PHASES;
+  }
+
+  /**
+   * This method logs one record per opt compilation followed by one
+   * record per compiler phase executed.  Fields are tab separated
+   * key=value pairs so the log can be post-processed to find the methods
+   * and phases that dominate compile time.
+   * @param plan the plan that was executed, carrying its phase telemetry
+   * @param cm the resulting compiled method
+   */
+  public static void recordOptPhases(OPT_CompilationPlan plan, VM_CompiledMethod cm) {
+    OPT_PhaseTelemetry telemetry = plan.phaseTelemetry;
+    if (telemetry == null || !logOptPhases()) return;
+    synchronized (log) {
+      log.println(getTime() +
+                  " OptCompile\tmethod=" + plan.method +
+                  "\tlevel=" + plan.options.getOptLevel() +
+                  "\tbytecodes=" + plan.method.getBytecodeLength() +
+                  "\tmachinecode=" + cm.numberOfInstructions() +
+                  "\tms=" + cm.getCompilationTime() +
+                  "\tphases=" + telemetry.size());
+      for (int i = 0; i < telemetry.size(); i++) {
+        log.println(getTime() +
+                    " OptPhase\tmethod=" + plan.method +
+                    "\tphase=" + telemetry.getName(i) +
+                    "\tirBefore=" + telemetry.getInstructionsBefore(i) +
+                    "\tirAfter=" + telemetry.getInstructionsAfter(i) +
+                    "\tns=" + telemetry.getNanos(i));
+      }
+    }
+  }
+
   /**
    * this method logs the event when the controller discovers a method that has
    * been recompiled and the previous version is still regarded as hot,
@@ -676,7 +721,7 @@ public class VM_AOSLogging {
     if (VM_Controller.options.LOGGING_LEVEL >= 3) {
       synchronized (log) {
         log.print(getTime() + "  Estimated cost of doing nothing (leaving at ");
-        if (optLevel == -1) {
+        if (optLevel == VM_CompilerDNA.BASELINE_OPT_LEVEL) {
           log.print("baseline");
         } else {
           log.print("O" + optLevel);
@@ -763,6 +808,37 @@ public class VM_AOSLogging {
   // OSR-related code
   ////////////////////////////////////////////////////////////////
 
+  /**
+   * This method logs the inputs to, and result of, the controller's
+   * estimate of migrating calls to a hot method to the subarch.  The
+   * record can be read back with VM_SubArchMigrationProfile.parse.
+   * @param profile the inputs to the estimate
+   */
+  public static void recordSubArchMigrationProfile(VM_SubArchMigrationProfile profile) {
+    if (VM_Controller.options.LOGGING_LEVEL >= 2) {
+      synchronized (log) {
+        log.println(getTime() + "  " + profile + " estimate " + profile.futureTimeOnSubArch() +
+                    (profile.shouldMigrate() ? " migrate" : " stay"));
+      }
+    }
+  }
+
+  /**
+   * This method logs the decision to migrate calls to a method to the subarch
+   * @param method the method
+   * @param callersReset the number of baseline compiled callers reset to be recompiled
+   * @param optCallers the number of opt compiled callers, which keep calling
+   *                   the method on the main arch
+   */
+  public static void subArchMigrationSelected(VM_Method method, int callersReset, int optCallers) {
+    if (VM_Controller.options.LOGGING_LEVEL >= 1) {
+      synchronized (log) {
+        log.println(getTime() + " Migrating calls to " + method + " to the subarch (" + callersReset +
+                    " callers reset, " + optCallers + " opt compiled callers not migrating)");
+      }
+    }
+  }
+
   /**
    * This method logs the successful completion of an adaptively
    * selected recompilation
@@ -0,0 +1,99 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.jikesrvm.VM;
+import org.jikesrvm.adaptive.controller.VM_Controller;
+import org.jikesrvm.classloader.VM_BytecodeConstants;
+import org.jikesrvm.classloader.VM_BytecodeStream;
+import org.jikesrvm.classloader.VM_Field;
+import org.jikesrvm.classloader.VM_FieldReference;
+import org.jikesrvm.classloader.VM_Method;
+import org.jikesrvm.classloader.VM_NormalMethod;
+import org.jikesrvm.compilers.common.VM_CompiledMethod;
+import org.jikesrvm.compilers.common.VM_CompiledMethods;
+import org.jikesrvm.objectmodel.VM_FieldLayoutAdvice;
+
+/**
+ * Writes a field layout advice file (see {@link VM_FieldLayoutAdvice}) from
+ * the method samples taken by the adaptive system.  Each getfield and
+ * putfield in a sampled method is credited with the method's samples, which
+ * estimates how often each field is accessed without instrumenting the
+ * accesses themselves.
+ */
+public final class VM_FieldLayoutAdviceGenerator implements VM_BytecodeConstants {
+
+  /**
+   * Write the advice file named by -X:aos:field_layout_advice_file_output,
+   * if any.
+   */
+  public static void report() {
+    String file = VM_Controller.options.FIELD_LAYOUT_ADVICE_FILE_OUTPUT;
+    if (file == null) return;
+
+    HashMap<VM_Field, Double> counts = new HashMap<VM_Field, Double>();
+    for (int cmid = 1; cmid < VM_CompiledMethods.numCompiledMethods(); cmid++) {
+      VM_CompiledMethod cm = VM_CompiledMethods.getCompiledMethod(cmid);
+      if (cm == null) continue;
+      VM_Method m = cm.getMethod();
+      if (!(m instanceof VM_NormalMethod)) continue;
+      double samples = VM_Controller.methodSamples.getData(cmid);
+      if (samples <= 0.0) continue;
+      countFieldAccesses((VM_NormalMethod) m, samples, counts);
+    }
+
+    try {
+      PrintStream out = new PrintStream(new FileOutputStream(file));
+      try {
+        out.println("# field access counts estimated from method samples");
+        for (Map.Entry<VM_Field, Double> e : counts.entrySet()) {
+          int count = (int) Math.ceil(e.getValue());
+          VM_FieldLayoutAdvice.writeAdvice(out, e.getKey(), count);
+        }
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      VM.sysWriteln("AOS: error writing field layout advice ", file, ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Credit each instance field accessed by a method with its samples.
+   *
+   * @param m the method
+   * @param samples the samples taken in the method
+   * @param counts the counts for each field so far
+   */
+  private static void countFieldAccesses(VM_NormalMethod m, double samples, HashMap<VM_Field, Double> counts) {
+    VM_BytecodeStream bcodes = m.getBytecodes();
+    while (bcodes.hasMoreBytecodes()) {
+      int opcode = bcodes.nextInstruction();
+      if (opcode == JBC_getfield || opcode == JBC_putfield) {
+        VM_FieldReference fr = bcodes.getFieldReference();
+        VM_Field field = fr.peekResolvedField(false);
+        if (field != null) {
+          Double old = counts.get(field);
+          counts.put(field, old == null ? samples : old + samples);
+        }
+      } else {
+        bcodes.skipInstruction();
+      }
+    }
+  }
+}
@@ -32,6 +32,7 @@ public interface VM_ArchConstants extends VM_StackframeLayoutConstants, VM_Regis
 	public static final int STATIC_CACHE_READ_TAG_GROUP = 0x1;
 	public static final int OBJECT_CACHE_READ_TAG_GROUP = 0x2;
 	public static final int OBJECT_CACHE_WRITE_TAG_GROUP= 0x3;
+	public static final int ARRAY_PREFETCH_TAG_GROUP    = 0x4;
 	public static final int PROXY_TAG_GROUP             = 0xf;
 	
 	public static final int LOG_ARRAY_BLOCK_ENTRIES       = 8;
@@ -44,18 +45,29 @@ public interface VM_ArchConstants extends VM_StackframeLayoutConstants, VM_Regis
 	// 0x0
 	public static final int RUNTIME_CODE_START  		  = 0x0;
 	
-	public static final int TRAP_ENTRYPOINT						= 0x680;
-	// 0x400
-	public static final int CODE_ENTRYPOINT     		  = 0x700;
+	public static final int TRAP_ENTRYPOINT						= 0x1080;
+	// 0x1100
+	public static final int CODE_ENTRYPOINT     		  = 0x1100;
 	
-	// 0x1000
-	public static final int OBJECT_CACHE_TABLE  			= 0x1000;
+	// 0x1800
+	public static final int OBJECT_CACHE_TABLE  			= 0x1800;
 	public static final int OBJECT_CACHE_TABLE_LENGTH = 0x400 << LOG_BYTES_IN_DOUBLE;
 	public static final int OBJECT_CACHE_TABLE_END    = OBJECT_CACHE_TABLE + OBJECT_CACHE_TABLE_LENGTH;
 	
-	// 0x3000
-	public static final int CODE_CACHE_START    		  = OBJECT_CACHE_TABLE_END;
-	public static final int CODE_CACHE_LENGTH   		  = 0xD000;
+	// 0x3800
+	// one entry per cached method: its main address, local start and end, and
+	// the number of slots recorded, then up to four slots pointing at the code
+	public static final int CODE_CACHE_TABLE          = OBJECT_CACHE_TABLE_END;
+	public static final int LOG_CODE_CACHE_ENTRY_SIZE = 5;
+	public static final int CODE_CACHE_ENTRY_SIZE     = 0x1 << LOG_CODE_CACHE_ENTRY_SIZE;
+	public static final int CODE_CACHE_ENTRY_SLOTS    = 4;
+	public static final int CODE_CACHE_TABLE_ENTRIES  = 128;
+	public static final int CODE_CACHE_TABLE_LENGTH   = CODE_CACHE_TABLE_ENTRIES << LOG_CODE_CACHE_ENTRY_SIZE;
+	public static final int CODE_CACHE_TABLE_END      = CODE_CACHE_TABLE + CODE_CACHE_TABLE_LENGTH;
+	
+	// 0x4800
+	public static final int CODE_CACHE_START    		  = CODE_CACHE_TABLE_END;
+	public static final int CODE_CACHE_LENGTH   		  = 0xB800;
 	public static final int CODE_CACHE_END	    		 	= CODE_CACHE_START + CODE_CACHE_LENGTH;
 
 	// 0x10000
@@ -80,24 +92,32 @@ public interface VM_ArchConstants extends VM_StackframeLayoutConstants, VM_Regis
 	
 	// 0x36000
 	public static final int STATICS_TOC               = JTOC_TABLE_END;
-	public static final int STATICS_TOC_LENGTH        = 0x1000;
+	public static final int STATICS_TOC_LENGTH        = VM_SubArchStatics.MAX_CLASSES << (LOG_BYTES_IN_INT + 1);
 	public static final int STATICS_TOC_END           = STATICS_TOC + STATICS_TOC_LENGTH;
 
 	// 0x37000
 	public static final int TIB_TABLE                 = STATICS_TOC_END;
-	public static final int TIB_TABLE_LENGTH          = 0x800;
+	public static final int TIB_TABLE_LENGTH          = VM_SubArchStatics.MAX_CLASSES << LOG_BYTES_IN_INT;
 	public static final int TIB_TABLE_END             = TIB_TABLE + TIB_TABLE_LENGTH;
 
 	//0x37800
 	public static final int SIZE_STATICS_TABLE        = TIB_TABLE_END;
-	public static final int SIZE_STATICS_TABLE_LENGTH = 0x800;
+	public static final int SIZE_STATICS_TABLE_LENGTH = VM_SubArchStatics.MAX_CLASSES << LOG_BYTES_IN_INT;
 	public static final int SIZE_STATICS_TABLE_END    = SIZE_STATICS_TABLE + SIZE_STATICS_TABLE_LENGTH;
 	
 	// 0x38000
 	public static final int ATOMIC_CACHE_LINE					= SIZE_STATICS_TABLE_END;
 	public static final int ATOMIC_CACHE_LINE_LENTH   = 128;  // size of cache line
 	public static final int ATOMIC_CACHE_LINE_END     = ATOMIC_CACHE_LINE + ATOMIC_CACHE_LINE_LENTH;
+	
 	// 0x38080
+	// one entry per cached static block: its JTOC offset, local start and end,
+	// and main memory address
+	public static final int STATICS_CACHE_TABLE         = ATOMIC_CACHE_LINE_END;
+	public static final int STATICS_CACHE_TABLE_ENTRIES = 128;
+	public static final int STATICS_CACHE_TABLE_LENGTH  = STATICS_CACHE_TABLE_ENTRIES << LOG_BYTES_IN_QUAD;
+	public static final int STATICS_CACHE_TABLE_END     = STATICS_CACHE_TABLE + STATICS_CACHE_TABLE_LENGTH;
+	// 0x38880
 	
 	// 0x39800
 	public static final int STACK_END									= 0x40000 - STACK_SIZE_NORMAL;
@@ -28,4 +28,7 @@ public interface VM_ChannelConstants {
 	public static final int MFC_PUTLLC_OPCODE				 = 0xB4;
 	public static final int MFC_PUTLLUC_OPCODE			 = 0xB0;
 	public static final int MFC_PUTQLLUC_OPCODE			 = 0xB8;
+	
+	/** largest transfer a single MFC command can make */
+	public static final int MFC_MAX_TRANSFER_SIZE    = 0x4000;
 }
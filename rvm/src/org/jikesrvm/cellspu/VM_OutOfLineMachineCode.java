@@ -52,25 +52,46 @@ public abstract class VM_OutOfLineMachineCode
     implements VM_BaselineConstants, VM_AssemblerConstants {
 	
 	private static Offset codeCacheNextOff   = null;
-	private static Offset codeCacheEndOff    = null;
+	// the oldest entry in the code cache table, as a byte offset, and the number of entries
+	private static Offset codeCacheHeadOff   = null;
+	private static Offset codeCacheCountOff  = null;
+	// number of methods loaded into and evicted from the code cache
+	public static Offset codeCacheLoadsOff     = null;
+	public static Offset codeCacheEvictionsOff = null;
 	private static Offset objectCacheNextOff = null;
 	private static Offset objectCacheEndOff  = null;
 	private static Offset staticCacheNextOff = null;
-	private static Offset staticCacheEndOff  = null;
+	// the oldest entry in the statics cache table, as a byte offset, and the number of entries
+	private static Offset staticCacheHeadOff = null;
+	private static Offset staticCacheCountOff= null;
+	// number of static blocks loaded into and evicted from the statics cache
+	public static Offset staticCacheLoadsOff     = null;
+	public static Offset staticCacheEvictionsOff = null;
 	private static Offset classTibsCacheNextOff= null;
 	private static Offset classTibsCacheEndOff = null;
 	
+	// the run of array elements stored since the last write back, as
+	// local start and end addresses and the distance to main memory
+	private static Offset arrayWriteStartOff = null;
+	public static Offset arrayWriteEndOff    = null;
+	public static Offset arrayWriteDeltaOff  = null;
+	
+	/** branch from the cache flush to the array write back, resolved when the latter is generated */
+	private static VM_ForwardReference flushArrayWrites = null;
+	
   public static SubordinateArchitecture.VM_CodeArray runtimeInstructionsMainMem;
 
   // use int's so this doesn't mess up in the bootwriter (should be LocalAddresse)
   public static int initRuntimeInstructions = Integer.MAX_VALUE;
   public static int flushCacheInstructions = Integer.MAX_VALUE;
   public static int blockUntilTagCompletesInstructions = Integer.MAX_VALUE;
+  public static int allocCodeCacheInstructions = Integer.MAX_VALUE;
   public static int cacheMethodInstructions = Integer.MAX_VALUE;
   public static int allocObjectCacheInstructions = Integer.MAX_VALUE;
   public static int cacheObjectInstructions = Integer.MAX_VALUE;
   public static int cacheArrayInstructions = Integer.MAX_VALUE;
   public static int cacheArrayBlockInstructions = Integer.MAX_VALUE;
+  public static int arrayWriteBackInstructions = Integer.MAX_VALUE;
   public static int cacheStaticInstructions = Integer.MAX_VALUE;
   public static int cacheClassTibInstructions = Integer.MAX_VALUE;
   public static int reflectiveMethodInvokerInstructions = Integer.MAX_VALUE;
@@ -82,24 +103,44 @@ public abstract class VM_OutOfLineMachineCode
 
 	  	// allocate space in subarch JTOC for memory allocation pointers
 	  	codeCacheNextOff   = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
-	  	codeCacheEndOff    = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	codeCacheHeadOff   = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	codeCacheCountOff  = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	codeCacheLoadsOff     = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	codeCacheEvictionsOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
 	  	objectCacheNextOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
 	  	objectCacheEndOff  = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
 
 	  	staticCacheNextOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
-	  	staticCacheEndOff  = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	staticCacheHeadOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	staticCacheCountOff= VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	staticCacheLoadsOff     = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	staticCacheEvictionsOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
 	  	classTibsCacheNextOff= VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
 	  	classTibsCacheEndOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
 	  	
+	  	arrayWriteStartOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	arrayWriteEndOff   = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	arrayWriteDeltaOff = VM_SubArchStatics.allocateNumericSlot(BYTES_IN_INT);
+	  	
 	  	VM_SubArchStatics.setSlotContents(codeCacheNextOff, CODE_CACHE_START);
-	  	VM_SubArchStatics.setSlotContents(codeCacheEndOff, CODE_CACHE_END);
+	  	VM_SubArchStatics.setSlotContents(codeCacheHeadOff, 0);
+	  	VM_SubArchStatics.setSlotContents(codeCacheCountOff, 0);
+	  	VM_SubArchStatics.setSlotContents(codeCacheLoadsOff, 0);
+	  	VM_SubArchStatics.setSlotContents(codeCacheEvictionsOff, 0);
 	  	VM_SubArchStatics.setSlotContents(objectCacheNextOff, OBJECT_CACHE_START);
 	  	VM_SubArchStatics.setSlotContents(objectCacheEndOff, OBJECT_CACHE_END);
 
 	  	VM_SubArchStatics.setSlotContents(staticCacheNextOff, STATICS_START);
-	  	VM_SubArchStatics.setSlotContents(staticCacheEndOff, STATICS_END);
+	  	VM_SubArchStatics.setSlotContents(staticCacheHeadOff, 0);
+	  	VM_SubArchStatics.setSlotContents(staticCacheCountOff, 0);
+	  	VM_SubArchStatics.setSlotContents(staticCacheLoadsOff, 0);
+	  	VM_SubArchStatics.setSlotContents(staticCacheEvictionsOff, 0);
 	  	VM_SubArchStatics.setSlotContents(classTibsCacheNextOff, CLASS_TIBS_START);
 	  	VM_SubArchStatics.setSlotContents(classTibsCacheEndOff, CLASS_TIBS_END);
+	  	
+	  	VM_SubArchStatics.setSlotContents(arrayWriteStartOff, 0);
+	  	VM_SubArchStatics.setSlotContents(arrayWriteEndOff, 0);
+	  	VM_SubArchStatics.setSlotContents(arrayWriteDeltaOff, 0);
 
 	  	// generate out of line instructions
 	  	VM_Assembler asm = new SubordinateArchitecture.VM_Assembler(0);
@@ -110,6 +151,8 @@ public abstract class VM_OutOfLineMachineCode
 	  	codeStartOffset = genInstructions("generateFlushCacheInstructions", asm, codeStartOffset);    
 	  	blockUntilTagCompletesInstructions = codeStartOffset;
 	  	codeStartOffset = genInstructions("generateBlockUntilTagCompletes", asm, codeStartOffset);  
+	  	allocCodeCacheInstructions = codeStartOffset;
+	  	codeStartOffset = genInstructions("generateAllocFromCodeCacheInstructions", asm, codeStartOffset);    
 	  	cacheMethodInstructions = codeStartOffset;
 	  	codeStartOffset = genInstructions("generateCacheMethodInstructions", asm, codeStartOffset);    
 	  	allocObjectCacheInstructions = codeStartOffset;
@@ -120,6 +163,8 @@ public abstract class VM_OutOfLineMachineCode
 	  	codeStartOffset = genInstructions("generateCacheArrayInstructions", asm, codeStartOffset);    
 	  	cacheArrayBlockInstructions = codeStartOffset;
 	  	codeStartOffset = genInstructions("generateCacheArrayBlockInstructions", asm, codeStartOffset);    
+	  	arrayWriteBackInstructions = codeStartOffset;
+	  	codeStartOffset = genInstructions("generateArrayWriteBackInstructions", asm, codeStartOffset);    
 	  	cacheStaticInstructions = codeStartOffset;
 	  	codeStartOffset = genInstructions("generateCacheStaticInstructions", asm, codeStartOffset);  
 	  	cacheClassTibInstructions = codeStartOffset;
@@ -177,6 +222,40 @@ public abstract class VM_OutOfLineMachineCode
   	// reset statics cache as empty
   	asm.emitILA(T6, STATICS_START);
   	asm.emitStore(T6, JTOC, staticCacheNextOff);
+  	asm.emitIL(T6, 0);
+  	asm.emitStore(T6, JTOC, staticCacheHeadOff);
+  	asm.emitStore(T6, JTOC, staticCacheCountOff);
+  	
+  	// the reloaded statics point at methods in main memory, so forget the
+  	// method slots recorded in them, which an eviction would otherwise reset
+  	if (VM.VerifyAssertions) VM._assert(STATICS_LENGTH == (0x1 << 14) && (STATICS_START & (STATICS_LENGTH - 1)) == 0);
+  	asm.emitILA(S9, CODE_CACHE_TABLE);
+  	asm.emitILA(S8, CODE_CACHE_TABLE_LENGTH - 1);
+  	asm.emitLoad(S6, JTOC, codeCacheHeadOff);
+  	asm.emitLoad(S7, JTOC, codeCacheCountOff);
+  	int forgetLoop = asm.getMachineCodeIndex();
+  	VM_ForwardReference forgotten = asm.emitForwardBRZ(S7);
+  	asm.emitA(S5, S9, S6);
+  	asm.emitLQD(S4, S5, 1);
+  	asm.emitROTMI(S3, S4, -14);
+  	asm.emitCEQI(S3, S3, STATICS_START >> 14);
+  	asm.emitANDC(S4, S4, S3);
+  	asm.emitSTQD(S4, S5, 1);
+  	asm.emitAI(S6, S6, CODE_CACHE_ENTRY_SIZE);
+  	asm.emitAND(S6, S6, S8);
+  	asm.emitAI(S7, S7, -1);
+  	asm.emitBR(forgetLoop);
+  	forgotten.resolve(asm);
+  	
+  	// write back array elements stored since the last flush, leaving an empty run
+  	asm.emitORI(T7, LINK_REG, 0);
+  	asm.emitIL(S3, 0);
+  	asm.emitIL(S5, 0);
+  	asm.emitLoadLR(LINK_REG);
+  	flushArrayWrites = asm.emitForwardBR();
+  	asm.emitIL(S4, 0);
+  	asm.emitStore(S4, JTOC, arrayWriteEndOff);
+  	asm.emitORI(LINK_REG, T7, 0);
   	
   	// clear out object cache table
   	// TODO - Add hint for branch
@@ -194,6 +273,8 @@ public abstract class VM_OutOfLineMachineCode
   	
   	// wait for writes to complete (otherwise backing may be overwritten since cache now empty)
   	asm.emitBlockUntilComplete(OBJECT_CACHE_WRITE_TAG_GROUP);
+  	// and for array blocks still being prefetched into it
+  	asm.emitBlockUntilComplete(ARRAY_PREFETCH_TAG_GROUP);
   	// wait for static TOC to be reloaded
   	asm.emitBlockUntilComplete(STATIC_CACHE_READ_TAG_GROUP);
   	
@@ -210,6 +291,204 @@ public abstract class VM_OutOfLineMachineCode
   	asm.emitBI(LINK_REG); 	
   }
   
+  /**
+   * Allocate the length in T2 from the code cache.  The cache is filled in
+   * a ring, in the order methods are loaded, so when it is full the oldest
+   * method is the one in the way.  It is evicted unless it has been called
+   * since the last time round the ring, or has a frame on the stack; a
+   * method that is kept has the slots it was called through reset, so the
+   * next pass can tell whether it has been called again, and allocation
+   * carries on past it.
+   * 
+   * Params  - length: T2, link: S4, caller's return address: LINK_REG
+   * Returns - start of allocated block: T3
+   */
+  private static void generateAllocFromCodeCacheInstructions(VM_Assembler asm) {
+  	asm.emitILA(S9, CODE_CACHE_TABLE);
+  	// bound the methods kept without one being evicted, so a cache full of
+  	// methods with frames on the stack traps rather than loops
+  	asm.emitILA(S8, 2 * CODE_CACHE_TABLE_ENTRIES);
+  	
+  	int retry = asm.getMachineCodeIndex();
+  	asm.emitLoad(T3, JTOC, codeCacheNextOff);
+  	asm.emitLoad(S7, JTOC, codeCacheCountOff);
+  	asm.emitLoad(S6, JTOC, codeCacheHeadOff);
+  	
+  	// an empty cache is allocated from the start
+  	VM_ForwardReference notEmpty = asm.emitForwardBRNZ(S7);
+  	asm.emitILA(T3, CODE_CACHE_START);
+  	asm.emitILA(S1, CODE_CACHE_LENGTH);
+  	asm.emitCGT(S1, T2, S1);
+  	asm.emitTRAP(S1, true, VM_TrapConstants.TRAP_CODE_CACHE_FULL);
+  	VM_ForwardReference allocEmpty = asm.emitForwardBR();
+  	notEmpty.resolve(asm);
+  	
+  	// start of the oldest method
+  	asm.emitLQX(S1, S9, S6);
+  	asm.emitROTQBYI(S1, S1, BYTES_IN_INT);
+  	asm.emitCEQI(S0, S7, CODE_CACHE_TABLE_ENTRIES);  // is the table full?
+  	asm.emitA(S2, T3, T2);
+  	
+  	// if the oldest method is below the next free address, the space up to
+  	// the end of the cache is free, as is the space from the start of the
+  	// cache up to the oldest method
+  	asm.emitCLGT(S3, T3, S1);
+  	VM_ForwardReference wrapped = asm.emitForwardBRZ(S3);
+  	asm.emitILA(S3, CODE_CACHE_END);
+  	asm.emitCLGT(S3, S2, S3);
+  	asm.emitOR(S3, S3, S0);
+  	VM_ForwardReference allocAtEnd = asm.emitForwardBRZ(S3);
+  	asm.emitILA(T3, CODE_CACHE_START);
+  	asm.emitA(S2, T3, T2);
+  	wrapped.resolve(asm);
+  	
+  	// otherwise only the space up to the oldest method is free
+  	asm.emitCLGT(S3, S2, S1);
+  	asm.emitOR(S3, S3, S0);
+  	VM_ForwardReference noRoom = asm.emitForwardBRNZ(S3);
+  	
+  	allocEmpty.resolve(asm);
+  	allocAtEnd.resolve(asm);
+  	asm.emitA(S1, T3, T2);
+  	asm.emitStore(S1, JTOC, codeCacheNextOff);
+  	asm.emitBI(S4);
+  	
+  	noRoom.resolve(asm);
+  	asm.emitAI(S8, S8, -1);
+  	asm.emitTRAP(S8, false, VM_TrapConstants.TRAP_CODE_CACHE_FULL);
+  	
+  	// is the oldest method's code in use?  T3 = start, S7 = length
+  	asm.emitA(S1, S9, S6);
+  	asm.emitLQD(S0, S1, 0);
+  	asm.emitROTQBYI(T3, S0, BYTES_IN_INT);
+  	asm.emitROTQBYI(S7, S0, 2 * BYTES_IN_INT);
+  	asm.emitSF(S7, T3, S7);
+  	
+  	// by the method that called for this one...
+  	asm.emitSF(S6, T3, LINK_REG);
+  	asm.emitCLGT(S6, S7, S6);
+  	VM_ForwardReference calling = asm.emitForwardBRNZ(S6);
+  	
+  	// ...or by a frame on the stack
+  	asm.emitORI(S6, FP, 0);
+  	int walkLoop = asm.getMachineCodeIndex();
+  	asm.emitLoadUnaligned(S2, S6);  // caller's frame, then the return address into this one
+  	asm.emitROTQBYI(S3, S2, STACKFRAME_NEXT_INSTRUCTION_OFFSET);
+  	asm.emitSF(S3, T3, S3);
+  	asm.emitCLGT(S3, S7, S3);
+  	VM_ForwardReference returning = asm.emitForwardBRNZ(S3);
+  	asm.emitCLGT(S3, S2, S6);
+  	asm.emitILA(S6, STACK_BEGIN);
+  	asm.emitCLGT(S6, S6, S2);
+  	asm.emitAND(S3, S3, S6);
+  	asm.emitORI(S6, S2, 0);
+  	asm.emitBRNZ(S3, walkLoop);
+  	
+  	// has it been called since the last pass, ie are any slots recorded?
+  	asm.emitROTQBYI(S0, S0, 3 * BYTES_IN_INT);
+  	VM_ForwardReference called = asm.emitForwardBRNZ(S0);
+  	
+  	// evict it
+  	asm.emitLoad(S6, JTOC, codeCacheHeadOff);
+  	asm.emitAI(S6, S6, CODE_CACHE_ENTRY_SIZE);
+  	asm.emitILA(S7, CODE_CACHE_TABLE_LENGTH - 1);
+  	asm.emitAND(S6, S6, S7);
+  	asm.emitStore(S6, JTOC, codeCacheHeadOff);
+  	asm.emitLoad(S6, JTOC, codeCacheCountOff);
+  	asm.emitAI(S6, S6, -1);
+  	asm.emitStore(S6, JTOC, codeCacheCountOff);
+  	asm.emitLoad(S6, JTOC, codeCacheEvictionsOff);
+  	asm.emitAI(S6, S6, 1);
+  	asm.emitStore(S6, JTOC, codeCacheEvictionsOff);
+  	asm.emitILA(S8, 2 * CODE_CACHE_TABLE_ENTRIES);
+  	asm.emitBR(retry);
+  	
+  	// keep it: reset its slots, move its entry to the tail of the table
+  	// and carry on allocating after its code
+  	calling.resolve(asm);
+  	returning.resolve(asm);
+  	called.resolve(asm);
+  	genResetCodeCacheSlots(asm);
+  	asm.emitLoad(S6, JTOC, codeCacheHeadOff);
+  	asm.emitLoad(S7, JTOC, codeCacheCountOff);
+  	asm.emitILA(S3, CODE_CACHE_TABLE_LENGTH - 1);
+  	asm.emitSHLI(S7, S7, LOG_CODE_CACHE_ENTRY_SIZE);
+  	asm.emitA(S7, S7, S6);
+  	asm.emitAND(S7, S7, S3);
+  	asm.emitAI(S6, S6, CODE_CACHE_ENTRY_SIZE);
+  	asm.emitAND(S6, S6, S3);
+  	asm.emitLQD(S0, S1, 0);
+  	asm.emitLQD(S2, S1, 1);
+  	asm.emitSTQX(S0, S9, S7);
+  	asm.emitAI(S7, S7, BYTES_IN_QUAD);
+  	asm.emitSTQX(S2, S9, S7);
+  	asm.emitROTQBYI(S7, S0, 2 * BYTES_IN_INT);
+  	asm.emitStore(S6, JTOC, codeCacheHeadOff);
+  	asm.emitStore(S7, JTOC, codeCacheNextOff);
+  	asm.emitBR(retry);
+  }
+  
+  /**
+   * Point the slots recorded for a code cache entry back at the method's
+   * code in main memory, unless they have since been changed, and forget
+   * them.
+   * 
+   * Params - entry(localAddr): S1
+   * Destroys S0, S2, S3, S6, S7, T3
+   */
+  private static void genResetCodeCacheSlots(VM_Assembler asm) {
+  	asm.emitLQD(S0, S1, 0);                        // main address, start, end, number of slots
+  	asm.emitROTQBYI(T3, S0, BYTES_IN_INT);
+  	asm.emitROTQBYI(S7, S0, 3 * BYTES_IN_INT);
+  	asm.emitLQD(S6, S1, 1);
+  	int resetLoop = asm.getMachineCodeIndex();
+  	VM_ForwardReference reset = asm.emitForwardBRZ(S7);
+  	VM_ForwardReference noSlot = asm.emitForwardBRZ(S6);
+  	asm.emitLoadUnaligned(S2, S6);
+  	asm.emitCEQ(S2, S2, T3);
+  	VM_ForwardReference changed = asm.emitForwardBRZ(S2);
+  	asm.emitStore(S0, S6);
+  	noSlot.resolve(asm);
+  	changed.resolve(asm);
+  	asm.emitROTQBYI(S6, S6, BYTES_IN_INT);
+  	asm.emitAI(S7, S7, -1);
+  	asm.emitBR(resetLoop);
+  	reset.resolve(asm);
+  	
+  	asm.emitIL(S2, 0);
+  	asm.emitSTQD(S2, S1, 1);
+  	asm.emitCWD(S3, S1, 3 * BYTES_IN_INT);
+  	asm.emitSHUFB(S0, S2, S0, S3);
+  	asm.emitSTQD(S0, S1, 0);
+  }
+  
+  /**
+   * Record the slot a method was called through in its code cache entry,
+   * and point the slot at the cached code.  An entry has room for
+   * CODE_CACHE_ENTRY_SLOTS slots; further slots are left pointing at main
+   * memory, so calls through them find the method in the table instead.
+   * 
+   * Params - entry(localAddr): S9, entry's first quadword: S4,
+   *          slot(localAddr): T6, code(localAddr): S5
+   * Destroys S0 - S4
+   */
+  private static void genRecordCodeCacheSlot(VM_Assembler asm) {
+  	asm.emitROTQBYI(S3, S4, 3 * BYTES_IN_INT);
+  	asm.emitCLGTI(S2, S3, CODE_CACHE_ENTRY_SLOTS - 1);
+  	VM_ForwardReference full = asm.emitForwardBRNZ(S2);
+  	asm.emitLQD(S1, S9, 1);
+  	asm.emitSHLI(S0, S3, LOG_BYTES_IN_INT);
+  	asm.emitCWD(S2, S0, 0);
+  	asm.emitSHUFB(S1, T6, S1, S2);
+  	asm.emitSTQD(S1, S9, 1);
+  	asm.emitAI(S3, S3, 1);
+  	asm.emitCWD(S2, S9, 3 * BYTES_IN_INT);
+  	asm.emitSHUFB(S4, S3, S4, S2);
+  	asm.emitSTQD(S4, S9, 0);
+  	asm.emitStore(S5, T6);
+  	full.resolve(asm);
+  }
+  
   /**
    * trap Params  - methodRefReg(mainAddr): S5, staticsAddrReg: T7, methodOffsetReg: T5 (if methodOffset is in JTOC, size offset is int T6)
    * trap Returns - methodRefReg(localAddr): S5
@@ -224,22 +503,77 @@ public abstract class VM_OutOfLineMachineCode
   	
   	asm.emitLoad(T2, T7, T6);
   	
-  	genAllocFromCodeCache(asm);
+  	// the slot the method was called through
+  	asm.emitA(T6, T7, T5);
+  	
+  	// the method may still be cached, with the slot reset by an eviction
+  	// pass or a reload of the statics, so look for it first
+  	asm.emitILA(S9, CODE_CACHE_TABLE);
+  	asm.emitILA(S8, CODE_CACHE_TABLE_LENGTH - 1);
+  	asm.emitLoad(S6, JTOC, codeCacheHeadOff);
+  	asm.emitLoad(S7, JTOC, codeCacheCountOff);
+  	int searchLoop = asm.getMachineCodeIndex();
+  	VM_ForwardReference notCached = asm.emitForwardBRZ(S7);
+  	asm.emitLQX(S4, S9, S6);
+  	asm.emitCEQ(S3, S4, S5);
+  	VM_ForwardReference cached = asm.emitForwardBRNZ(S3);
+  	asm.emitAI(S6, S6, CODE_CACHE_ENTRY_SIZE);
+  	asm.emitAND(S6, S6, S8);
+  	asm.emitAI(S7, S7, -1);
+  	asm.emitBR(searchLoop);
+  	
+  	cached.resolve(asm);
+  	asm.emitA(S9, S9, S6);
+  	asm.emitROTQBYI(S5, S4, BYTES_IN_INT);
+  	genRecordCodeCacheSlot(asm);
+  	asm.emitAI(LINK_REG, LINK_REG, BYTES_IN_ADDRESS);  // correct link reg
+  	asm.emitBI(LINK_REG);
+  	
+  	notCached.resolve(asm);
+  	if (VM.VerifyAssertions) VM._assert(allocCodeCacheInstructions != Integer.MAX_VALUE);
+  	int currAddr = asm.getMachineCodeIndex() << LOG_BYTES_IN_INT;
+  	asm._emitBRSL(S4, (allocCodeCacheInstructions - currAddr) >> LOG_BYTES_IN_INT);
   	
   	// pull code into local memory
   	asm.emitGET(S5, T2, T3, METHOD_CACHE_READ_TAG_GROUP);
   	
-  	// update method pointer in class static to point to cached entry
-  	asm.emitStore(T3, T7, T5);
-  	// update S5 which is used to jump to the newly cached method
+  	// add an entry for it at the tail of the table
+  	asm.emitLoad(S6, JTOC, codeCacheHeadOff);
+  	asm.emitLoad(S7, JTOC, codeCacheCountOff);
+  	asm.emitSHLI(S4, S7, LOG_CODE_CACHE_ENTRY_SIZE);
+  	asm.emitA(S6, S6, S4);
+  	asm.emitILA(S8, CODE_CACHE_TABLE_LENGTH - 1);
+  	asm.emitAND(S6, S6, S8);
+  	asm.emitILA(S9, CODE_CACHE_TABLE);
+  	asm.emitA(S9, S9, S6);
+  	asm.emitAI(S7, S7, 1);
+  	asm.emitStore(S7, JTOC, codeCacheCountOff);
+  	asm.emitLoad(S7, JTOC, codeCacheLoadsOff);
+  	asm.emitAI(S7, S7, 1);
+  	asm.emitStore(S7, JTOC, codeCacheLoadsOff);
+  	
+  	asm.emitIL(S4, 0);
+  	asm.emitSTQD(S4, S9, 1);
+  	asm.emitCWD(S3, S9, 0);
+  	asm.emitSHUFB(S4, S5, S4, S3);
+  	asm.emitCWD(S3, S9, BYTES_IN_INT);
+  	asm.emitSHUFB(S4, T3, S4, S3);
+  	asm.emitA(S1, T3, T2);
+  	asm.emitCWD(S3, S9, 2 * BYTES_IN_INT);
+  	asm.emitSHUFB(S4, S1, S4, S3);
+  	asm.emitSTQD(S4, S9, 0);
+  	
+  	// update method pointer to point to cached entry, and S5 which is
+  	// used to jump to the newly cached method
   	asm.emitORI(S5, T3, 0);
+  	genRecordCodeCacheSlot(asm);
   	
   	asm.emitAI(LINK_REG, LINK_REG, BYTES_IN_ADDRESS);  // correct link reg
 
   	asm.emitILW(S0, (0x1 << METHOD_CACHE_READ_TAG_GROUP));
 
   	if (VM.VerifyAssertions) VM._assert(blockUntilTagCompletesInstructions != Integer.MAX_VALUE);
-  	int currAddr = asm.getMachineCodeIndex() << LOG_BYTES_IN_INT;
+  	currAddr = asm.getMachineCodeIndex() << LOG_BYTES_IN_INT;
   	asm._emitBR((blockUntilTagCompletesInstructions - currAddr) >> LOG_BYTES_IN_INT);
   }
   
@@ -297,6 +631,8 @@ public abstract class VM_OutOfLineMachineCode
 
 
   private static void generateCacheArrayInstructions(VM_Assembler asm) {
+  	asm.emitORI(S9, T6, 0);  // allocation destroys T6
+  	
   	// Pull header into local memory (Arrays are aligned to quadword boundaries
   	asm.emitAI(S5, T0, -BYTES_IN_QUAD);
   	
@@ -318,7 +654,7 @@ public abstract class VM_OutOfLineMachineCode
 
   	asm.emitIL(S7, 0);
   	
-  	asm.emitROTMI(S3, S0, LOG_ARRAY_BLOCK_ENTRIES); // number of blocks
+  	asm.emitROTMI(S3, S0, -LOG_ARRAY_BLOCK_ENTRIES); // number of blocks
   	
   	// add extra block if needed
   	asm.emitANDI(S8, S0, ARRAY_BLOCK_MASK);
@@ -353,46 +689,98 @@ public abstract class VM_OutOfLineMachineCode
   	asm.emitAI(T2, T2, -BYTES_IN_QUAD);
   	asm.emitSTQX(S7, T5, T2);
   	asm.emitBRNZ(T2, zeroLoopIndex);
+  	asm.emitORI(T6, S9, 0);
   	
   	// branch back to method
   	asm.emitAI(LINK_REG, LINK_REG, BYTES_IN_INT); // correct link register
   	asm.emitBI(LINK_REG);
   }
 
+  /**
+   * Cache a block of an array, and prefetch the next block if the array is
+   * being scanned.  A block being prefetched has its negated local address
+   * in the array table, so lookups of it still miss and come here to wait
+   * for it.
+   *
+   * Trap Params: arrayTable(localAddr): T5, entryOffset: S7, entry: T3,
+   *              logElementSize: S8, arrayRef(mainAddr): T0
+   * Trap Returns: block(localAddr): T3
+   */
   private static void generateCacheArrayBlockInstructions(VM_Assembler asm) {
-  	asm.emitLoad(S0, T5, VM_ObjectModel.getArrayLengthOffset());
-    asm.emitORI(S9, T5, 0);  // TODO - try and remove this!!
+    asm.emitORI(S9, T5, 0);  // allocation destroys T5 and T6
+    asm.emitORI(S6, T6, 0);
+    
+    VM_ForwardReference notPrefetched = asm.emitForwardBRZ(T3);
+    // block is being prefetched, wait for it to arrive
+    asm.emitSFI(T3, T3, 0);
+    asm.emitBlockUntilComplete(ARRAY_PREFETCH_TAG_GROUP);
+    VM_ForwardReference cached = asm.emitForwardBR();
+    
+    notPrefetched.resolve(asm);
+    genArrayBlockSize(asm, S7);
     
-    // check if we are loading the last block (if so it will be smaller than a full block)
-  	asm.emitROTMI(T2, S0, (-LOG_ARRAY_BLOCK_ENTRIES));
-  	asm.emitCEQ(S2, T2, S7);
-  	
-  	asm.emitILW(S5, ARRAY_BLOCK_ENTRIES);
-  	asm.emitANDI(S6, S0, ARRAY_BLOCK_MASK);
-  	
-  	asm.emitSELB(T2, S5, S6, S2);  // select full block or end part block
-  	asm.emitSHL(S0, T2, S8);       // shift into bytes
-  	
-  	// align to quadword boundary
-  	asm.emitANDI(S3, S0, (BYTES_IN_QUAD - 1));
-  	asm.emitCEQI(S5, S3, 0);
-  	asm.emitSFI(S6, S3, BYTES_IN_QUAD);
-  	asm.emitA(S3, S0, S6);   
-  	asm.emitSELB(T2, S3, S0, S5);
-  	
   	// allocate space for block
   	if (VM.VerifyAssertions) VM._assert(allocObjectCacheInstructions != Integer.MAX_VALUE);
   	int currAddr = asm.getMachineCodeIndex() << LOG_BYTES_IN_INT;
   	asm._emitBRSL(S4, (allocObjectCacheInstructions - currAddr) >> LOG_BYTES_IN_INT);
   	
   	// get block from main memory
-  	asm.emitSHLI(S5, S7, LOG_ARRAY_BLOCK_ENTRIES);
-  	asm.emitA(T0, T0, S5);
-  	asm.emitGET(T0, T2, T3, OBJECT_CACHE_READ_TAG_GROUP);
+  	genArrayBlockAddress(asm, S5, S7);
+  	asm.emitGET(S5, T2, T3, OBJECT_CACHE_READ_TAG_GROUP);
   	
   	// result is T3 - update array table
+  	cached.resolve(asm);
   	asm.emitStore(T3, S9, S7);
   	
+  	// if the previous block is cached the array is being scanned forwards
+  	// (the length before the table counts for the first block), if the
+  	// following one is it is being scanned backwards
+  	asm.emitLoad(S0, S9, VM_ObjectModel.getArrayLengthOffset());
+  	asm.emitAI(S0, S0, ARRAY_BLOCK_MASK);
+  	asm.emitROTMI(S0, S0, -LOG_ARRAY_BLOCK_ENTRIES);
+  	asm.emitSHLI(S1, S0, LOG_BYTES_IN_INT);   // end of the table
+  	asm.emitAI(S2, S7, -BYTES_IN_INT);
+  	asm.emitLoad(S3, S9, S2);
+  	asm.emitAI(S5, S7, BYTES_IN_INT);
+  	VM_ForwardReference forwards = asm.emitForwardBRNZ(S3);
+  	asm.emitCGT(S3, S1, S5);
+  	VM_ForwardReference noFollowing = asm.emitForwardBRZ(S3);
+  	asm.emitLoad(S3, S9, S5);
+  	VM_ForwardReference notScanned = asm.emitForwardBRZ(S3);
+  	asm.emitORI(S5, S2, 0);
+  	forwards.resolve(asm);
+  	
+  	// S5 is the entry of the next block in the scan, prefetch it unless it
+  	// is past the end or already cached
+  	asm.emitCGT(S3, S1, S5);
+  	VM_ForwardReference pastEnd = asm.emitForwardBRZ(S3);
+  	asm.emitLoad(S3, S9, S5);
+  	VM_ForwardReference alreadyCached = asm.emitForwardBRNZ(S3);
+  	genArrayBlockSize(asm, S5);
+  	
+  	// a prefetch mustn't fill the cache
+  	asm.emitLoad(S3, JTOC, objectCacheNextOff);
+  	asm.emitLoad(S2, JTOC, objectCacheEndOff);
+  	asm.emitA(S3, S3, T2);
+  	asm.emitCGT(S3, S3, S2);
+  	VM_ForwardReference noRoom = asm.emitForwardBRNZ(S3);
+  	
+  	asm.emitORI(S7, T3, 0);
+  	currAddr = asm.getMachineCodeIndex() << LOG_BYTES_IN_INT;
+  	asm._emitBRSL(S4, (allocObjectCacheInstructions - currAddr) >> LOG_BYTES_IN_INT);
+  	genArrayBlockAddress(asm, S2, S5);
+  	asm.emitGET(S2, T2, T3, ARRAY_PREFETCH_TAG_GROUP);
+  	asm.emitSFI(S0, T3, 0);
+  	asm.emitStore(S0, S9, S5);
+  	asm.emitORI(T3, S7, 0);
+  	
+  	noFollowing.resolve(asm);
+  	notScanned.resolve(asm);
+  	pastEnd.resolve(asm);
+  	alreadyCached.resolve(asm);
+  	noRoom.resolve(asm);
+  	asm.emitORI(T6, S6, 0);
+  	
   	asm.emitILW(S0, (0x1 << OBJECT_CACHE_READ_TAG_GROUP));
   	asm.emitAI(LINK_REG, LINK_REG, BYTES_IN_INT);  // correct link register
   	if (VM.VerifyAssertions) VM._assert(blockUntilTagCompletesInstructions != Integer.MAX_VALUE);
@@ -401,7 +789,110 @@ public abstract class VM_OutOfLineMachineCode
   }
   
   /**
-   * Cache a static block (numeric or reference) in local memory
+   * Size in bytes, rounded to a quadword, of the array block whose table
+   * entry offset is in entryReg, into T2.  Expects the array table in S9 and
+   * the log of the element size in S8.  Destroys S0, S2 and S3.
+   */
+  private static void genArrayBlockSize(VM_Assembler asm, int entryReg) {
+  	asm.emitLoad(S0, S9, VM_ObjectModel.getArrayLengthOffset());
+  	
+    // check if this is the last block (if so it will be smaller than a full block)
+  	asm.emitROTMI(S2, S0, (-LOG_ARRAY_BLOCK_ENTRIES));
+  	asm.emitROTMI(S3, entryReg, -LOG_BYTES_IN_INT);
+  	asm.emitCEQ(S2, S2, S3);
+  	asm.emitILW(S3, ARRAY_BLOCK_ENTRIES);
+  	asm.emitANDI(S0, S0, ARRAY_BLOCK_MASK);
+  	asm.emitSELB(T2, S3, S0, S2);  // select full block or end part block
+  	asm.emitSHL(T2, T2, S8);       // shift into bytes
+  	
+  	// align to quadword boundary
+  	asm.emitAI(T2, T2, BYTES_IN_QUAD - 1);
+  	asm.emitANDI(T2, T2, -BYTES_IN_QUAD);
+  }
+  
+  /**
+   * Main memory address of the array block whose table entry offset is in
+   * entryReg, into destReg.  Expects the array in T0 and the log of the
+   * element size in S8.
+   */
+  private static void genArrayBlockAddress(VM_Assembler asm, int destReg, int entryReg) {
+  	asm.emitSHLI(destReg, entryReg, LOG_ARRAY_BLOCK_ENTRIES - LOG_BYTES_IN_INT);
+  	asm.emitSHL(destReg, destReg, S8);
+  	asm.emitA(destReg, T0, destReg);
+  }
+  
+  /**
+   * Write back the run of array elements stored since the last write back,
+   * in the largest pieces the MFC will take, and start a new run at the
+   * element just stored.  The caller records the end of the new run.
+   * Stores that carry on from the end of the run, in both local and main
+   * memory, just extend it; so a loop filling an array writes it back in
+   * quadword transfers rather than one transfer per element.
+   *
+   * Trap Params: element(localAddr): S3, mainAddr - localAddr: S5
+   */
+  private static void generateArrayWriteBackInstructions(VM_Assembler asm) {
+  	flushArrayWrites.resolve(asm);
+  	
+  	asm.emitLoad(S6, JTOC, arrayWriteStartOff);
+  	asm.emitLoad(S8, JTOC, arrayWriteEndOff);
+  	asm.emitLoad(S7, JTOC, arrayWriteDeltaOff);
+  	asm.emitORI(S9, S3, 0);
+  	asm.emitStore(S9, JTOC, arrayWriteStartOff);
+  	asm.emitStore(S5, JTOC, arrayWriteDeltaOff);
+  	
+  	asm.emitSF(S8, S6, S8);  // length of the old run
+  	asm.emitA(S7, S6, S7);   // and its main memory address
+  	VM_ForwardReference empty = asm.emitForwardBRZ(S8);
+  	
+  	int putLoop = asm.getMachineCodeIndex();
+  	asm.emitANDI(S2, S6, BYTES_IN_QUAD - 1);
+  	VM_ForwardReference unaligned = asm.emitForwardBRNZ(S2);
+  	asm.emitCLGTI(S2, S8, BYTES_IN_QUAD - 1);
+  	VM_ForwardReference small = asm.emitForwardBRZ(S2);
+  	// whole quadwords, up to the largest transfer
+  	asm.emitANDI(S9, S8, -BYTES_IN_QUAD);
+  	asm.emitILW(S2, MFC_MAX_TRANSFER_SIZE);
+  	asm.emitCLGT(S0, S9, S2);
+  	asm.emitSELB(S9, S9, S2, S0);
+  	VM_ForwardReference put = asm.emitForwardBR();
+  	
+  	// otherwise the natural alignment of the address, no more than a double
+  	// word, halved until it fits in the run
+  	unaligned.resolve(asm);
+  	small.resolve(asm);
+  	asm.emitORI(S2, S6, BYTES_IN_DOUBLE);
+  	asm.emitSFI(S9, S2, 0);
+  	asm.emitAND(S9, S9, S2);
+  	int shrinkLoop = asm.getMachineCodeIndex();
+  	asm.emitCLGT(S2, S9, S8);
+  	VM_ForwardReference fits = asm.emitForwardBRZ(S2);
+  	asm.emitROTMI(S9, S9, -1);
+  	asm.emitBR(shrinkLoop);
+  	
+  	fits.resolve(asm);
+  	put.resolve(asm);
+  	asm.emitPUT(S7, S9, S6, OBJECT_CACHE_WRITE_TAG_GROUP);
+  	asm.emitA(S6, S6, S9);
+  	asm.emitA(S7, S7, S9);
+  	asm.emitSF(S8, S9, S8);
+  	asm.emitBRNZ(S8, putLoop);
+  	empty.resolve(asm);
+  	
+  	// branch back to method
+  	asm.emitAI(LINK_REG, LINK_REG, BYTES_IN_INT);  // correct link register
+  	asm.emitBI(LINK_REG);
+  }
+  
+  /**
+   * Cache a static block (numeric or reference) in local memory.  Blocks
+   * are allocated from the statics cache as a ring, in the order they are
+   * cached, each with an entry in the statics cache table.  When there is
+   * no room the oldest block is evicted: its TOC entry is pointed back at
+   * main memory, and any method slots the code cache recorded in it are
+   * forgotten.  Statics are written through to main memory when they are
+   * stored, so an evicted block is never dirty, but those writes must
+   * complete before its space is reused.
    * 
    * Trap Params: staticsAddrReg(mainMem Addr): T4, tocOffsetReg == T5
    * Trap Returns: staticsAddrReg(local Addr): T4
@@ -424,22 +915,76 @@ public abstract class VM_OutOfLineMachineCode
   	asm.emitAND(S2, T3, S3);                       // and mask
   	asm.emitSHLI(T3, S2, LOG_BYTES_IN_QUAD);
   	
-  	// allocate space in the statics
-  	//  TODO - implement a better allocation technique
-		asm.emitLoad(S4, JTOC, staticCacheNextOff, T6);
-		asm.emitLoad(S5, JTOC, staticCacheEndOff);
-		
-		// check if this will overflow the statics cache
-		asm.emitA(S6, S4, T3);
-		asm.emitCGT(S0, S6, S5);	
-	
-		asm.emitTRAP(S0, true, VM_TrapConstants.TRAP_STATIC_CACHE_FULL);
-		// TODO - Chuck things out if the cache is full
+  	// a block larger than the whole cache can never be cached
+  	asm.emitILA(S1, STATICS_LENGTH);
+  	asm.emitCGT(S1, T3, S1);
+  	asm.emitTRAP(S1, true, VM_TrapConstants.TRAP_STATIC_CACHE_FULL);
+  	asm.emitILA(S9, STATICS_CACHE_TABLE);
+  	
+  	int retry = asm.getMachineCodeIndex();
+  	asm.emitLoad(S4, JTOC, staticCacheNextOff);
+  	asm.emitLoad(S7, JTOC, staticCacheCountOff);
+  	asm.emitLoad(S6, JTOC, staticCacheHeadOff);
+  	
+  	// an empty cache is allocated from the start
+  	VM_ForwardReference notEmpty = asm.emitForwardBRNZ(S7);
+  	asm.emitILA(S4, STATICS_START);
+  	VM_ForwardReference allocEmpty = asm.emitForwardBR();
+  	notEmpty.resolve(asm);
+  	
+  	// start of the oldest block
+  	asm.emitLQX(S1, S9, S6);
+  	asm.emitROTQBYI(S1, S1, BYTES_IN_INT);
+  	asm.emitCEQI(S0, S7, STATICS_CACHE_TABLE_ENTRIES);  // is the table full?
+  	asm.emitA(S2, S4, T3);
+  	
+  	// if the oldest block is below the next free address, the space up to
+  	// the end of the cache is free, as is the space from the start of the
+  	// cache up to the oldest block
+  	asm.emitCLGT(S3, S4, S1);
+  	VM_ForwardReference wrapped = asm.emitForwardBRZ(S3);
+  	asm.emitILA(S3, STATICS_END);
+  	asm.emitCLGT(S3, S2, S3);
+  	asm.emitOR(S3, S3, S0);
+  	VM_ForwardReference allocAtEnd = asm.emitForwardBRZ(S3);
+  	asm.emitILA(S4, STATICS_START);
+  	asm.emitA(S2, S4, T3);
+  	wrapped.resolve(asm);
+  	
+  	// otherwise only the space up to the oldest block is free
+  	asm.emitCLGT(S3, S2, S1);
+  	asm.emitOR(S3, S3, S0);
+  	VM_ForwardReference noRoom = asm.emitForwardBRNZ(S3);
+  	
+  	allocEmpty.resolve(asm);
+  	allocAtEnd.resolve(asm);
+  	asm.emitA(S1, S4, T3);
+  	asm.emitStore(S1, JTOC, staticCacheNextOff);
+  	
+  	// add an entry for it at the tail of the table
+  	asm.emitSHLI(S8, S7, LOG_BYTES_IN_QUAD);
+  	asm.emitA(S8, S8, S6);
+  	asm.emitILA(S0, STATICS_CACHE_TABLE_LENGTH - 1);
+  	asm.emitAND(S8, S8, S0);
+  	asm.emitA(S8, S9, S8);
+  	asm.emitAI(S7, S7, 1);
+  	asm.emitStore(S7, JTOC, staticCacheCountOff);
+  	asm.emitLoad(S7, JTOC, staticCacheLoadsOff);
+  	asm.emitAI(S7, S7, 1);
+  	asm.emitStore(S7, JTOC, staticCacheLoadsOff);
+  	
+  	asm.emitCWD(S3, S8, 0);
+  	asm.emitSHUFB(S5, T5, S5, S3);
+  	asm.emitCWD(S3, S8, BYTES_IN_INT);
+  	asm.emitSHUFB(S5, S4, S5, S3);
+  	asm.emitCWD(S3, S8, 2 * BYTES_IN_INT);
+  	asm.emitSHUFB(S5, S1, S5, S3);
+  	asm.emitCWD(S3, S8, 3 * BYTES_IN_INT);
+  	asm.emitSHUFB(S5, T4, S5, S3);
+  	asm.emitSTQD(S5, S8, 0);
 		
   	asm.emitGET(T4, T3, S4, STATIC_CACHE_READ_TAG_GROUP);
   	
-		// save the new staticsCacheNext
-		asm.emitStore(S6, JTOC, staticCacheNextOff, T6);
 		// update pointer to local memory address
 		asm.emitORI(T4, S4, 0x0);
 		
@@ -453,6 +998,55 @@ public abstract class VM_OutOfLineMachineCode
   	if (VM.VerifyAssertions) VM._assert(blockUntilTagCompletesInstructions != Integer.MAX_VALUE);
   	int currAddr = asm.getMachineCodeIndex() << LOG_BYTES_IN_INT;
   	asm._emitBR((blockUntilTagCompletesInstructions - currAddr) >> LOG_BYTES_IN_INT);
+  	
+  	// evict the oldest block, pointing its TOC entry back at main memory
+  	noRoom.resolve(asm);
+  	asm.emitA(S5, S9, S6);
+  	asm.emitLQD(S0, S5, 0);                        // TOC offset, start, end, main address
+  	asm.emitROTQBYI(S1, S0, 3 * BYTES_IN_INT);
+  	asm.emitStore(S1, JTOC, S0);
+  	
+  	// forget the method slots recorded in it, T6 = start and S8 = end in every word
+  	asm.emitILHU(S1, 0x0405);
+  	asm.emitIOHL(S1, 0x0607);
+  	asm.emitSHUFB(T6, S0, S0, S1);
+  	asm.emitILHU(S1, 0x0809);
+  	asm.emitIOHL(S1, 0x0a0b);
+  	asm.emitSHUFB(S8, S0, S0, S1);
+  	asm.emitLoad(S4, JTOC, codeCacheHeadOff);
+  	asm.emitLoad(S7, JTOC, codeCacheCountOff);
+  	int forgetLoop = asm.getMachineCodeIndex();
+  	VM_ForwardReference forgotten = asm.emitForwardBRZ(S7);
+  	asm.emitILA(S5, CODE_CACHE_TABLE);
+  	asm.emitA(S5, S5, S4);
+  	asm.emitLQD(S1, S5, 1);
+  	asm.emitCLGT(S2, T6, S1);                     // slots below the block
+  	asm.emitCLGT(S3, S8, S1);                     // slots below its end
+  	asm.emitANDC(S3, S3, S2);
+  	asm.emitANDC(S1, S1, S3);
+  	asm.emitSTQD(S1, S5, 1);
+  	asm.emitAI(S4, S4, CODE_CACHE_ENTRY_SIZE);
+  	asm.emitILA(S5, CODE_CACHE_TABLE_LENGTH - 1);
+  	asm.emitAND(S4, S4, S5);
+  	asm.emitAI(S7, S7, -1);
+  	asm.emitBR(forgetLoop);
+  	forgotten.resolve(asm);
+  	
+  	asm.emitLoad(S6, JTOC, staticCacheHeadOff);
+  	asm.emitAI(S6, S6, BYTES_IN_QUAD);
+  	asm.emitILA(S7, STATICS_CACHE_TABLE_LENGTH - 1);
+  	asm.emitAND(S6, S6, S7);
+  	asm.emitStore(S6, JTOC, staticCacheHeadOff);
+  	asm.emitLoad(S6, JTOC, staticCacheCountOff);
+  	asm.emitAI(S6, S6, -1);
+  	asm.emitStore(S6, JTOC, staticCacheCountOff);
+  	asm.emitLoad(S6, JTOC, staticCacheEvictionsOff);
+  	asm.emitAI(S6, S6, 1);
+  	asm.emitStore(S6, JTOC, staticCacheEvictionsOff);
+  	
+  	// statics stored to the block may still be being written from its space
+  	asm.emitBlockUntilComplete(OBJECT_CACHE_WRITE_TAG_GROUP);
+  	asm.emitBR(retry);
   }
   
   /**
@@ -626,27 +1220,4 @@ public abstract class VM_OutOfLineMachineCode
   	
 		asm.emitBI(S4);
   }
-
-	/**
-	 * Generates code necessary to allocate a block of the length in T2 from the code cache
-	 * Code returns start of allocated block in T3.
-	 * 
-	 * @param asm VM_Assember
-	 */
-	private static void genAllocFromCodeCache(VM_Assembler asm) {
-		// TODO - implement a better allocation technique
-		asm.emitLoad(T3, JTOC, codeCacheNextOff, S6);
-		asm.emitLoad(S4, JTOC, codeCacheEndOff);
-		
-		// check if this will overflow the code cache
-		asm.emitA(S0, T3, T2);
-		asm.emitCGT(S4, S0, S4);	
-	
-		asm.emitTRAP(S4, true, VM_TrapConstants.TRAP_CODE_CACHE_FULL);
-		// TODO - Chuck things out if the cache is full
-		
-		// otherwise save the new codeCacheNext
-		asm.emitStore(S0, JTOC, codeCacheNextOff, S6);
-		
-	}
 }
\ No newline at end of file
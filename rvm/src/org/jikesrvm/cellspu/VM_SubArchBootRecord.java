@@ -34,6 +34,8 @@ public class VM_SubArchBootRecord implements VM_Constants {
   
   public Object classTOCsTable;
   public Object staticsSizeTable;
+  // bytes of the class TOC and statics size tables in use
+  public int classTOCsLength;
   
   // signal that JTOC has been modified
   public /* TODO - volatile? */ int jtocDirty;
@@ -49,6 +51,14 @@ public class VM_SubArchBootRecord implements VM_Constants {
   // table of strings used by fakeTrap's
   public AddressArray fakeTrapStrs;
   
+  // JTOC offsets of the counts of methods loaded into and evicted from the code cache
+  public int codeCacheLoadsOffset;
+  public int codeCacheEvictionsOffset;
+  
+  // JTOC offsets of the counts of static blocks loaded into and evicted from the statics cache
+  public int staticCacheLoadsOffset;
+  public int staticCacheEvictionsOffset;
+  
   /** 
    * Signals that the subarch processors / threads have booted up
    */
@@ -74,6 +84,7 @@ public class VM_SubArchBootRecord implements VM_Constants {
 			
 			this.classTOCsTable   = VM_SubArchStatics.getMethodTIB();
 			this.staticsSizeTable = VM_SubArchStatics.getSizeStaticsTable();
+			this.classTOCsLength  = VM_SubArchStatics.getNumberOfClasses() << LOG_BYTES_IN_INT;
 			
 			this.oolRuntimeCodeInstructions = VM_OutOfLineMachineCode.runtimeInstructionsMainMem;
 			this.oolRuntimeCodeLength = VM_Memory.alignUp(this.oolRuntimeCodeInstructions.length() << LOG_BYTES_IN_INT, BYTES_IN_QUAD);
@@ -82,6 +93,11 @@ public class VM_SubArchBootRecord implements VM_Constants {
 	  	this.runtimeEntryLength = VM_SubArchEntrypoints.runtimeEntry.getSubArchLength();
   	
 	  	this.fakeTrapStrs = fakeTrapStrsStatic;
+	  	
+	  	this.codeCacheLoadsOffset     = VM_OutOfLineMachineCode.codeCacheLoadsOff.toInt();
+	  	this.codeCacheEvictionsOffset = VM_OutOfLineMachineCode.codeCacheEvictionsOff.toInt();
+	  	this.staticCacheLoadsOffset     = VM_OutOfLineMachineCode.staticCacheLoadsOff.toInt();
+	  	this.staticCacheEvictionsOffset = VM_OutOfLineMachineCode.staticCacheEvictionsOff.toInt();
   	}	
   }
   
@@ -108,6 +124,14 @@ public class VM_SubArchBootRecord implements VM_Constants {
   	}
   }
   
+  @Uninterruptible
+  public static void updateClassTOCs() {
+  	// classes may be added while the boot image is written, after init()
+  	if (br != null) {
+  		br.classTOCsLength = VM_SubArchStatics.getNumberOfClasses() << LOG_BYTES_IN_INT;
+  	}
+  }
+  
   @Uninterruptible
   public static void updateJtocReference() {
   	if (VM.runningVM) {
@@ -12,8 +12,6 @@
  */
 package org.jikesrvm.classloader;
 
-import java.io.DataInputStream;
-import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import org.jikesrvm.VM;
@@ -44,16 +42,17 @@ public abstract class VM_AnnotatedElement implements AnnotatedElement {
   /**
    * Read annotations from a class file and package in an array
    * @param constantPool the constantPool of the VM_Class object
+   * @param constantPoolBytes the class file's constant pool
    * that's being constructed
-   * @param input the DataInputStream to read the method's attributes
+   * @param input the class file to read the method's attributes
    * from
    * @param numAnnotationBytes how many bytes are there in the number
    * of annotations field? Normally 2, but parameter annotations just
    * have 1.
    * @return an array of read annotations
    */
-  protected static VM_Annotation[] readAnnotations(int[] constantPool, DataInputStream input, int numAnnotationBytes,
-                                                   ClassLoader classLoader) throws IOException {
+  protected static VM_Annotation[] readAnnotations(int[] constantPool, byte[] constantPoolBytes, VM_ClassFileReader input, int numAnnotationBytes,
+                                                   ClassLoader classLoader) {
     try {
       int numAnnotations;
       if (numAnnotationBytes == 2) {
@@ -64,7 +63,7 @@ public abstract class VM_AnnotatedElement implements AnnotatedElement {
       }
       final VM_Annotation[] annotations = new VM_Annotation[numAnnotations];
       for (int j = 0; j < numAnnotations; j++) {
-        annotations[j] = VM_Annotation.readAnnotation(constantPool, input, classLoader);
+        annotations[j] = VM_Annotation.readAnnotation(constantPool, constantPoolBytes, input, classLoader);
       }
       return annotations;
     } catch (ClassNotFoundException e) {
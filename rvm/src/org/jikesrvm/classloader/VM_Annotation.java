@@ -12,8 +12,6 @@
  */
 package org.jikesrvm.classloader;
 
-import java.io.DataInputStream;
-import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.Arrays;
 import org.jikesrvm.runtime.VM_Reflection;
@@ -83,19 +81,20 @@ public final class VM_Annotation {
    * Read an annotation attribute from the class file
    *
    * @param constantPool from constant pool being loaded
+   * @param constantPoolBytes the class file's constant pool
    * @param input the data being rea
    */
-  static VM_Annotation readAnnotation(int[] constantPool, DataInputStream input, ClassLoader classLoader)
-      throws IOException, ClassNotFoundException {
+  static VM_Annotation readAnnotation(int[] constantPool, byte[] constantPoolBytes, VM_ClassFileReader input, ClassLoader classLoader)
+      throws ClassNotFoundException {
     VM_Atom type;
     // Read type
     int typeIndex = input.readUnsignedShort();
-    type = VM_Class.getUtf(constantPool, typeIndex);
+    type = VM_Class.getUtf(constantPool, constantPoolBytes, typeIndex);
     // Read values
     int numAnnotationMembers = input.readUnsignedShort();
     AnnotationMember[] elementValuePairs = new AnnotationMember[numAnnotationMembers];
     for (int i = 0; i < numAnnotationMembers; i++) {
-      elementValuePairs[i] = AnnotationMember.readAnnotationMember(constantPool, input, classLoader);
+      elementValuePairs[i] = AnnotationMember.readAnnotationMember(constantPool, constantPoolBytes, input, classLoader);
     }
     // Arrays.sort(elementValuePairs);
     return new VM_Annotation(type, elementValuePairs, classLoader);
@@ -173,11 +172,12 @@ public final class VM_Annotation {
    * Read the element_value field of an annotation
    *
    * @param constantPool the constant pool for the class being read
+   * @param constantPoolBytes the class file's constant pool
    * @param input stream to read from
    * @return object representing the value read
    */
-  static Object readValue(int[] constantPool, DataInputStream input, ClassLoader classLoader)
-      throws IOException, ClassNotFoundException {
+  static Object readValue(int[] constantPool, byte[] constantPoolBytes, VM_ClassFileReader input, ClassLoader classLoader)
+      throws ClassNotFoundException {
     // Read element value's tag and decode
     byte elementValue_tag = input.readByte();
     Object value;
@@ -225,33 +225,33 @@ public final class VM_Annotation {
         break;
       }
       case's': {
-        value = VM_Class.getUtf(constantPool, input.readUnsignedShort()).toString();
+        value = VM_Class.getUtf(constantPool, constantPoolBytes, input.readUnsignedShort()).toString();
         break;
       }
       case'e': {
         int typeNameIndex = input.readUnsignedShort();
         @SuppressWarnings("unchecked") Class enumType =
             VM_TypeReference.findOrCreate(classLoader,
-                                          VM_Class.getUtf(constantPool, typeNameIndex)).resolve(false).getClassForType();
+                                          VM_Class.getUtf(constantPool, constantPoolBytes, typeNameIndex)).resolve(false).getClassForType();
         int constNameIndex = input.readUnsignedShort();
 
         //noinspection unchecked
-        value = Enum.valueOf(enumType, VM_Class.getUtf(constantPool, constNameIndex).toString());
+        value = Enum.valueOf(enumType, VM_Class.getUtf(constantPool, constantPoolBytes, constNameIndex).toString());
         break;
       }
       case'c': {
         int classInfoIndex = input.readUnsignedShort();
-        value = Class.forName(VM_Class.getUtf(constantPool, classInfoIndex).toString());
+        value = Class.forName(VM_Class.getUtf(constantPool, constantPoolBytes, classInfoIndex).toString());
         break;
       }
       case'@':
-        value = VM_Annotation.readAnnotation(constantPool, input, classLoader);
+        value = VM_Annotation.readAnnotation(constantPool, constantPoolBytes, input, classLoader);
         break;
       case'[': {
         int numValues = input.readUnsignedShort();
         Object[] array = new Object[numValues];
         for (int i = 0; i < numValues; i++) {
-          array[i] = readValue(constantPool, input, classLoader);
+          array[i] = readValue(constantPool, constantPoolBytes, input, classLoader);
         }
         value = array;
         break;
@@ -431,16 +431,17 @@ public final class VM_Annotation {
     /**
      * Read the pair from the input stream and create object
      * @param constantPool the constant pool for the class being read
+     * @param constantPoolBytes the class file's constant pool
      * @param input stream to read from
      * @param classLoader the class loader being used to load this annotation
      * @return a newly created annotation member
      */
-    static AnnotationMember readAnnotationMember(int[] constantPool, DataInputStream input, ClassLoader classLoader)
-        throws IOException, ClassNotFoundException {
+    static AnnotationMember readAnnotationMember(int[] constantPool, byte[] constantPoolBytes, VM_ClassFileReader input, ClassLoader classLoader)
+        throws ClassNotFoundException {
       // Read name of pair
       int elemNameIndex = input.readUnsignedShort();
-      VM_Atom name = VM_Class.getUtf(constantPool, elemNameIndex);
-      Object value = VM_Annotation.readValue(constantPool, input, classLoader);
+      VM_Atom name = VM_Class.getUtf(constantPool, constantPoolBytes, elemNameIndex);
+      Object value = VM_Annotation.readValue(constantPool, constantPoolBytes, input, classLoader);
       return new AnnotationMember(name, value);
     }
 
@@ -13,10 +13,17 @@
 package org.jikesrvm.classloader;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
 import java.util.StringTokenizer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import org.jikesrvm.VM;
 import org.jikesrvm.runtime.VM_Magic;
 
@@ -107,6 +114,135 @@ public class VM_ApplicationClassLoader extends URLClassLoader {
   protected String findLibrary(String libName) {
     return null;
   }
+
+  /**
+   * Index of our local jars by package, built on the first lookup
+   * (URLs may be added after construction by subclasses of
+   * URLClassLoader, but not by us).
+   */
+  private VM_ClasspathIndex index;
+
+  /** The URL of each repository in {@link #index} */
+  private URL[] indexedURLs;
+
+  private synchronized VM_ClasspathIndex getIndex() {
+    if (index == null) {
+      indexedURLs = getURLs();
+      String[] paths = new String[indexedURLs.length];
+      for (int i = 0; i < paths.length; i++) {
+        URL url = indexedURLs[i];
+        paths[i] = url.getProtocol().equals("file") ? url.getPath() : url.toString();
+      }
+      index = new VM_ClasspathIndex(paths);
+    }
+    return index;
+  }
+
+  /**
+   * Find a class in our repositories.  Only jars that contain the class's
+   * package are searched; if a repository that is not indexed (a directory
+   * or remote URL) or a jar that can't be opened comes first, or no jar
+   * holds the class (it may be on a manifest Class-Path), we defer to
+   * URLClassLoader, which then finds the same class as it would have
+   * without the index.  The class
+   * file is taken from the {@link VM_ClassDataArchive} if the jar's copy
+   * was archived by an earlier run.
+   */
+  protected Class<?> findClass(String className) throws ClassNotFoundException {
+    String resName = className.replace('.', '/') + ".class";
+    VM_ClasspathIndex index = getIndex();
+    for (int repository = index.next(resName, 0); repository != -1;
+         repository = index.next(resName, repository + 1)) {
+      JarFile jar = index.getJar(repository);
+      if (jar == null) {
+        return super.findClass(className);
+      }
+      String path = index.getPath(repository);
+      byte[] bytes = VM_ClassDataArchive.lookup(path, resName);
+      Certificate[] certificates = null;
+      if (bytes == null) {
+        JarEntry entry = jar.getJarEntry(resName);
+        if (entry == null) continue;
+        if (entry.getSize() < 0) {
+          // size not recorded in the jar directory; let URLClassLoader stream it
+          return super.findClass(className);
+        }
+        try {
+          bytes = readEntry(jar, entry);
+        } catch (IOException e) {
+          throw new ClassNotFoundException(className, e);
+        }
+        // certificates are only available once the entry has been read
+        certificates = entry.getCertificates();
+        if (certificates == null) {
+          VM_ClassDataArchive.record(path, resName, bytes);
+        }
+      }
+      try {
+        return defineClassFromJar(className, bytes, jar, indexedURLs[repository], certificates);
+      } catch (IOException e) {
+        throw new ClassNotFoundException(className, e);
+      }
+    }
+    return super.findClass(className);
+  }
+
+  private static byte[] readEntry(JarFile jar, JarEntry entry) throws IOException {
+    byte[] bytes = new byte[(int) entry.getSize()];
+    InputStream is = jar.getInputStream(entry);
+    try {
+      int off = 0;
+      while (off < bytes.length) {
+        int n = is.read(bytes, off, bytes.length - off);
+        if (n < 0) throw new IOException("Truncated entry " + entry.getName() + " in " + jar.getName());
+        off += n;
+      }
+    } finally {
+      is.close();
+    }
+    return bytes;
+  }
+
+  private Class<?> defineClassFromJar(String className, byte[] bytes, JarFile jar, URL url,
+                                      Certificate[] certificates) throws IOException {
+    int lastDot = className.lastIndexOf('.');
+    if (lastDot != -1) {
+      String packageName = className.substring(0, lastDot);
+      if (getPackage(packageName) == null) {
+        Manifest manifest = jar.getManifest();
+        if (manifest != null) {
+          definePackage(packageName, manifest, url);
+        } else {
+          definePackage(packageName, null, null, null, null, null, null, null);
+        }
+      }
+    }
+    return defineClass(className, bytes, 0, bytes.length, new CodeSource(url, certificates));
+  }
+
+  /**
+   * Find a resource in our repositories, searching only the jars that
+   * contain its package and deferring to URLClassLoader otherwise, as for
+   * {@link #findClass}.
+   */
+  public URL findResource(String resName) {
+    VM_ClasspathIndex index = getIndex();
+    for (int repository = index.next(resName, 0); repository != -1;
+         repository = index.next(resName, repository + 1)) {
+      JarFile jar = index.getJar(repository);
+      if (jar == null) {
+        return super.findResource(resName);
+      }
+      if (jar.getEntry(resName) != null) {
+        try {
+          return new URL("jar:" + indexedURLs[repository] + "!/" + resName);
+        } catch (MalformedURLException e) {
+          return null;
+        }
+      }
+    }
+    return super.findResource(resName);
+  }
 }
 
 
@@ -38,6 +38,12 @@ public final class VM_Atom implements VM_ClassLoaderConstants {
    */
   private static final VM_HashMap<Key, VM_Atom> dictionary = new VM_HashMap<Key, VM_Atom>();
 
+  /**
+   * Reused to look up parts of byte arrays in the dictionary without
+   * copying them.  Protected by the lock on VM_Atom.class.
+   */
+  private static final Key probe = new Key(null, 0, 0);
+
   /**
    * Dictionary of all VM_Atom instances.
    */
@@ -117,6 +123,17 @@ public final class VM_Atom implements VM_ClassLoaderConstants {
     return findOrCreate(utf8, true);
   }
 
+  /**
+   * Find or create an atom, only copying the bytes if the atom is new.
+   * @param utf8 array holding the atom value, as utf8 encoded bytes
+   * @param off offset of the atom value in utf8
+   * @param len length of the atom value
+   * @return atom
+   */
+  public static VM_Atom findOrCreateUtf8Atom(byte[] utf8, int off, int len) {
+    return findOrCreate(utf8, off, len);
+  }
+
   /**
    * Find an atom.
    * @param utf8 atom value, as utf8 encoded bytes
@@ -135,23 +152,34 @@ public final class VM_Atom implements VM_ClassLoaderConstants {
     return atoms[id];
   }
 
-  private static VM_Atom findOrCreate(byte[] utf8, int off, int len) {
-    byte[] val = new byte[len];
-    for (int i = 0; i < len; ++i) {
-      val[i] = utf8[off++];
-    }
-    return findOrCreate(val, true);
+  private static synchronized VM_Atom findOrCreate(byte[] utf8, int off, int len) {
+    probe.set(utf8, off, len);
+    VM_Atom val = dictionary.get(probe);
+    probe.set(null, 0, 0);
+    if (val != null) return val;
+    byte[] bytes = new byte[len];
+    System.arraycopy(utf8, off, bytes, 0, len);
+    return create(new Key(bytes));
   }
 
-  /** This is the findOrCreate() method through which all VM_Atoms are
-   * ultimately created.   The constructor for VM_Atom is a private method, so
-   * someone has to call one of the public findOrCreate() methods to get a new
-   * one.  And they all feed through here.  */
+  /** This and findOrCreate(byte[], int, int) are the methods through which
+   * all VM_Atoms are ultimately created.   The constructor for VM_Atom is a
+   * private method, so someone has to call one of the public findOrCreate()
+   * methods to get a new one.  And they all feed through here.  */
   private static synchronized VM_Atom findOrCreate(byte[] bytes, boolean create) {
     Key key = new Key(bytes);
     VM_Atom val = dictionary.get(key);
     if (val != null || !create) return val;
-    val = new VM_Atom(key, nextId++);
+    return create(key);
+  }
+
+  /**
+   * Create a new atom.
+   * @param key the atom's value, which must own its whole array
+   * @return the atom
+   */
+  private static VM_Atom create(Key key) {
+    VM_Atom val = new VM_Atom(key, nextId++);
     if (val.id == atoms.length) {
       VM_Atom[] tmp = new VM_Atom[atoms.length + 1000];
       System.arraycopy(atoms, 0, tmp, 0, atoms.length);
@@ -717,15 +745,28 @@ public final class VM_Atom implements VM_ClassLoaderConstants {
    * We do this to enable VM_Atom.equals to be efficient (==).
    */
   private static class Key {
-    final byte[] val;
+    /** The bytes; only the probe key uses part of an array */
+    byte[] val;
+    int off;
+    int len;
 
     Key(byte[] utf8) {
-      val = utf8;
+      this(utf8, 0, utf8.length);
+    }
+
+    Key(byte[] utf8, int off, int len) {
+      set(utf8, off, len);
+    }
+
+    final void set(byte[] utf8, int off, int len) {
+      this.val = utf8;
+      this.off = off;
+      this.len = len;
     }
 
     public final int hashCode() {
       int tmp = 99989;
-      for (int i = val.length; --i >= 0;) {
+      for (int i = off + len; --i >= off;) {
         tmp = 99991 * tmp + val[i];
       }
       return tmp;
@@ -735,9 +776,9 @@ public final class VM_Atom implements VM_ClassLoaderConstants {
       if (this == other) return true;
       if (other instanceof Key) {
         Key that = (Key) other;
-        if (val.length != that.val.length) return false;
-        for (int i = 0; i < val.length; i++) {
-          if (val[i] != that.val[i]) return false;
+        if (len != that.len) return false;
+        for (int i = 0; i < len; i++) {
+          if (val[off + i] != that.val[that.off + i]) return false;
         }
         return true;
       } else {
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.StringTokenizer;
 import java.util.Vector;
 import java.util.zip.ZipEntry;
@@ -48,6 +47,7 @@ public final class VM_BootstrapClassLoader extends java.lang.ClassLoader {
    */
   public static void setBootstrapRepositories(String bootstrapClasspath) {
     VM_BootstrapClassLoader.bootstrapClasspath = bootstrapClasspath;
+    repositoryIndex = null;
   }
 
   /**
@@ -73,7 +73,7 @@ public final class VM_BootstrapClassLoader extends java.lang.ClassLoader {
     if (bootstrapClasspath != null) {
       VM_BootstrapClassLoader.bootstrapClasspath = bootstrapClasspath;
     }
-    zipFileCache = new HashMap<String, ZipFile>();
+    repositoryIndex = null;
     if (VM.runningVM) {
       try {
         /* Here, we have to replace the fields that aren't carried over from
@@ -213,7 +213,24 @@ public final class VM_BootstrapClassLoader extends java.lang.ClassLoader {
 
   public String toString() { return myName; }
 
-  private static HashMap<String, ZipFile> zipFileCache;
+  /**
+   * Index of the bootstrap repositories by package, created on first use
+   * after the repositories are set (the jars it has open do not survive
+   * into the boot image, so it is recreated after {@link #boot}).
+   */
+  private static VM_ClasspathIndex repositoryIndex;
+
+  private static synchronized VM_ClasspathIndex getRepositoryIndex() {
+    if (repositoryIndex == null) {
+      StringTokenizer tok = new StringTokenizer(getBootstrapRepositories(), File.pathSeparator);
+      String[] paths = new String[tok.countTokens()];
+      for (int i = 0; i < paths.length; i++) {
+        paths[i] = tok.nextToken();
+      }
+      repositoryIndex = new VM_ClasspathIndex(paths);
+    }
+    return repositoryIndex;
+  }
 
   private interface Handler<T> {
     void process(ZipFile zf, ZipEntry ze) throws Exception;
@@ -287,28 +304,21 @@ public final class VM_BootstrapClassLoader extends java.lang.ClassLoader {
       name = name.substring(File.separator.length());
     }
 
-    StringTokenizer tok = new StringTokenizer(getBootstrapRepositories(), File.pathSeparator);
-
-    while (tok.hasMoreElements()) {
+    // Only the repositories that can hold the resource's package are probed
+    VM_ClasspathIndex index = getRepositoryIndex();
+    for (int repository = index.next(name, 0); repository != -1; repository = index.next(name, repository + 1)) {
       try {
-        String path = tok.nextToken();
-        if (path.endsWith(".jar") || path.endsWith(".zip")) {
-
-          ZipFile zf = zipFileCache.get(path);
-          if (zf == null) {
-            zf = new ZipFile(path);
-            if (zf == null) {
-              continue;
-            } else {
-              zipFileCache.put(path, zf);
-            }
-          }
-
+        String path = index.getPath(repository);
+        ZipFile zf = index.getJar(repository);
+        if (zf != null) {
           ZipEntry ze = zf.getEntry(name);
           if (ze == null) continue;
 
           h.process(zf, ze);
           if (!multiple) return h.getResult();
+        } else if (path.endsWith(".jar") || path.endsWith(".zip")) {
+          // could not be opened; the next search tries again
+          continue;
         } else if (path.endsWith(File.separator)) {
           File file = new File(path + name);
           if (file.exists()) {
@@ -470,14 +470,14 @@ public class VM_BytecodeStream implements VM_BytecodeConstants, VM_SizeConstants
    * Used for getstatic, putstatic, getfield, putfield
    * @return field reference
    */
-  public final VM_FieldReference getFieldReference(int[] constantPool) {
+  public final VM_FieldReference getFieldReference(int[] constantPool, byte[] constantPoolBytes) {
     if (VM.VerifyAssertions) {
       VM._assert(opcode == JBC_getstatic ||
                  opcode == JBC_putstatic ||
                  opcode == JBC_getfield ||
                  opcode == JBC_putfield);
     }
-    return VM_Class.getFieldRef(constantPool, readUnsignedShort());
+    return VM_Class.getFieldRef(constantPool, constantPoolBytes, readUnsignedShort());
   }
   /**
    * Returns a reference to a field
@@ -499,14 +499,30 @@ public class VM_BytecodeStream implements VM_BytecodeConstants, VM_SizeConstants
    * Used for invokevirtual, invokespecial, invokestatic, invokeinterface
    * @return method reference
    */
-  public final VM_MethodReference getMethodReference(int[] constantPool) {
+  public final VM_MethodReference getMethodReference(int[] constantPool, byte[] constantPoolBytes) {
     if (VM.VerifyAssertions) {
       VM._assert(opcode == JBC_invokevirtual ||
                  opcode == JBC_invokespecial ||
                  opcode == JBC_invokestatic ||
                  opcode == JBC_invokeinterface);
     }
-    return VM_Class.getMethodRef(constantPool, readUnsignedShort());
+    return VM_Class.getMethodRef(constantPool, constantPoolBytes, readUnsignedShort());
+  }
+
+  /**
+   * Returns the class declaring a method, for use prior to the class being
+   * loaded, without creating a reference to the method itself
+   * Used for invokevirtual, invokespecial, invokestatic, invokeinterface
+   * @return type reference for the method's class
+   */
+  public final VM_TypeReference getMethodReferenceType(int[] constantPool, byte[] constantPoolBytes) {
+    if (VM.VerifyAssertions) {
+      VM._assert(opcode == JBC_invokevirtual ||
+                 opcode == JBC_invokespecial ||
+                 opcode == JBC_invokestatic ||
+                 opcode == JBC_invokeinterface);
+    }
+    return VM_Class.getMemberRefType(constantPool, constantPoolBytes, readUnsignedShort());
   }
 
   /**
@@ -12,8 +12,6 @@
  */
 package org.jikesrvm.classloader;
 
-import java.io.DataInputStream;
-import java.io.IOException;
 import java.io.UTFDataFormatException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Inherited;
@@ -40,6 +38,7 @@ import org.jikesrvm.runtime.VM_Statics;
 import org.jikesrvm.runtime.VM_SubArchEntrypoints;
 import org.jikesrvm.runtime.VM_SubArchStatics;
 import org.jikesrvm.util.VM_Synchronizer;
+import org.vmmagic.pragma.LogicallyUninterruptible;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.unboxed.Address;
 import org.vmmagic.unboxed.Offset;
@@ -100,9 +99,30 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
    *     that class literal bytecodes must first convert the identifier
    *     in to a JTOC offset.</li>
    * </ul>
+   *
+   * A utf or member entry with the {@link #CP_LAZY} bit set hasn't been
+   * used yet; the rest of its value is the position of the entry's
+   * contents in the class file's constant pool, which is kept in
+   * {@link #constantPoolBytes}.  The atom or member reference is only
+   * created the first time the entry is asked for.
    */
   private final int[] constantPool;
 
+  /**
+   * Marks a utf or member constant pool entry that hasn't been resolved
+   * yet.  Atom and member reference identifiers stay below it.
+   */
+  private static final int CP_LAZY = 1 << 28;
+
+  /**
+   * The constant pool as it appears in the class file, for resolving the
+   * lazy entries of {@link #constantPool}; null once none are left.
+   */
+  private byte[] constantPoolBytes;
+
+  /** The number of lazy entries left in {@link #constantPool} */
+  private int lazyEntries;
+
   /**
    * Constant pool for subarch offsets.  Same structure as constant pool
    * but provides offsets to the statics in the subarch.  Only available if 
@@ -760,17 +780,18 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
    */
   @Uninterruptible
   public VM_MethodReference getMethodRef(int constantPoolIndex) {
-    return getMethodRef(constantPool, constantPoolIndex);
+    return (VM_MethodReference) getMemberRef(constantPoolIndex);
   }
 
   /**
-   * Get contents of a "methodRef" constant pool entry.
+   * Get contents of a "methodRef" constant pool entry, while the class is
+   * being read.
+   *
+   * @param constantPoolBytes the class file's constant pool
    */
   @Uninterruptible
-  static VM_MethodReference getMethodRef(int[] constantPool, int constantPoolIndex) {
-    int cpValue = constantPool[constantPoolIndex];
-    if (VM.VerifyAssertions) VM._assert(unpackCPType(cpValue) == CP_MEMBER);
-    return (VM_MethodReference) VM_MemberReference.getMemberRef(unpackUnsignedCPValue(cpValue));
+  static VM_MethodReference getMethodRef(int[] constantPool, byte[] constantPoolBytes, int constantPoolIndex) {
+    return (VM_MethodReference) getMemberRef(constantPool, constantPoolBytes, constantPoolIndex);
   }
 
   /**
@@ -778,39 +799,236 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
    */
   @Uninterruptible
   public VM_FieldReference getFieldRef(int constantPoolIndex) {
+    return (VM_FieldReference) getMemberRef(constantPoolIndex);
+  }
+
+  /**
+   * Get contents of a "fieldRef" constant pool entry, while the class is
+   * being read.
+   *
+   * @param constantPoolBytes the class file's constant pool
+   */
+  @Uninterruptible
+  static VM_FieldReference getFieldRef(int[] constantPool, byte[] constantPoolBytes, int constantPoolIndex) {
+    return (VM_FieldReference) getMemberRef(constantPool, constantPoolBytes, constantPoolIndex);
+  }
+
+  /**
+   * Get contents of a "fieldRef" or "methodRef" constant pool entry,
+   * creating the member reference if this is the entry's first use.
+   */
+  @Uninterruptible
+  private VM_MemberReference getMemberRef(int constantPoolIndex) {
     int cpValue = constantPool[constantPoolIndex];
     if (VM.VerifyAssertions) VM._assert(unpackCPType(cpValue) == CP_MEMBER);
-    return (VM_FieldReference) VM_MemberReference.getMemberRef(unpackUnsignedCPValue(cpValue));
+    int value = unpackUnsignedCPValue(cpValue);
+    if ((value & CP_LAZY) != 0) {
+      return resolveMemberRef(constantPoolIndex);
+    }
+    return VM_MemberReference.getMemberRef(value);
   }
 
   /**
-   * Get contents of a "methodRef" constant pool entry.
+   * Get contents of a "fieldRef" or "methodRef" constant pool entry, while
+   * the class is being read.
+   *
+   * @param constantPoolBytes the class file's constant pool
    */
   @Uninterruptible
-  static VM_FieldReference getFieldRef(int[] constantPool, int constantPoolIndex) {
+  private static VM_MemberReference getMemberRef(int[] constantPool, byte[] constantPoolBytes, int constantPoolIndex) {
     int cpValue = constantPool[constantPoolIndex];
     if (VM.VerifyAssertions) VM._assert(unpackCPType(cpValue) == CP_MEMBER);
-    return (VM_FieldReference) VM_MemberReference.getMemberRef(unpackUnsignedCPValue(cpValue));
+    int value = unpackUnsignedCPValue(cpValue);
+    if ((value & CP_LAZY) != 0) {
+      return resolveMemberRef(constantPool, constantPoolBytes, constantPoolIndex, value & ~CP_LAZY);
+    }
+    return VM_MemberReference.getMemberRef(value);
   }
 
   /**
-   * Get contents of a "utf" constant pool entry.
+   * Get the class named by a "fieldRef" or "methodRef" constant pool
+   * entry, without creating the member reference, while the class is
+   * being read.
+   *
+   * @param constantPoolBytes the class file's constant pool
+   */
+  @Uninterruptible
+  static VM_TypeReference getMemberRefType(int[] constantPool, byte[] constantPoolBytes, int constantPoolIndex) {
+    int cpValue = constantPool[constantPoolIndex];
+    if (VM.VerifyAssertions) VM._assert(unpackCPType(cpValue) == CP_MEMBER);
+    int value = unpackUnsignedCPValue(cpValue);
+    if ((value & CP_LAZY) != 0) {
+      return getTypeRef(constantPool, VM_ClassFileReader.getUnsignedShort(constantPoolBytes, value & ~CP_LAZY));
+    }
+    return VM_MemberReference.getMemberRef(value).getType();
+  }
+
+  /**
+   * Get contents of a "utf" constant pool entry, creating the atom if this
+   * is the entry's first use.
    */
   @Uninterruptible
   VM_Atom getUtf(int constantPoolIndex) {
     int cpValue = constantPool[constantPoolIndex];
     if (VM.VerifyAssertions) VM._assert(unpackCPType(cpValue) == CP_UTF);
-    return VM_Atom.getAtom(unpackUnsignedCPValue(cpValue));
+    int value = unpackUnsignedCPValue(cpValue);
+    if ((value & CP_LAZY) != 0) {
+      return resolveUtf(constantPoolIndex);
+    }
+    return VM_Atom.getAtom(value);
   }
 
   /**
-   * Get contents of a "utf" from a constant pool entry.
+   * Get contents of a "utf" constant pool entry, while the class is being
+   * read.
+   *
+   * @param constantPoolBytes the class file's constant pool
    */
   @Uninterruptible
-  static VM_Atom getUtf(int[] constantPool, int constantPoolIndex) {
+  static VM_Atom getUtf(int[] constantPool, byte[] constantPoolBytes, int constantPoolIndex) {
     int cpValue = constantPool[constantPoolIndex];
     if (VM.VerifyAssertions) VM._assert(unpackCPType(cpValue) == CP_UTF);
-    return VM_Atom.getAtom(unpackUnsignedCPValue(cpValue));
+    int value = unpackUnsignedCPValue(cpValue);
+    if ((value & CP_LAZY) != 0) {
+      return resolveUtf(constantPool, constantPoolBytes, constantPoolIndex, value & ~CP_LAZY);
+    }
+    return VM_Atom.getAtom(value);
+  }
+
+  /**
+   * Create the atom for a lazy "utf" constant pool entry, unless another
+   * thread got there first.
+   */
+  @LogicallyUninterruptible
+  private synchronized VM_Atom resolveUtf(int constantPoolIndex) {
+    int value = unpackUnsignedCPValue(constantPool[constantPoolIndex]);
+    if ((value & CP_LAZY) == 0) {
+      return VM_Atom.getAtom(value);
+    }
+    VM_Atom atom = resolveUtf(constantPool, constantPoolBytes, constantPoolIndex, value & ~CP_LAZY);
+    lazyEntryResolved();
+    return atom;
+  }
+
+  /**
+   * Create the member reference for a lazy "fieldRef" or "methodRef"
+   * constant pool entry, unless another thread got there first.
+   */
+  @LogicallyUninterruptible
+  private synchronized VM_MemberReference resolveMemberRef(int constantPoolIndex) {
+    int value = unpackUnsignedCPValue(constantPool[constantPoolIndex]);
+    if ((value & CP_LAZY) == 0) {
+      return VM_MemberReference.getMemberRef(value);
+    }
+    int pos = value & ~CP_LAZY;
+    // this entry stays lazy until the end, so the bytes stay around too
+    VM_TypeReference tref = getTypeRef(constantPool, VM_ClassFileReader.getUnsignedShort(constantPoolBytes, pos));
+    int memberNameAndDescriptorBits = constantPool[VM_ClassFileReader.getUnsignedShort(constantPoolBytes, pos + 2)];
+    VM_Atom memberName = getUtf(unpackTempCPIndex1(memberNameAndDescriptorBits));
+    VM_Atom memberDescriptor = getUtf(unpackTempCPIndex2(memberNameAndDescriptorBits));
+    VM_MemberReference mr = VM_MemberReference.findOrCreate(tref, memberName, memberDescriptor);
+    if (VM.VerifyAssertions) VM._assert(mr.getId() < CP_LAZY);
+    constantPool[constantPoolIndex] = packCPEntry(CP_MEMBER, mr.getId());
+    lazyEntryResolved();
+    return mr;
+  }
+
+  /**
+   * Count off a lazy entry, dropping the class file's constant pool when
+   * it was the last.
+   */
+  @Uninterruptible
+  private void lazyEntryResolved() {
+    if (--lazyEntries == 0) {
+      constantPoolBytes = null;
+    }
+  }
+
+  /**
+   * Create the atom for a lazy "utf" constant pool entry.
+   *
+   * @param pos position of the entry's length in the class file's
+   * constant pool
+   */
+  @LogicallyUninterruptible
+  private static VM_Atom resolveUtf(int[] constantPool, byte[] constantPoolBytes, int constantPoolIndex, int pos) {
+    int length = VM_ClassFileReader.getUnsignedShort(constantPoolBytes, pos);
+    VM_Atom atom = VM_Atom.findOrCreateUtf8Atom(constantPoolBytes, pos + 2, length);
+    if (VM.VerifyAssertions) VM._assert(atom.getId() < CP_LAZY);
+    constantPool[constantPoolIndex] = packCPEntry(CP_UTF, atom.getId());
+    return atom;
+  }
+
+  /**
+   * Create the member reference for a lazy "fieldRef" or "methodRef"
+   * constant pool entry.
+   *
+   * @param pos position of the entry's class index in the class file's
+   * constant pool
+   */
+  @LogicallyUninterruptible
+  private static VM_MemberReference resolveMemberRef(int[] constantPool, byte[] constantPoolBytes,
+                                                     int constantPoolIndex, int pos) {
+    VM_TypeReference tref = getTypeRef(constantPool, VM_ClassFileReader.getUnsignedShort(constantPoolBytes, pos));
+    int memberNameAndDescriptorBits = constantPool[VM_ClassFileReader.getUnsignedShort(constantPoolBytes, pos + 2)];
+    VM_Atom memberName = getUtf(constantPool, constantPoolBytes, unpackTempCPIndex1(memberNameAndDescriptorBits));
+    VM_Atom memberDescriptor = getUtf(constantPool, constantPoolBytes, unpackTempCPIndex2(memberNameAndDescriptorBits));
+    VM_MemberReference mr = VM_MemberReference.findOrCreate(tref, memberName, memberDescriptor);
+    if (VM.VerifyAssertions) VM._assert(mr.getId() < CP_LAZY);
+    constantPool[constantPoolIndex] = packCPEntry(CP_MEMBER, mr.getId());
+    return mr;
+  }
+
+  /**
+   * @param tags the class file's constant pool tags
+   * @return the number of lazy entries in a constant pool
+   */
+  private static int countLazyEntries(int[] constantPool, byte[] tags) {
+    int count = 0;
+    for (int i = 1; i < constantPool.length; i++) {
+      switch (tags[i]) {
+        case TAG_LONG:
+        case TAG_DOUBLE:
+          ++i;
+          break;
+
+        case TAG_UTF:
+        case TAG_FIELDREF:
+        case TAG_METHODREF:
+        case TAG_INTERFACE_METHODREF:
+          if ((unpackUnsignedCPValue(constantPool[i]) & CP_LAZY) != 0) count++;
+          break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Resolve every utf and member constant pool entry, so that the class
+   * file's constant pool needn't be kept.
+   *
+   * @param constantPoolBytes the class file's constant pool
+   * @param tags the class file's constant pool tags
+   */
+  private static void resolveConstantPool(int[] constantPool, byte[] constantPoolBytes, byte[] tags) {
+    for (int i = 1; i < constantPool.length; i++) {
+      switch (tags[i]) {
+        case TAG_LONG:
+        case TAG_DOUBLE:
+          ++i;
+          break;
+
+        case TAG_UTF:
+          getUtf(constantPool, constantPoolBytes, i);
+          break;
+
+        case TAG_FIELDREF:
+        case TAG_METHODREF:
+        case TAG_INTERFACE_METHODREF:
+          getMemberRef(constantPool, constantPoolBytes, i);
+          break;
+      }
+    }
   }
 
   /**
@@ -1144,6 +1362,8 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
    *
    * @param typeRef the type reference that was resolved to this class
    * @param constantPool array of ints encoding constant value
+   * @param constantPoolBytes the class file's constant pool, if it has lazy entries
+   * @param lazyEntries the number of lazy entries in the constant pool
    * @param modifiers {@link org.jikesrvm.classloader.VM_ClassLoaderConstants}
    * @param superClass parent of this class
    * @param declaredInterfaces array of interfaces this class implements
@@ -1156,7 +1376,8 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
    * @param signature the generic type name for this class
    * @param annotations array of runtime visible annotations
    */
-  private VM_Class(VM_TypeReference typeRef, int[] constantPool, short modifiers, short annoModifiers, VM_Class superClass,
+  private VM_Class(VM_TypeReference typeRef, int[] constantPool, byte[] constantPoolBytes, int lazyEntries,
+                   short modifiers, short annoModifiers, VM_Class superClass,
                    VM_Class[] declaredInterfaces, VM_Field[] declaredFields, VM_Method[] declaredMethods,
                    VM_TypeReference[] declaredClasses, VM_TypeReference declaringClass, VM_TypeReference enclosingClass,
                    VM_MethodReference enclosingMethod, VM_Atom sourceName, VM_Method classInitializerMethod,
@@ -1184,6 +1405,8 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
     this.subClasses = emptyVMClass;
     state = CLASS_LOADED;
     this.subArchConstantPool = null;
+    this.lazyEntries = lazyEntries;
+    this.constantPoolBytes = (lazyEntries == 0) ? null : constantPoolBytes;
 
     // we're about to leak a reference to 'this' force memory to be
     // consistent
@@ -1206,10 +1429,17 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
 
   /**
    * Create an instance of a VM_Class.
+   *
+   * The class file is read in one pass.  Utf and member constant pool
+   * entries are left unresolved (see {@link #constantPool}): the atoms
+   * for the names and descriptors of the fields and methods the class
+   * refers to, and the member references themselves, are only created
+   * when something first asks for them.
+   *
    * @param typeRef the cannonical type reference for this type.
-   * @param input the data stream from which to read the class's description.
+   * @param input the class file from which to read the class's description.
    */
-  static VM_Class readClass(VM_TypeReference typeRef, DataInputStream input) throws ClassFormatError, IOException {
+  static VM_Class readClass(VM_TypeReference typeRef, VM_ClassFileReader input) throws ClassFormatError {
 
     if (classLoadingDisabled) {
       throw new RuntimeException("ClassLoading Disabled : " + typeRef);
@@ -1246,16 +1476,16 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
     //
     int[] constantPool = new int[input.readUnsignedShort()];
     byte[] tmpTags = new byte[constantPool.length];
+    int cpStart = input.getPosition();
 
-    // note: slot 0 is unused
+    // note: slot 0 is unused (by the class file)
     for (int i = 1; i < constantPool.length; i++) {
       tmpTags[i] = input.readByte();
       switch (tmpTags[i]) {
-        case TAG_UTF: {
-          byte[] utf = new byte[input.readUnsignedShort()];
-          input.readFully(utf);
-          int atomId = VM_Atom.findOrCreateUtf8Atom(utf).getId();
-          constantPool[i] = packCPEntry(CP_UTF, atomId);
+        case TAG_UTF: { // out: position of the length
+          int pos = input.getPosition() - cpStart;
+          input.skipBytes(input.readUnsignedShort());
+          constantPool[i] = packCPEntry(CP_UTF, CP_LAZY | pos);
           break;
         }
         case TAG_UNUSED:
@@ -1298,10 +1528,10 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
 
         case TAG_FIELDREF:
         case TAG_METHODREF:
-        case TAG_INTERFACE_METHODREF: {
-          int classDescriptorIndex = input.readUnsignedShort();
-          int memberNameAndDescriptorIndex = input.readUnsignedShort();
-          constantPool[i] = packTempCPEntry(classDescriptorIndex, memberNameAndDescriptorIndex);
+        case TAG_INTERFACE_METHODREF: { // out: position of the class index
+          int pos = input.getPosition() - cpStart;
+          input.skipBytes(4);
+          constantPool[i] = packCPEntry(CP_MEMBER, CP_LAZY | pos);
           break;
         }
 
@@ -1316,6 +1546,7 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
           throw new ClassFormatError("bad constant pool");
       }
     }
+    byte[] constantPoolBytes = input.copyBytes(cpStart, input.getPosition());
 
     //
     // pass 2: post-process type and string constant pool entries
@@ -1330,7 +1561,7 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
             break;
 
           case TAG_TYPEREF: { // in: utf index
-            VM_Atom typeName = getUtf(constantPool, constantPool[i]);
+            VM_Atom typeName = getUtf(constantPool, constantPoolBytes, constantPool[i]);
             int typeRefId =
                 VM_TypeReference.findOrCreate(typeRef.getClassLoader(), typeName.descriptorFromClassName()).getId();
             constantPool[i] = packCPEntry(CP_CLASS, typeRefId);
@@ -1338,7 +1569,7 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
           } // out: type reference id
 
           case TAG_STRING: { // in: utf index
-            VM_Atom literal = getUtf(constantPool, constantPool[i]);
+            VM_Atom literal = getUtf(constantPool, constantPoolBytes, constantPool[i]);
             int offset = VM_Statics.findOrCreateStringLiteral(literal);
             constantPool[i] = packCPEntry(CP_STRING, offset);
             break;
@@ -1349,37 +1580,6 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
       throw new ClassFormatError(x.toString());
     }
 
-    //
-    // pass 3: post-process type field and method constant pool entries
-    //
-    for (int i = 1; i < constantPool.length; i++) {
-      switch (tmpTags[i]) {
-        case TAG_LONG:
-        case TAG_DOUBLE:
-          ++i;
-          break;
-
-        case TAG_FIELDREF:
-        case TAG_METHODREF:
-        case TAG_INTERFACE_METHODREF: { // in: classname+membername+memberdescriptor indices
-          int bits = constantPool[i];
-          int classNameIndex = unpackTempCPIndex1(bits);
-          int memberNameAndDescriptorIndex = unpackTempCPIndex2(bits);
-          int memberNameAndDescriptorBits = constantPool[memberNameAndDescriptorIndex];
-          int memberNameIndex = unpackTempCPIndex1(memberNameAndDescriptorBits);
-          int memberDescriptorIndex = unpackTempCPIndex2(memberNameAndDescriptorBits);
-
-          VM_TypeReference tref = getTypeRef(constantPool, classNameIndex);
-          VM_Atom memberName = getUtf(constantPool, memberNameIndex);
-          VM_Atom memberDescriptor = getUtf(constantPool, memberDescriptorIndex);
-          VM_MemberReference mr = VM_MemberReference.findOrCreate(tref, memberName, memberDescriptor);
-          int mrId = mr.getId();
-          constantPool[i] = packCPEntry(CP_MEMBER, mrId);
-          break;
-        } // out: VM_MemberReference id
-      }
-    }
-
     short modifiers = input.readShort();
     int myTypeIndex = input.readUnsignedShort();
     VM_TypeReference myTypeRef = getTypeRef(constantPool, myTypeIndex);
@@ -1428,10 +1628,10 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
       declaredFields = new VM_Field[numFields];
       for (int i = 0; i < numFields; i++) {
         short fmodifiers = input.readShort();
-        VM_Atom fieldName = getUtf(constantPool, input.readUnsignedShort());
-        VM_Atom fieldDescriptor = getUtf(constantPool, input.readUnsignedShort());
+        VM_Atom fieldName = getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
+        VM_Atom fieldDescriptor = getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
         VM_MemberReference memRef = VM_MemberReference.findOrCreate(typeRef, fieldName, fieldDescriptor);
-        declaredFields[i] = VM_Field.readField(typeRef, constantPool, memRef, fmodifiers, input);
+        declaredFields[i] = VM_Field.readField(typeRef, constantPool, constantPoolBytes, memRef, fmodifiers, input);
       }
     }
 
@@ -1444,10 +1644,10 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
       declaredMethods = new VM_Method[numMethods];
       for (int i = 0; i < numMethods; i++) {
         short mmodifiers = input.readShort();
-        VM_Atom methodName = getUtf(constantPool, input.readUnsignedShort());
-        VM_Atom methodDescriptor = getUtf(constantPool, input.readUnsignedShort());
+        VM_Atom methodName = getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
+        VM_Atom methodDescriptor = getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
         VM_MemberReference memRef = VM_MemberReference.findOrCreate(typeRef, methodName, methodDescriptor);
-        VM_Method method = VM_Method.readMethod(typeRef, constantPool, memRef, mmodifiers, input);
+        VM_Method method = VM_Method.readMethod(typeRef, constantPool, constantPoolBytes, memRef, mmodifiers, input);
         declaredMethods[i] = method;
         if (method.isClassInitializer()) {
           classInitializerMethod = method;
@@ -1464,12 +1664,12 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
     // Read attributes.
 
     for (int i = 0, n = input.readUnsignedShort(); i < n; ++i) {
-      VM_Atom attName = getUtf(constantPool, input.readUnsignedShort());
+      VM_Atom attName = getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
       int attLength = input.readInt();
 
       // Class attributes
       if (attName == VM_ClassLoader.sourceFileAttributeName && attLength == 2) {
-        sourceName = getUtf(constantPool, input.readUnsignedShort());
+        sourceName = getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
       } else if (attName == VM_ClassLoader.innerClassesAttributeName) {
         // Parse InnerClasses attribute, and use the information to populate
         // the list of declared member classes.  We do this so we can
@@ -1514,15 +1714,15 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
         if (enclosingMethodIndex != 0) {
           int memberNameIndex = constantPool[enclosingMethodIndex] >>> BITS_IN_SHORT;
           int memberDescriptorIndex = constantPool[enclosingMethodIndex] & ((1 << BITS_IN_SHORT) - 1);
-          VM_Atom memberName = getUtf(constantPool, memberNameIndex);
-          VM_Atom memberDescriptor = getUtf(constantPool, memberDescriptorIndex);
+          VM_Atom memberName = getUtf(constantPool, constantPoolBytes, memberNameIndex);
+          VM_Atom memberDescriptor = getUtf(constantPool, constantPoolBytes, memberDescriptorIndex);
           enclosingMethod =
               VM_MemberReference.findOrCreate(enclosingClass, memberName, memberDescriptor).asMethodReference();
         }
       } else if (attName == VM_ClassLoader.signatureAttributeName) {
-        signature = VM_Class.getUtf(constantPool, input.readUnsignedShort());
+        signature = getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
       } else if (attName == VM_ClassLoader.runtimeVisibleAnnotationsAttributeName) {
-        annotations = VM_AnnotatedElement.readAnnotations(constantPool, input, 2, typeRef.getClassLoader());
+        annotations = VM_AnnotatedElement.readAnnotations(constantPool, constantPoolBytes, input, 2, typeRef.getClassLoader());
       } else {
         input.skipBytes(attLength);
       }
@@ -1530,8 +1730,15 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
 
     short annoModifiers = createAnnoModifer (annotations);
 
+    if (!VM.runningVM) {
+      // Don't keep class files in the boot image
+      resolveConstantPool(constantPool, constantPoolBytes, tmpTags);
+    }
+
     return new VM_Class(typeRef,
                         constantPool,
+                        constantPoolBytes,
+                        countLazyEntries(constantPool, tmpTags),
                         modifiers,
                         annoModifiers,
                         superClass,
@@ -2811,7 +3018,7 @@ public final class VM_Class extends VM_Type implements VM_Constants, VM_ClassLoa
 
     // Create class
     VM_Class klass =
-        new VM_Class(annotationClass, constantPool, (short) (ACC_SYNTHETIC | ACC_PUBLIC | ACC_FINAL), // modifiers
+        new VM_Class(annotationClass, constantPool, null, 0, (short) (ACC_SYNTHETIC | ACC_PUBLIC | ACC_FINAL), // modifiers
                      (short) 0, baInitMemRef.resolveMember(false).getDeclaringClass(), // superClass
                      new VM_Class[]{annotationInterface}, // declaredInterfaces
                      annotationFields, annotationMethods, null, null, null, null, null, null, null, null);
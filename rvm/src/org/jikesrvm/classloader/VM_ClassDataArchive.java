@@ -0,0 +1,238 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.classloader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.jikesrvm.VM;
+import org.jikesrvm.VM_Callbacks;
+
+/**
+ * An archive of the class files of application classes loaded from jars,
+ * written at exit by one run (-X:vm:dumpClassDataArchive=true) and mapped
+ * into memory at startup by later runs (-X:vm:classDataArchive=file), so
+ * that they can define the classes without searching and inflating the
+ * jars.
+ *
+ * <p> Each jar's modification time and length are recorded in the archive;
+ * if either has changed, none of the archived classes from that jar are
+ * used.  The archive is consulted by {@link VM_ApplicationClassLoader}
+ * for each jar in classpath order, so it never changes which class is
+ * found, only where its bytes come from.
+ *
+ * <p> Format: magic, version, the repositories (path, modification time,
+ * length) and then the classes (repository, resource name, class file).
+ * Strings are stored as a length followed by UTF-8 bytes.
+ */
+public final class VM_ClassDataArchive {
+
+  private static final int MAGIC = 0x52564d41; // "RVMA"
+  private static final int VERSION = 1;
+
+  /** The mapped archive, null if none was given or it could not be used */
+  private static ByteBuffer archive;
+
+  /** "repository!resource" to the position of the class's length in the archive */
+  private static HashMap<String, Integer> archived;
+
+  /** Name of the archive to write at exit, null if we aren't writing one */
+  private static String dumpFile;
+
+  /** Repositories of the classes to write at exit */
+  private static ArrayList<String> dumpRepositories;
+
+  /** The classes to write at exit: repository, name, class file */
+  private static ArrayList<Object[]> dumpClasses;
+
+  /**
+   * Map the archive and/or arrange for it to be written at exit.
+   *
+   * @param file the archive, or null if none
+   * @param dump write the classes loaded during this run to the archive at exit?
+   */
+  public static void boot(String file, boolean dump) {
+    if (file == null) {
+      if (dump) VM.sysWriteln("vm: dumpClassDataArchive needs classDataArchive; ignoring it");
+      return;
+    }
+    if (new File(file).exists()) {
+      try {
+        map(file);
+      } catch (Exception e) {
+        // I/O errors, or a truncated archive
+        VM.sysWriteln("vm: ignoring class data archive ", file, ": " + e);
+        archive = null;
+        archived = null;
+      }
+    }
+    if (dump) {
+      dumpRepositories = new ArrayList<String>();
+      dumpClasses = new ArrayList<Object[]>();
+      dumpFile = file;
+      VM_Callbacks.addExitMonitor(new VM_Callbacks.ExitMonitor() {
+        public void notifyExit(int value) {
+          try {
+            write();
+          } catch (IOException e) {
+            VM.sysWriteln("vm: error writing class data archive ", dumpFile, ": " + e.getMessage());
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Find an archived class.
+   *
+   * @param repository the jar being searched
+   * @param resName the resource name of the class, e.g. "java/lang/Object.class"
+   * @return the class file, or null if it isn't archived for the jar
+   */
+  static byte[] lookup(String repository, String resName) {
+    if (archived == null) return null;
+    Integer pos = archived.get(repository + "!" + resName);
+    if (pos == null) return null;
+    return readClass(pos);
+  }
+
+  /** Read the archived class file whose length is at the given position */
+  private static byte[] readClass(int pos) {
+    ByteBuffer buf = archive.duplicate();
+    buf.position(pos);
+    byte[] bytes = new byte[buf.getInt()];
+    buf.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Note a class loaded from a jar, to be written to the archive at exit.
+   *
+   * @param repository the jar the class was loaded from
+   * @param resName the resource name of the class
+   * @param bytes the class file
+   */
+  static void record(String repository, String resName, byte[] bytes) {
+    if (dumpFile == null) return;
+    synchronized (dumpClasses) {
+      addClass(repository, resName, bytes);
+    }
+  }
+
+  /** Add a class to those to be written.  Note: dumpClasses is locked */
+  private static void addClass(String repository, String resName, byte[] bytes) {
+    int index = dumpRepositories.indexOf(repository);
+    if (index == -1) {
+      index = dumpRepositories.size();
+      dumpRepositories.add(repository);
+    }
+    dumpClasses.add(new Object[]{index, resName, bytes});
+  }
+
+  /** Map the archive, checking its repositories are unchanged */
+  private static void map(String file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      archive = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    } finally {
+      raf.close();
+    }
+    if (archive.getInt() != MAGIC || archive.getInt() != VERSION) {
+      throw new IOException("not a class data archive");
+    }
+    String[] repositories = new String[archive.getInt()];
+    for (int i = 0; i < repositories.length; i++) {
+      String path = readString(archive);
+      long lastModified = archive.getLong();
+      long length = archive.getLong();
+      File f = new File(path);
+      // null => stale, its classes are not used
+      repositories[i] = (f.lastModified() == lastModified && f.length() == length) ? path : null;
+    }
+    int numClasses = archive.getInt();
+    archived = new HashMap<String, Integer>();
+    for (int i = 0; i < numClasses; i++) {
+      String repository = repositories[archive.getInt()];
+      String resName = readString(archive);
+      int pos = archive.position();
+      archive.position(pos + 4 + archive.getInt());
+      if (repository != null) {
+        archived.put(repository + "!" + resName, pos);
+      }
+    }
+  }
+
+  /**
+   * Write the classes recorded in this run, and those of the mapped archive
+   * that are still valid.  Classes found in the mapped archive were never
+   * recorded, as they weren't read from their jars, so without the latter
+   * each run would only archive the classes the previous run missed.
+   */
+  private static void write() throws IOException {
+    File tmp = new File(dumpFile + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+    try {
+      synchronized (dumpClasses) {
+        if (archived != null) {
+          for (Map.Entry<String, Integer> e : archived.entrySet()) {
+            String key = e.getKey();
+            int bang = key.lastIndexOf('!');
+            addClass(key.substring(0, bang), key.substring(bang + 1), readClass(e.getValue()));
+          }
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dumpRepositories.size());
+        for (String path : dumpRepositories) {
+          File f = new File(path);
+          writeString(out, path);
+          out.writeLong(f.lastModified());
+          out.writeLong(f.length());
+        }
+        out.writeInt(dumpClasses.size());
+        for (Object[] c : dumpClasses) {
+          byte[] bytes = (byte[]) c[2];
+          out.writeInt((Integer) c[0]);
+          writeString(out, (String) c[1]);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+      }
+    } finally {
+      out.close();
+    }
+    if (!tmp.renameTo(new File(dumpFile))) {
+      throw new IOException("could not rename " + tmp);
+    }
+  }
+
+  private static String readString(ByteBuffer buf) throws IOException {
+    byte[] bytes = new byte[buf.getInt()];
+    buf.get(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
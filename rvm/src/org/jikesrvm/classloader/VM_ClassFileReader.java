@@ -0,0 +1,131 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.classloader;
+
+import org.vmmagic.pragma.Uninterruptible;
+
+/**
+ * Reads a class file held in (part of) a byte array, in the big-endian
+ * format of {@link java.io.DataInputStream} but without the stream
+ * machinery or its IOExceptions.  Every read is checked against the end
+ * of the class file; reading past it is a ClassFormatError.
+ */
+final class VM_ClassFileReader {
+
+  /** The array holding the class file */
+  private final byte[] bytes;
+
+  /** Index in bytes of the end of the class file */
+  private final int end;
+
+  /** Index in bytes of the next byte to read */
+  private int pos;
+
+  /**
+   * @param bytes array holding the class file
+   * @param offset index of the class file's first byte in bytes
+   * @param length length of the class file
+   */
+  VM_ClassFileReader(byte[] bytes, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > bytes.length) {
+      throw new ClassFormatError("class file outside array");
+    }
+    this.bytes = bytes;
+    this.end = offset + length;
+    this.pos = offset;
+  }
+
+  /**
+   * @return index in the array of the next byte to read
+   */
+  int getPosition() {
+    return pos;
+  }
+
+  /**
+   * Continue reading at the given index in the array
+   */
+  void setPosition(int pos) {
+    if (pos < 0 || pos > end) throw new ClassFormatError("truncated class file");
+    this.pos = pos;
+  }
+
+  byte readByte() {
+    need(1);
+    return bytes[pos++];
+  }
+
+  short readShort() {
+    return (short) readUnsignedShort();
+  }
+
+  int readUnsignedShort() {
+    need(2);
+    int value = getUnsignedShort(bytes, pos);
+    pos += 2;
+    return value;
+  }
+
+  int readInt() {
+    need(4);
+    int value = (getUnsignedShort(bytes, pos) << 16) | getUnsignedShort(bytes, pos + 2);
+    pos += 4;
+    return value;
+  }
+
+  long readLong() {
+    long high = readInt();
+    return (high << 32) | (readInt() & 0xFFFFFFFFL);
+  }
+
+  void readFully(byte[] b) {
+    need(b.length);
+    System.arraycopy(bytes, pos, b, 0, b.length);
+    pos += b.length;
+  }
+
+  void skipBytes(int n) {
+    need(n);
+    pos += n;
+  }
+
+  /**
+   * Copy part of the class file that has already been read.
+   *
+   * @param from index in the array of the first byte to copy
+   * @param to index in the array after the last byte to copy
+   * @return the copy
+   */
+  byte[] copyBytes(int from, int to) {
+    byte[] copy = new byte[to - from];
+    System.arraycopy(bytes, from, copy, 0, copy.length);
+    return copy;
+  }
+
+  /**
+   * Read a big-endian unsigned short without any checks.
+   */
+  @Uninterruptible
+  static int getUnsignedShort(byte[] bytes, int pos) {
+    return ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+  }
+
+  /**
+   * Check that n more bytes can be read
+   */
+  private void need(int n) {
+    if (n < 0 || n > end - pos) {
+      throw new ClassFormatError("truncated class file");
+    }
+  }
+}
@@ -12,8 +12,6 @@
  */
 package org.jikesrvm.classloader;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import org.jikesrvm.VM;
@@ -224,73 +222,71 @@ public class VM_ClassLoader implements VM_Constants, VM_ClassLoaderConstants {
 
   public static VM_Type defineClassInternal(String className, byte[] classRep, int offset, int length,
                                             ClassLoader classloader) throws ClassFormatError {
-    return defineClassInternal(className, new ByteArrayInputStream(classRep, offset, length), classloader);
-  }
-
-  public static VM_Type defineClassInternal(String className, InputStream is, ClassLoader classloader)
-      throws ClassFormatError {
     VM_TypeReference tRef;
     if (className == null) {
-      // NUTS: Our caller hasn't bothered to tell us what this class is supposed
-      //       to be called, so we must read the input stream and discover it overselves
-      //       before we actually can create the VM_Class instance.
-      try {
-        is.mark(is.available());
-        tRef = getClassTypeRef(new DataInputStream(is), classloader);
-        is.reset();
-      } catch (IOException e) {
-        ClassFormatError cfe = new ClassFormatError(e.getMessage());
-        cfe.initCause(e);
-        throw cfe;
-      }
+      tRef = getClassTypeRef(classRep, offset, length, classloader);
     } else {
-      VM_Atom classDescriptor = VM_Atom.findOrCreateAsciiAtom(className.replace('.', '/')).descriptorFromClassName();
-      tRef = VM_TypeReference.findOrCreate(classloader, classDescriptor);
+      tRef = getClassTypeRef(className, classloader);
     }
+    if (VM.VerifyAssertions) VM._assert(tRef.isClassType());
+    if (VM.TraceClassLoading && VM.runningVM) {
+      VM.sysWriteln("loading \"" + tRef.getName() + "\" with " + classloader);
+    }
+    VM_Class ans = VM_Class.readClass(tRef, new VM_ClassFileReader(classRep, offset, length));
+    tRef.setType(ans);
+    return ans;
+  }
 
+  public static VM_Type defineClassInternal(String className, InputStream is, ClassLoader classloader)
+      throws ClassFormatError {
+    // The class file is parsed straight out of a byte array, so read it all first.
+    byte[] classRep;
     try {
-      if (VM.VerifyAssertions) VM._assert(tRef.isClassType());
-      if (VM.TraceClassLoading && VM.runningVM) {
-        VM.sysWriteln("loading \"" + tRef.getName() + "\" with " + classloader);
-      }
-      VM_Class ans = VM_Class.readClass(tRef, new DataInputStream(is));
-      tRef.setType(ans);
-      return ans;
+      classRep = readFully(is);
     } catch (IOException e) {
       ClassFormatError cfe = new ClassFormatError(e.getMessage());
       cfe.initCause(e);
       throw cfe;
     }
+    return defineClassInternal(className, classRep, 0, classRep.length, classloader);
+  }
+
+  private static VM_TypeReference getClassTypeRef(String className, ClassLoader cl) {
+    VM_Atom classDescriptor = VM_Atom.findOrCreateAsciiAtom(className.replace('.', '/')).descriptorFromClassName();
+    return VM_TypeReference.findOrCreate(cl, classDescriptor);
   }
 
-  // Shamelessly cloned & owned from VM_Class constructor....
-  private static VM_TypeReference getClassTypeRef(DataInputStream input, ClassLoader cl)
-      throws IOException, ClassFormatError {
+  /**
+   * Find the name of the class in a class file.  Only the atom for the
+   * name is created; the rest of the constant pool is just skipped over.
+   *
+   * @param classRep array holding the class file
+   * @param offset offset of the class file in classRep
+   * @param length length of the class file
+   * @param cl the class loader defining the class
+   * @return type reference for the class
+   */
+  private static VM_TypeReference getClassTypeRef(byte[] classRep, int offset, int length, ClassLoader cl)
+      throws ClassFormatError {
+    VM_ClassFileReader input = new VM_ClassFileReader(classRep, offset, length);
     int magic = input.readInt();
     if (magic != 0xCAFEBABE) {
       throw new ClassFormatError("bad magic number " + Integer.toHexString(magic));
     }
+    // Skip class file version number. VM_Class.readClass will do the check later.
+    input.skipBytes(4);
 
-    // Drop class file version number on floor. VM_Class constructor will do the check later.
-    input.readUnsignedShort(); // minor ID
-    input.readUnsignedShort(); // major ID
-
-    //
-    // pass 1: read constant pool
-    //
-    int[] constantPool = new int[input.readUnsignedShort()];
-    byte[] tmpTags = new byte[constantPool.length];
-
+    // position of each constant pool entry's tag
+    int[] entries = new int[input.readUnsignedShort()];
+    byte[] tags = new byte[entries.length];
     // note: slot 0 is unused
-    for (int i = 1; i < constantPool.length; i++) {
-      tmpTags[i] = input.readByte();
-      switch (tmpTags[i]) {
-        case TAG_UTF: {
-          byte[] utf = new byte[input.readUnsignedShort()];
-          input.readFully(utf);
-          constantPool[i] = VM_Atom.findOrCreateUtf8Atom(utf).getId();
+    for (int i = 1; i < entries.length; i++) {
+      entries[i] = input.getPosition();
+      tags[i] = input.readByte();
+      switch (tags[i]) {
+        case TAG_UTF:
+          input.skipBytes(input.readUnsignedShort());
           break;
-        }
 
         case TAG_UNUSED:
           break;
@@ -301,51 +297,61 @@ public class VM_ClassLoader implements VM_Constants, VM_ClassLoaderConstants {
         case TAG_METHODREF:
         case TAG_INTERFACE_METHODREF:
         case TAG_MEMBERNAME_AND_DESCRIPTOR:
-          input.readInt(); // drop on floor
+          input.skipBytes(4);
           break;
 
         case TAG_LONG:
         case TAG_DOUBLE:
           i++;
-          input.readLong(); // drop on floor
+          input.skipBytes(8);
           break;
 
         case TAG_TYPEREF:
-          constantPool[i] = input.readUnsignedShort();
-          break;
-
         case TAG_STRING:
-          input.readUnsignedShort(); // drop on floor
+          input.skipBytes(2);
           break;
 
         default:
-          throw new ClassFormatError("bad constant pool entry: " + tmpTags[i]);
+          throw new ClassFormatError("bad constant pool entry: " + tags[i]);
       }
     }
 
-    //
-    // pass 2: post-process type constant pool entries
-    // (we must do this in a second pass because of forward references)
-    //
-    for (int i = 1; i < constantPool.length; i++) {
-      switch (tmpTags[i]) {
-        case TAG_LONG:
-        case TAG_DOUBLE:
-          ++i;
-          break;
+    // skip modifiers.
+    input.skipBytes(2);
 
-        case TAG_TYPEREF: { // in: utf index
-          VM_Atom typeName = VM_Atom.getAtom(constantPool[constantPool[i]]);
-          constantPool[i] = VM_TypeReference.findOrCreate(cl, typeName.descriptorFromClassName()).getId();
-          break;
-        } // out: type reference id
-      }
+    int myTypeIndex = input.readUnsignedShort();
+    if (myTypeIndex == 0 || myTypeIndex >= entries.length || tags[myTypeIndex] != TAG_TYPEREF) {
+      throw new ClassFormatError("bad this_class index " + myTypeIndex);
     }
+    input.setPosition(entries[myTypeIndex] + 1);
+    int nameIndex = input.readUnsignedShort();
+    if (nameIndex == 0 || nameIndex >= entries.length || tags[nameIndex] != TAG_UTF) {
+      throw new ClassFormatError("bad class name index " + nameIndex);
+    }
+    input.setPosition(entries[nameIndex] + 1);
+    int nameLength = input.readUnsignedShort();
+    int namePos = input.getPosition();
+    input.skipBytes(nameLength);
+    VM_Atom typeName = VM_Atom.findOrCreateUtf8Atom(classRep, namePos, nameLength);
+    return VM_TypeReference.findOrCreate(cl, typeName.descriptorFromClassName());
+  }
 
-    // drop modifiers on floor.
-    input.readUnsignedShort();
-
-    int myTypeIndex = input.readUnsignedShort();
-    return VM_TypeReference.getTypeRef(constantPool[myTypeIndex]);
+  /** Read the rest of a stream */
+  private static byte[] readFully(InputStream is) throws IOException {
+    byte[] bytes = new byte[Math.max(is.available(), 1024)];
+    int length = 0;
+    while (true) {
+      int n = is.read(bytes, length, bytes.length - length);
+      if (n < 0) break;
+      length += n;
+      if (length == bytes.length) {
+        byte[] newBytes = new byte[bytes.length * 2];
+        System.arraycopy(bytes, 0, newBytes, 0, length);
+        bytes = newBytes;
+      }
+    }
+    byte[] result = new byte[length];
+    System.arraycopy(bytes, 0, result, 0, length);
+    return result;
   }
 }
@@ -0,0 +1,156 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.classloader;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * An index from package to the repositories of a classpath that contain
+ * it, so that looking up a class or resource only opens the jars that can
+ * actually hold it instead of probing every entry of the classpath.
+ *
+ * Only .jar and .zip repositories are indexed, by reading their entries
+ * the first time a search reaches them, so a search that ends early opens
+ * no more jars than probing the classpath in order would.  Anything else
+ * (directories, remote URLs) is "unindexed" and is returned by
+ * {@link #next} for every name, so the caller still probes it in classpath
+ * order.  A jar that cannot be opened is returned too, without a
+ * {@link #getJar jar}, and opening it is tried again by the next search
+ * that reaches it.
+ */
+final class VM_ClasspathIndex {
+
+  private static final boolean DBG = false;
+
+  /** The repositories, in classpath order */
+  private final String[] paths;
+
+  /** The open jar for each indexed repository, null for the others */
+  private final JarFile[] jars;
+
+  /** Package name ("java/lang", "" for the default package) to the indexed repositories that contain it */
+  private final HashMap<String, int[]> packages = new HashMap<String, int[]>();
+
+  /**
+   * Build the index.  No jar is opened until it is searched.
+   * @param paths the repositories in classpath order
+   */
+  VM_ClasspathIndex(String[] paths) {
+    this.paths = paths;
+    jars = new JarFile[paths.length];
+  }
+
+  /**
+   * @param path a repository
+   * @return true if the repository is a jar or zip file, and so is indexed
+   */
+  private static boolean isJar(String path) {
+    return path.endsWith(".jar") || path.endsWith(".zip");
+  }
+
+  /**
+   * Open and index the i'th repository, a jar.
+   * @param i the repository
+   * @return true if the jar was opened
+   */
+  private boolean openJar(int i) {
+    try {
+      jars[i] = new JarFile(paths[i]);
+    } catch (IOException e) {
+      if (DBG) System.err.println("VM_ClasspathIndex: cannot open " + paths[i] + ": " + e);
+      return false;
+    } catch (SecurityException e) {
+      if (DBG) System.err.println("VM_ClasspathIndex: cannot open " + paths[i] + ": " + e);
+      return false;
+    }
+    indexJar(i);
+    return true;
+  }
+
+  /**
+   * Record every package of the i'th repository.
+   * @param i a repository whose jar is open
+   */
+  private void indexJar(int i) {
+    Enumeration<? extends ZipEntry> e = jars[i].entries();
+    while (e.hasMoreElements()) {
+      ZipEntry ze = e.nextElement();
+      if (ze.isDirectory()) continue;
+      String pkg = packageOf(ze.getName());
+      int[] old = packages.get(pkg);
+      if (old == null) {
+        packages.put(pkg, new int[] {i});
+      } else if (old[old.length - 1] != i) {
+        int[] repos = new int[old.length + 1];
+        System.arraycopy(old, 0, repos, 0, old.length);
+        repos[old.length] = i;
+        packages.put(pkg, repos);
+      }
+    }
+  }
+
+  /**
+   * @param name a resource name, such as "java/lang/Object.class"
+   * @return the package part of the name, such as "java/lang"
+   */
+  private static String packageOf(String name) {
+    int slash = name.lastIndexOf('/');
+    return (slash == -1) ? "" : name.substring(0, slash);
+  }
+
+  /**
+   * Find the next repository that may contain a resource.  Jars are
+   * opened and indexed as the search reaches them.
+   *
+   * @param name the resource name, such as "java/lang/Object.class"
+   * @param from the first repository to consider
+   * @return the first repository, at or after from in classpath order,
+   *   that is unindexed, a jar that can't be opened, or a jar holding the
+   *   resource's package; -1 if there is none
+   */
+  synchronized int next(String name, int from) {
+    String pkg = packageOf(name);
+    for (int i = from; i < paths.length; i++) {
+      if (!isJar(paths[i])) return i;
+      if (jars[i] == null && !openJar(i)) return i;
+      int[] repos = packages.get(pkg);
+      if (repos != null) {
+        for (int r : repos) {
+          if (r == i) return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param repository a repository number
+   * @return the path of the repository as given when the index was built
+   */
+  String getPath(int repository) {
+    return paths[repository];
+  }
+
+  /**
+   * @param repository a repository number returned by {@link #next}
+   * @return the open jar for the repository, or null if it is unindexed
+   *   or could not be opened
+   */
+  synchronized JarFile getJar(int repository) {
+    return jars[repository];
+  }
+}
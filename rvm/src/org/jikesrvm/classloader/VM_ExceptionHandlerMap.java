@@ -12,8 +12,6 @@
  */
 package org.jikesrvm.classloader;
 
-import java.io.DataInputStream;
-import java.io.IOException;
 
 /**
  * A java method's try/catch/finally information.
@@ -94,7 +92,7 @@ public final class VM_ExceptionHandlerMap {
    *
    * @return an exception handler map or null if none were present
    */
-  static VM_ExceptionHandlerMap readExceptionHandlerMap(DataInputStream input, int[] constantPool) throws IOException {
+  static VM_ExceptionHandlerMap readExceptionHandlerMap(VM_ClassFileReader input, int[] constantPool) {
     int cnt = input.readUnsignedShort();
     if (cnt != 0) {
       int[] startPCs = new int[cnt];
@@ -12,8 +12,6 @@
  */
 package org.jikesrvm.classloader;
 
-import java.io.DataInputStream;
-import java.io.IOException;
 import org.jikesrvm.VM;
 import org.jikesrvm.memorymanagers.mminterface.MM_Constants;
 import org.jikesrvm.memorymanagers.mminterface.MM_Interface;
@@ -56,27 +54,28 @@ public final class VM_Field extends VM_Member {
    * @param declaringClass the VM_TypeReference object of the class
    * that declared this field
    * @param constantPool the constant pool of the class loading this field
+   * @param constantPoolBytes the class file's constant pool
    * @param memRef the canonical memberReference for this member.
    * @param modifiers modifiers associated with this member.
-   * @param input the DataInputStream to read the field's attributed from
+   * @param input the class file to read the field's attributed from
    */
-  static VM_Field readField(VM_TypeReference declaringClass, int[] constantPool, VM_MemberReference memRef,
-                            short modifiers, DataInputStream input) throws IOException {
+  static VM_Field readField(VM_TypeReference declaringClass, int[] constantPool, byte[] constantPoolBytes, VM_MemberReference memRef,
+                            short modifiers, VM_ClassFileReader input) {
     // Read the attributes, processing the "non-boring" ones
     int cvi = 0;
     VM_Atom signature = null;
     VM_Annotation[] annotations = null;
     for (int i = 0, n = input.readUnsignedShort(); i < n; ++i) {
-      VM_Atom attName = VM_Class.getUtf(constantPool, input.readUnsignedShort());
+      VM_Atom attName = VM_Class.getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
       int attLength = input.readInt();
       if (attName == VM_ClassLoader.constantValueAttributeName) {
         cvi = input.readUnsignedShort();
       } else if (attName == VM_ClassLoader.syntheticAttributeName) {
         modifiers |= ACC_SYNTHETIC;
       } else if (attName == VM_ClassLoader.signatureAttributeName) {
-        signature = VM_Class.getUtf(constantPool, input.readUnsignedShort());
+        signature = VM_Class.getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
       } else if (attName == VM_ClassLoader.runtimeVisibleAnnotationsAttributeName) {
-        annotations = VM_AnnotatedElement.readAnnotations(constantPool, input, 2, declaringClass.getClassLoader());	
+        annotations = VM_AnnotatedElement.readAnnotations(constantPool, constantPoolBytes, input, 2, declaringClass.getClassLoader());	
       } else {
         // all other attributes are boring...
         input.skipBytes(attLength);
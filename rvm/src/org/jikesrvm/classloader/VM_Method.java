@@ -12,8 +12,6 @@
  */
 package org.jikesrvm.classloader;
 
-import java.io.DataInputStream;
-import java.io.IOException;
 import org.jikesrvm.VM_CodeArray;
 import org.jikesrvm.ArchitectureSpecific;
 import org.jikesrvm.SubordinateArchitecture;
@@ -63,6 +61,12 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
    * there by constant propagation, otherwise 0.
    */
   private Offset jtocOffset;
+
+  /**
+   * Has the adaptive system chosen to migrate calls to this method to the
+   * subarch?
+   */
+  private boolean selectedForSubArch;
   
   /**
    * Construct a read method
@@ -87,17 +91,18 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
   }
 
   /**
-   * Called from {@link VM_Class#readClass(VM_TypeReference,DataInputStream)} to create an
+   * Called from {@link VM_Class#readClass(VM_TypeReference,VM_ClassFileReader)} to create an
    * instance of a VM_Method by reading the relevant data from the argument bytecode stream.
    *
    * @param declaringClass the VM_TypeReference of the class being loaded
    * @param constantPool the constantPool of the VM_Class object that's being constructed
+   * @param constantPoolBytes the class file's constant pool
    * @param memRef the canonical memberReference for this member.
    * @param modifiers modifiers associated with this member.
-   * @param input the DataInputStream to read the method's attributes from
+   * @param input the class file to read the method's attributes from
    */
-  static VM_Method readMethod(VM_TypeReference declaringClass, int[] constantPool, VM_MemberReference memRef,
-                              short modifiers, DataInputStream input) throws IOException {
+  static VM_Method readMethod(VM_TypeReference declaringClass, int[] constantPool, byte[] constantPoolBytes, VM_MemberReference memRef,
+                              short modifiers, VM_ClassFileReader input) {
     short tmp_localWords = 0;
     short tmp_operandWords = 0;
     byte[] tmp_bytecodes = null;
@@ -111,7 +116,7 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
 
     // Read the attributes
     for (int i = 0, n = input.readUnsignedShort(); i < n; i++) {
-      VM_Atom attName = VM_Class.getUtf(constantPool, input.readUnsignedShort());
+      VM_Atom attName = VM_Class.getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
       int attLength = input.readInt();
 
       // Only bother to interpret non-boring Method attributes
@@ -124,7 +129,7 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
 
         // Read the attributes portion of the code attribute
         for (int j = 0, n2 = input.readUnsignedShort(); j < n2; j++) {
-          attName = VM_Class.getUtf(constantPool, input.readUnsignedShort());
+          attName = VM_Class.getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
           attLength = input.readInt();
 
           if (attName == VM_ClassLoader.lineNumberTableAttributeName) {
@@ -153,15 +158,15 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
       } else if (attName == VM_ClassLoader.syntheticAttributeName) {
         modifiers |= ACC_SYNTHETIC;
       } else if (attName == VM_ClassLoader.signatureAttributeName) {
-        tmp_signature = VM_Class.getUtf(constantPool, input.readUnsignedShort());
+        tmp_signature = VM_Class.getUtf(constantPool, constantPoolBytes, input.readUnsignedShort());
       } else if (attName == VM_ClassLoader.runtimeVisibleAnnotationsAttributeName) {
-      	annotations = VM_AnnotatedElement.readAnnotations(constantPool, input, 2, declaringClass.getClassLoader());
+      	annotations = VM_AnnotatedElement.readAnnotations(constantPool, constantPoolBytes, input, 2, declaringClass.getClassLoader());
       } else if (attName == VM_ClassLoader.runtimeVisibleParameterAnnotationsAttributeName) {
         parameterAnnotations =
-            VM_AnnotatedElement.readAnnotations(constantPool, input, 1, declaringClass.getClassLoader());
+            VM_AnnotatedElement.readAnnotations(constantPool, constantPoolBytes, input, 1, declaringClass.getClassLoader());
       } else if (attName == VM_ClassLoader.annotationDefaultAttributeName) {
         try {
-          tmp_annotationDefault = VM_Annotation.readValue(constantPool, input, declaringClass.getClassLoader());
+          tmp_annotationDefault = VM_Annotation.readValue(constantPool, constantPoolBytes, input, declaringClass.getClassLoader());
         } catch (ClassNotFoundException e) {
           throw new Error(e);
         }
@@ -210,6 +215,7 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
                               tmp_exceptionHandlerMap,
                               tmp_lineNumberMap,
                               constantPool,
+                              constantPoolBytes,
                               tmp_signature,
                               annotations,
                               parameterAnnotations,
@@ -255,6 +261,7 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
                                null,
                                null,
                                null,
+                               null,
                                null);
   }
 
@@ -310,6 +317,7 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
                                null,
                                null,
                                null,
+                               null,
                                null);
   }
 
@@ -480,7 +488,17 @@ public abstract class VM_Method extends VM_Member implements VM_BytecodeConstant
    * This method should be migrated to subarch
    */
   public boolean isSubArchMigrationPoint() {
-  	return ((annoModifiers & ANO_SUBARCH) != 0) || getDeclaringClass().isDeclaredForSubArch();
+  	return ((annoModifiers & ANO_SUBARCH) != 0) || selectedForSubArch || getDeclaringClass().isDeclaredForSubArch();
+  }
+
+  /**
+   * Migrate calls to this method to the subarch from now on.  Only code
+   * compiled after this call is affected, and only the baseline compiler
+   * emits the migration; opt compiled calls stay on the main arch.
+   */
+  public void selectForSubArchMigration() {
+    if (VM.VerifyAssertions) VM._assert(isStatic() && isCompilableForSubArch());
+    selectedForSubArch = true;
   }
 
   /**
@@ -40,6 +40,11 @@ public final class VM_NativeMethod extends VM_Method {
    */
   private Address nativeTOC;
 
+  /**
+   * Is nativeIP a JavaCritical_ function rather than a JNI one?
+   */
+  private boolean critical;
+
   /**
    * Construct native method information
    *
@@ -109,6 +114,35 @@ public final class VM_NativeMethod extends VM_Method {
     }
   }
 
+  /**
+   * Is this method implemented by a "critical native": a JavaCritical_
+   * function that is called without a JNIEnv or class argument, with each
+   * array argument passed as a length and a pointer to its elements?  Only
+   * static methods whose arguments and result are primitives or arrays of
+   * primitives can be critical, and only on IA32.  The JNI compiler calls
+   * critical natives directly, like syscalls, so they must not call back
+   * into the VM or block for long, as the collector can not run meanwhile.
+   */
+  public boolean isCriticalNative() {
+    return critical;
+  }
+
+  /**
+   * Could this method be implemented by a critical native?
+   */
+  private boolean hasCriticalSignature() {
+    if (!VM.BuildForIA32 || !isStatic()) return false;
+    if (!getReturnType().isPrimitiveType()) return false; // includes void
+    for (VM_TypeReference t : getParameterTypes()) {
+      if (t.isArrayType()) {
+        if (t.getDimensionality() != 1 || !t.getArrayElementType().isPrimitiveType()) return false;
+      } else if (!t.isPrimitiveType()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * replace a character in a string with a string
    */
@@ -173,7 +207,18 @@ public final class VM_NativeMethod extends VM_Method {
     final String nativeProcedureName = getMangledName(false);
     final String nativeProcedureNameWithSignature = getMangledName(true);
 
-    Address symbolAddress = VM_DynamicLibrary.resolveSymbol(nativeProcedureNameWithSignature);
+    Address symbolAddress = Address.zero();
+    if (hasCriticalSignature()) {
+      // prefer JavaCritical_Class_Method[__Sig] to Java_Class_Method[__Sig]
+      symbolAddress = VM_DynamicLibrary.resolveSymbol("JavaCritical" + nativeProcedureNameWithSignature.substring(4));
+      if (symbolAddress.isZero()) {
+        symbolAddress = VM_DynamicLibrary.resolveSymbol("JavaCritical" + nativeProcedureName.substring(4));
+      }
+      critical = !symbolAddress.isZero();
+    }
+    if (symbolAddress.isZero()) {
+      symbolAddress = VM_DynamicLibrary.resolveSymbol(nativeProcedureNameWithSignature);
+    }
     if (symbolAddress.isZero()) {
       symbolAddress = VM_DynamicLibrary.resolveSymbol(nativeProcedureName);
     }
@@ -197,6 +242,7 @@ public final class VM_NativeMethod extends VM_Method {
    * @param symbolAddress address of native function that implements the method
    */
   public synchronized void registerNativeSymbol(Address symbolAddress) {
+    critical = false;
     if (VM.BuildForPowerOpenABI) {
       nativeIP = symbolAddress.loadAddress();
       nativeTOC = symbolAddress.loadAddress(Offset.fromIntSignExtend(BYTES_IN_ADDRESS));
@@ -210,6 +256,7 @@ public final class VM_NativeMethod extends VM_Method {
    * Unregisters a native method
    */
   public synchronized void unregisterNativeSymbol() {
+    critical = false;
     if (VM.BuildForPowerOpenABI) {
       nativeIP = Address.zero();
       nativeTOC = Address.zero();
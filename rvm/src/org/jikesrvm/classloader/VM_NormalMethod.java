@@ -147,13 +147,15 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
    * @param eMap the exception handler map for this method
    * @param lm the line number map for this method
    * @param constantPool the constantPool for this method
+   * @param constantPoolBytes the class file's constant pool, for the
+   *   constant pool's lazy entries
    * @param sig generic type of this method.
    * @param annotations array of runtime visible annotations
    * @param parameterAnnotations array of runtime visible paramter annotations
    * @param ad annotation default value for that appears in annotation classes
    */
   VM_NormalMethod(VM_TypeReference dc, VM_MemberReference mr, short mo, short annoModifiers, VM_TypeReference[] et, short lw, short ow,
-                  byte[] bc, VM_ExceptionHandlerMap eMap, int[] lm, int[] constantPool, VM_Atom sig,
+                  byte[] bc, VM_ExceptionHandlerMap eMap, int[] lm, int[] constantPool, byte[] constantPoolBytes, VM_Atom sig,
                   VM_Annotation[] annotations, VM_Annotation[] parameterAnnotations, Object ad) {
     super(dc, mr, mo, annoModifiers, et, sig, annotations, parameterAnnotations, ad);
     localWords = lw;
@@ -161,7 +163,7 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
     bytecodes = bc;
     exceptionHandlerMap = eMap;
     lineNumberMap = lm;
-    computeSummary(constantPool);
+    computeSummary(constantPool, constantPoolBytes);
   }
 
   /**
@@ -484,13 +486,14 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
 	}
   
   /**
-   * For use by {@link VM_Class#allBootImageTypesResolved()} only.
+   * For use by {@link VM_Class#allBootImageTypesResolved()} only, when
+   * the constant pools of boot image classes have no lazy entries.
    */
   void recomputeSummary(int[] constantPool) {
     if (hasFieldRead()) {
       // Now that all bootimage classes are resolved, we may be able to lower the
       // estimated machine code size of some getstatics, so recompute summary.
-      computeSummary(constantPool);
+      computeSummary(constantPool, null);
     }
 
   }
@@ -499,7 +502,7 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
    * This method computes a summary of interesting method characteristics
    * and stores an encoding of the summary as an int.
    */
-  private void computeSummary(int[] constantPool) {
+  private void computeSummary(int[] constantPool, byte[] constantPoolBytes) {
     int calleeSize = 0;
     if (isSynchronized()) {
       summaryFlags |= HAS_SYNCH;
@@ -666,7 +669,7 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
           calleeSize += SIMPLE_OPERATION_COST;
           
           // note the classes required for this operation
-          VM_FieldReference fldRef = bcodes.getFieldReference(constantPool);
+          VM_FieldReference fldRef = bcodes.getFieldReference(constantPool, constantPoolBytes);
           this.staticMemberRefs.add(fldRef);
           
           continue; // we've processed all of the bytes, so avoid the call to skipInstruction()
@@ -683,7 +686,7 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
           // Treat getstatic of primitive values from final static fields
           // as "free" since we expect it be a compile time constant by the
           // time the opt compiler compiles the method.
-          VM_FieldReference fldRef = bcodes.getFieldReference(constantPool);
+          VM_FieldReference fldRef = bcodes.getFieldReference(constantPool, constantPoolBytes);
           if (fldRef.getFieldContentsType().isPrimitiveType()) {
             VM_Field fld = fldRef.peekResolvedField(false);
             if (fld == null || !fld.isFinal()){
@@ -707,9 +710,10 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
           // Various flavors of calls. Assign them call cost (differentiate?)
         case JBC_invokevirtual:
         case JBC_invokespecial: {
-          // Special case VM_Magic's as being cheaper.
-          VM_MethodReference meth = bcodes.getMethodReference(constantPool);
-          if (meth.getType().isMagicType()) {
+          // Special case VM_Magic's as being cheaper.  Only the class is
+          // needed, so leave the method reference to be created on first use.
+          VM_TypeReference methType = bcodes.getMethodReferenceType(constantPool, constantPoolBytes);
+          if (methType.isMagicType()) {
             summaryFlags |= HAS_MAGIC;
             calleeSize += MAGIC_COST;
           } else {
@@ -720,7 +724,7 @@ public final class VM_NormalMethod extends VM_Method implements VM_BytecodeConst
         }
         case JBC_invokestatic: {
           // Special case VM_Magic's as being cheaper.
-          VM_MethodReference meth = bcodes.getMethodReference(constantPool);
+          VM_MethodReference meth = bcodes.getMethodReference(constantPool, constantPoolBytes);
           if (meth.getType().isMagicType()) {
             summaryFlags |= HAS_MAGIC;
             calleeSize += MAGIC_COST;
@@ -24,8 +24,10 @@ import org.jikesrvm.classloader.VM_Type;
 import org.jikesrvm.classloader.VM_TypeReference;
 import org.jikesrvm.compilers.common.VM_CompiledMethod;
 import org.jikesrvm.compilers.common.VM_ExceptionTable;
+import org.jikesrvm.memorymanagers.mminterface.MM_Interface;
 import org.jikesrvm.runtime.VM_DynamicLink;
 import org.jikesrvm.runtime.VM_ExceptionDeliverer;
+import org.jikesrvm.runtime.VM_Magic;
 import org.jikesrvm.runtime.VM_StackBrowser;
 import org.vmmagic.pragma.SynchronizedObject;
 import org.vmmagic.pragma.Uninterruptible;
@@ -58,9 +60,10 @@ public final class VM_BaselineCompiledMethod extends VM_CompiledMethod {
   private static VM_ExceptionDeliverer exceptionDeliverer = null;
 
   /**
-   * Stack-slot reference maps for the compiled method.
+   * Stack-slot reference maps for the compiled method, null until
+   * {@link #getReferenceMaps} has built them.
    */
-  public VM_ReferenceMaps referenceMaps;
+  private VM_ReferenceMaps referenceMaps;
 
   /*
    * Currently needed to support dynamic bridge magic;
@@ -406,14 +409,78 @@ public final class VM_BaselineCompiledMethod extends VM_CompiledMethod {
         lastIns = bcMap[i];
       }
     }
-    referenceMaps.translateByte2Machine(bcMap);
-    this.referenceMaps = referenceMaps;
+    if (referenceMaps != null) {
+      referenceMaps.translateByte2Machine(bcMap);
+      this.referenceMaps = referenceMaps;
+    }
     VM_ExceptionHandlerMap emap = ((VM_NormalMethod) method).getExceptionHandlerMap();
     if (emap != null) {
       eTable = VM_BaselineExceptionTable.encode(emap, bcMap, forSubArch);
     }
   }
 
+  /**
+   * Return the reference maps for this method, building them on the first
+   * request if they were not computed at compile time.  Building allocates,
+   * so a collection can't do it; before collecting, the maps of every
+   * method with a frame on a mutator's stack are built by
+   * {@link org.jikesrvm.compilers.common.VM_CompiledMethods#buildDeferredReferenceMaps}.
+   */
+  @UninterruptibleNoWarn
+  public VM_ReferenceMaps getReferenceMaps() {
+    VM_ReferenceMaps maps = referenceMaps;
+    if (maps == null) {
+      if (VM.VerifyAssertions) VM._assert(!MM_Interface.gcInProgress());
+      maps = buildReferenceMaps();
+    }
+    return maps;
+  }
+
+  /**
+   * Build and publish the reference maps.  This isn't synchronized: a
+   * collector thread building maps for a stack must not block on a
+   * mutator that was suspended half way through building the same maps.
+   * Racing builders compute equivalent maps and the first to finish wins;
+   * the maps are only published once complete, so unsynchronized readers
+   * of {@link #referenceMaps} never see a partially built object.
+   */
+  private VM_ReferenceMaps buildReferenceMaps() {
+    VM_NormalMethod nm = (VM_NormalMethod) method;
+    int length = nm.getBytecodeLength();
+    VM_ReferenceMaps maps = new VM_ReferenceMaps(this, new int[length], new byte[nm.getLocalWords()]);
+    maps.translateByte2Machine(decodeBytecodeMap(length));
+    VM_Magic.sync();
+    if (referenceMaps == null) {
+      referenceMaps = maps;
+    }
+    return referenceMaps;
+  }
+
+  /**
+   * Expand {@link #bytecodeMap} back into the bytecode index to machine
+   * instruction index map it was encoded from.
+   */
+  private int[] decodeBytecodeMap(int length) {
+    int[] bcMap = new int[length + 1];
+    int bc = 0, ins = 0;
+    for (int i = 0; i < bytecodeMap.length;) {
+      int b0 = ((int) bytecodeMap[i++]) & 255;  // unsign-extend
+      if (b0 != 255) {
+        bc += b0 >> 5;
+        ins += b0 & 31;
+      } else {
+        int b1 = ((int) bytecodeMap[i++]) & 255;  // unsign-extend
+        int b2 = ((int) bytecodeMap[i++]) & 255;  // unsign-extend
+        int b3 = ((int) bytecodeMap[i++]) & 255;  // unsign-extend
+        int b4 = ((int) bytecodeMap[i++]) & 255;  // unsign-extend
+        bc += (b1 << 8) | b2;
+        ins += (b3 << 8) | b4;
+      }
+      bcMap[bc] = ins;
+    }
+    return bcMap;
+  }
+
   private static final VM_TypeReference TYPE = VM_TypeReference.findOrCreate(VM_BaselineCompiledMethod.class);
 
   public int size() {
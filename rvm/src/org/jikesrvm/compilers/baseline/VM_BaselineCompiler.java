@@ -198,7 +198,15 @@ public abstract class VM_BaselineCompiler extends VM_CompilerFramework {
       if (VM.MeasureCompilationPhases) {
         start = VM_Scheduler.getCurrentThread().startTimedInterval();
       }
-      refMaps = new VM_ReferenceMaps((VM_BaselineCompiledMethod) compiledMethod, stackHeights, localTypes);
+      // The code generator needs the stack heights and local types the
+      // analysis computes, but the maps themselves are only recorded for
+      // code compiled into the boot image (which includes everything a
+      // collector runs), uninterruptible code and OSR specializations.
+      // Others are built on demand, see VM_BaselineCompiledMethod.getReferenceMaps.
+      boolean recordMaps = VM.writingBootImage || !method.isInterruptible() ||
+                           (VM.BuildForAdaptiveSystem && method.isForOsrSpecialization());
+      refMaps = new VM_ReferenceMaps((VM_BaselineCompiledMethod) compiledMethod, stackHeights, localTypes, recordMaps);
+      if (!recordMaps) refMaps = null;
     } finally {
       if (VM.MeasureCompilationPhases) {
         long end = VM_Scheduler.getCurrentThread().endTimedInterval();
@@ -332,9 +340,12 @@ public abstract class VM_BaselineCompiler extends VM_CompilerFramework {
     VM_MachineCode machineCode;
     VM_CodeArray instructions;
 
-    VM_ReferenceMaps refMaps;
-    refMaps = new VM_ReferenceMaps((VM_BaselineCompiledMethod) compiledMethod, stackHeights, localTypes);
-   
+    // A stub is never live on a stack, so its reference maps are always
+    // left for VM_BaselineCompiledMethod.getReferenceMaps to build on demand;
+    // the code generator still needs the local types the analysis computes.
+    new VM_ReferenceMaps((VM_BaselineCompiledMethod) compiledMethod, stackHeights, localTypes, false);
+    VM_ReferenceMaps refMaps = null;
+
     //do platform specific tasks before generating code;
     initializeCompiler();
 
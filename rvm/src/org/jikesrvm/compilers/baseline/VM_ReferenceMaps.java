@@ -48,6 +48,8 @@ public final class VM_ReferenceMaps implements VM_BaselineConstants {
   private int mapCount;
   //  final private int startLocal0Offset; // distance from frame pointer to start of the Local area
   private VM_JSRInfo jsrInfo;
+  /** false if only the dataflow side effects were wanted, not the maps */
+  private final boolean recording;
 
   /*
    * size of individul maps
@@ -57,7 +59,17 @@ public final class VM_ReferenceMaps implements VM_BaselineConstants {
   }
 
   VM_ReferenceMaps(VM_BaselineCompiledMethod cm, int[] stackHeights, byte[] localTypes) {
+    this(cm, stackHeights, localTypes, true);
+  }
+
+  /**
+   * @param recordMaps if false, only run the analysis to fill in
+   *        stackHeights and localTypes for the code generator; the maps
+   *        themselves are not recorded and this object is not usable by GC
+   */
+  VM_ReferenceMaps(VM_BaselineCompiledMethod cm, int[] stackHeights, byte[] localTypes, boolean recordMaps) {
 
+    this.recording = recordMaps;
     VM_NormalMethod method = (VM_NormalMethod) cm.getMethod();
     // save input information and compute related data
     this.bitsPerMap = (method.getLocalWords() + method.getOperandWords() + 1); // +1 for jsr bit
@@ -82,7 +94,7 @@ public final class VM_ReferenceMaps implements VM_BaselineConstants {
     VM_BuildReferenceMaps buildRefMaps = new VM_BuildReferenceMaps();
     buildRefMaps.buildReferenceMaps(method, stackHeights, localTypes, this, buildBB);
 
-    if (VM.ReferenceMapsBitStatistics) {
+    if (VM.ReferenceMapsBitStatistics && recording) {
       showReferenceMapStatistics(method);
     }
   }
@@ -391,6 +403,7 @@ public final class VM_ReferenceMaps implements VM_BaselineConstants {
    */
   @Interruptible
   public void startNewMaps(int gcPointCount, int jsrCount, int parameterWords) {
+    if (!recording) return;
     //  normal map information
     mapCount = 0;
     MCSites = new int[gcPointCount];
@@ -446,6 +459,7 @@ public final class VM_ReferenceMaps implements VM_BaselineConstants {
    */
   @Interruptible
   public void recordStkMap(int byteindex, byte[] byteMap, int BBLastPtr, boolean replacemap) {
+    if (!recording) return;
 
     int mapNum = 0;
 
@@ -575,6 +589,7 @@ public final class VM_ReferenceMaps implements VM_BaselineConstants {
   @Interruptible
   public void recordJSRSubroutineMap(int byteindex, byte[] currReferenceMap, int BBLastPtr, int returnAddrIndex,
                                      boolean replacemap) {
+    if (!recording) return;
     int mapNum = 0;
     int unusualMapIndex = 0;
     int internalReturnIndex;
@@ -877,6 +892,7 @@ public final class VM_ReferenceMaps implements VM_BaselineConstants {
    * recorded in MCSites array into real machine code offsets.
    */
   public void translateByte2Machine(int[] b2m) {
+    if (!recording) return;
     for (int i = 0; i < MCSites.length; i++) {
       MCSites[i] = b2m[MCSites[i]] << LG_INSTRUCTION_WIDTH;
     }
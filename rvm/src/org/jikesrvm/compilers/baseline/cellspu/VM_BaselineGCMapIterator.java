@@ -97,7 +97,7 @@ public abstract class VM_BaselineGCMapIterator extends VM_GCMapIterator implemen
 
     // setup stackframe mapping
     //
-    maps = currentCompiledMethod.referenceMaps;
+    maps = currentCompiledMethod.getReferenceMaps();
     mapId = maps.locateGCPoint(instructionOffset, currentMethod);
     mapIndex = 0;
     if (mapId < 0) {
@@ -922,9 +922,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     
   	genArrayCacheLookup(T3, T0, T1, LOG_BYTES_IN_INT);
   	
-  	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-  	asm.emitSHLI(T0, T0, LOG_BYTES_IN_INT);
-    asm.emitStore(T6, T3, T0);
+  	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+  	asm.emitSHLI(T2, T2, LOG_BYTES_IN_INT);
+    asm.emitStore(T6, T3, T2);
+    genArrayWriteBack(LOG_BYTES_IN_INT);
   }
 
   /**
@@ -940,9 +941,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     
   	genArrayCacheLookup(T3, T0, T1, LOG_BYTES_IN_LONG);
   	
-  	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-  	asm.emitSHLI(T0, T0, LOG_BYTES_IN_LONG);
-    asm.emitStoreDouble(T6, T3, T0);
+  	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+  	asm.emitSHLI(T2, T2, LOG_BYTES_IN_LONG);
+    asm.emitStoreDouble(T6, T3, T2);
+    genArrayWriteBack(LOG_BYTES_IN_LONG);
   }
 
   /**
@@ -958,9 +960,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     
   	genArrayCacheLookup(T3, T0, T1, LOG_BYTES_IN_FLOAT);
   	
-  	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-  	asm.emitSHLI(T0, T0, LOG_BYTES_IN_FLOAT);
-    asm.emitStore(T6, T3, T0);
+  	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+  	asm.emitSHLI(T2, T2, LOG_BYTES_IN_FLOAT);
+    asm.emitStore(T6, T3, T2);
+    genArrayWriteBack(LOG_BYTES_IN_FLOAT);
   }
 
   /**
@@ -976,9 +979,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     
   	genArrayCacheLookup(T3, T0, T1, LOG_BYTES_IN_DOUBLE);
   	
-  	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-  	asm.emitSHLI(T0, T0, LOG_BYTES_IN_DOUBLE);
-    asm.emitStoreDouble(T6, T3, T0);
+  	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+  	asm.emitSHLI(T2, T2, LOG_BYTES_IN_DOUBLE);
+    asm.emitStoreDouble(T6, T3, T2);
+    genArrayWriteBack(LOG_BYTES_IN_DOUBLE);
   }
 
   /**
@@ -1004,9 +1008,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     if (MM_Constants.NEEDS_WRITE_BARRIER) {
       VM._assert(NOT_REACHED);
     } else {
-    	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-    	asm.emitSHLI(T0, T0, LOG_BYTES_IN_ADDRESS);
-      asm.emitStore(T6, T3, T0);
+    	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+    	asm.emitSHLI(T2, T2, LOG_BYTES_IN_ADDRESS);
+      asm.emitStore(T6, T3, T2);
+      genArrayWriteBack(LOG_BYTES_IN_ADDRESS);
     }
   }
 
@@ -1023,9 +1028,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     
   	genArrayCacheLookup(T3, T0, T1, LOG_BYTES_IN_BYTE);
   	
-  	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-  	asm.emitSHLI(T0, T0, LOG_BYTES_IN_BYTE);
-    asm.emitStoreByte(T6, T3, T0);
+  	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+  	asm.emitSHLI(T2, T2, LOG_BYTES_IN_BYTE);
+    asm.emitStoreByte(T6, T3, T2);
+    genArrayWriteBack(LOG_BYTES_IN_BYTE);
   }
 
   /**
@@ -1041,9 +1047,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     
   	genArrayCacheLookup(T3, T0, T1, LOG_BYTES_IN_CHAR);
   	
-  	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-  	asm.emitSHLI(T0, T0, LOG_BYTES_IN_CHAR);
-    asm.emitStoreByte(T6, T3, T0);
+  	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+  	asm.emitSHLI(T2, T2, LOG_BYTES_IN_CHAR);
+    asm.emitStoreShort(T6, T3, T2);
+    genArrayWriteBack(LOG_BYTES_IN_CHAR);
   }
 
   /**
@@ -1059,9 +1066,10 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     
   	genArrayCacheLookup(T3, T0, T1, LOG_BYTES_IN_SHORT);
   	
-  	asm.emitANDI(T0, T1, ARRAY_BLOCK_MASK);  // mask to block index
-  	asm.emitSHLI(T0, T0, LOG_BYTES_IN_SHORT);
-    asm.emitStoreShort(T6, T3, T0);
+  	asm.emitANDI(T2, T1, ARRAY_BLOCK_MASK);  // mask to block index
+  	asm.emitSHLI(T2, T2, LOG_BYTES_IN_SHORT);
+    asm.emitStoreShort(T6, T3, T2);
+    genArrayWriteBack(LOG_BYTES_IN_SHORT);
   }
 
   /*
@@ -3529,7 +3537,9 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
   	
   	// check if required block of array is loaded
   	asm.emitROTMI(S7, arrayIndex, (-LOG_ARRAY_BLOCK_ENTRIES));
+  	asm.emitSHLI(S7, S7, LOG_BYTES_IN_INT);  // offset of block's table entry
   	asm.emitLoad(lookupRef, T5, S7);
+  	asm.emitCGTI(S1, lookupRef, 0);          // not cached, or still being prefetched
   	
   	if (VM.VerifyAssertions) VM._assert(lookupRef == T3 && arrayIndex == T1);
 
@@ -3538,11 +3548,36 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
   	// if not, move the array block into the cache
   	asm.emitILA(S0, VM_OutOfLineMachineCode.cacheArrayBlockInstructions);
   	asm.emitLoadLR(LINK_REG);
-  	asm.emitBIZ(lookupRef, S0);
+  	asm.emitBIZ(S1, S0);
   	
   	// lookup ref points to block of array required
   }
   
+  /**
+   * Record a store to the array element at offset T2 in the block at T3,
+   * whose main memory address is given by the array ref in T0 and index in
+   * T1.  A store that carries on from the run of elements stored so far
+   * extends the run, otherwise the run is written back and a new one begun.
+   */
+  private void genArrayWriteBack(int arrayInstanceSizeLog) {
+  	asm.emitA(S3, T3, T2);                   // local address
+  	asm.emitSHLI(S6, T1, arrayInstanceSizeLog);
+  	asm.emitA(S6, T0, S6);                   // main address
+  	asm.emitSF(S5, S3, S6);
+  	asm.emitAI(S4, S3, (1 << arrayInstanceSizeLog));
+  	
+  	asm.emitLoad(S6, JTOC, VM_OutOfLineMachineCode.arrayWriteEndOff);
+  	asm.emitLoad(S7, JTOC, VM_OutOfLineMachineCode.arrayWriteDeltaOff);
+  	asm.emitCEQ(S6, S6, S3);
+  	asm.emitCEQ(S7, S7, S5);
+  	asm.emitAND(S6, S6, S7);
+  	
+  	asm.emitILA(S0, VM_OutOfLineMachineCode.arrayWriteBackInstructions);
+  	asm.emitLoadLR(LINK_REG);
+  	asm.emitBIZ(S6, S0);
+  	asm.emitStore(S4, JTOC, VM_OutOfLineMachineCode.arrayWriteEndOff);
+  }
+  
   // Emit code to buy a stackframe, store incoming parameters,
   // and acquire method synchronization lock.
   //
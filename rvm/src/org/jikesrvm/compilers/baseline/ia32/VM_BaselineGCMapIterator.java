@@ -87,7 +87,7 @@ public abstract class VM_BaselineGCMapIterator extends VM_GCMapIterator implemen
 
     // setup stackframe mapping
     //
-    maps = ((VM_BaselineCompiledMethod) compiledMethod).referenceMaps;
+    maps = ((VM_BaselineCompiledMethod) compiledMethod).getReferenceMaps();
     mapId = maps.locateGCPoint(instructionOffset, currentMethod);
     mapIndex = 0;
     if (mapId < 0) {
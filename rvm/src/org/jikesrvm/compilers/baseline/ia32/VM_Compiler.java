@@ -2891,7 +2891,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler implements VM_Base
     int whichAllocator = MM_Interface.pickAllocator(typeRef, method);
     int align = VM_ObjectModel.getAlignment(typeRef);
     int offset = VM_ObjectModel.getOffsetForAlignment(typeRef);
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     asm.emitPUSH_Imm(instanceSize);
     asm.emitPUSH_RegDisp(JTOC, tibOffset);       // put tib on stack
     asm.emitPUSH_Imm(typeRef.hasFinalizer() ? 1 : 0); // does the class have a finalizer?
@@ -2910,7 +2910,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler implements VM_Base
    */
   @Override
   protected final void emit_unresolved_new(VM_TypeReference typeRef) {
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     asm.emitPUSH_Imm(typeRef.getId());
     asm.emitPUSH_Imm(site);                 // site
     genParameterRegisterLoad(2);            // pass 2 parameter words
@@ -2928,7 +2928,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler implements VM_Base
     Offset tibOffset = array.getTibOffset();
     int headerSize = VM_ObjectModel.computeHeaderSize(array);
     int whichAllocator = MM_Interface.pickAllocator(array, method);
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     int align = VM_ObjectModel.getAlignment(array);
     int offset = VM_ObjectModel.getOffsetForAlignment(array);
     // count is already on stack- nothing required
@@ -2950,7 +2950,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler implements VM_Base
    */
   @Override
   protected final void emit_unresolved_newarray(VM_TypeReference tRef) {
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     // count is already on stack- nothing required
     asm.emitPUSH_Imm(tRef.getId());
     asm.emitPUSH_Imm(site);                 // site
@@ -3011,10 +3011,20 @@ public abstract class VM_Compiler extends VM_BaselineCompiler implements VM_Base
    */
   @Override
   protected final void emit_checkcast(VM_TypeReference typeRef) {
+    Offset cache = compiledMethod.allocateTypeCheckCache();
+    asm.emitMOV_Reg_RegInd(T0, SP);                 // T0 is object ref
+    asm.emitTEST_Reg_Reg(T0, T0);
+    VM_ForwardReference isNull = asm.forwardJcc(VM_Assembler.EQ);
+    VM_ObjectModel.baselineEmitLoadTIB(asm, S0, T0, false);
+    asm.emitCMP_Reg_RegDisp(S0, JTOC, cache);       // same TIB as last success at this site?
+    VM_ForwardReference hit = asm.forwardJcc(VM_Assembler.EQ);
+    isNull.resolve(asm);
     asm.emitPUSH_RegInd(SP);                        // duplicate the object ref on the stack
     asm.emitPUSH_Imm(typeRef.getId());               // VM_TypeReference id.
-    genParameterRegisterLoad(2);                     // pass 2 parameter words
-    asm.emitCALL_RegDisp(JTOC, VM_Entrypoints.checkcastMethod.getOffset()); // checkcast(obj, type reference id);
+    asm.emitPUSH_Imm(cache.toInt());                 // JTOC offset of the cache
+    genParameterRegisterLoad(3);                     // pass 3 parameter words
+    asm.emitCALL_RegDisp(JTOC, VM_Entrypoints.checkcastCachingMethod.getOffset()); // checkcast(obj, type reference id, cache);
+    hit.resolve(asm);
   }
 
   /**
@@ -3047,10 +3057,23 @@ public abstract class VM_Compiler extends VM_BaselineCompiler implements VM_Base
    */
   @Override
   protected final void emit_instanceof(VM_TypeReference typeRef) {
+    Offset cache = compiledMethod.allocateTypeCheckCache();
+    asm.emitMOV_Reg_RegInd(T0, SP);       // T0 is object ref
+    asm.emitTEST_Reg_Reg(T0, T0);
+    VM_ForwardReference isNull = asm.forwardJcc(VM_Assembler.EQ);
+    VM_ObjectModel.baselineEmitLoadTIB(asm, S0, T0, false);
+    asm.emitCMP_Reg_RegDisp(S0, JTOC, cache); // same TIB as last success at this site?
+    VM_ForwardReference miss = asm.forwardJcc(VM_Assembler.NE);
+    asm.emitMOV_RegInd_Imm(SP, 1);        // replace object ref with true
+    VM_ForwardReference done = asm.forwardJMP();
+    isNull.resolve(asm);
+    miss.resolve(asm);
     asm.emitPUSH_Imm(typeRef.getId());
-    genParameterRegisterLoad(2);          // pass 2 parameter words
-    asm.emitCALL_RegDisp(JTOC, VM_Entrypoints.instanceOfMethod.getOffset());
+    asm.emitPUSH_Imm(cache.toInt());
+    genParameterRegisterLoad(3);          // pass 3 parameter words
+    asm.emitCALL_RegDisp(JTOC, VM_Entrypoints.instanceOfCachingMethod.getOffset());
     asm.emitPUSH_Reg(T0);
+    done.resolve(asm);
   }
 
   /**
@@ -2957,7 +2957,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     int whichAllocator = MM_Interface.pickAllocator(typeRef, method);
     int align = VM_ObjectModel.getAlignment(typeRef);
     int offset = VM_ObjectModel.getOffsetForAlignment(typeRef);
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     asm.emitLAddrToc(T0, VM_Entrypoints.resolvedNewScalarMethod.getOffset());
     asm.emitMTCTR(T0);
     asm.emitLVAL(T0, instanceSize);
@@ -2976,7 +2976,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
    * @param typeRef the type reference to dynamically link & instantiate
    */
   protected final void emit_unresolved_new(VM_TypeReference typeRef) {
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     asm.emitLAddrToc(T0, VM_Entrypoints.unresolvedNewScalarMethod.getOffset());
     asm.emitMTCTR(T0);
     asm.emitLVAL(T0, typeRef.getId());
@@ -2994,7 +2994,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
     Offset tibOffset = array.getTibOffset();
     int headerSize = VM_ObjectModel.computeArrayHeaderSize(array);
     int whichAllocator = MM_Interface.pickAllocator(array, method);
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     int align = VM_ObjectModel.getAlignment(array);
     int offset = VM_ObjectModel.getOffsetForAlignment(array);
     asm.emitLAddrToc(T0, VM_Entrypoints.resolvedNewArrayMethod.getOffset());
@@ -3016,7 +3016,7 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
    * @param typeRef the type reference to dynamically link & instantiate
    */
   protected final void emit_unresolved_newarray(VM_TypeReference typeRef) {
-    int site = MM_Interface.getAllocationSite(true);
+    int site = MM_Interface.getAllocationSite(method, biStart);
     asm.emitLAddrToc(T0, VM_Entrypoints.unresolvedNewArrayMethod.getOffset());
     asm.emitMTCTR(T0);
     peekInt(T0, 0);                // T0 := number of elements
@@ -3068,11 +3068,23 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
    * @param typeRef   The LHS type
    */
   protected final void emit_checkcast(VM_TypeReference typeRef) {
-    asm.emitLAddrToc(T0, VM_Entrypoints.checkcastMethod.getOffset());
+    Offset cache = compiledMethod.allocateTypeCheckCache();
+    peekAddr(T0, 0);
+    asm.emitLVAL(T1, 0);
+    asm.emitCMPLAddr(T0, T1);
+    VM_ForwardReference isNull = asm.emitForwardBC(EQ);
+    VM_ObjectModel.baselineEmitLoadTIB(asm, T1, T0, false);
+    asm.emitLAddrToc(T2, cache);
+    asm.emitCMPLAddr(T1, T2);       // same TIB as last success at this site?
+    VM_ForwardReference hit = asm.emitForwardBC(EQ);
+    isNull.resolve(asm);
+    asm.emitLAddrToc(T0, VM_Entrypoints.checkcastCachingMethod.getOffset());
     asm.emitMTCTR(T0);
-    peekAddr(T0, 0); // checkcast(obj, klass) consumes obj
+    peekAddr(T0, 0); // checkcast(obj, klass, cache) consumes obj
     asm.emitLVAL(T1, typeRef.getId());
+    asm.emitLVALAddr(T2, cache);
     asm.emitBCCTRL();               // but obj remains on stack afterwords
+    hit.resolve(asm);
   }
 
   /**
@@ -3104,11 +3116,26 @@ public abstract class VM_Compiler extends VM_BaselineCompiler
    * @param typeRef the LHS type
    */
   protected final void emit_instanceof(VM_TypeReference typeRef) {
-    asm.emitLAddrToc(T0, VM_Entrypoints.instanceOfMethod.getOffset());
+    Offset cache = compiledMethod.allocateTypeCheckCache();
+    peekAddr(T0, 0);
+    asm.emitLVAL(T1, 0);
+    asm.emitCMPLAddr(T0, T1);
+    VM_ForwardReference isNull = asm.emitForwardBC(EQ);
+    VM_ObjectModel.baselineEmitLoadTIB(asm, T1, T0, false);
+    asm.emitLAddrToc(T2, cache);
+    asm.emitCMPLAddr(T1, T2);       // same TIB as last success at this site?
+    VM_ForwardReference miss = asm.emitForwardBC(NE);
+    asm.emitLVAL(T0, 1);
+    VM_ForwardReference done = asm.emitForwardB();
+    isNull.resolve(asm);
+    miss.resolve(asm);
+    asm.emitLAddrToc(T0, VM_Entrypoints.instanceOfCachingMethod.getOffset());
     asm.emitMTCTR(T0);
     peekAddr(T0, 0);
     asm.emitLVAL(T1, typeRef.getId());
+    asm.emitLVALAddr(T2, cache);
     asm.emitBCCTRL();
+    done.resolve(asm);
     pokeInt(T0, 0);
   }
 
@@ -94,11 +94,53 @@ public abstract class VM_CompiledMethod implements VM_SizeConstants {
    */
   protected int osrJTOCoffset = 0;
 
+  /**
+   * The JTOC offsets of the type check caches of this method's instanceof
+   * and checkcast sites, or null if it has none.  They are released once
+   * the method is obsolete and no longer on any stack.
+   */
+  private int[] typeCheckCaches;
+
+  /**
+   * Link in {@link VM_CompiledMethods}' list of snipped compiled methods
+   * whose type check caches haven't been released yet.
+   */
+  VM_CompiledMethod nextWithDeadTypeCheckCaches;
+
   /**
    * The time in milliseconds taken to compile the method.
    */
   protected float compilationTime;
 
+  /**
+   * Allocate the type check cache for an instanceof or checkcast site in
+   * this method: a JTOC slot holding the TIB of the last object that
+   * passed the check at the site.
+   *
+   * @return the JTOC offset of the slot
+   */
+  public final Offset allocateTypeCheckCache() {
+    VM_CompiledMethods.releaseDeadTypeCheckCaches();
+    Offset cache = VM_Statics.allocateReferenceSlot(true);
+    int n = (typeCheckCaches == null) ? 0 : typeCheckCaches.length;
+    int[] tmp = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      tmp[i] = typeCheckCaches[i];
+    }
+    tmp[n] = cache.toInt();
+    typeCheckCaches = tmp;
+    return cache;
+  }
+
+  /**
+   * @return the JTOC offsets of the type check caches of this method's
+   * instanceof and checkcast sites, or null if it has none
+   */
+  @Uninterruptible
+  final int[] getTypeCheckCaches() {
+    return typeCheckCaches;
+  }
+
   public void setSamplesReset() {
     flags |= SAMPLES_RESET;
   }
@@ -12,6 +12,7 @@
  */
 package org.jikesrvm.compilers.common;
 
+import org.jikesrvm.ArchitectureSpecific;
 import org.jikesrvm.VM;
 import org.jikesrvm.VM_SizeConstants;
 import org.jikesrvm.classloader.VM_Array;
@@ -23,8 +24,13 @@ import org.jikesrvm.jni.VM_JNICompiledMethod;
 import org.jikesrvm.memorymanagers.mminterface.MM_Interface;
 import org.jikesrvm.runtime.VM_Magic;
 import org.jikesrvm.runtime.VM_Memory;
+import org.jikesrvm.runtime.VM_Runtime;
+import org.jikesrvm.runtime.VM_Statics;
+import org.jikesrvm.scheduler.VM_Scheduler;
+import org.jikesrvm.scheduler.VM_Thread;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.unboxed.LocalAddress;
+import org.vmmagic.unboxed.Offset;
 
 /**
  * Manage pool of compiled methods. <p>
@@ -161,6 +167,38 @@ public class VM_CompiledMethods implements VM_SizeConstants {
     scanForObsoleteMethods = true;
   }
 
+  /**
+   * Snipped compiled methods whose type check caches are waiting to be
+   * released, linked through
+   * {@link VM_CompiledMethod#nextWithDeadTypeCheckCaches}
+   */
+  private static VM_CompiledMethod deadTypeCheckCaches;
+
+  /**
+   * Release the JTOC slots of the type check caches of snipped compiled
+   * methods, so that recompiling code doesn't use up the JTOC.  Their code
+   * is no longer on any stack, so nothing can read the slots.
+   */
+  public static synchronized void releaseDeadTypeCheckCaches() {
+    if (deadTypeCheckCaches == null) return;
+    for (VM_CompiledMethod cm = takeDeadTypeCheckCaches(); cm != null; cm = cm.nextWithDeadTypeCheckCaches) {
+      for (int cache : cm.getTypeCheckCaches()) {
+        VM_Statics.releaseReferenceSlot(Offset.fromIntSignExtend(cache));
+      }
+    }
+  }
+
+  /**
+   * Detach the list of snipped compiled methods with type check caches.
+   * Uninterruptible, so that no collection can add to the list meanwhile.
+   */
+  @Uninterruptible
+  private static VM_CompiledMethod takeDeadTypeCheckCaches() {
+    VM_CompiledMethod cm = deadTypeCheckCaches;
+    deadTypeCheckCaches = null;
+    return cm;
+  }
+
   // Snip reference to CompiledMethod so that we can reclaim code space. If
   // the code is currently being executed, stack scanning is responsible for
   // marking it NOT obsolete. Keep such reference until a future GC.
@@ -187,10 +225,54 @@ public class VM_CompiledMethods implements VM_SizeConstants {
           if (cm.isObsolete()) {
             // obsolete and not active on a thread stack: it's garbage!
             compiledMethods[i] = null;
+            if (cm.getTypeCheckCaches() != null) {
+              // a collector can't take the statics lock; the next compiler
+              // to allocate a cache releases them
+              cm.nextWithDeadTypeCheckCaches = deadTypeCheckCaches;
+              deadTypeCheckCaches = cm;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Build the reference maps that the baseline compiler deferred for every
+   * method with a frame on the stack of a thread other than a collector.
+   * Building maps allocates, which a collection can't, so this is called
+   * by a collector thread once all mutators have stopped but before the
+   * collection proper starts.  Methods compiled into the boot image, which
+   * includes all the code a collector thread runs, have their maps built
+   * at compile time.
+   */
+  @Uninterruptible
+  public static void buildDeferredReferenceMaps() {
+    LocalAddress sentinel = VM_Magic.addressAsLocalAddress(ArchitectureSpecific.VM_StackframeLayoutConstants.STACKFRAME_SENTINEL_FP);
+    VM_Scheduler.getCurrentThread().setEmergencyAllocation();
+    for (int t = 0; t <= VM_Scheduler.getThreadHighWatermark(); t++) {
+      VM_Thread thread = VM_Scheduler.threads[t];
+      if (thread == null || thread.isGCThread()) continue;
+      LocalAddress fp = thread.contextRegisters.getInnermostFramePointer();
+      if (fp.isZero() || fp.EQ(sentinel)) continue;
+      // walk the frames ScanThread will, which stops short of the bottom frame
+      while (VM_Magic.getCallerFramePointer(fp).NE(sentinel)) {
+        int compiledMethodId = VM_Magic.getCompiledMethodID(fp);
+        if (compiledMethodId != ArchitectureSpecific.VM_ArchConstants.INVISIBLE_METHOD_ID) {
+          VM_CompiledMethod cm = getCompiledMethod(compiledMethodId);
+          int type = cm.getCompilerType();
+          if (type == VM_CompiledMethod.BASELINE) {
+            ((VM_BaselineCompiledMethod) cm).getReferenceMaps();
+          }
+          if (type != VM_CompiledMethod.TRAP &&
+              cm.getMethod().getDeclaringClass().hasBridgeFromNativeAnnotation()) {
+            fp = VM_Runtime.unwindNativeStackFrameForGC(fp);
           }
         }
+        fp = VM_Magic.getCallerFramePointer(fp);
       }
     }
+    VM_Scheduler.getCurrentThread().clearEmergencyAllocation();
   }
 
   /**
@@ -38,6 +38,7 @@ import org.jikesrvm.compilers.opt.OPT_OptimizationPlanElement;
 import org.jikesrvm.compilers.opt.OPT_OptimizationPlanner;
 import org.jikesrvm.compilers.opt.OPT_OptimizingCompilerException;
 import org.jikesrvm.compilers.opt.OPT_Options;
+import org.jikesrvm.compilers.opt.OPT_PhaseTelemetry;
 import org.jikesrvm.runtime.VM_Time;
 import org.jikesrvm.scheduler.VM_Scheduler;
 
@@ -351,6 +352,9 @@ public class VM_RuntimeCompiler implements VM_Constants, VM_Callbacks.ExitMonito
       VM_Callbacks.notifyMethodCompile(method, VM_CompiledMethod.JNI);
       long start = 0;
       VM_CompiledMethod cm = null;
+      if (VM.BuildForAdaptiveSystem && VM_AOSLogging.logOptPhases()) {
+        plan.phaseTelemetry = new OPT_PhaseTelemetry();
+      }
       try {
         if (VM.MeasureCompilation || VM.BuildForAdaptiveSystem) {
           start = VM_Scheduler.getCurrentThread().startTimedInterval();
@@ -366,6 +370,9 @@ public class VM_RuntimeCompiler implements VM_Constants, VM_Callbacks.ExitMonito
           }
         }
       }
+      if (cm != null && plan.phaseTelemetry != null) {
+        VM_AOSLogging.recordOptPhases(plan, cm);
+      }
 
       return cm;
     } else {
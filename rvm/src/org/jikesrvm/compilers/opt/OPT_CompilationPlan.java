@@ -54,6 +54,10 @@ public final class OPT_CompilationPlan {
    * The OPT_Options object that contains misc compilation control data
    */
   public OPT_Options options;
+  /**
+   * If non-null, record the IR size and time of every phase executed
+   */
+  public OPT_PhaseTelemetry phaseTelemetry;
 
   /**
    * Whether this compilation is for analysis only?
@@ -98,8 +98,8 @@ public final class OPT_DefaultInlineOracle extends OPT_InlineTools implements OP
       }
     }
 
-    if (opts.getOptLevel() == 0) {
-      // at opt level 0, trivial unguarded inlines are the only kind we consider
+    if (opts.getOptLevel() <= 0) {
+      // at opt level 0 (and the fast tier), trivial unguarded inlines are the only kind we consider
       if (verbose) VM.sysWriteln("\tNO: only do trivial inlines at O0\n");
       return OPT_InlineDecision.NO("Only do trivial inlines at O0");
     }
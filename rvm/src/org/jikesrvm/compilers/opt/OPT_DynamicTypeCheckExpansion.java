@@ -58,6 +58,7 @@ import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_LOAD;
 import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_MOVE;
 import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_SHL;
 import static org.jikesrvm.compilers.opt.ir.OPT_Operators.REF_IFCMP;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.REF_LOAD;
 import static org.jikesrvm.compilers.opt.ir.OPT_Operators.TRAP;
 import static org.jikesrvm.compilers.opt.ir.OPT_Operators.USHORT_ALOAD;
 import static org.jikesrvm.compilers.opt.ir.OPT_Operators.USHORT_LOAD;
@@ -725,16 +726,9 @@ abstract class OPT_DynamicTypeCheckExpansion extends OPT_ConvertToLowLevelIR {
       } else {
         // A non-resolved class or interface.
         // We expect these to be extremely uncommon in opt code in AOS.
-        // Mutate s into a call to VM_Runtime.instanceOf
-        VM_Method target = VM_Entrypoints.instanceOfMethod;
-        Call.mutate2(s,
-                     CALL,
-                     result,
-                     AC(target.getOffset()),
-                     OPT_MethodOperand.STATIC(target),
-                     RHSobj,
-                     IC(LHStype.getId()));
-        return callHelper(s, ir);
+        // Reduce to a branching case, which tests the site's type check
+        // cache before calling VM_Runtime.instanceOfCaching
+        return convertToBranchingTypeCheck(s, ir, RHSobj, LHStype, RHStib, result);
       }
     }
     if (LHStype.isArrayType()) {
@@ -947,27 +941,9 @@ abstract class OPT_DynamicTypeCheckExpansion extends OPT_ConvertToLowLevelIR {
       } else {
         // A non-resolved class or interface. Case 3 of VM_DynamicTypeCheck
         // Branch on the result of a call to
-        // VM_Runtime.instance
-        OPT_RegisterOperand result = ir.regpool.makeTempInt();
-        VM_Method target = VM_Entrypoints.instanceOfMethod;
-        OPT_Instruction call =
-            Call.create2(CALL,
-                         result,
-                         AC(target.getOffset()),
-                         OPT_MethodOperand.STATIC(target),
-                         RHSobj,
-                         IC(LHStype.getId()));
-        call.copyPosition(continueAt);
-        continueAt.insertBefore(call);
-        call = callHelper(call, ir);
-        continueAt.insertBefore(IfCmp.create(INT_IFCMP,
-                                             oldGuard,
-                                             result.copyD2U(),
-                                             IC(0),
-                                             OPT_ConditionOperand.EQUAL(),
-                                             falseBlock.makeJumpTarget(),
-                                             falseProb));
-        return continueAt;
+        // VM_Runtime.instanceOfCaching
+        return generateCachedTypeCheckCall(continueAt, ir, RHSobj, LHStype, RHStib,
+                                           trueBlock, falseBlock, oldGuard, falseProb);
       }
     }
 
@@ -1046,31 +1022,82 @@ abstract class OPT_DynamicTypeCheckExpansion extends OPT_ConvertToLowLevelIR {
       }
 
       // Not a case we want to handle inline
-      VM_Method target = VM_Entrypoints.instanceOfMethod;
-      OPT_RegisterOperand callResult = ir.regpool.makeTempInt();
-      OPT_Instruction call =
-          Call.create2(CALL,
-                       callResult,
-                       AC(target.getOffset()),
-                       OPT_MethodOperand.STATIC(target),
-                       RHSobj,
-                       IC(LHStype.getId()));
-      call.copyPosition(continueAt);
-      continueAt.insertBefore(call);
-      call = callHelper(call, ir);
-      continueAt.insertBefore(IfCmp.create(INT_IFCMP,
-                                           oldGuard,
-                                           callResult.copyD2U(),
-                                           IC(0),
-                                           OPT_ConditionOperand.EQUAL(),
-                                           falseBlock.makeJumpTarget(),
-                                           falseProb));
-      return continueAt;
+      return generateCachedTypeCheckCall(continueAt, ir, RHSobj, LHStype, RHStib,
+                                         trueBlock, falseBlock, oldGuard, falseProb);
     }
     OPT_OptimizingCompilerException.UNREACHABLE();
     return null;
   }
 
+  /**
+   * Generate a branching type check that calls VM_Runtime.instanceOfCaching,
+   * preceded by a compare of the rhs TIB against a type check cache: a JTOC
+   * slot, private to this site, holding the TIB of the last object that
+   * passed the check.  A site that keeps seeing the same class then costs
+   * a load and a compare rather than a call.  The slot is released when
+   * the compiled method is (see
+   * {@link org.jikesrvm.compilers.common.VM_CompiledMethod#allocateTypeCheckCache}).
+   *
+   * @param continueAt the instruction to insert the check before
+   * @param ir         The OPT_IR containing the instruction to be expanded.
+   * @param RHSobj     The OPT_RegisterOperand containing the rhs object.
+   * @param LHStype    The VM_TypeReference to be tested against.
+   * @param RHStib     The OPT_Operand containing the TIB of the rhs.
+   * @param trueBlock  The OPT_BasicBlock to continue at if the typecheck
+   *                   evaluates to true
+   * @param falseBlock The OPT_BasicBlock to continue at if the typecheck
+   *                   evaluates to false.
+   * @param oldGuard   The guard for the generated branches
+   * @param falseProb  The probability that typecheck will branch to the falseBlock
+   * @return continueAt
+   */
+  private static OPT_Instruction generateCachedTypeCheckCall(OPT_Instruction continueAt, OPT_IR ir,
+                                                             OPT_Operand RHSobj, VM_TypeReference LHStype,
+                                                             OPT_Operand RHStib, OPT_BasicBlock trueBlock,
+                                                             OPT_BasicBlock falseBlock, OPT_RegisterOperand oldGuard,
+                                                             OPT_BranchProfileOperand falseProb) {
+    Offset cache = ir.compiledMethod.allocateTypeCheckCache();
+    OPT_RegisterOperand cachedTIB =
+        InsertLoadOffsetJTOC(continueAt, ir, REF_LOAD, VM_TypeReference.JavaLangObjectArray, cache);
+    OPT_Instruction hit =
+        IfCmp.create(REF_IFCMP,
+                     oldGuard,
+                     RHStib.copy(),
+                     cachedTIB,
+                     OPT_ConditionOperand.EQUAL(),
+                     trueBlock.makeJumpTarget(),
+                     new OPT_BranchProfileOperand());
+    if (oldGuard != null) {
+      oldGuard = oldGuard.copyD2D();
+    }
+    continueAt.insertBefore(hit);
+    OPT_BasicBlock myBlock = hit.getBasicBlock();
+    myBlock.splitNodeWithLinksAt(hit, ir);
+    myBlock.insertOut(trueBlock);       // must come after the splitNodeAt
+
+    VM_Method target = VM_Entrypoints.instanceOfCachingMethod;
+    OPT_RegisterOperand callResult = ir.regpool.makeTempInt();
+    OPT_Instruction call =
+        Call.create3(CALL,
+                     callResult,
+                     AC(target.getOffset()),
+                     OPT_MethodOperand.STATIC(target),
+                     RHSobj,
+                     IC(LHStype.getId()),
+                     AC(cache));
+    call.copyPosition(continueAt);
+    continueAt.insertBefore(call);
+    call = callHelper(call, ir);
+    continueAt.insertBefore(IfCmp.create(INT_IFCMP,
+                                         oldGuard,
+                                         callResult.copyD2U(),
+                                         IC(0),
+                                         OPT_ConditionOperand.EQUAL(),
+                                         falseBlock.makeJumpTarget(),
+                                         falseProb));
+    return continueAt;
+  }
+
   // helper routine.
   // s is a conditional branch; Make it the last instruction in its block
   // if it isn't already and return the fallthrough block.
@@ -132,7 +132,7 @@ public final class OPT_ExpandRuntimeServices extends OPT_CompilerPhase {
             inst.insertBefore(Move.create(REF_MOVE, tmp, tib));
             tib = tmp.copyRO();
           }
-          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(true));
+          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(inst.position.getMethod(), inst.bcIndex));
           VM_Method target = VM_Entrypoints.resolvedNewScalarMethod;
           Call.mutate7(inst,
                        CALL,
@@ -159,7 +159,7 @@ public final class OPT_ExpandRuntimeServices extends OPT_CompilerPhase {
         case NEW_UNRESOLVED_opcode: {
           int typeRefId = New.getType(inst).getTypeRef().getId();
           VM_Method target = VM_Entrypoints.unresolvedNewScalarMethod;
-          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(true));
+          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(inst.position.getMethod(), inst.bcIndex));
           Call.mutate2(inst,
                        CALL,
                        New.getClearResult(inst),
@@ -188,7 +188,7 @@ public final class OPT_ExpandRuntimeServices extends OPT_CompilerPhase {
             inst.insertBefore(Move.create(REF_MOVE, tmp, tib));
             tib = tmp.copyRO();
           }
-          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(true));
+          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(inst.position.getMethod(), inst.bcIndex));
           VM_Method target = VM_Entrypoints.resolvedNewArrayMethod;
           Call.mutate8(inst,
                        CALL,
@@ -217,7 +217,7 @@ public final class OPT_ExpandRuntimeServices extends OPT_CompilerPhase {
           int typeRefId = NewArray.getType(inst).getTypeRef().getId();
           OPT_Operand numberElements = NewArray.getClearSize(inst);
           VM_Method target = VM_Entrypoints.unresolvedNewArrayMethod;
-          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(true));
+          OPT_IntConstantOperand site = OPT_IRTools.IC(MM_Interface.getAllocationSite(inst.position.getMethod(), inst.bcIndex));
           Call.mutate3(inst,
                        CALL,
                        NewArray.getClearResult(inst),
@@ -0,0 +1,594 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.compilers.opt;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import org.jikesrvm.VM;
+import org.jikesrvm.compilers.opt.ir.Binary;
+import org.jikesrvm.compilers.opt.ir.BoundsCheck;
+import org.jikesrvm.compilers.opt.ir.GuardedUnary;
+import org.jikesrvm.compilers.opt.ir.IfCmp;
+import org.jikesrvm.compilers.opt.ir.Move;
+import org.jikesrvm.compilers.opt.ir.NewArray;
+import org.jikesrvm.compilers.opt.ir.OPT_BasicBlock;
+import org.jikesrvm.compilers.opt.ir.OPT_ConditionOperand;
+import org.jikesrvm.compilers.opt.ir.OPT_IR;
+import org.jikesrvm.compilers.opt.ir.OPT_Instruction;
+import org.jikesrvm.compilers.opt.ir.OPT_InstructionEnumeration;
+import org.jikesrvm.compilers.opt.ir.OPT_Operand;
+import org.jikesrvm.compilers.opt.ir.OPT_Register;
+import org.jikesrvm.compilers.opt.ir.Phi;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.ARRAYLENGTH;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.BOUNDS_CHECK;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.GUARD_MOVE;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_ADD;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_AND;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_IFCMP;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_MOVE;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_SUB;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.INT_USHR;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.PHI;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.PI;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.REF_MOVE;
+
+/**
+ * Global array bounds check elimination on demand, after
+ * Bodik, Gupta and Sarkar, "ABCD: Eliminating Array Bounds Checks on
+ * Demand", PLDI 2000.
+ *
+ * <p> The pass works on scalar SSA form extended with PI nodes
+ * (see {@link OPT_PiNodes}).  For a BOUNDS_CHECK of index i against
+ * array A it tries to prove both i <= LEN(A) - 1 and i >= 0 by searching
+ * backwards through the inequalities implied by the SSA definition of i:
+ * copies, PI nodes of conditional branches and of earlier bounds checks,
+ * PHIs (which is how induction variables are handled), addition of
+ * constants and ARRAYLENGTH.  LEN(A) is symbolic, so arrays passed as
+ * parameters are handled as well as locally allocated ones.
+ * If both proofs succeed the check is turned into a GUARD_MOVE, just as
+ * {@link OPT_Simplifier} does for bounds checks it can decide locally.
+ */
+final class OPT_GlobalBoundsCheck extends OPT_OptimizationPlanCompositeElement {
+
+  public boolean shouldPerform(OPT_Options options) {
+    return options.GLOBAL_BOUNDS_CHECK;
+  }
+
+  /**
+   * Create this phase element as a composite of other elements
+   */
+  OPT_GlobalBoundsCheck() {
+    super("Global Bounds Check Elimination", new OPT_OptimizationPlanElement[]{
+        // Stage 1: Insert PI nodes for conditional branches and bounds checks
+        new OPT_OptimizationPlanAtomicElement(new OPT_PiNodes(true)),
+
+        // Stage 2: Require SSA form
+        new OPT_OptimizationPlanAtomicElement(new OPT_DominatorsPhase(true)),
+        new OPT_OptimizationPlanAtomicElement(new OPT_DominanceFrontier()),
+        new OPT_OptimizationPlanAtomicElement(new EnsureSSA()),
+
+        // Stage 3: Do the optimization
+        new OPT_OptimizationPlanAtomicElement(new ABCD()),
+
+        // Stage 4: Clean up PI nodes and leave SSA form
+        new OPT_OptimizationPlanAtomicElement(new OPT_PiNodes(false)),
+        new OPT_OptimizationPlanAtomicElement(new LeaveSSA()),});
+  }
+
+  private static final class EnsureSSA extends OPT_CompilerPhase {
+
+    public String getName() {
+      return "Ensure SSA";
+    }
+
+    public void perform(OPT_IR ir) {
+      if (!ir.HIRInfo.dominatorsAreComputed) return;
+      ir.desiredSSAOptions = new OPT_SSAOptions();
+      new OPT_EnterSSA().perform(ir);
+    }
+
+    public OPT_CompilerPhase newExecution(OPT_IR ir) {
+      return this;
+    }
+  }
+
+  private static final class LeaveSSA extends OPT_CompilerPhase {
+
+    public String getName() {
+      return "Leave SSA";
+    }
+
+    public void perform(OPT_IR ir) {
+      if (ir.actualSSAOptions == null) return;
+      new OPT_LeaveSSA().perform(ir);
+    }
+
+    public OPT_CompilerPhase newExecution(OPT_IR ir) {
+      return this;
+    }
+  }
+
+  private static final class ABCD extends OPT_CompilerPhase {
+    private static final boolean DEBUG = false;
+
+    public String getName() { return "ABCD Transform"; }
+
+    public boolean printingEnabled(OPT_Options options, boolean before) {
+      return DEBUG;
+    }
+
+    /**
+     * Return this instance of this phase. This phase contains
+     * no per-compilation instance fields.
+     * @param ir not used
+     * @return this
+     */
+    public OPT_CompilerPhase newExecution(OPT_IR ir) {
+      return this;
+    }
+
+    public void reportAdditionalStats() {
+      VM.sysWrite("  ");
+      VM.sysWrite((int) container.counter1);
+      VM.sysWrite(" of ");
+      VM.sysWrite((int) container.counter2);
+      VM.sysWrite(" BOUNDS_CHECKs eliminated");
+    }
+
+    /**
+     * Visit the bounds checks in a preorder walk of the dominator tree,
+     * removing those that can be proven redundant.
+     *
+     * @param ir   The IR on which to apply the phase
+     */
+    public void perform(OPT_IR ir) {
+      if (ir.actualSSAOptions == null || !ir.actualSSAOptions.getScalarValid()) return;
+      OPT_DefUse.computeDU(ir);
+
+      HashMap<OPT_Instruction, OPT_Register> checkedArrays = new HashMap<OPT_Instruction, OPT_Register>();
+      for (OPT_InstructionEnumeration e = ir.forwardInstrEnumerator(); e.hasMoreElements();) {
+        OPT_Instruction s = e.next();
+        if (s.operator == BOUNDS_CHECK && BoundsCheck.getRef(s).isRegister()) {
+          checkedArrays.put(s, canonicalArray(BoundsCheck.getRef(s).asRegister().getRegister()));
+        }
+      }
+      if (checkedArrays.isEmpty()) return;
+
+      HashSet<OPT_Instruction> decided = new HashSet<OPT_Instruction>();
+      OPT_DominatorTree dt = ir.HIRInfo.dominatorTree;
+      for (Enumeration<OPT_TreeNode> e = dt.getTopDownEnumerator(); e.hasMoreElements();) {
+        OPT_BasicBlock bb = ((OPT_DominatorTreeNode) e.nextElement()).getBlock();
+        for (OPT_InstructionEnumeration ie = bb.forwardRealInstrEnumerator(); ie.hasMoreElements();) {
+          OPT_Instruction s = ie.next();
+          OPT_Register array = checkedArrays.get(s);
+          if (array == null) continue;
+          container.counter2++;
+          Prover p = new Prover(array, checkedArrays, decided);
+          OPT_Operand index = BoundsCheck.getIndex(s);
+          if (p.query(index, -1, true) == TRUE && p.query(index, 0, false) == TRUE) {
+            if (DEBUG) VM.sysWrite("ABCD: removing " + s + "\n");
+            Move.mutate(s, GUARD_MOVE, BoundsCheck.getClearGuardResult(s), BoundsCheck.getClearGuard(s));
+            container.counter1++;
+          }
+          decided.add(s);
+        }
+      }
+    }
+  }
+
+  /*
+   * Results of a proof, ordered so that a PHI (all predecessors must hold)
+   * takes the minimum and a PI (any of its facts may hold) the maximum.
+   */
+  private static final int FALSE = 0;
+  private static final int REDUCED = 1;
+  private static final int TRUE = 2;
+
+  /**
+   * Maximum number of steps the search may take to decide one bounds check
+   */
+  private static final int BUDGET = 1000;
+
+  /**
+   * Follow copies of an array reference back to the register naming it.
+   */
+  static OPT_Register canonicalArray(OPT_Register r) {
+    while (true) {
+      OPT_Instruction def = definition(r);
+      if (def == null) return r;
+      OPT_Operand val;
+      if (def.operator == REF_MOVE) {
+        val = Move.getVal(def);
+      } else if (def.operator == PI) {
+        val = GuardedUnary.getVal(def);
+      } else {
+        return r;
+      }
+      if (!val.isRegister()) return r;
+      r = val.asRegister().getRegister();
+    }
+  }
+
+  /**
+   * Return the unique definition of an SSA register, or null if there
+   * is none.
+   */
+  static OPT_Instruction definition(OPT_Register r) {
+    if (r.defList == null || r.defList.getNext() != null) return null;
+    return r.defList.instruction;
+  }
+
+  /**
+   * Demand driven prover for the two inequalities that make a single
+   * bounds check redundant.  The upper problem asks whether
+   * v <= LEN(A) + c, the lower problem whether v >= c.  Constants c are
+   * kept as longs so that adding the weights of a path cannot overflow.
+   */
+  private static final class Prover {
+    /** canonical array of the check being proven */
+    private final OPT_Register array;
+    /** length operand the array was allocated with, or null */
+    private final OPT_Operand arraySize;
+    private final HashMap<OPT_Instruction, OPT_Register> checkedArrays;
+    private final HashSet<OPT_Instruction> decided;
+    private final HashMap<Query, Integer> cache = new HashMap<Query, Integer>();
+    /** registers on the current search path, mapped to their demand */
+    private HashMap<OPT_Register, Long> activeUpper = new HashMap<OPT_Register, Long>();
+    private HashMap<OPT_Register, Long> activeLower = new HashMap<OPT_Register, Long>();
+    private int budget = BUDGET;
+
+    Prover(OPT_Register array, HashMap<OPT_Instruction, OPT_Register> checkedArrays,
+           HashSet<OPT_Instruction> decided) {
+      this.array = array;
+      this.arraySize = allocatedLength(array);
+      this.checkedArrays = checkedArrays;
+      this.decided = decided;
+    }
+
+    /**
+     * Start a fresh search.  A cycle that only reduces the demand
+     * (e.g. an induction variable stepping towards the bound) proves the
+     * query.
+     */
+    int query(OPT_Operand v, long c, boolean upper) {
+      HashMap<OPT_Register, Long> savedUpper = activeUpper;
+      HashMap<OPT_Register, Long> savedLower = activeLower;
+      activeUpper = new HashMap<OPT_Register, Long>();
+      activeLower = new HashMap<OPT_Register, Long>();
+      int result = upper ? upper(v, c) : lower(v, c);
+      activeUpper = savedUpper;
+      activeLower = savedLower;
+      return result == FALSE ? FALSE : TRUE;
+    }
+
+    /**
+     * Can we show v <= LEN(array) + c ?
+     */
+    private int upper(OPT_Operand v, long c) {
+      if (v.isIntConstant()) {
+        return lengthAtLeast(array, v.asIntConstant().value - c);
+      }
+      if (!v.isRegister()) return FALSE;
+      OPT_Register r = v.asRegister().getRegister();
+      if (c >= 0 && arraySize != null && arraySize.isRegister() && arraySize.asRegister().getRegister() == r) {
+        return TRUE;
+      }
+      return search(r, c, true);
+    }
+
+    /**
+     * Can we show v >= c ?
+     */
+    private int lower(OPT_Operand v, long c) {
+      if (v.isIntConstant()) {
+        return v.asIntConstant().value >= c ? TRUE : FALSE;
+      }
+      if (!v.isRegister()) return FALSE;
+      return search(v.asRegister().getRegister(), c, false);
+    }
+
+    /**
+     * Can we show LEN(a) <= LEN(array) + c ?
+     */
+    private int upperLength(OPT_Register a, long c) {
+      a = canonicalArray(a);
+      if (a == array) return c >= 0 ? TRUE : FALSE;
+      OPT_Operand size = allocatedLength(a);
+      if (size == null) return FALSE;
+      if (arraySize != null && arraySize.similar(size)) return c >= 0 ? TRUE : FALSE;
+      return upper(size, c);
+    }
+
+    /**
+     * Can we show LEN(a) >= k ?
+     */
+    private int lengthAtLeast(OPT_Register a, long k) {
+      if (k <= 0) return TRUE;
+      OPT_Operand size = allocatedLength(canonicalArray(a));
+      if (size == null) return FALSE;
+      return query(size, k, false);
+    }
+
+    private int search(OPT_Register r, long c, boolean upper) {
+      if (--budget < 0) return FALSE;
+      Query q = new Query(r, c, upper);
+      Integer cached = cache.get(q);
+      if (cached != null) return cached;
+      HashMap<OPT_Register, Long> active = upper ? activeUpper : activeLower;
+      Long onPath = active.get(r);
+      if (onPath != null) {
+        // a cycle that makes the demand harder can be traversed forever
+        boolean harder = upper ? c < onPath : c > onPath;
+        return harder ? FALSE : REDUCED;
+      }
+      OPT_Instruction def = definition(r);
+      if (def == null) return FALSE;
+      active.put(r, c);
+      int result = upper ? upperDef(def, c) : lowerDef(def, c);
+      active.remove(r);
+      if (result != REDUCED) cache.put(q, result);
+      return result;
+    }
+
+    private int upperDef(OPT_Instruction def, long c) {
+      if (def.operator == INT_MOVE) {
+        return upper(Move.getVal(def), c);
+      } else if (def.operator == PI) {
+        int result = upper(GuardedUnary.getVal(def), c);
+        if (result == TRUE) return result;
+        return Math.max(result, upperFact(def, c));
+      } else if (def.operator == PHI) {
+        int result = TRUE;
+        for (int i = 0; i < Phi.getNumberOfValues(def) && result != FALSE; i++) {
+          result = Math.min(result, upper(Phi.getValue(def, i), c));
+        }
+        return result;
+      } else if (def.operator == INT_ADD || def.operator == INT_SUB) {
+        OPT_Operand x = addend(def);
+        if (x == null) return FALSE;
+        long k = constantAddend(def);
+        // x + k can only wrap upwards if x may be negative
+        if (k < 0 && query(x, 0, false) != TRUE) return FALSE;
+        return upper(x, c - k);
+      } else if (def.operator == ARRAYLENGTH) {
+        OPT_Operand a = GuardedUnary.getVal(def);
+        return a.isRegister() ? upperLength(a.asRegister().getRegister(), c) : FALSE;
+      } else if (def.operator == INT_AND) {
+        OPT_Operand mask = Binary.getVal2(def).isIntConstant() ? Binary.getVal2(def) : Binary.getVal1(def);
+        if (mask.isIntConstant() && mask.asIntConstant().value >= 0) {
+          return upper(mask, c);
+        }
+      }
+      return FALSE;
+    }
+
+    private int lowerDef(OPT_Instruction def, long c) {
+      if (def.operator == INT_MOVE) {
+        return lower(Move.getVal(def), c);
+      } else if (def.operator == PI) {
+        int result = lower(GuardedUnary.getVal(def), c);
+        if (result == TRUE) return result;
+        return Math.max(result, lowerFact(def, c));
+      } else if (def.operator == PHI) {
+        int result = TRUE;
+        for (int i = 0; i < Phi.getNumberOfValues(def) && result != FALSE; i++) {
+          result = Math.min(result, lower(Phi.getValue(def, i), c));
+        }
+        return result;
+      } else if (def.operator == INT_ADD || def.operator == INT_SUB) {
+        OPT_Operand x = addend(def);
+        if (x == null) return FALSE;
+        long k = constantAddend(def);
+        // x + k can only wrap downwards if x may be too big; we only
+        // handle the increment of a value known to be below some int.
+        if (k > 0 && !(k == 1 && strictlyBelowSomething(x, new HashSet<OPT_Register>()))) return FALSE;
+        return lower(x, c - k);
+      } else if (def.operator == ARRAYLENGTH) {
+        if (c <= 0) return TRUE;
+        OPT_Operand a = GuardedUnary.getVal(def);
+        return a.isRegister() ? lengthAtLeast(a.asRegister().getRegister(), c) : FALSE;
+      } else if (def.operator == INT_AND) {
+        if ((Binary.getVal1(def).isIntConstant() && Binary.getVal1(def).asIntConstant().value >= 0) ||
+            (Binary.getVal2(def).isIntConstant() && Binary.getVal2(def).asIntConstant().value >= 0)) {
+          return c <= 0 ? TRUE : FALSE;
+        }
+      } else if (def.operator == INT_USHR) {
+        if (Binary.getVal2(def).isIntConstant() && (Binary.getVal2(def).asIntConstant().value & 31) != 0) {
+          return c <= 0 ? TRUE : FALSE;
+        }
+      }
+      return FALSE;
+    }
+
+    /**
+     * Use the condition that created a PI node to bound it from above.
+     */
+    private int upperFact(OPT_Instruction pi, long c) {
+      OPT_Instruction g = usableGenerator(pi);
+      if (g == null) return FALSE;
+      if (OPT_PiNodes.isBoundsCheckPi(pi)) {
+        // v < LEN(b)
+        return upperLength(checkedArrays.get(g), c + 1);
+      }
+      OPT_ConditionOperand cond = condition(pi, g);
+      if (cond == null) return FALSE;
+      OPT_Operand other = otherOperand(pi, g);
+      switch (cond.value) {
+        case OPT_ConditionOperand.LESS:
+          return upper(other, c + 1);
+        case OPT_ConditionOperand.LESS_EQUAL:
+        case OPT_ConditionOperand.EQUAL:
+          return upper(other, c);
+        default:
+          return FALSE;
+      }
+    }
+
+    /**
+     * Use the condition that created a PI node to bound it from below.
+     */
+    private int lowerFact(OPT_Instruction pi, long c) {
+      OPT_Instruction g = usableGenerator(pi);
+      if (g == null) return FALSE;
+      if (OPT_PiNodes.isBoundsCheckPi(pi)) {
+        // v >= 0
+        return c <= 0 ? TRUE : FALSE;
+      }
+      OPT_ConditionOperand cond = condition(pi, g);
+      if (cond == null) return FALSE;
+      OPT_Operand other = otherOperand(pi, g);
+      switch (cond.value) {
+        case OPT_ConditionOperand.GREATER:
+          return lower(other, c - 1);
+        case OPT_ConditionOperand.GREATER_EQUAL:
+        case OPT_ConditionOperand.EQUAL:
+          return lower(other, c);
+        default:
+          return FALSE;
+      }
+    }
+
+    /**
+     * Is v strictly less than some other int, so that v + 1 cannot overflow?
+     */
+    private boolean strictlyBelowSomething(OPT_Operand v, HashSet<OPT_Register> visited) {
+      if (v.isIntConstant()) return v.asIntConstant().value < Integer.MAX_VALUE;
+      if (!v.isRegister()) return false;
+      OPT_Register r = v.asRegister().getRegister();
+      if (!visited.add(r) || --budget < 0) return false;
+      OPT_Instruction def = definition(r);
+      if (def == null) return false;
+      if (def.operator == INT_MOVE) {
+        return strictlyBelowSomething(Move.getVal(def), visited);
+      } else if (def.operator == PI) {
+        OPT_Instruction g = usableGenerator(def);
+        if (g != null) {
+          if (OPT_PiNodes.isBoundsCheckPi(def)) return true;
+          OPT_ConditionOperand cond = condition(def, g);
+          if (cond != null && cond.value == OPT_ConditionOperand.LESS) return true;
+        }
+        return strictlyBelowSomething(GuardedUnary.getVal(def), visited);
+      } else if (def.operator == PHI) {
+        for (int i = 0; i < Phi.getNumberOfValues(def); i++) {
+          if (!strictlyBelowSomething(Phi.getValue(def, i), visited)) return false;
+        }
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Return the instruction whose outcome a PI node records, if the
+     * fact it implies may be relied upon.  Facts of bounds checks are
+     * only used once that check has itself been kept or removed, so
+     * checks never justify each other's removal in a circle.
+     */
+    private OPT_Instruction usableGenerator(OPT_Instruction pi) {
+      OPT_Operand guard = GuardedUnary.getGuard(pi);
+      if (guard == null || !guard.isRegister() || !GuardedUnary.getVal(pi).isRegister()) return null;
+      OPT_Instruction g = definition(guard.asRegister().getRegister());
+      if (g == null) return null;
+      if (OPT_PiNodes.isBoundsCheckPi(pi)) {
+        return decided.contains(g) && checkedArrays.get(g) != null ? g : null;
+      }
+      return g.operator == INT_IFCMP ? g : null;
+    }
+
+    /**
+     * Return the condition that holds between the PI's value and the
+     * other operand of the compare on the PI's edge, or null if the PI
+     * does not name an operand of the compare.
+     */
+    private static OPT_ConditionOperand condition(OPT_Instruction pi, OPT_Instruction cmp) {
+      OPT_Register v = GuardedUnary.getVal(pi).asRegister().getRegister();
+      OPT_ConditionOperand cond = (OPT_ConditionOperand) IfCmp.getCond(cmp).copy();
+      if (IfCmp.getVal1(cmp).isRegister() && IfCmp.getVal1(cmp).asRegister().getRegister() == v) {
+        // v cond other
+      } else if (IfCmp.getVal2(cmp).isRegister() && IfCmp.getVal2(cmp).asRegister().getRegister() == v) {
+        cond.flipOperands();
+      } else {
+        return null;
+      }
+      if (OPT_PiNodes.isNotTakenPi(pi)) {
+        cond.flipCode();
+      } else if (!OPT_PiNodes.isTakenPi(pi)) {
+        return null;
+      }
+      return cond;
+    }
+
+    private static OPT_Operand otherOperand(OPT_Instruction pi, OPT_Instruction cmp) {
+      OPT_Register v = GuardedUnary.getVal(pi).asRegister().getRegister();
+      if (IfCmp.getVal1(cmp).isRegister() && IfCmp.getVal1(cmp).asRegister().getRegister() == v) {
+        return IfCmp.getVal2(cmp);
+      }
+      return IfCmp.getVal1(cmp);
+    }
+
+    /**
+     * For x = y + k or x = y - k with k constant, return y
+     */
+    private static OPT_Operand addend(OPT_Instruction def) {
+      if (Binary.getVal2(def).isIntConstant()) return Binary.getVal1(def);
+      if (def.operator == INT_ADD && Binary.getVal1(def).isIntConstant()) return Binary.getVal2(def);
+      return null;
+    }
+
+    /**
+     * For x = y + k or x = y - k with k constant, return +k or -k
+     */
+    private static long constantAddend(OPT_Instruction def) {
+      OPT_Operand k = Binary.getVal2(def).isIntConstant() ? Binary.getVal2(def) : Binary.getVal1(def);
+      long value = k.asIntConstant().value;
+      return def.operator == INT_SUB ? -value : value;
+    }
+
+    /**
+     * Return the length the array named by a canonical register was
+     * allocated with, if known.
+     */
+    private static OPT_Operand allocatedLength(OPT_Register a) {
+      OPT_Instruction def = definition(a);
+      if (def != null && NewArray.conforms(def)) {
+        return NewArray.getSize(def);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Key of the memoized results of one search
+   */
+  private static final class Query {
+    final OPT_Register r;
+    final long c;
+    final boolean upper;
+
+    Query(OPT_Register r, long c, boolean upper) {
+      this.r = r;
+      this.c = c;
+      this.upper = upper;
+    }
+
+    public boolean equals(Object o) {
+      if (!(o instanceof Query)) return false;
+      Query q = (Query) o;
+      return q.r == r && q.c == c && q.upper == upper;
+    }
+
+    public int hashCode() {
+      return r.hashCode() ^ (int) c ^ (upper ? 1 : 0);
+    }
+  }
+}
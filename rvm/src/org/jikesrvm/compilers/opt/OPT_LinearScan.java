@@ -931,7 +931,10 @@ public final class OPT_LinearScan extends OPT_OptimizationPlanCompositeElement {
       this.ir = ir;
       this.spillManager = sm;
 
-      switch (ir.options.SPILL_COST_ESTIMATE) {
+      // The fast tier does not compute LIR block frequencies, so fall back
+      // to a spill cost that only needs a single linear walk of the IR.
+      byte spillCostEstimate = ir.options.isFastTier() ? OPT_Options.SIMPLE_SPILL_COST : ir.options.SPILL_COST_ESTIMATE;
+      switch (spillCostEstimate) {
         case OPT_Options.SIMPLE_SPILL_COST:
           spillCost = new OPT_SimpleSpillCost(ir);
           break;
@@ -1947,8 +1950,9 @@ public final class OPT_LinearScan extends OPT_OptimizationPlanCompositeElement {
       int spillSize = OPT_PhysicalRegisterSet.getSpillSize(type);
 
       // Search the free intervals and try to find an interval to
-      // reuse. First look for the preferred interval.
-      if (COALESCE_SPILLS) {
+      // reuse. First look for the preferred interval (unless we are
+      // compiling for the fast tier, where this search is not worth it).
+      if (COALESCE_SPILLS && !ir.options.isFastTier()) {
         result = getSpillPreference(ci, spillSize);
         if (result != null) {
           if (debugCoalesce) {
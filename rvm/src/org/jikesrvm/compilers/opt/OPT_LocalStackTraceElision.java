@@ -0,0 +1,163 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.compilers.opt;
+
+import org.jikesrvm.classloader.VM_BootstrapClassLoader;
+import org.jikesrvm.classloader.VM_Class;
+import org.jikesrvm.classloader.VM_Method;
+import org.jikesrvm.classloader.VM_Type;
+import org.jikesrvm.compilers.opt.ir.Call;
+import org.jikesrvm.compilers.opt.ir.Goto;
+import org.jikesrvm.compilers.opt.ir.New;
+import org.jikesrvm.compilers.opt.ir.Nullary;
+import org.jikesrvm.compilers.opt.ir.OPT_BasicBlock;
+import org.jikesrvm.compilers.opt.ir.OPT_IR;
+import org.jikesrvm.compilers.opt.ir.OPT_IRTools;
+import org.jikesrvm.compilers.opt.ir.OPT_Instruction;
+import org.jikesrvm.compilers.opt.ir.OPT_MethodOperand;
+import org.jikesrvm.compilers.opt.ir.OPT_Register;
+import org.jikesrvm.compilers.opt.ir.OPT_RegisterOperand;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.CALL;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.CALL_opcode;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.GET_CAUGHT_EXCEPTION_opcode;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.GOTO_opcode;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.NEW_opcode;
+import static org.jikesrvm.compilers.opt.ir.OPT_Operators.SET_CAUGHT_EXCEPTION_opcode;
+import org.jikesrvm.runtime.VM_Entrypoints;
+
+/**
+ * Avoid capturing stack traces that can never be observed.
+ *
+ * <p> When an exception is thrown to a handler in the same method,
+ * BC2IR turns the <code>athrow</code> into a SET_CAUGHT_EXCEPTION and a
+ * goto.  If the exception was allocated in this method, is used for
+ * nothing but its constructor and such local throws, and every handler
+ * it reaches ignores the caught exception, then nobody can ever ask for
+ * its stack trace.  For such allocations we call
+ * {@link org.jikesrvm.runtime.VM_StackTrace#elideTraceOf} before the
+ * constructor runs, so that <code>fillInStackTrace</code> skips the
+ * stack walk.
+ *
+ * <p> Throwable constructors are never inlined (see
+ * OPT_DefaultInlineOracle), so the constructor shows up as a call.  We
+ * only trust constructors of classes loaded by the bootstrap class
+ * loader not to leak the exception under construction.
+ */
+final class OPT_LocalStackTraceElision extends OPT_CompilerPhase {
+
+  /**
+   * Return this instance of this phase. This phase contains no
+   * per-compilation instance fields.
+   * @param ir not used
+   * @return this
+   */
+  public OPT_CompilerPhase newExecution(OPT_IR ir) {
+    return this;
+  }
+
+  public boolean shouldPerform(OPT_Options options) {
+    return options.ELIDE_LOCAL_STACK_TRACES;
+  }
+
+  public String getName() {
+    return "Local Stack Trace Elision";
+  }
+
+  public void perform(OPT_IR ir) {
+    OPT_DefUse.computeDU(ir);
+    for (OPT_Instruction s = ir.firstInstructionInCodeOrder(); s != null; s = s.nextInstructionInCodeOrder()) {
+      if (s.getOpcode() == NEW_opcode && isUnobservedLocalThrow(s)) {
+        VM_Method target = VM_Entrypoints.elideStackTraceMethod;
+        OPT_Instruction call = Call.create1(CALL,
+                                            null,
+                                            OPT_IRTools.AC(target.getOffset()),
+                                            OPT_MethodOperand.STATIC(target),
+                                            New.getResult(s).copyD2U());
+        call.position = s.position;
+        call.bcIndex = s.bcIndex;
+        s.insertAfter(call);
+        s = call;
+      }
+    }
+  }
+
+  /**
+   * @param alloc a NEW instruction
+   * @return true if alloc creates an exception whose stack trace can not
+   *   be observed
+   */
+  private static boolean isUnobservedLocalThrow(OPT_Instruction alloc) {
+    VM_Type type = New.getType(alloc).getVMType();
+    if (type == null || !type.isClassType() || !type.asClass().isThrowable()) return false;
+    OPT_Register reg = New.getResult(alloc).getRegister();
+    if (reg.defList == null || reg.defList.getNext() != null) return false;
+
+    boolean thrownLocally = false;
+    for (OPT_RegisterOperand use = reg.useList; use != null; use = use.getNext()) {
+      OPT_Instruction s = use.instruction;
+      switch (s.getOpcode()) {
+        case CALL_opcode:
+          if (!isTrustedConstructorCall(s, use)) return false;
+          break;
+        case SET_CAUGHT_EXCEPTION_opcode:
+          if (!handlerIgnoresException(s)) return false;
+          thrownLocally = true;
+          break;
+        default:
+          return false;
+      }
+    }
+    return thrownLocally;
+  }
+
+  /**
+   * @param s a call
+   * @param use an operand of the call
+   * @return true if s is a call to a bootstrap throwable's constructor
+   *   and use is the object being constructed
+   */
+  private static boolean isTrustedConstructorCall(OPT_Instruction s, OPT_RegisterOperand use) {
+    OPT_MethodOperand mo = Call.getMethod(s);
+    if (mo == null || !mo.hasPreciseTarget()) return false;
+    VM_Method target = mo.getTarget();
+    if (!target.isObjectInitializer()) return false;
+    VM_Class klass = target.getDeclaringClass();
+    if (!klass.isThrowable() ||
+        klass.getClassLoader() != VM_BootstrapClassLoader.getBootstrapClassLoader()) {
+      return false;
+    }
+    if (Call.getParam(s, 0) != use) return false;
+    for (int i = 1; i < Call.getNumberOfParams(s); i++) {
+      if (Call.getParam(s, i).similar(use)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param set a SET_CAUGHT_EXCEPTION
+   * @return true if set is followed by a goto to a handler that never
+   *   uses the exception it catches
+   */
+  private static boolean handlerIgnoresException(OPT_Instruction set) {
+    OPT_Instruction branch = set.nextInstructionInCodeOrder();
+    if (branch.getOpcode() != GOTO_opcode) return false;
+    OPT_BasicBlock handler = Goto.getTarget(branch).target.getBasicBlock();
+    for (OPT_Instruction s = handler.firstRealInstruction(); s != null; s = s.nextInstructionInCodeOrder()) {
+      if (s.getOpcode() == GET_CAUGHT_EXCEPTION_opcode) {
+        return Nullary.getResult(s).getRegister().useList == null;
+      }
+      if (s == handler.lastRealInstruction()) break;
+    }
+    return false;
+  }
+}
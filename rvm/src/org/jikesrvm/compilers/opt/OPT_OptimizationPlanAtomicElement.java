@@ -85,7 +85,15 @@ public final class OPT_OptimizationPlanAtomicElement extends OPT_OptimizationPla
       }
       OPT_CompilerPhase cmpPhase = myPhase.newExecution(ir);
       cmpPhase.setContainer(this);
-      cmpPhase.performPhase(ir);
+      if (ir.phaseTelemetry == null) {
+        cmpPhase.performPhase(ir);
+      } else {
+        int before = OPT_PhaseTelemetry.countInstructions(ir);
+        long wallStart = VM_Time.nanoTime();
+        cmpPhase.performPhase(ir);
+        long wallTime = VM_Time.nanoTime() - wallStart;
+        ir.phaseTelemetry.record(cmpPhase.getName(), before, OPT_PhaseTelemetry.countInstructions(ir), wallTime);
+      }
     } finally {
       if (VM.MeasureCompilationPhases && VM.runningVM) {
         long end = VM_Scheduler.getCurrentThread().endTimedInterval();
@@ -151,7 +151,7 @@ public class OPT_OptimizationPlanner {
         new OSR_AdjustBCIndexes(), new OSR_OsrPointConstructor(),
 
         // Always do initial wave of peephole branch optimizations
-        new OPT_BranchOptimizations(0, true, false),
+        new OPT_BranchOptimizations(OPT_Options.FAST_OPT_LEVEL, true, false),
 
         // Adjust static branch probabilities to account for infrequent blocks
         new OPT_AdjustBranchProbabilities(),
@@ -203,6 +203,9 @@ public class OPT_OptimizationPlanner {
     // Simple flow-insensitive optimizations
     addComponent(p, new OPT_Simple(1, true, true));
 
+    // Don't capture stack traces of exceptions thrown to handlers that ignore them
+    addComponent(p, new OPT_LocalStackTraceElision());
+
     // Simple escape analysis and related transformations
     addComponent(p, new OPT_EscapeTransformations());
 
@@ -212,6 +215,9 @@ public class OPT_OptimizationPlanner {
     // SSA meta-phase
     SSAinHIR(p);
 
+    // Eliminate array bounds checks that are redundant on every path.
+    addComponent(p, new OPT_GlobalBoundsCheck());
+
     // Perform local copy propagation for a factored basic block.
     addComponent(p, new OPT_LocalCopyProp());
     // Perform local constant propagation for a factored basic block.
@@ -409,10 +415,15 @@ public class OPT_OptimizationPlanner {
     addComponent(p, new OPT_Simple(0, false, false));
 
     // Use the LST to estimate basic block frequency
+    // (the fast tier neither reorders code nor uses block counts to spill)
     addComponent(p,
                  new OPT_OptimizationPlanCompositeElement("Basic Block Frequency Estimation",
                                                           new Object[]{new OPT_BuildLST(),
-                                                                       new OPT_EstimateBlockFrequencies()}));
+                                                                       new OPT_EstimateBlockFrequencies()}) {
+                   public boolean shouldPerform(OPT_Options options) {
+                     return !options.isFastTier();
+                   }
+                 });
 
     // Perform basic block reordering
     addComponent(p, new OPT_ReorderingPhase());
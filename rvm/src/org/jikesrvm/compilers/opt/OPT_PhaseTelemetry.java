@@ -0,0 +1,99 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.compilers.opt;
+
+import org.jikesrvm.compilers.opt.ir.OPT_BasicBlock;
+import org.jikesrvm.compilers.opt.ir.OPT_IR;
+import org.jikesrvm.compilers.opt.ir.OPT_Instruction;
+
+/**
+ * Per-compilation record of the IR size before and after, and the wall
+ * time of, every compiler phase executed for one
+ * {@link OPT_CompilationPlan}.  A plan carries one of these only when
+ * somebody (e.g. VM_AOSLogging) asked for it, so the common case pays
+ * nothing but a null check per phase.
+ */
+public final class OPT_PhaseTelemetry {
+
+  private String[] names = new String[64];
+  private int[] instructionsBefore = new int[64];
+  private int[] instructionsAfter = new int[64];
+  private long[] nanos = new long[64];
+  private int size;
+
+  /**
+   * Record the execution of one phase
+   * @param name the name of the phase
+   * @param before number of IR instructions before the phase
+   * @param after number of IR instructions after the phase
+   * @param time wall time of the phase in nanoseconds
+   */
+  void record(String name, int before, int after, long time) {
+    if (size == names.length) grow();
+    names[size] = name;
+    instructionsBefore[size] = before;
+    instructionsAfter[size] = after;
+    nanos[size] = time;
+    size++;
+  }
+
+  private void grow() {
+    int newLength = names.length * 2;
+    String[] newNames = new String[newLength];
+    int[] newBefore = new int[newLength];
+    int[] newAfter = new int[newLength];
+    long[] newNanos = new long[newLength];
+    System.arraycopy(names, 0, newNames, 0, size);
+    System.arraycopy(instructionsBefore, 0, newBefore, 0, size);
+    System.arraycopy(instructionsAfter, 0, newAfter, 0, size);
+    System.arraycopy(nanos, 0, newNanos, 0, size);
+    names = newNames;
+    instructionsBefore = newBefore;
+    instructionsAfter = newAfter;
+    nanos = newNanos;
+  }
+
+  /** @return number of phases recorded */
+  public int size() { return size; }
+
+  /** @return name of the i'th phase executed */
+  public String getName(int i) { return names[i]; }
+
+  /** @return IR instructions before the i'th phase executed */
+  public int getInstructionsBefore(int i) { return instructionsBefore[i]; }
+
+  /** @return IR instructions after the i'th phase executed */
+  public int getInstructionsAfter(int i) { return instructionsAfter[i]; }
+
+  /** @return wall time in nanoseconds of the i'th phase executed */
+  public long getNanos(int i) { return nanos[i]; }
+
+  /**
+   * Count the instructions currently in the IR.  Unlike
+   * {@link OPT_IR#numberInstructions} this leaves the scratch words alone,
+   * and it copes with an IR that has not been generated yet.
+   *
+   * @param ir the IR to measure
+   * @return the number of instructions, including labels and BBENDs
+   */
+  static int countInstructions(OPT_IR ir) {
+    if (ir.cfg == null) return 0;
+    OPT_BasicBlock first = ir.firstBasicBlockInCodeOrder();
+    if (first == null) return 0;
+    int num = 0;
+    for (OPT_Instruction s = first.firstInstruction(); s != null; s = s.nextInstructionInCodeOrder()) {
+      num++;
+    }
+    return num;
+  }
+}
@@ -23,9 +23,10 @@ import org.vmmagic.pragma.Uninterruptible;
 /**
  * A class that encapsulates the GCMap portion of the machine code maps.
  * An instance of this class is created to encode and instance of a
- * OPT_GCIRMap into an int[].  The int[] is stored persistently,
+ * OPT_GCIRMap into a byte[].  The byte[] is stored persistently,
  * but the instance of the VM_OptGCMap is NOT.
  *
+ * <p> While the maps are being built they are kept in an int[]:
  * <ul>
  * <li> each map will be a sequence of 1 or more ints
  * <li> the first int in each map is a bit map of registers that
@@ -36,6 +37,13 @@ import org.vmmagic.pragma.Uninterruptible;
  *   is set to 1
  * </ul>
  *
+ * <p> {@link #finish} then rewrites each int as an unsigned variable-length
+ * quantity (7 bits per byte, the high bit of a byte set if more bytes
+ * follow) whose low bit is the chaining bit.  The register bit map is
+ * re-packed so that register <code>FIRST_GCMAP_REG + n</code> is bit n,
+ * which keeps the maps of the common few-register case to a single byte,
+ * and spill offsets mostly take two bytes instead of four.
+ *
  *  Note: This file contains two types of methods
  *         1) methods called during compilation to create the GC maps
  *            these methods are virtual
@@ -70,6 +78,17 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
    */
   private int[] gcMapInformation;
 
+  /**
+   * Maps each index of gcMapInformation to the position of its encoding in
+   * the byte[] returned by finish.
+   */
+  private int[] encodedIndex;
+
+  /**
+   * The most bytes the encoding of a single int can occupy
+   */
+  private static final int MAX_ENCODED_BYTES = 5;
+
   public static final boolean DEBUG = false;
 
   /**
@@ -81,14 +100,42 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
   }
 
   /**
-   * Called to complete the encoding and return the final int[]
+   * Called to complete the encoding and return the final byte[].
+   * Map indices handed out by generateGCMapEntry must be translated with
+   * getEncodedIndex before they are stored.
    */
   @Interruptible
-  public int[] finish() {
-    if ((gcMapInformation != null) && (lastGCMapEntry < gcMapInformation.length - 1)) {
-      resizeMapInformation(lastGCMapEntry + 1);
+  public byte[] finish() {
+    int numWords = lastGCMapEntry + 1;
+    byte[] tmp = new byte[numWords * MAX_ENCODED_BYTES];
+    encodedIndex = new int[numWords];
+    int pos = 0;
+    boolean startOfMap = true;
+    for (int i = 0; i < numWords; i++) {
+      int word = gcMapInformation[i];
+      int next = ((word & NEXT_BIT) == NEXT_BIT) ? 1 : 0;
+      int payload = startOfMap ? compactRegisterBitMap(word) : (word & ~NEXT_BIT);
+      encodedIndex[i] = pos;
+      pos = writeUnsigned(tmp, pos, (payload << 1) | next);
+      startOfMap = (next == 0);
     }
-    return gcMapInformation;
+    byte[] gcMaps = new byte[pos];
+    System.arraycopy(tmp, 0, gcMaps, 0, pos);
+    gcMapInformation = null;
+    return gcMaps;
+  }
+
+  /**
+   * Translate an index returned by generateGCMapEntry into an index into
+   * the byte[] returned by finish.
+   * @param mapIndex the map index, or NO_MAP_ENTRY
+   * @return the encoded index, or NO_MAP_ENTRY
+   */
+  @Interruptible
+  public int getEncodedIndex(int mapIndex) {
+    if (VM.VerifyAssertions) VM._assert(encodedIndex != null);
+    if (mapIndex == NO_MAP_ENTRY) return NO_MAP_ENTRY;
+    return encodedIndex[mapIndex];
   }
 
   /**
@@ -171,9 +218,9 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
    * @param  entry     map entry
    * @param  gcMap     the gc map
    */
-  public static int gcMapInformation(int entry, int[] gcMap) {
-    // before returning remember to clear the MSB.
-    return gcMap[entry] & ~NEXT_BIT;
+  public static int gcMapInformation(int entry, byte[] gcMap) {
+    // before returning remember to drop the next bit.
+    return readUnsigned(entry, gcMap) >>> 1;
   }
 
   /**
@@ -182,28 +229,26 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
    * @param  registerNumber   the register number
    * @param  gcMap            the encoded GCMap
    */
-  public static boolean registerIsSet(int entry, int registerNumber, int[] gcMap) {
+  public static boolean registerIsSet(int entry, int registerNumber, byte[] gcMap) {
     if (VM.VerifyAssertions) {
       VM._assert(registerNumber >= FIRST_GCMAP_REG && registerNumber <= LAST_GCMAP_REG, "Bad registerNumber");
     }
 
-    // Get the bit position for the register number
-    int bitPosition = getRegBitPosition(registerNumber);
-
-    // Using the register number passed construct the appropriate bit string,
-    // "and" it with the value, and see if we get a positive value
-    return (gcMap[entry] & (NEXT_BIT >>> bitPosition)) > 0;
+    // The encoded bit map has register FIRST_GCMAP_REG + n in bit n + 1,
+    // bit 0 being the next bit
+    int bitMap = readUnsigned(entry, gcMap) >>> 1;
+    return (bitMap & (1 << (registerNumber - FIRST_GCMAP_REG))) != 0;
   }
 
   /**
    * @param  gcMap            the encoded GCMap
    * @return the next (relative) location or -1 for no more locations
    */
-  public static int nextLocation(int currentIndex, int[] gcMap) {
+  public static int nextLocation(int currentIndex, byte[] gcMap) {
     // Does the next entry contain anything useful?
     if (nextBitSet(currentIndex, gcMap)) {
-      // if so, return the next index
-      return currentIndex + 1;
+      // if so, return the index following the current one
+      return skipUnsigned(currentIndex, gcMap);
     } else {
       return -1;
     }
@@ -230,8 +275,38 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
    * @param gcMap the gcmap
    * @return whether the next bit is set
    */
-  private static boolean nextBitSet(int entry, int[] gcMap) {
-    return (gcMap[entry] & NEXT_BIT) == NEXT_BIT;
+  private static boolean nextBitSet(int entry, byte[] gcMap) {
+    return (readUnsigned(entry, gcMap) & 1) == 1;
+  }
+
+  /**
+   * Decode the unsigned variable-length quantity starting at index
+   * @param index the index of its first byte
+   * @param gcMap the gcmap
+   * @return the decoded value
+   */
+  private static int readUnsigned(int index, byte[] gcMap) {
+    int result = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = gcMap[index++];
+      result |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+
+  /**
+   * @param index the index of the first byte of a variable-length quantity
+   * @param gcMap the gcmap
+   * @return the index of the first byte after it
+   */
+  private static int skipUnsigned(int index, byte[] gcMap) {
+    while ((gcMap[index++] & 0x80) != 0) {
+      // keep going until the byte without the continuation bit
+    }
+    return index;
   }
 
   /**
@@ -240,7 +315,7 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
    * @param gcMap the encoded GCmaps
    */
   @Interruptible
-  public static void dumpMap(int entry, int[] gcMap) {
+  public static void dumpMap(int entry, byte[] gcMap) {
     VM.sysWrite("Regs [");
     // Inspect the register bit map for the entry passed and print
     // those bit map entries that are true
@@ -252,7 +327,7 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
     VM.sysWrite("]");
     VM.sysWrite(" Spills [");
     while (nextBitSet(entry, gcMap)) {
-      entry++;
+      entry = skipUnsigned(entry, gcMap);
       VM.sysWrite(gcMapInformation(entry, gcMap));
       VM.sysWrite(" ");
     }
@@ -262,6 +337,39 @@ public final class VM_OptGCMap implements VM_OptGCMapIteratorConstants {
   ////////////////////////////////////////////
   // Helper methods for GCMap creation
   ////////////////////////////////////////////
+  /**
+   * Re-pack a register bit map so that register FIRST_GCMAP_REG + n is bit n
+   * @param bitMap the bit map as built by setRegisterBitMap
+   * @return the compacted bit map (without the next bit)
+   */
+  @Interruptible
+  private static int compactRegisterBitMap(int bitMap) {
+    int result = 0;
+    for (int registerNumber = FIRST_GCMAP_REG; registerNumber <= LAST_GCMAP_REG; registerNumber++) {
+      if ((bitMap & (NEXT_BIT >>> getRegBitPosition(registerNumber))) != 0) {
+        result |= 1 << (registerNumber - FIRST_GCMAP_REG);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Append value as an unsigned variable-length quantity
+   * @param data the array to write to
+   * @param index where to write the first byte
+   * @param value the value to encode
+   * @return the index following the last byte written
+   */
+  @Interruptible
+  private static int writeUnsigned(byte[] data, int index, int value) {
+    while ((value & ~0x7f) != 0) {
+      data[index++] = (byte) ((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    data[index++] = (byte) value;
+    return index;
+  }
+
   /**
    * Returns the next GC map entry for use
    * @return the entry in the map table that can be used
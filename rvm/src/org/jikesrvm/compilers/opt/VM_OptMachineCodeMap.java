@@ -61,6 +61,12 @@ import org.vmmagic.unboxed.Offset;
  *                  <li> adaptive system profiling
  *                  </ul>
  *
+ * <p> The entries are bit-packed, with field widths chosen per map, and
+ * the machine code offset of an entry is stored as the distance from the
+ * previous entry.  Every INDEX_STRIDE'th entry is a checkpoint whose
+ * absolute offset is kept in a separate index, so a lookup is a binary
+ * search of the index followed by a short linear scan.
+ *
  *  Note: This file contains two types of methods
  *         1) methods called during compilation to create the maps
  *         2) methods called at GC time (no allocation allowed!)
@@ -71,8 +77,15 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
   /**
    * Private constructor, object should be created via create
    */
-  private VM_OptMachineCodeMap(int[] _MCInformation, int[] _gcMaps, int[] _inlineEncoding) {
+  private VM_OptMachineCodeMap(int numEntries, int bciWidth, int ieiWidth, int gciWidth, int deltaWidth,
+                               int[] _MCInformation, int[] _MCIndex, byte[] _gcMaps, int[] _inlineEncoding) {
+    this.numEntries = numEntries;
+    this.bciWidth = (byte) bciWidth;
+    this.ieiWidth = (byte) ieiWidth;
+    this.gciWidth = (byte) gciWidth;
+    this.deltaWidth = (byte) deltaWidth;
     MCInformation = _MCInformation;
+    MCIndex = _MCIndex;
     gcMaps = _gcMaps;
     inlineEncoding = _inlineEncoding;
   }
@@ -81,7 +94,13 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
    * Private null constructor for no information
    */
   private VM_OptMachineCodeMap() {
+    numEntries = 0;
+    bciWidth = 0;
+    ieiWidth = 0;
+    gciWidth = 0;
+    deltaWidth = 0;
     MCInformation = null;
+    MCIndex = null;
     gcMaps = null;
     inlineEncoding = null;
   }
@@ -187,7 +206,7 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
   public ArrayList<VM_CallSite> getNonInlinedCallSites() {
     ArrayList<VM_CallSite> ans = null;
     if (MCInformation == null) return ans;
-    for (int entry = 0; entry < MCInformation.length;) {
+    for (int entry = 0; entry < numEntries; entry++) {
       int callInfo = getCallInfo(entry);
       if (callInfo == IS_UNGUARDED_CALL) {
         int bcIndex = getBytecodeIndex(entry);
@@ -203,7 +222,6 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
           }
         }
       }
-      entry = nextEntry(entry);
     }
     return ans;
   }
@@ -254,53 +272,47 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
   ///////////////////////////////////////
 
   /**
-   * Do a binary search of the machine code maps to find the index
-   * in MCInformation where the entry for the argument machine code
-   * offset starts. Will return -1 if the entry doesn't exist.
+   * Do a binary search of the checkpoint index followed by a linear scan
+   * of the entries that follow the checkpoint to find the number of
+   * the entry for the argument machine code offset.
+   * Will return -1 if the entry doesn't exist.
    *
    * @param MCOffset the machine code offset of interest
    */
   private int findMCEntry(Offset MCOffset) {
     // Given a machine code instruction MCOffset, find the corresponding entry
     if (MCInformation == null) return -1;
-    if (MCInformation.length == 0) return -1;
+    if (numEntries == 0) return -1;
 
+    // find the last checkpoint at or before MCOffset
     int left = 0;
-    int right = MCInformation.length - 1;
-    while (left <= right) {
-      int middle = (left + right) >> 1;         // take the average
-      while ((MCInformation[middle] & START_OF_ENTRY) != START_OF_ENTRY) {
-        // if necessary, step backwards to beginning of entry.
-        middle--;
-      }
-      Offset offset = Offset.fromIntSignExtend(getMCOffset(middle));
-      if (MCOffset.EQ(offset)) {
-        return middle;
-      } else if (MCOffset.sGT(offset)) {
-        // middle is too small, shift interval to the right
-        left = middle + 1;
-        if (left >= MCInformation.length) return -1;
-        while ((MCInformation[left] & START_OF_ENTRY) != START_OF_ENTRY) {
-          // if necessary, step forward to find next entry, but not passed end
-          // Need to do this to avoid finding middle again
-          left++;
-          if (left >= MCInformation.length) {
-            return -1;
-          }
-        }
-      } else {
-        // middle is too small, shift interval to the left
+    int right = MCIndex.length - 1;
+    if (MCOffset.sLT(Offset.fromIntSignExtend(MCIndex[0]))) return -1;
+    while (left < right) {
+      int middle = (left + right + 1) >> 1;    // round up so we make progress
+      if (MCOffset.sLT(Offset.fromIntSignExtend(MCIndex[middle]))) {
         right = middle - 1;
-        // Note no need to adjust as, we won't chance finding middle again
+      } else {
+        left = middle;
       }
     }
-    return -1;
-  }
 
-  private int nextEntry(int entry) {
-    if (isBigEntry(entry)) return entry + SIZEOF_BIG_ENTRY;
-    if (isHugeEntry(entry)) return entry + SIZEOF_HUGE_ENTRY;
-    return entry + SIZEOF_ENTRY;
+    // walk forward from the checkpoint, accumulating deltas
+    int entry = left << LOG_INDEX_STRIDE;
+    int limit = entry + INDEX_STRIDE;
+    if (limit > numEntries) limit = numEntries;
+    int mco = MCIndex[left];
+    while (true) {
+      Offset offset = Offset.fromIntSignExtend(mco);
+      if (MCOffset.EQ(offset)) {
+        return entry;
+      } else if (MCOffset.sLT(offset)) {
+        return -1;
+      }
+      entry++;
+      if (entry >= limit) return -1;
+      mco += getMCOffsetDelta(entry);
+    }
   }
 
   ////////////////////////////////////////////
@@ -336,10 +348,14 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
 
     int[] inlineEncoding = VM_OptEncodedCallSiteTree.getEncoding(inliningMap);
 
-    // (2) Encode the primary machine code mapping information and the GCMaps.
+    // (2) Gather the fields of each entry and build the GCMaps.
     VM_OptGCMap gcMapBuilder = new VM_OptGCMap();
-    int[] tmpMC = new int[numEntries * SIZEOF_HUGE_ENTRY];
-    int lastMCInfoEntry = 0;
+    int[] mcos = new int[numEntries];
+    int[] gcis = new int[numEntries];
+    int[] bcis = new int[numEntries];
+    int[] ieis = new int[numEntries];
+    int[] cms = new int[numEntries];
+    int idx = 0;
     for (OPT_GCIRMapElement irMapElem : irMap) {
       OPT_Instruction instr = irMapElem.getInstruction();
       if (DUMP_MAPS) VM.sysWrite("IR Map for " + instr + "\n\t" + irMapElem);
@@ -377,210 +393,191 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
           cm = IS_UNGUARDED_CALL;
         }
       }
-
-      // Encode this entry into MCInformation
-      if (bci < INVALID_BCI && iei < INVALID_IEI && gci < INVALID_GCI && mco < (OFFSET_MASK >>> OFFSET_SHIFT)) {
-        // use a small entry
-        if (bci == -1) bci = INVALID_BCI;
-        if (iei == -1) iei = INVALID_IEI;
-        if (gci == -1) gci = INVALID_GCI;
-        if (VM.VerifyAssertions) {
-          VM._assert((cm & (CALL_MASK >>> CALL_SHIFT)) == cm);
-          VM._assert((bci & (BCI_MASK >>> BCI_SHIFT)) == bci);
-          VM._assert((iei & (IEI_MASK >>> IEI_SHIFT)) == iei);
-          VM._assert((gci & (GCI_MASK >>> GCI_SHIFT)) == gci);
-          VM._assert((mco & (OFFSET_MASK >>> OFFSET_SHIFT)) == mco);
-        }
-        int t = START_OF_ENTRY;
-        t |= (cm << CALL_SHIFT);
-        t |= (bci << BCI_SHIFT);
-        t |= (iei << IEI_SHIFT);
-        t |= (gci << GCI_SHIFT);
-        t |= (mco << OFFSET_SHIFT);
-        tmpMC[lastMCInfoEntry++] = t;
-      } else if (bci < BIG_INVALID_BCI &&
-                 iei < BIG_INVALID_IEI &&
-                 gci < BIG_INVALID_GCI &&
-                 mco < (BIG_OFFSET_MASK >>> BIG_OFFSET_SHIFT)) {
-        // use a big entry
-        if (bci == -1) bci = BIG_INVALID_BCI;
-        if (iei == -1) iei = BIG_INVALID_IEI;
-        if (gci == -1) gci = BIG_INVALID_GCI;
-        if (VM.VerifyAssertions) {
-          VM._assert((cm & (BIG_CALL_MASK >>> BIG_CALL_SHIFT)) == cm);
-          VM._assert((bci & (BIG_BCI_MASK >>> BIG_BCI_SHIFT)) == bci);
-          VM._assert((iei & (BIG_IEI_MASK >>> BIG_IEI_SHIFT)) == iei);
-          VM._assert((gci & (BIG_GCI_MASK >>> BIG_GCI_SHIFT)) == gci);
-          VM._assert((mco & (BIG_OFFSET_MASK >>> BIG_OFFSET_SHIFT)) == mco);
-        }
-        int startIdx = lastMCInfoEntry;
-        tmpMC[startIdx] = START_OF_BIG_ENTRY;
-        tmpMC[startIdx + BIG_CALL_IDX_ADJ] |= (cm << BIG_CALL_SHIFT);
-        tmpMC[startIdx + BIG_BCI_IDX_ADJ] |= (bci << BIG_BCI_SHIFT);
-        tmpMC[startIdx + BIG_OFFSET_IDX_ADJ] |= (mco << BIG_OFFSET_SHIFT);
-        tmpMC[startIdx + BIG_GCI_IDX_ADJ] |= (gci << BIG_GCI_SHIFT);
-        tmpMC[startIdx + BIG_IEI_IDX_ADJ] |= (iei << BIG_IEI_SHIFT);
-        lastMCInfoEntry += SIZEOF_BIG_ENTRY;
+      // insert, keeping the entries sorted by machine code offset (the IR
+      // map is normally already in code order so this rarely moves anything)
+      int pos = idx++;
+      while (pos > 0 && mcos[pos - 1] > mco) {
+        mcos[pos] = mcos[pos - 1];
+        gcis[pos] = gcis[pos - 1];
+        bcis[pos] = bcis[pos - 1];
+        ieis[pos] = ieis[pos - 1];
+        cms[pos] = cms[pos - 1];
+        pos--;
+      }
+      mcos[pos] = mco;
+      gcis[pos] = gci;
+      bcis[pos] = bci;
+      ieis[pos] = iei;
+      cms[pos] = cm;
+    }
+    byte[] gcMaps = gcMapBuilder.finish();
+
+    // (3) Choose the field widths.  Indices are stored biased by one so
+    //     that zero can represent "none"; checkpoint entries don't need
+    //     their delta so it doesn't contribute to the width.
+    int maxBci = 0, maxIei = 0, maxGci = 0, maxDelta = 0;
+    for (int i = 0; i < numEntries; i++) {
+      gcis[i] = gcMapBuilder.getEncodedIndex(gcis[i]);
+      maxBci = Math.max(maxBci, bcis[i] + 1);
+      maxIei = Math.max(maxIei, ieis[i] + 1);
+      maxGci = Math.max(maxGci, gcis[i] + 1);
+      if ((i & (INDEX_STRIDE - 1)) != 0) {
+        maxDelta = Math.max(maxDelta, mcos[i] - mcos[i - 1]);
+      }
+    }
+    int bciWidth = bitWidth(maxBci);
+    int ieiWidth = bitWidth(maxIei);
+    int gciWidth = bitWidth(maxGci);
+    int deltaWidth = bitWidth(maxDelta);
+    int entryWidth = CALL_WIDTH + bciWidth + ieiWidth + gciWidth + deltaWidth;
+
+    // (4) Encode the primary machine code mapping information and the index.
+    int[] mcInformation = new int[(numEntries * entryWidth + 31) >>> 5];
+    int[] mcIndex = new int[(numEntries + INDEX_STRIDE - 1) >> LOG_INDEX_STRIDE];
+    int bit = 0;
+    for (int i = 0; i < numEntries; i++) {
+      int delta;
+      if ((i & (INDEX_STRIDE - 1)) == 0) {
+        mcIndex[i >> LOG_INDEX_STRIDE] = mcos[i];
+        delta = 0;
       } else {
-        // use a huge entry
-        if (bci == -1) bci = HUGE_INVALID_BCI;
-        if (iei == -1) iei = HUGE_INVALID_IEI;
-        if (gci == -1) gci = HUGE_INVALID_GCI;
-        if (VM.VerifyAssertions) {
-          VM._assert((cm & (HUGE_CALL_MASK >>> HUGE_CALL_SHIFT)) == cm);
-          VM._assert((bci & (HUGE_BCI_MASK >>> HUGE_BCI_SHIFT)) == bci);
-          VM._assert((iei & (HUGE_IEI_MASK >>> HUGE_IEI_SHIFT)) == iei);
-          VM._assert((gci & (HUGE_GCI_MASK >>> HUGE_GCI_SHIFT)) == gci);
-          VM._assert((mco & (HUGE_OFFSET_MASK >>> HUGE_OFFSET_SHIFT)) == mco);
-        }
-        int startIdx = lastMCInfoEntry;
-        tmpMC[startIdx] = START_OF_HUGE_ENTRY;
-        tmpMC[startIdx + HUGE_CALL_IDX_ADJ] |= (cm << HUGE_CALL_SHIFT);
-        tmpMC[startIdx + HUGE_BCI_IDX_ADJ] |= (bci << HUGE_BCI_SHIFT);
-        tmpMC[startIdx + HUGE_OFFSET_IDX_ADJ] |= (mco << HUGE_OFFSET_SHIFT);
-        tmpMC[startIdx + HUGE_GCI_IDX_ADJ] |= (gci << HUGE_GCI_SHIFT);
-        tmpMC[startIdx + HUGE_IEI_IDX_ADJ] |= (iei << HUGE_IEI_SHIFT);
-        lastMCInfoEntry += SIZEOF_HUGE_ENTRY;
+        delta = mcos[i] - mcos[i - 1];
       }
+      writeBits(mcInformation, bit, CALL_WIDTH, cms[i]);
+      bit += CALL_WIDTH;
+      writeBits(mcInformation, bit, bciWidth, bcis[i] + 1);
+      bit += bciWidth;
+      writeBits(mcInformation, bit, ieiWidth, ieis[i] + 1);
+      bit += ieiWidth;
+      writeBits(mcInformation, bit, gciWidth, gcis[i] + 1);
+      bit += gciWidth;
+      writeBits(mcInformation, bit, deltaWidth, delta);
+      bit += deltaWidth;
     }
-    int[] mcInformation = new int[lastMCInfoEntry];
-    System.arraycopy(tmpMC, 0, mcInformation, 0, mcInformation.length);
-    int[] gcMaps = gcMapBuilder.finish();
 
-    return new VM_OptMachineCodeMap(mcInformation, gcMaps, inlineEncoding);
+    return new VM_OptMachineCodeMap(numEntries, bciWidth, ieiWidth, gciWidth, deltaWidth,
+                                    mcInformation, mcIndex, gcMaps, inlineEncoding);
+  }
+
+  /**
+   * @param value a non-negative value
+   * @return the number of bits needed to represent value
+   */
+  @Interruptible
+  private static int bitWidth(int value) {
+    return 32 - Integer.numberOfLeadingZeros(value);
+  }
+
+  /**
+   * Store the low width bits of value at the given bit position
+   * @param data the array to write to
+   * @param bit the bit position to start writing at
+   * @param width the number of bits to write
+   * @param value the value to write
+   */
+  @Interruptible
+  private static void writeBits(int[] data, int bit, int width, int value) {
+    if (width == 0) return;
+    if (VM.VerifyAssertions) VM._assert(width == 32 || (value >>> width) == 0);
+    int word = bit >>> 5;
+    int shift = bit & 31;
+    data[word] |= value << shift;
+    if (shift + width > 32) {
+      data[word + 1] |= value >>> (32 - shift);
+    }
   }
 
   ////////////////////////////////////////////
   //  Accessors
   //  NB: The accessors take an entry number, which is defined to
-  //      be the index of word I of the MCInformation entry
+  //      be the position of the entry in the map (0 being the first)
   ////////////////////////////////////////////
   /**
    * Returns the MCOffset for the entry passed
-   * @param  entry the index of the start of the entry
+   * @param  entry the entry number
    * @return the MCOffset for this entry
    */
   private int getMCOffset(int entry) {
-    if (isBigEntry(entry)) {
-      int t = MCInformation[entry + BIG_OFFSET_IDX_ADJ];
-      return (t & BIG_OFFSET_MASK) >>> BIG_OFFSET_SHIFT;
-    } else if (isHugeEntry(entry)) {
-      int t = MCInformation[entry + HUGE_OFFSET_IDX_ADJ];
-      return (t & HUGE_OFFSET_MASK) >>> HUGE_OFFSET_SHIFT;
-    } else {
-      int t = MCInformation[entry];
-      return (t & OFFSET_MASK) >>> OFFSET_SHIFT;
+    int checkpoint = entry >> LOG_INDEX_STRIDE;
+    int mco = MCIndex[checkpoint];
+    for (int i = (checkpoint << LOG_INDEX_STRIDE) + 1; i <= entry; i++) {
+      mco += getMCOffsetDelta(i);
     }
+    return mco;
+  }
+
+  /**
+   * Returns the distance in bytes from the previous entry's MCOffset
+   * (zero for checkpoint entries)
+   * @param  entry the entry number
+   */
+  private int getMCOffsetDelta(int entry) {
+    return readBits(entryStart(entry) + CALL_WIDTH + bciWidth + ieiWidth + gciWidth, deltaWidth);
   }
 
   /**
    * Returns the GC map index for the entry passed
-   * @param   entry the index of the start of the entry
+   * @param   entry the entry number
    * @return the GC map entry index for this entry (or -1 if none)
    */
   private int getGCMapIndex(int entry) {
-    if (isBigEntry(entry)) {
-      int t = MCInformation[entry + BIG_GCI_IDX_ADJ];
-      int gci = (t & BIG_GCI_MASK) >>> BIG_GCI_SHIFT;
-      if (gci == BIG_INVALID_GCI) return -1;
-      return gci;
-    } else if (isHugeEntry(entry)) {
-      int t = MCInformation[entry + HUGE_GCI_IDX_ADJ];
-      int gci = (t & HUGE_GCI_MASK) >>> HUGE_GCI_SHIFT;
-      if (gci == HUGE_INVALID_GCI) return -1;
-      return gci;
-    } else {
-      int t = MCInformation[entry];
-      int gci = (t & GCI_MASK) >>> GCI_SHIFT;
-      if (gci == INVALID_GCI) return -1;
-      return gci;
-    }
+    return readBits(entryStart(entry) + CALL_WIDTH + bciWidth + ieiWidth, gciWidth) - 1;
   }
 
   /**
    * Returns the Bytecode index for the entry passed
-   * @param entry the index of the start of the entry
+   * @param entry the entry number
    * @return the bytecode index for this entry (-1 if unknown)
    */
   private int getBytecodeIndex(int entry) {
-    if (isBigEntry(entry)) {
-      int t = MCInformation[entry + BIG_BCI_IDX_ADJ];
-      int bci = (t & BIG_BCI_MASK) >>> BIG_BCI_SHIFT;
-      if (bci == BIG_INVALID_BCI) return -1;
-      return bci;
-    } else if (isHugeEntry(entry)) {
-      int t = MCInformation[entry + HUGE_BCI_IDX_ADJ];
-      int bci = (t & HUGE_BCI_MASK) >>> HUGE_BCI_SHIFT;
-      if (bci == HUGE_INVALID_BCI) return -1;
-      return bci;
-    } else {
-      int t = MCInformation[entry];
-      int bci = (t & BCI_MASK) >>> BCI_SHIFT;
-      if (bci == INVALID_BCI) return -1;
-      return bci;
-    }
+    return readBits(entryStart(entry) + CALL_WIDTH, bciWidth) - 1;
   }
 
   /**
    * Returns the inline encoding index for the entry passed.
-   * @param entry the index of the start of the entry
+   * @param entry the entry number
    * @return the inline encoding index for this entry (-1 if unknown)
    */
   private int getInlineEncodingIndex(int entry) {
-    if (isBigEntry(entry)) {
-      int t = MCInformation[entry + BIG_IEI_IDX_ADJ];
-      int iei = (t & BIG_IEI_MASK) >>> BIG_IEI_SHIFT;
-      if (iei == BIG_INVALID_IEI) return -1;
-      return iei;
-    } else if (isHugeEntry(entry)) {
-      int t = MCInformation[entry + HUGE_IEI_IDX_ADJ];
-      int iei = (t & HUGE_IEI_MASK) >>> HUGE_IEI_SHIFT;
-      if (iei == HUGE_INVALID_IEI) return -1;
-      return iei;
-    } else {
-      int t = MCInformation[entry];
-      int iei = (t & IEI_MASK) >>> IEI_SHIFT;
-      if (iei == INVALID_IEI) return -1;
-      return iei;
-    }
+    return readBits(entryStart(entry) + CALL_WIDTH + bciWidth, ieiWidth) - 1;
   }
 
   /**
    * Returns the call info for the entry passed.
-   * @param entry the index of the start of the entry
+   * @param entry the entry number
    * @return the call info for this entry
    */
   private int getCallInfo(int entry) {
-    if (isBigEntry(entry)) {
-      int t = MCInformation[entry + BIG_CALL_IDX_ADJ];
-      return (t & BIG_CALL_MASK) >>> BIG_CALL_SHIFT;
-    } else if (isHugeEntry(entry)) {
-      int t = MCInformation[entry + HUGE_CALL_IDX_ADJ];
-      return (t & HUGE_CALL_MASK) >>> HUGE_CALL_SHIFT;
-    } else {
-      int t = MCInformation[entry];
-      return (t & CALL_MASK) >>> CALL_SHIFT;
-    }
+    return readBits(entryStart(entry), CALL_WIDTH);
   }
 
   /**
-   * Is the entry a big entry?
+   * @param entry the entry number
+   * @return the bit position at which the entry starts
    */
-  private boolean isBigEntry(int entry) {
-    if (VM.VerifyAssertions) {
-      VM._assert((MCInformation[entry] & START_OF_ENTRY) == START_OF_ENTRY);
-    }
-    return (MCInformation[entry] & START_BITS) == START_OF_BIG_ENTRY;
+  private int entryStart(int entry) {
+    if (VM.VerifyAssertions) VM._assert(entry >= 0 && entry < numEntries);
+    return entry * (CALL_WIDTH + bciWidth + ieiWidth + gciWidth + deltaWidth);
   }
 
   /**
-   * Is the entry a big entry?
+   * Extract a bit field from MCInformation
+   * @param bit the bit position the field starts at
+   * @param width the width of the field, at most 32
+   * @return the (unsigned) value of the field
    */
-  private boolean isHugeEntry(int entry) {
-    if (VM.VerifyAssertions) {
-      VM._assert((MCInformation[entry] & START_OF_ENTRY) == START_OF_ENTRY);
+  private int readBits(int bit, int width) {
+    if (width == 0) return 0;
+    int word = bit >>> 5;
+    int shift = bit & 31;
+    int value = MCInformation[word] >>> shift;
+    if (shift + width > 32) {
+      value |= MCInformation[word + 1] << (32 - shift);
     }
-    return (MCInformation[entry] & START_BITS) == START_OF_HUGE_ENTRY;
+    if (width < 32) {
+      value &= (1 << width) - 1;
+    }
+    return value;
   }
 
   ////////////////////////////////////////////
@@ -592,9 +589,10 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
     if (DUMP_MAPS) {
       VM.sysWrite("  Dumping the MCInformation\n");
       if (MCInformation == null) return;
-      for (int idx = 0; idx < MCInformation.length;) {
-        printMCInformationEntry(idx);
-        idx = nextEntry(idx);
+      VM.sysWrite("  Field widths: bci " + bciWidth + ", iei " + ieiWidth + ", gci " + gciWidth +
+                  ", delta " + deltaWidth + "\n");
+      for (int entry = 0; entry < numEntries; entry++) {
+        printMCInformationEntry(entry);
       }
     }
   }
@@ -606,9 +604,7 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
   @Interruptible
   private void printMCInformationEntry(int entry) {
     if (DUMP_MAPS) {
-      String sep = "\tMC: ";
-      if (isBigEntry(entry)) sep = "B\tMC: ";
-      if (isHugeEntry(entry)) sep = "H\tMC: ";
+      String sep = ((entry & (INDEX_STRIDE - 1)) == 0) ? "C\tMC: " : "\tMC: ";
       VM.sysWrite(entry + sep + getMCOffset(entry));
       int bci = getBytecodeIndex(entry);
       if (bci != -1) {
@@ -674,8 +670,9 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
   int size() {
     int size = TYPE.peekType().asClass().getInstanceSize();
     if (MCInformation != null) size += VM_Array.IntArray.getInstanceSize(MCInformation.length);
+    if (MCIndex != null) size += VM_Array.IntArray.getInstanceSize(MCIndex.length);
     if (inlineEncoding != null) size += VM_Array.IntArray.getInstanceSize(inlineEncoding.length);
-    if (gcMaps != null) size += VM_Array.IntArray.getInstanceSize(gcMaps.length);
+    if (gcMaps != null) size += VM_Array.ByteArray.getInstanceSize(gcMaps.length);
     return size;
   }
 
@@ -685,101 +682,56 @@ public final class VM_OptMachineCodeMap implements VM_Constants, OPT_Constants {
   //
   ////////////////////////////////////////////
   // An entry contains the following data:
-  //   o: a machine code offset (in bytes)
-  //   g: an index into the GC maps array
-  //   b: bytecode index of the instruction
-  //   i: index into the inline encoding.
   //   c: bits to encode one of three possibilites
   //      (a) the instruction is not a call
   //      (b) the instruction is a "normal" call
   //      (c) the instruction is a call in the off-branch
   //          of a guarded inline.
-  //   U indicates an unused bit; its value is undefined.
+  //   b: bytecode index of the instruction, plus one
+  //   i: index into the inline encoding, plus one
+  //   g: an index into the GC maps array, plus one
+  //   d: the machine code offset (in bytes) less that of the previous
+  //      entry; unused (zero) in checkpoint entries
   //
-  // We support three entry formats as defined below
+  // An entry is packed into CALL_WIDTH + bciWidth + ieiWidth + gciWidth +
+  // deltaWidth bits, starting from the least significant bit of an int:
+  //   cc bb..b ii..i gg..g dd..d
+  // Entries follow each other without padding and may straddle ints.
+  // A field whose width is zero reads as zero.
   //
-  private static final int START_OF_ENTRY = 0x80000000;
-  private static final int START_OF_BIG_ENTRY = 0xc0000000;
-  private static final int START_OF_HUGE_ENTRY = 0xe0000000;
-  private static final int START_BITS = 0xe0000000;
-
-  // A small entry is 1 int used as follows:
-  // 10cc bbbb bbii iiii iggg ggoo oooo oooo
-  private static final int CALL_MASK = 0x30000000;
-  private static final int CALL_SHIFT = 28;
-  private static final int BCI_MASK = 0x0fc00000;
-  private static final int BCI_SHIFT = 22;
-  private static final int IEI_MASK = 0x003f8000;
-  private static final int IEI_SHIFT = 15;
-  private static final int GCI_MASK = 0x00007c00;
-  private static final int GCI_SHIFT = 10;
-  private static final int OFFSET_MASK = 0x000003ff;
-  private static final int OFFSET_SHIFT = 0;
-  private static final int INVALID_GCI = (GCI_MASK >>> GCI_SHIFT);
-  private static final int INVALID_BCI = (BCI_MASK >>> BCI_SHIFT);
-  private static final int INVALID_IEI = (IEI_MASK >>> IEI_SHIFT);
-  private static final int SIZEOF_ENTRY = 1;
-
-  // A big entry is 2 ints used as follows:
-  // 110c cbbb bbbb bbbb biii iiii iiii iiii
-  // 0ggg gggg gggg ggoo oooo oooo oooo oooo
-  private static final int BIG_CALL_MASK = 0x18000000;
-  private static final int BIG_CALL_SHIFT = 27;
-  private static final int BIG_CALL_IDX_ADJ = 0;
-  private static final int BIG_BCI_MASK = 0x07ff8000;
-  private static final int BIG_BCI_SHIFT = 15;
-  private static final int BIG_BCI_IDX_ADJ = 0;
-  private static final int BIG_IEI_MASK = 0x00007fff;
-  private static final int BIG_IEI_SHIFT = 0;
-  private static final int BIG_IEI_IDX_ADJ = 0;
-  private static final int BIG_GCI_MASK = 0x7ffc0000;
-  private static final int BIG_GCI_SHIFT = 18;
-  private static final int BIG_GCI_IDX_ADJ = 1;
-  private static final int BIG_OFFSET_MASK = 0x0003ffff;
-  private static final int BIG_OFFSET_SHIFT = 0;
-  private static final int BIG_OFFSET_IDX_ADJ = 1;
-  private static final int BIG_INVALID_GCI = (BIG_GCI_MASK >>> BIG_GCI_SHIFT);
-  private static final int BIG_INVALID_BCI = (BIG_BCI_MASK >>> BIG_BCI_SHIFT);
-  private static final int BIG_INVALID_IEI = (BIG_IEI_MASK >>> BIG_IEI_SHIFT);
-  private static final int SIZEOF_BIG_ENTRY = 2;
-
-  // A huge entry is 4 ints used as follows:
-  // 111c cUUU UUUU UUUU bbbb bbbb bbbb bbbb
-  // 0iii iiii iiii iiii iiii iiii iiii iiii
-  // 0ggg gggg gggg gggg gggg gggg gggg gggg
-  // 0ooo oooo oooo oooo oooo oooo oooo oooo
-  private static final int HUGE_CALL_MASK = 0x18000000;
-  private static final int HUGE_CALL_SHIFT = 27;
-  private static final int HUGE_CALL_IDX_ADJ = 0;
-  private static final int HUGE_BCI_MASK = 0x0000ffff;
-  private static final int HUGE_BCI_SHIFT = 0;
-  private static final int HUGE_BCI_IDX_ADJ = 0;
-  private static final int HUGE_IEI_MASK = 0x7fffffff;
-  private static final int HUGE_IEI_SHIFT = 0;
-  private static final int HUGE_IEI_IDX_ADJ = 1;
-  private static final int HUGE_GCI_MASK = 0x7fffffff;
-  private static final int HUGE_GCI_SHIFT = 0;
-  private static final int HUGE_GCI_IDX_ADJ = 2;
-  private static final int HUGE_OFFSET_MASK = 0x7fffffff;
-  private static final int HUGE_OFFSET_SHIFT = 0;
-  private static final int HUGE_OFFSET_IDX_ADJ = 3;
-  private static final int HUGE_INVALID_GCI = (HUGE_GCI_MASK >>> HUGE_GCI_SHIFT);
-  private static final int HUGE_INVALID_BCI = (HUGE_BCI_MASK >>> HUGE_BCI_SHIFT);
-  private static final int HUGE_INVALID_IEI = (HUGE_IEI_MASK >>> HUGE_IEI_SHIFT);
-  private static final int SIZEOF_HUGE_ENTRY = 4;
+  private static final int CALL_WIDTH = 2;
+
+  // Every INDEX_STRIDE'th entry is a checkpoint.
+  private static final int LOG_INDEX_STRIDE = 3;
+  private static final int INDEX_STRIDE = 1 << LOG_INDEX_STRIDE;
 
   // bit patterns for cc portion of machine code map */
   private static final int IS_UNGUARDED_CALL = 0x1;
   private static final int IS_GUARDED_CALL = 0x3;
 
+  /**
+   * Number of entries in MCInformation
+   */
+  private final int numEntries;
+  /**
+   * Widths in bits of the variable sized fields of an entry
+   */
+  private final byte bciWidth;
+  private final byte ieiWidth;
+  private final byte gciWidth;
+  private final byte deltaWidth;
   /**
    * Hold entries as defined by the constants above.
    */
   private final int[] MCInformation;
+  /**
+   * The absolute machine code offset of every INDEX_STRIDE'th entry
+   */
+  private final int[] MCIndex;
   /**
    * array of GC maps as defined by VM_OptGCMap
    */
-  private final int[] gcMaps;
+  private final byte[] gcMaps;
   /**
    * encoded data as defined by VM_OptEncodedCallSiteTree.
    */
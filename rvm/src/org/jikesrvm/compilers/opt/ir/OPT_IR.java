@@ -33,6 +33,7 @@ import org.jikesrvm.compilers.opt.OPT_InlineOracle;
 import org.jikesrvm.compilers.opt.OPT_InstrumentationPlan;
 import org.jikesrvm.compilers.opt.OPT_OptimizingCompilerException;
 import org.jikesrvm.compilers.opt.OPT_Options;
+import org.jikesrvm.compilers.opt.OPT_PhaseTelemetry;
 import org.jikesrvm.compilers.opt.OPT_SSAOptions;
 import org.jikesrvm.compilers.opt.VM_OptCompiledMethod;
 import static org.jikesrvm.compilers.opt.ir.OPT_Operators.ATHROW_opcode;
@@ -150,6 +151,11 @@ public final class OPT_IR {
    */
   public final OPT_Options options;
 
+  /**
+   * Per-phase record of this compilation, or null if nobody asked for one.
+   */
+  public final OPT_PhaseTelemetry phaseTelemetry;
+
   /**
    * {@link OPT_SSAOptions Options} that define the SSA properties
    * desired the next time we enter SSA form.
@@ -274,6 +280,7 @@ public final class OPT_IR {
     options = opts;
     inlinePlan = ip;
     instrumentationPlan = null;
+    phaseTelemetry = null;
     compiledMethod = (VM_OptCompiledMethod) VM_CompiledMethods.createCompiledMethod(method, VM_CompiledMethod.OPT, false);
   }
 
@@ -287,6 +294,7 @@ public final class OPT_IR {
     options = cp.options;
     inlinePlan = cp.inlinePlan;
     instrumentationPlan = cp.instrumentationPlan;
+    phaseTelemetry = cp.phaseTelemetry;
     compiledMethod = (VM_OptCompiledMethod) VM_CompiledMethods.createCompiledMethod(method, VM_CompiledMethod.OPT, false);
   }
 
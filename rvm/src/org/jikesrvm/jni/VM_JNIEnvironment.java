@@ -129,6 +129,15 @@ public class VM_JNIEnvironment implements VM_SizeConstants {
   @Entrypoint
   protected Throwable pendingException;
 
+  /**
+   * Objects handed to native code by a Get*Critical function that could
+   * not be pinned, so that GC was disabled instead; their Release*Critical
+   * must reenable GC rather than unpin them.  Entries
+   * 0..criticalUnpinnedTop-1 are in use.
+   */
+  private Object[] criticalUnpinned;
+  private int criticalUnpinnedTop;
+
   /**
    * We allocate VM_JNIEnvironments in the immortal heap (so we
    * can hand them directly to C code).  Therefore, we must do some
@@ -151,6 +160,7 @@ public class VM_JNIEnvironment implements VM_SizeConstants {
     JNIRefsSavedFP = 0;
     JNIRefsMax = (JNIREFS_ARRAY_LENGTH - 1) << LOG_BYTES_IN_ADDRESS;
     alwaysHasNativeFrame = false;
+    criticalUnpinnedTop = 0;
   }
 
   /*
@@ -328,6 +338,44 @@ public class VM_JNIEnvironment implements VM_SizeConstants {
     return pendingException;
   }
 
+  /**
+   * Stop an object moving while native code has direct access to it in a
+   * JNI critical region: pin it, or if it can't be pinned disable GC,
+   * recording which was done for {@link #endCritical}.
+   * @param obj the object
+   */
+  public final void beginCritical(Object obj) {
+    if (MM_Interface.pinObject(obj)) return;
+    // grow before disabling GC, as we mustn't allocate after
+    if (criticalUnpinned == null) {
+      criticalUnpinned = new Object[4];
+    } else if (criticalUnpinnedTop == criticalUnpinned.length) {
+      Object[] tmp = new Object[criticalUnpinnedTop << 1];
+      System.arraycopy(criticalUnpinned, 0, tmp, 0, criticalUnpinnedTop);
+      criticalUnpinned = tmp;
+    }
+    VM.disableGC(true);
+    criticalUnpinned[criticalUnpinnedTop++] = obj;
+  }
+
+  /**
+   * End a JNI critical region begun by {@link #beginCritical}: reenable GC
+   * if that is what it disabled, otherwise unpin the object.
+   * @param obj the object
+   */
+  public final void endCritical(Object obj) {
+    for (int i = criticalUnpinnedTop - 1; i >= 0; i--) {
+      if (criticalUnpinned[i] == obj) {
+        criticalUnpinnedTop--;
+        System.arraycopy(criticalUnpinned, i + 1, criticalUnpinned, i, criticalUnpinnedTop - i);
+        criticalUnpinned[criticalUnpinnedTop] = null;
+        VM.enableGC(true);
+        return;
+      }
+    }
+    MM_Interface.unpinObject(obj);
+  }
+
   /**
    * Initialize the array of JNI functions.
    * This function is called during bootimage writing.
@@ -4403,7 +4403,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       byte[] sourceArray = (byte[]) env.getJNIRef(arrayJREF);
       int size = sourceArray.length;
 
-      if (MM_Interface.willNeverMove(sourceArray)) {
+      if (MM_Interface.pinObject(sourceArray)) {
         /* return a direct pointer */
         VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
         return VM_Magic.objectAsAddress(sourceArray);
@@ -4448,7 +4448,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       char[] sourceArray = (char[]) env.getJNIRef(arrayJREF);
       int size = sourceArray.length;
 
-      if (MM_Interface.willNeverMove(sourceArray)) {
+      if (MM_Interface.pinObject(sourceArray)) {
         VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
         return VM_Magic.objectAsAddress(sourceArray);
       } else {
@@ -4491,7 +4491,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       short[] sourceArray = (short[]) env.getJNIRef(arrayJREF);
       int size = sourceArray.length;
 
-      if (MM_Interface.willNeverMove(sourceArray)) {
+      if (MM_Interface.pinObject(sourceArray)) {
         VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
         return VM_Magic.objectAsAddress(sourceArray);
       } else {
@@ -4534,7 +4534,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       int[] sourceArray = (int[]) env.getJNIRef(arrayJREF);
       int size = sourceArray.length;
 
-      if (MM_Interface.willNeverMove(sourceArray)) {
+      if (MM_Interface.pinObject(sourceArray)) {
         VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
         return VM_Magic.objectAsAddress(sourceArray);
       } else {
@@ -4576,7 +4576,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       long[] sourceArray = (long[]) env.getJNIRef(arrayJREF);
       int size = sourceArray.length;
 
-      if (MM_Interface.willNeverMove(sourceArray)) {
+      if (MM_Interface.pinObject(sourceArray)) {
         VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
         return VM_Magic.objectAsAddress(sourceArray);
       } else {
@@ -4618,7 +4618,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       float[] sourceArray = (float[]) env.getJNIRef(arrayJREF);
       int size = sourceArray.length;
 
-      if (MM_Interface.willNeverMove(sourceArray)) {
+      if (MM_Interface.pinObject(sourceArray)) {
         VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
         return VM_Magic.objectAsAddress(sourceArray);
       } else {
@@ -4661,7 +4661,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       double[] sourceArray = (double[]) env.getJNIRef(arrayJREF);
       int size = sourceArray.length;
 
-      if (MM_Interface.willNeverMove(sourceArray)) {
+      if (MM_Interface.pinObject(sourceArray)) {
         VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
         return VM_Magic.objectAsAddress(sourceArray);
       } else {
@@ -4756,7 +4756,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     try {
       byte[] sourceArray = (byte[]) env.getJNIRef(arrayJREF);
 
-      // If a direct pointer was given to the user, no need to update or release
+      // If a direct pointer was given to the user, no need to update, just unpin when done
       if (VM_Magic.objectAsAddress(sourceArray).NE(copyBufferAddress)) {
         int size = sourceArray.length;
         if (traceJNI) VM.sysWrite(" size=", size);
@@ -4770,6 +4770,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
         if (releaseMode == 0 || releaseMode == 2) {
           sysCall.sysFree(copyBufferAddress);
         }
+      } else if (releaseMode == 0 || releaseMode == 2) {
+        MM_Interface.unpinObject(sourceArray);
       } else {
         // Nothing to be done
       }
@@ -4798,7 +4800,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     try {
       char[] sourceArray = (char[]) env.getJNIRef(arrayJREF);
 
-      // If a direct pointer was given to the user, no need to update or release
+      // If a direct pointer was given to the user, no need to update, just unpin when done
       if (VM_Magic.objectAsAddress(sourceArray).NE(copyBufferAddress)) {
         int size = sourceArray.length;
 
@@ -4811,6 +4813,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
         if (releaseMode == 0 || releaseMode == 2) {
           sysCall.sysFree(copyBufferAddress);
         }
+      } else if (releaseMode == 0 || releaseMode == 2) {
+        MM_Interface.unpinObject(sourceArray);
       }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -4836,7 +4840,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     try {
       short[] sourceArray = (short[]) env.getJNIRef(arrayJREF);
 
-      // If a direct pointer was given to the user, no need to update or release
+      // If a direct pointer was given to the user, no need to update, just unpin when done
       if (VM_Magic.objectAsAddress(sourceArray).NE(copyBufferAddress)) {
         int size = sourceArray.length;
 
@@ -4849,6 +4853,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
         if (releaseMode == 0 || releaseMode == 2) {
           sysCall.sysFree(copyBufferAddress);
         }
+      } else if (releaseMode == 0 || releaseMode == 2) {
+        MM_Interface.unpinObject(sourceArray);
       }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -4874,7 +4880,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     try {
       int[] sourceArray = (int[]) env.getJNIRef(arrayJREF);
 
-      // If a direct pointer was given to the user, no need to update or release
+      // If a direct pointer was given to the user, no need to update, just unpin when done
       if (VM_Magic.objectAsAddress(sourceArray).NE(copyBufferAddress)) {
         int size = sourceArray.length;
 
@@ -4887,6 +4893,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
         if (releaseMode == 0 || releaseMode == 2) {
           sysCall.sysFree(copyBufferAddress);
         }
+      } else if (releaseMode == 0 || releaseMode == 2) {
+        MM_Interface.unpinObject(sourceArray);
       }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -4912,7 +4920,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     try {
       long[] sourceArray = (long[]) env.getJNIRef(arrayJREF);
 
-      // If a direct pointer was given to the user, no need to update or release
+      // If a direct pointer was given to the user, no need to update, just unpin when done
       if (VM_Magic.objectAsAddress(sourceArray).NE(copyBufferAddress)) {
         int size = sourceArray.length;
 
@@ -4925,6 +4933,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
         if (releaseMode == 0 || releaseMode == 2) {
           sysCall.sysFree(copyBufferAddress);
         }
+      } else if (releaseMode == 0 || releaseMode == 2) {
+        MM_Interface.unpinObject(sourceArray);
       }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -4950,7 +4960,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     try {
       float[] sourceArray = (float[]) env.getJNIRef(arrayJREF);
 
-      // If a direct pointer was given to the user, no need to update or release
+      // If a direct pointer was given to the user, no need to update, just unpin when done
       if (VM_Magic.objectAsAddress(sourceArray).NE(copyBufferAddress)) {
         int size = sourceArray.length;
 
@@ -4963,6 +4973,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
         if (releaseMode == 0 || releaseMode == 2) {
           sysCall.sysFree(copyBufferAddress);
         }
+      } else if (releaseMode == 0 || releaseMode == 2) {
+        MM_Interface.unpinObject(sourceArray);
       }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -4988,7 +5000,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     try {
       double[] sourceArray = (double[]) env.getJNIRef(arrayJREF);
 
-      // If a direct pointer was given to the user, no need to update or release
+      // If a direct pointer was given to the user, no need to update, just unpin when done
       if (VM_Magic.objectAsAddress(sourceArray).NE(copyBufferAddress)) {
         int size = sourceArray.length;
 
@@ -5001,6 +5013,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
         if (releaseMode == 0 || releaseMode == 2) {
           sysCall.sysFree(copyBufferAddress);
         }
+      } else if (releaseMode == 0 || releaseMode == 2) {
+        MM_Interface.unpinObject(sourceArray);
       }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -5881,9 +5895,10 @@ public class VM_JNIFunctions implements VM_SizeConstants {
 
   /**
    * GetPrimitiveArrayCritical: return a direct pointer to the primitive array
-   * and disable GC so that the array will not be moved.  This function
-   * is intended to be paired with the ReleasePrimitiveArrayCritical function
-   * within a short time so that GC will be reenabled
+   * and pin it so that the array will not be moved (or, if the memory manager
+   * cannot pin it, disable GC).  This function is intended to be paired with
+   * the ReleasePrimitiveArrayCritical function within a short time so that
+   * the array is unpinned (or GC reenabled)
    *
    * @param env A JREF index for the JNI environment object
    * @param arrayJREF a JREF index for the primitive array in Java
@@ -5910,7 +5925,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
       VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
 
       // For array of primitive, return the object address, which is the array itself
-      VM.disableGC(true);
+      env.beginCritical(primitiveArray);
       return VM_Magic.objectAsAddress(primitiveArray);
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -5923,7 +5938,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
    * ReleasePrimitiveArrayCritical: this function is intended to be paired
    * with the GetPrimitiveArrayCritical function.
    * Since the native code has direct access
-   * to the array, no copyback update is necessary;  GC is simply reenabled.
+   * to the array, no copyback update is necessary;  the array is simply
+   * unpinned (or GC reenabled, if it could not be pinned).
    * @param env A JREF index for the JNI environment object
    * @param arrayJREF a JREF index for the primitive array in Java
    * @param arrayCopyAddress
@@ -5937,7 +5953,8 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     VM_Runtime.checkJNICountDownToGC();
 
     try {
-      VM.enableGC(true);
+      Object primitiveArray = env.getJNIRef(arrayJREF);
+      env.endCritical(primitiveArray);
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
       env.recordException(unexpected);
@@ -5966,7 +5983,7 @@ public class VM_JNIFunctions implements VM_SizeConstants {
        address */
     VM_JNIGenericHelpers.setBoolStar(isCopyAddress, false);
 
-    VM.disableGC(true);
+    env.beginCritical(strChars);
     Address strBase = VM_Magic.objectAsAddress(strChars);
     return strBase.plus(strOffset * 2);
   }
@@ -5975,10 +5992,10 @@ public class VM_JNIFunctions implements VM_SizeConstants {
    * ReleaseStringCritical: this function is intended to be paired with the
    * GetStringCritical function.  Since the native code has direct access
    * to the string's backing array of characters, no copyback update is
-   * necessary;  GC is simply reenabled.
+   * necessary;  the backing array is simply unpinned (or GC reenabled).
    *
    * @param env A JREF index for the JNI environment object
-   * @param strJREF a JREF index for the string in Java (ignored)
+   * @param strJREF a JREF index for the string in Java
    * @param carray the pointer returned by GetStringCritical (ignored)
    */
   private static void ReleaseStringCritical(VM_JNIEnvironment env, int strJREF, Address carray) {
@@ -5986,7 +6003,9 @@ public class VM_JNIFunctions implements VM_SizeConstants {
     VM_Runtime.checkJNICountDownToGC();
 
     try {
-      VM.enableGC(true);
+      String str = (String) env.getJNIRef(strJREF);
+      char[] strChars = java.lang.JikesRVMSupport.getBackingCharArray(str);
+      env.endCritical(strChars);
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
       env.recordException(unexpected);
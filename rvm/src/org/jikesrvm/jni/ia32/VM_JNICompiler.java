@@ -13,6 +13,7 @@
 package org.jikesrvm.jni.ia32;
 
 import org.jikesrvm.ArchitectureSpecific;
+import org.jikesrvm.VM;
 import org.jikesrvm.classloader.VM_Class;
 import org.jikesrvm.classloader.VM_Method;
 import org.jikesrvm.classloader.VM_NativeMethod;
@@ -27,6 +28,7 @@ import org.jikesrvm.ia32.VM_MachineCode;
 import org.jikesrvm.ia32.VM_ProcessorLocalState;
 import org.jikesrvm.jni.VM_JNICompiledMethod;
 import org.jikesrvm.jni.VM_JNIGlobalRefTable;
+import org.jikesrvm.objectmodel.VM_ObjectModel;
 import org.jikesrvm.runtime.VM_ArchEntrypoints;
 import org.jikesrvm.runtime.VM_Entrypoints;
 import org.jikesrvm.scheduler.VM_Processor;
@@ -69,6 +71,9 @@ public abstract class VM_JNICompiler implements VM_BaselineConstants {
    * Handle the Java to C transition:  native methods
    */
   public static synchronized VM_CompiledMethod compile(VM_NativeMethod method) {
+    if (method.isCriticalNative()) {
+      return compileCritical(method);
+    }
     VM_JNICompiledMethod cm =
         (VM_JNICompiledMethod) VM_CompiledMethods.createCompiledMethod(method, VM_CompiledMethod.JNI, false);
     VM_Assembler asm = new ArchitectureSpecific.VM_Assembler(100);   // some size for the instruction array
@@ -242,6 +247,151 @@ public abstract class VM_JNICompiler implements VM_BaselineConstants {
     return cm;
   }
 
+  /*****************************************************************
+   * Handle the Java to C transition for critical natives: static native
+   * methods taking and returning only primitives and primitive arrays,
+   * implemented by a JavaCritical_ function (see
+   * {@link VM_NativeMethod#isCriticalNative}).  Like a syscall, the
+   * function is called directly: there is no VM_JNIEnvironment, no JNIRefs
+   * frame and no change of processor status, so the collector can not run
+   * until it returns and array arguments can be passed as a length and a
+   * raw pointer to their elements.
+   * <pre>
+   *      high address
+   *      |          | Caller frame
+   *  +   |arg 0     |    -> firstParameterOffset
+   *  +   |...       |
+   *  +8  |arg n-1   |
+   *  +4  |returnAddr|
+   *   0  +saved FP  + <---- FP for glue frame
+   *  -4  |methodID  |
+   *  -8  |saved EDI |
+   *  -C  |saved EBX |
+   *  -10 |saved EBP |
+   *  -14 |arg n-1   |  reordered args to native function (firstLocalOffset)
+   *      | ...      |  an array is two words: length, then elements
+   *      |arg 0     |  <- SP (emptyStackOffset)
+   *      low address
+   * </pre>
+   */
+  private static VM_CompiledMethod compileCritical(VM_NativeMethod method) {
+    VM_JNICompiledMethod cm =
+        (VM_JNICompiledMethod) VM_CompiledMethods.createCompiledMethod(method, VM_CompiledMethod.JNI, false);
+    VM_Assembler asm = new ArchitectureSpecific.VM_Assembler(100);   // some size for the instruction array
+    Address nativeIP = method.getNativeIP();
+    int parameterWords = method.getParameterWords();
+    VM_TypeReference[] types = method.getParameterTypes();
+    VM_TypeReference returnType = method.getReturnType();
+    if (VM.VerifyAssertions) VM._assert(method.isStatic());
+
+    int nativeWords = 0;                            // words of arguments to the native function
+    int numFloats = 0;                              // number of float or double arguments
+    for (VM_TypeReference t : types) {
+      nativeWords += t.isArrayType() ? 2 : t.getStackWords();
+      if (t.isFloatType() || t.isDoubleType()) {
+        numFloats++;
+      }
+    }
+    int firstLocalOffset = EBP_SAVE_OFFSET.toInt() - WORDSIZE;
+    Offset emptyStackOffset = Offset.fromIntSignExtend(firstLocalOffset - ((nativeWords - 1) << LG_WORDSIZE));
+    Offset firstParameterOffset =
+        Offset.fromIntSignExtend(STACKFRAME_BODY_OFFSET + STACKFRAME_HEADER_SIZE + (parameterWords << LG_WORDSIZE));
+
+    prepareStackHeader(asm, method, cm.getId());
+    storeParameterRegisters(asm, method, firstParameterOffset);
+    asm.emitADD_Reg_Imm(SP, emptyStackOffset.toInt());
+
+    // copy parameters from caller frame into glue frame in reverse order for C
+    int i = parameterWords - 1;                     // Java word, counting from arg 0
+    int j = nativeWords - 1;                        // native word, counting from SP
+    int fpr = numFloats - 1;
+    for (int argIndex = types.length - 1; argIndex >= 0; argIndex--) {
+      VM_TypeReference t = types[argIndex];
+      if (t.isArrayType()) {
+        // pass the length and the address of element 0, or 0 and NULL
+        asm.emitMOV_Reg_RegDisp(EBX, EBP, firstParameterOffset.minus(i * WORDSIZE));
+        asm.emitMOV_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * j), EBX);
+        asm.emitMOV_RegDisp_Imm(EBP, emptyStackOffset.plus(WORDSIZE * (j - 1)), 0);
+        asm.emitCMP_Reg_Imm(EBX, 0);
+        VM_ForwardReference isNull = asm.forwardJcc(VM_Assembler.EQ);
+        asm.emitMOV_Reg_RegDisp(EBX, EBX, VM_ObjectModel.getArrayLengthOffset());
+        asm.emitMOV_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * (j - 1)), EBX);
+        isNull.resolve(asm);
+        i--;
+        j -= 2;
+      } else if (t.isDoubleType() && fpr < NUM_PARAMETER_FPRS) {
+        // pop this 2-word arg from the FPU stack
+        if (SSE2_FULL) {
+          asm.emitMOVSD_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * (j - 1)), (byte)fpr);
+        } else {
+          asm.emitFSTP_RegDisp_Reg_Quad(EBP, emptyStackOffset.plus(WORDSIZE * (j - 1)), FP0);
+        }
+        i -= 2;
+        j -= 2;
+        fpr--;
+      } else if (t.isFloatType() && fpr < NUM_PARAMETER_FPRS) {
+        // pop this 1-word arg from the FPU stack
+        if (SSE2_FULL) {
+          asm.emitMOVSS_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * j), (byte)fpr);
+        } else {
+          asm.emitFSTP_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * j), FP0);
+        }
+        i--;
+        j--;
+        fpr--;
+      } else if (t.getStackWords() == 2) {
+        //  copy 2-word parameters: observe the high/low order when moving
+        asm.emitMOV_Reg_RegDisp(EBX, EBP, firstParameterOffset.minus(i * WORDSIZE));
+        asm.emitMOV_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * (j - 1)), EBX);
+        asm.emitMOV_Reg_RegDisp(EBX, EBP, firstParameterOffset.minus((i - 1) * WORDSIZE));
+        asm.emitMOV_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * j), EBX);
+        if (t.isDoubleType()) fpr--;
+        i -= 2;
+        j -= 2;
+      } else {
+        // copy other 1-word parameters
+        asm.emitMOV_Reg_RegDisp(EBX, EBP, firstParameterOffset.minus(i * WORDSIZE));
+        asm.emitMOV_RegDisp_Reg(EBP, emptyStackOffset.plus(WORDSIZE * j), EBX);
+        if (t.isFloatType()) fpr--;
+        i--;
+        j--;
+      }
+    }
+
+    // call the native function; it preserves EBX, ESI (PR), EDI (JTOC) and EBP
+    asm.emitMOV_Reg_Imm(S0, nativeIP.toInt());
+    asm.emitCALL_Reg(S0);
+
+    // swap order of T0 and T1 for long
+    if (returnType.isLongType()) {
+      asm.emitPUSH_Reg(T1);
+      asm.emitMOV_Reg_Reg(T1, T0);
+      asm.emitPOP_Reg(T0);
+    }
+
+    asm.emitMOV_Reg_Reg(SP, EBP);                           // discard current stack frame
+    asm.emitMOV_Reg_RegDisp(JTOC, SP, EDI_SAVE_OFFSET);   // restore nonvolatile EDI register
+    asm.emitMOV_Reg_RegDisp(EBX, SP, EBX_SAVE_OFFSET);    // restore nonvolatile EBX register
+    asm.emitMOV_Reg_RegDisp(EBP, SP, EBP_SAVE_OFFSET);    // restore nonvolatile EBP register
+    asm.emitPOP_RegDisp(PR, VM_ArchEntrypoints.framePointerField.getOffset());
+
+    if (SSE2_FULL) {
+      // Marshall from FP0 to XMM0
+      if (returnType.isFloatType()) {
+        asm.emitFSTP_RegDisp_Reg(PR, VM_Entrypoints.scratchStorageField.getOffset(), FP0);
+        asm.emitMOVSS_Reg_RegDisp(XMM0, PR, VM_Entrypoints.scratchStorageField.getOffset());
+      } else if  (returnType.isDoubleType()) {
+        asm.emitFSTP_RegDisp_Reg_Quad(PR, VM_Entrypoints.scratchStorageField.getOffset(), FP0);
+        asm.emitMOVSD_Reg_RegDisp(XMM0, PR, VM_Entrypoints.scratchStorageField.getOffset());
+      }
+    }
+    asm.emitRET_Imm(parameterWords << LG_WORDSIZE);
+
+    VM_MachineCode machineCode = new ArchitectureSpecific.VM_MachineCode(asm.getMachineCodes(), null);
+    cm.compileComplete(machineCode.getInstructions());
+    return cm;
+  }
+
   /**************************************************************
    * Prepare the stack header for Java to C transition.
    * <pre>
@@ -348,43 +498,7 @@ public abstract class VM_JNICompiler implements VM_BaselineConstants {
 
     // first push the parameters passed in registers back onto the caller frame
     // to free up the registers for use
-    // The number of registers holding parameter is
-    // VM_RegisterConstants.NUM_PARAMETER_GPRS
-    // Their indices are in VM_RegisterConstants.VOLATILE_GPRS[]
-    int gpr = 0;
-    // note that firstParameterOffset does not include "this"
-    Offset parameterOffset = firstParameterOffset;
-
-    // handle the "this" parameter
-    if (!method.isStatic()) {
-      asm.emitMOV_RegDisp_Reg(EBP, firstParameterOffset.plus(WORDSIZE), VOLATILE_GPRS[gpr]);
-      gpr++;
-    }
-
-    for (int i = 0; i < numArguments && gpr < NUM_PARAMETER_GPRS; i++) {
-      if (types[i].isDoubleType()) {
-        parameterOffset = parameterOffset.minus(2 * WORDSIZE);
-      } else if (types[i].isFloatType()) {
-        parameterOffset = parameterOffset.minus(WORDSIZE);
-      } else if (types[i].isLongType()) {
-        if (gpr < NUM_PARAMETER_GPRS) {   // get the hi word
-          asm.emitMOV_RegDisp_Reg(EBP, parameterOffset, VOLATILE_GPRS[gpr]);
-          gpr++;
-          parameterOffset = parameterOffset.minus(WORDSIZE);
-        }
-        if (gpr < NUM_PARAMETER_GPRS) {    // get the lo word
-          asm.emitMOV_RegDisp_Reg(EBP, parameterOffset, VOLATILE_GPRS[gpr]);
-          gpr++;
-          parameterOffset = parameterOffset.minus(WORDSIZE);
-        }
-      } else {
-        if (gpr < NUM_PARAMETER_GPRS) {   // all other types fit in one word
-          asm.emitMOV_RegDisp_Reg(EBP, parameterOffset, VOLATILE_GPRS[gpr]);
-          gpr++;
-          parameterOffset = parameterOffset.minus(WORDSIZE);
-        }
-      }
-    }
+    storeParameterRegisters(asm, method, firstParameterOffset);
 
     // bump SP to set aside room for the args + 2 additional JNI args
     asm.emitADD_Reg_Imm(SP, emptyStackOffset.toInt());
@@ -520,6 +634,57 @@ public abstract class VM_JNICompiler implements VM_BaselineConstants {
     // End use of T0 and S0
   }
 
+  /**************************************************************
+   * Store the parameters passed in registers back into their slots in
+   * the caller frame, to free up the registers for use.
+   *
+   * @param asm the assembler to use
+   * @param method the native method
+   * @param firstParameterOffset offset from EBP of the first parameter
+   *        (not counting "this")
+   */
+  static void storeParameterRegisters(VM_Assembler asm, VM_Method method, Offset firstParameterOffset) {
+    VM_TypeReference[] types = method.getParameterTypes();   // does NOT include implicit this or class ptr
+    int numArguments = types.length;
+    // The number of registers holding parameter is
+    // VM_RegisterConstants.NUM_PARAMETER_GPRS
+    // Their indices are in VM_RegisterConstants.VOLATILE_GPRS[]
+    int gpr = 0;
+    // note that firstParameterOffset does not include "this"
+    Offset parameterOffset = firstParameterOffset;
+
+    // handle the "this" parameter
+    if (!method.isStatic()) {
+      asm.emitMOV_RegDisp_Reg(EBP, firstParameterOffset.plus(WORDSIZE), VOLATILE_GPRS[gpr]);
+      gpr++;
+    }
+
+    for (int i = 0; i < numArguments && gpr < NUM_PARAMETER_GPRS; i++) {
+      if (types[i].isDoubleType()) {
+        parameterOffset = parameterOffset.minus(2 * WORDSIZE);
+      } else if (types[i].isFloatType()) {
+        parameterOffset = parameterOffset.minus(WORDSIZE);
+      } else if (types[i].isLongType()) {
+        if (gpr < NUM_PARAMETER_GPRS) {   // get the hi word
+          asm.emitMOV_RegDisp_Reg(EBP, parameterOffset, VOLATILE_GPRS[gpr]);
+          gpr++;
+          parameterOffset = parameterOffset.minus(WORDSIZE);
+        }
+        if (gpr < NUM_PARAMETER_GPRS) {    // get the lo word
+          asm.emitMOV_RegDisp_Reg(EBP, parameterOffset, VOLATILE_GPRS[gpr]);
+          gpr++;
+          parameterOffset = parameterOffset.minus(WORDSIZE);
+        }
+      } else {
+        if (gpr < NUM_PARAMETER_GPRS) {   // all other types fit in one word
+          asm.emitMOV_RegDisp_Reg(EBP, parameterOffset, VOLATILE_GPRS[gpr]);
+          gpr++;
+          parameterOffset = parameterOffset.minus(WORDSIZE);
+        }
+      }
+    }
+  }
+
   /**************************************************************
    * Generate code to convert a pointer value to a JREF index.
    *
@@ -32,6 +32,7 @@ import org.jikesrvm.mm.mmtk.SynchronizedCounter;
 import org.jikesrvm.objectmodel.BootImageInterface;
 import org.jikesrvm.objectmodel.VM_JavaHeader;
 import org.jikesrvm.objectmodel.VM_ObjectModel;
+import org.jikesrvm.runtime.VM_AllocationProfile;
 import org.jikesrvm.runtime.VM_BootRecord;
 import org.jikesrvm.runtime.VM_Magic;
 import org.jikesrvm.runtime.VM_Memory;
@@ -440,6 +441,21 @@ public final class MM_Interface implements VM_HeapLayoutConstants, Constants {
     return Plan.getAllocationSite(compileTime);
   }
 
+  /**
+   * Return an allocation site for an allocation being compiled, and
+   * note where it is for allocation profiling.
+   *
+   * @param method the method containing the allocation
+   * @param bcIndex the bytecode index of the allocation
+   * @return an allocation site
+   */
+  @Interruptible
+  public static int getAllocationSite(VM_Method method, int bcIndex) {
+    int site = Plan.getAllocationSite(true);
+    VM_AllocationProfile.registerSite(site, method, bcIndex);
+    return site;
+  }
+
   /**
    * Returns the appropriate allocation scheme/area for the given
    * type.  This form is deprecated.  Without the VM_Method argument,
@@ -872,6 +888,22 @@ public final class MM_Interface implements VM_HeapLayoutConstants, Constants {
     return Selected.Plan.get().willNeverMove(ObjectReference.fromObject(obj));
   }
 
+  /*
+   *  Stop this object moving until a matching call to unpinObject; returns
+   *  false (and pins nothing) if the plan cannot honour the request
+   *  */
+  public static boolean pinObject(Object obj) {
+    return Selected.Plan.get().pinObject(ObjectReference.fromObject(obj));
+  }
+
+  /*
+   *  Undo one successful call to pinObject; returns false if the object
+   *  was not pinned
+   *  */
+  public static boolean unpinObject(Object obj) {
+    return Selected.Plan.get().unpinObject(ObjectReference.fromObject(obj));
+  }
+
   /***********************************************************************
    *
    * Finalizers
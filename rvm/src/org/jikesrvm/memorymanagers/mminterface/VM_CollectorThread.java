@@ -377,6 +377,13 @@ public final class VM_CollectorThread extends VM_GreenThread {
        * non-participants */
       if (verbose >= 2) VM.sysWriteln("GC Message: VM_CT.run  initializing rendezvous");
       gcBarrier.startupRendezvous();
+
+      /* while allocation is still possible, build the reference maps the
+       * baseline compiler deferred for methods on the mutators' stacks */
+      if (gcOrdinal == GC_ORDINAL_BASE) {
+        VM_CompiledMethods.buildDeferredReferenceMaps();
+      }
+      gcBarrier.rendezvous(5199);
       do {
         /* actually perform the GC... */
         if (verbose >= 2) VM.sysWriteln("GC Message: VM_CT.run  starting collection");
@@ -108,6 +108,14 @@ public abstract class VM_FieldLayout implements VM_SizeConstants {
       }
     }
 
+    /*
+    * Layout hot fields pre-pass - hottest first, so that they end up
+    * as close to the header as possible
+    */
+    if (VM_FieldLayoutAdvice.hasAdvice()) {
+      layoutHotFields(fieldLayout, klass, fields);
+    }
+
     /*
     * Layout 8byte values first pre-pass - do this to avoid unnecessary
     * holes for object layouts such as an int followed by a long
@@ -138,6 +146,34 @@ public abstract class VM_FieldLayout implements VM_SizeConstants {
     updateClass(klass, fieldLayout);
   }
 
+  /**
+   * Lay out the fields that {@link VM_FieldLayoutAdvice} says are accessed,
+   * in decreasing order of their access counts.
+   *
+   * @param fieldLayout State for the layout process
+   * @param klass The class whose fields we're laying out.
+   * @param fields The fields declared by klass
+   */
+  private void layoutHotFields(VM_FieldLayoutContext fieldLayout, VM_Class klass, VM_Field[] fields) {
+    int[] counts = new int[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      VM_Field field = fields[i];
+      if (!field.isStatic() && !field.hasOffset()) {
+        counts[i] = VM_FieldLayoutAdvice.getHotness(field);
+      }
+    }
+    while (true) {
+      int hottest = -1;
+      for (int i = 0; i < fields.length; i++) {
+        if (counts[i] > 0 && (hottest == -1 || counts[i] > counts[hottest])) hottest = i;
+      }
+      if (hottest == -1) break;
+      VM_Field field = fields[hottest];
+      layoutField(fieldLayout, klass, field, field.getType().getMemoryBytes());
+      counts[hottest] = 0;
+    }
+  }
+
   /**
    * Update the VM_Class with context info.
    *
@@ -0,0 +1,114 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.objectmodel;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.StringTokenizer;
+import org.jikesrvm.VM;
+import org.jikesrvm.classloader.VM_Field;
+
+/**
+ * Advice on how often the instance fields of classes are accessed, used by
+ * {@link VM_FieldLayout} to place the hottest fields of a class next to the
+ * object header (ahead of the usual packing) so that they tend to share a
+ * cache line with it.  Only classes laid out after the advice has been read
+ * are affected: those in the boot image when the boot image writer is given
+ * -fieldLayoutAdvice, otherwise those loaded after -X:vm:fieldLayoutAdvice
+ * is processed.
+ *
+ * <p> The advice file has one line per field:
+ * <pre>
+ *   &lt;count&gt; &lt;class descriptor&gt; &lt;field name&gt;
+ * </pre>
+ * e.g. <code>1200 Ljava/util/HashMap; table</code>.  Lines starting with
+ * '#' are ignored.  Such files are written by the adaptive system when
+ * given -X:aos:field_layout_advice_file_output=file.
+ */
+public final class VM_FieldLayoutAdvice {
+
+  /** "class descriptor field name" to access count, null if there is no advice */
+  private static HashMap<String, Integer> hotness;
+
+  /**
+   * Read an advice file.  Errors are reported and the file is ignored.
+   *
+   * @param file the advice file, or null if none
+   */
+  public static void readAdvice(String file) {
+    if (file == null) return;
+    HashMap<String, Integer> advice = new HashMap<String, Integer>();
+    try {
+      BufferedReader in = new BufferedReader(new FileReader(file));
+      try {
+        String line;
+        while ((line = in.readLine()) != null) {
+          line = line.trim();
+          if (line.length() == 0 || line.charAt(0) == '#') continue;
+          StringTokenizer tokens = new StringTokenizer(line);
+          if (tokens.countTokens() != 3) {
+            throw new IOException("malformed line \"" + line + "\"");
+          }
+          int count = Integer.parseInt(tokens.nextToken());
+          String key = key(tokens.nextToken(), tokens.nextToken());
+          Integer old = advice.get(key);
+          advice.put(key, old == null ? count : old + count);
+        }
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      VM.sysWriteln("vm: ignoring field layout advice ", file, ": " + e.getMessage());
+      return;
+    } catch (NumberFormatException e) {
+      VM.sysWriteln("vm: ignoring field layout advice ", file, ": " + e.getMessage());
+      return;
+    }
+    hotness = advice;
+  }
+
+  /** @return true if advice has been read */
+  public static boolean hasAdvice() {
+    return hotness != null;
+  }
+
+  /**
+   * @param field an instance field
+   * @return how often the field was accessed according to the advice, 0
+   *   if it wasn't mentioned
+   */
+  static int getHotness(VM_Field field) {
+    if (hotness == null) return 0;
+    Integer count = hotness.get(key(field.getDeclaringClass().getDescriptor().toString(),
+                                    field.getName().toString()));
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Write one line of an advice file.
+   *
+   * @param out the advice file
+   * @param field the field
+   * @param count how often the field was accessed
+   */
+  public static void writeAdvice(PrintStream out, VM_Field field, int count) {
+    out.println(count + " " + field.getDeclaringClass().getDescriptor() + " " + field.getName());
+  }
+
+  private static String key(String classDescriptor, String fieldName) {
+    return classDescriptor + " " + fieldName;
+  }
+}
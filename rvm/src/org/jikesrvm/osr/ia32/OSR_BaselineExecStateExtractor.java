@@ -153,7 +153,7 @@ public abstract class OSR_BaselineExecStateExtractor extends OSR_ExecStateExtrac
       // if typer reports a local is reference type, but the GC map says no
       // then set the localType to uninitialized, see VM spec, bytecode verifier
       if (localTypes[i] == ClassTypeCode) {
-        if (!fooCM.referenceMaps.isLocalRefType(fooM, ipOffset.plus(1 << LG_INSTRUCTION_WIDTH), i)) {
+        if (!fooCM.getReferenceMaps().isLocalRefType(fooM, ipOffset.plus(1 << LG_INSTRUCTION_WIDTH), i)) {
           localTypes[i] = VoidTypeCode;
           if (VM.TraceOnStackReplacement) {
             VM.sysWriteln("GC maps disagrees with type matcher at " + i + "th local\n");
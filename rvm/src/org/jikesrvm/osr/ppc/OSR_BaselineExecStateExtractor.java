@@ -116,7 +116,7 @@ public abstract class OSR_BaselineExecStateExtractor extends OSR_ExecStateExtrac
       // if typer reports a local is reference type, but the GC map says no
       // then set the localType to uninitialized, see VM spec, bytecode verifier
       // CAUTION: gc map uses mc offset in bytes!!!
-      boolean gcref = fooCM.referenceMaps.isLocalRefType(fooM, ipOffset.plus(INSTRUCTION_WIDTH), i);
+      boolean gcref = fooCM.getReferenceMaps().isLocalRefType(fooM, ipOffset.plus(INSTRUCTION_WIDTH), i);
       if (!gcref && (localTypes[i] == ClassTypeCode)) {
         localTypes[i] = VoidTypeCode;   // use gc map as reference
         if (VM.TraceOnStackReplacement) {
@@ -0,0 +1,312 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.runtime;
+
+import org.jikesrvm.VM;
+import org.jikesrvm.VM_Callbacks;
+import org.jikesrvm.annotations.NoSubArchCompile;
+import org.jikesrvm.classloader.VM_Method;
+import org.jikesrvm.classloader.VM_NormalMethod;
+import org.jikesrvm.classloader.VM_Type;
+import org.jikesrvm.objectmodel.VM_TIBLayoutConstants;
+import org.jikesrvm.scheduler.VM_Processor;
+import org.jikesrvm.scheduler.VM_ProcessorLock;
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.NoInline;
+import org.vmmagic.pragma.Uninterruptible;
+
+/**
+ * A sampling allocation profiler.  While enabled, roughly one allocation in
+ * every {@link #getInterval} bytes allocated on a processor is sampled: its
+ * allocation site, type and size are put in a buffer belonging to the
+ * processor, which is aggregated into a table keyed by site and type when
+ * it fills.  {@link #report} prints the sites that account for the most
+ * samples, and so (approximately) the most bytes.
+ *
+ * <p> Allocation sites are the ids handed out by
+ * {@link org.jikesrvm.memorymanagers.mminterface.MM_Interface#getAllocationSite};
+ * the compilers tell us which method and bytecode each one belongs to.
+ *
+ * <p> Enable with -X:vm:allocationProfile=<bytes>, which reports at exit,
+ * or at run time with {@link #enable} and {@link #disable}.
+ */
+public final class VM_AllocationProfile implements VM_TIBLayoutConstants {
+
+  /** Is sampling enabled?  Tested on every allocation */
+  public static boolean enabled;
+
+  /** Bytes allocated between samples */
+  private static int interval;
+
+  /** Ints in each processor's sample buffer (site, type id, size triples) */
+  private static final int BUFFER_SIZE = 3 * 256;
+
+  /** Number of entries in the aggregate table; a power of 2 */
+  private static final int TABLE_SIZE = 1 << 13;
+
+  /** Number of sites to report */
+  private static final int REPORT_SITES = 30;
+
+  /*
+   * Aggregate table, open addressing keyed by (site, type id).  An entry
+   * is in use if its count is non-zero.  Allocated when first enabled.
+   */
+  private static int[] tableSite;
+  private static int[] tableType;
+  private static int[] tableCount;
+  private static long[] tableBytes;
+  /** Samples that didn't fit in the table */
+  private static int overflowCount;
+  private static long overflowBytes;
+
+  private static final VM_ProcessorLock tableLock = new VM_ProcessorLock();
+
+  /* Description of each allocation site, indexed by site id */
+  private static VM_Method[] siteMethod = new VM_Method[0];
+  private static int[] siteBytecodeIndex = new int[0];
+  private static final Object siteLock = new Object();
+
+  private static boolean reportAtExit;
+
+  /**
+   * Start sampling as requested on the command line.
+   * @param bytes the sampling interval, 0 for no sampling
+   */
+  public static void boot(int bytes) {
+    if (bytes > 0) {
+      enable(bytes);
+      if (!reportAtExit) {
+        reportAtExit = true;
+        VM_Callbacks.addExitMonitor(new VM_Callbacks.ExitMonitor() {
+          public void notifyExit(int value) {
+            report();
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Start (or continue) sampling.
+   * @param bytes the number of bytes to allocate between samples
+   */
+  public static synchronized void enable(int bytes) {
+    if (VM.VerifyAssertions) VM._assert(bytes > 0);
+    if (tableSite == null) {
+      tableSite = new int[TABLE_SIZE];
+      tableType = new int[TABLE_SIZE];
+      tableCount = new int[TABLE_SIZE];
+      tableBytes = new long[TABLE_SIZE];
+    }
+    interval = bytes;
+    enabled = true;
+  }
+
+  /**
+   * Stop sampling.  What has been collected so far is kept for
+   * {@link #report}.
+   */
+  public static void disable() {
+    enabled = false;
+  }
+
+  /** @return the number of bytes allocated between samples */
+  public static int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Record the source position of an allocation site.  Called by the
+   * compilers when they allocate a site id.
+   * @param site the site
+   * @param method the method containing the allocation
+   * @param bcIndex the bytecode index of the allocation
+   */
+  public static void registerSite(int site, VM_Method method, int bcIndex) {
+    if (site < 0) return;
+    synchronized (siteLock) {
+      if (site >= siteMethod.length) {
+        int newLength = Math.max(site + 1, siteMethod.length * 2);
+        VM_Method[] newMethods = new VM_Method[newLength];
+        int[] newBytecodeIndex = new int[newLength];
+        System.arraycopy(siteMethod, 0, newMethods, 0, siteMethod.length);
+        System.arraycopy(siteBytecodeIndex, 0, newBytecodeIndex, 0, siteBytecodeIndex.length);
+        siteBytecodeIndex = newBytecodeIndex;
+        siteMethod = newMethods;
+      }
+      siteMethod[site] = method;
+      siteBytecodeIndex[site] = bcIndex;
+    }
+  }
+
+  /**
+   * Count an allocation against this processor's sampling interval,
+   * sampling it if the interval has been used up.  Called from the
+   * allocation paths in VM_Runtime when {@link #enabled}.
+   *
+   * @param bytes size of the object
+   * @param tib TIB of the object
+   * @param site the allocation site
+   */
+  @Inline
+  @NoSubArchCompile
+  static void countAllocation(int bytes, Object[] tib, int site) {
+    VM_Processor p = VM_Processor.getCurrentProcessor();
+    p.allocationSampleCountdown -= bytes;
+    if (p.allocationSampleCountdown < 0) {
+      takeSample(bytes, tib, site);
+    }
+  }
+
+  @NoInline
+  @NoSubArchCompile
+  private static void takeSample(int bytes, Object[] tib, int site) {
+    VM_Processor.getCurrentProcessor().allocationSampleCountdown = interval;
+    if (VM_Processor.getCurrentProcessor().allocationSamples == null) {
+      // allocating the buffer won't be sampled, the countdown was just reset
+      int[] buffer = new int[BUFFER_SIZE];
+      VM_Processor.getCurrentProcessor().allocationSamples = buffer;
+    }
+    VM_Type type = VM_Magic.objectAsType(tib[TIB_TYPE_INDEX]);
+    store(site, type.getId(), bytes);
+  }
+
+  /**
+   * Put a sample in the current processor's buffer, aggregating the
+   * buffer if it is full.
+   */
+  @Uninterruptible
+  private static void store(int site, int typeId, int bytes) {
+    VM_Processor p = VM_Processor.getCurrentProcessor();
+    int[] buffer = p.allocationSamples;
+    if (buffer == null) return; // we moved to another processor, drop it
+    int cursor = p.allocationSampleCursor;
+    buffer[cursor] = site;
+    buffer[cursor + 1] = typeId;
+    buffer[cursor + 2] = bytes;
+    cursor += 3;
+    if (cursor == buffer.length) {
+      aggregate(buffer, cursor);
+      cursor = 0;
+    }
+    p.allocationSampleCursor = cursor;
+  }
+
+  /** Add samples to the aggregate table */
+  @Uninterruptible
+  private static void aggregate(int[] buffer, int length) {
+    tableLock.lock("allocation profile");
+    for (int i = 0; i < length; i += 3) {
+      int site = buffer[i];
+      int typeId = buffer[i + 1];
+      int bytes = buffer[i + 2];
+      int index = ((site * 31) ^ typeId) & (TABLE_SIZE - 1);
+      int probes = 0;
+      while (tableCount[index] != 0 && (tableSite[index] != site || tableType[index] != typeId)) {
+        if (++probes == TABLE_SIZE) break;
+        index = (index + 1) & (TABLE_SIZE - 1);
+      }
+      if (probes == TABLE_SIZE) {
+        overflowCount++;
+        overflowBytes += bytes;
+      } else {
+        tableSite[index] = site;
+        tableType[index] = typeId;
+        tableCount[index]++;
+        tableBytes[index] += bytes;
+      }
+    }
+    tableLock.unlock();
+  }
+
+  /** Copy the aggregate table under the lock */
+  @Uninterruptible
+  private static void snapshot(int[] site, int[] type, int[] count, long[] bytes) {
+    tableLock.lock("allocation profile");
+    for (int i = 0; i < TABLE_SIZE; i++) {
+      site[i] = tableSite[i];
+      type[i] = tableType[i];
+      count[i] = tableCount[i];
+      bytes[i] = tableBytes[i];
+    }
+    tableLock.unlock();
+  }
+
+  /**
+   * Print the allocation sites and types that account for the most
+   * samples.  Samples still sitting in the buffers of processors other
+   * than the current one are not included.
+   */
+  public static synchronized void report() {
+    if (tableSite == null) return;
+    boolean wasEnabled = enabled;
+    enabled = false;
+    VM_Processor p = VM_Processor.getCurrentProcessor();
+    if (p.allocationSamples != null) {
+      int[] buffer = p.allocationSamples;
+      int length = p.allocationSampleCursor;
+      p.allocationSampleCursor = 0;
+      aggregate(buffer, length);
+    }
+
+    int[] site = new int[TABLE_SIZE];
+    int[] type = new int[TABLE_SIZE];
+    int[] count = new int[TABLE_SIZE];
+    long[] bytes = new long[TABLE_SIZE];
+    snapshot(site, type, count, bytes);
+    enabled = wasEnabled;
+
+    long totalSamples = overflowCount;
+    for (int i = 0; i < TABLE_SIZE; i++) {
+      totalSamples += count[i];
+    }
+    VM.sysWrite("Allocation profile: ", totalSamples);
+    VM.sysWriteln(" samples, one per ", interval, " bytes");
+    VM.sysWriteln("  samples  est.bytes  est.count  type @ site");
+    for (int n = 0; n < REPORT_SITES; n++) {
+      int best = -1;
+      for (int i = 0; i < TABLE_SIZE; i++) {
+        if (count[i] != 0 && (best == -1 || count[i] > count[best])) best = i;
+      }
+      if (best == -1) break;
+      long estimatedBytes = (long) count[best] * interval;
+      long averageSize = bytes[best] / count[best];
+      VM.sysWrite("  ", count[best]);
+      VM.sysWrite("  ", estimatedBytes);
+      VM.sysWrite("  ", averageSize == 0 ? 0 : estimatedBytes / averageSize);
+      VM.sysWrite("  ", VM_Type.getType(type[best]).toString());
+      VM.sysWriteln(" @ ", describeSite(site[best]));
+      count[best] = 0;
+    }
+    if (overflowCount != 0) {
+      VM.sysWrite("  ", overflowCount, " samples (", overflowBytes);
+      VM.sysWriteln(" bytes) not attributed: table full");
+    }
+  }
+
+  /** @return the source position of an allocation site */
+  private static String describeSite(int site) {
+    VM_Method[] methods = siteMethod;
+    if (site < 0 || site >= methods.length || methods[site] == null) {
+      return "<unknown site>";
+    }
+    VM_Method method = methods[site];
+    int bcIndex = siteBytecodeIndex[site];
+    String where = method.getDeclaringClass() + "." + method.getName() + " bci " + bcIndex;
+    if (method instanceof VM_NormalMethod) {
+      int line = ((VM_NormalMethod) method).getLineNumberForBCIndex(bcIndex);
+      if (line > 0) where += " (line " + line + ")";
+    }
+    return where;
+  }
+}
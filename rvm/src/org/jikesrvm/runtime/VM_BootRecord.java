@@ -245,6 +245,12 @@ public class VM_BootRecord {
   public Address sysSetFdCloseOnExecIP;
 
   public Address sysAccessIP;
+  public Address sysFileIsRegularIP;
+
+  // file I/O helper threads
+  public Address sysFileIOSubmitIP;
+  public Address sysFileIODoneIP;
+  public Address sysFileIOCompleteIP;
 
   // mmap - memory mapping
   public Address sysMMapIP;
@@ -408,6 +414,8 @@ public class VM_BootRecord {
   public Address subArchGetDoubleReturnIP;
   @Entrypoint
   public Address subArchGetRefReturnIP;
+  @Entrypoint
+  public Address subArchReleaseThreadIP;
 
    // perfctr
    public Address sysPerfCtrInitIP;
@@ -42,6 +42,10 @@ public class VM_Entrypoints {
 
   public static final VM_NormalMethod instanceOfMethod =
       getMethod(org.jikesrvm.runtime.VM_Runtime.class, "instanceOf", "(Ljava/lang/Object;I)Z");
+  public static final VM_NormalMethod instanceOfCachingMethod =
+      getMethod(org.jikesrvm.runtime.VM_Runtime.class,
+                "instanceOfCaching",
+                "(Ljava/lang/Object;ILorg/vmmagic/unboxed/Offset;)Z");
   public static final VM_NormalMethod instanceOfResolvedClassMethod =
       getMethod(org.jikesrvm.runtime.VM_Runtime.class, "instanceOfResolvedClass", "(Ljava/lang/Object;I)Z");
   public static final VM_NormalMethod instanceOfFinalMethod =
@@ -50,6 +54,10 @@ public class VM_Entrypoints {
                 "(Ljava/lang/Object;Lorg/vmmagic/unboxed/Offset;)Z");
   public static final VM_NormalMethod checkcastMethod =
       getMethod(org.jikesrvm.runtime.VM_Runtime.class, "checkcast", "(Ljava/lang/Object;I)V");
+  public static final VM_NormalMethod checkcastCachingMethod =
+      getMethod(org.jikesrvm.runtime.VM_Runtime.class,
+                "checkcastCaching",
+                "(Ljava/lang/Object;ILorg/vmmagic/unboxed/Offset;)V");
   public static final VM_NormalMethod checkcastResolvedClassMethod =
       getMethod(org.jikesrvm.runtime.VM_Runtime.class, "checkcastResolvedClass", "(Ljava/lang/Object;I)V");
   public static final VM_NormalMethod checkcastFinalMethod =
@@ -60,6 +68,8 @@ public class VM_Entrypoints {
       getMethod(org.jikesrvm.runtime.VM_Runtime.class, "checkstore", "(Ljava/lang/Object;Ljava/lang/Object;)V");
   public static final VM_NormalMethod athrowMethod =
       getMethod(org.jikesrvm.runtime.VM_Runtime.class, "athrow", "(Ljava/lang/Throwable;)V");
+  public static final VM_NormalMethod elideStackTraceMethod =
+      getMethod(org.jikesrvm.runtime.VM_StackTrace.class, "elideTraceOf", "(Ljava/lang/Throwable;)V");
 
   // Allocation-related entry points
   //
@@ -387,6 +397,8 @@ public class VM_Entrypoints {
 		getField(org.jikesrvm.runtime.VM_BootRecord.class, "subArchGetDoubleReturnIP", org.vmmagic.unboxed.Address.class);
   public static final VM_Field subArchGetRefReturnIPField = 
 		getField(org.jikesrvm.runtime.VM_BootRecord.class, "subArchGetRefReturnIP", org.vmmagic.unboxed.Address.class);
+  public static final VM_Field subArchReleaseThreadIPField = 
+		getField(org.jikesrvm.runtime.VM_BootRecord.class, "subArchReleaseThreadIP", org.vmmagic.unboxed.Address.class);
   
   public static final VM_Method subArchMigrateMethodReturningVoid = 
   	getMethod(org.jikesrvm.scheduler.greenthreads.VM_SubArchMigration.class, "migrateMethodReturningVoid", "(Lorg/jikesrvm/classloader/VM_Method;Lorg/vmmagic/unboxed/Address;I)V");
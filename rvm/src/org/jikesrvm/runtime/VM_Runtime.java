@@ -136,6 +136,41 @@ public class VM_Runtime implements VM_Constants, ArchitectureSpecific.VM_Stackfr
     return lhsType == rhsType || VM_DynamicTypeCheck.instanceOfResolved(lhsType, rhsType);
   }
 
+  /**
+   * Version of {@link #instanceOf} for check sites with a type check
+   * cache: a JTOC slot holding the TIB of the last object that passed the
+   * check at the site.  Compiled code compares the object's TIB with the
+   * slot and only calls this on a miss, so a site that keeps seeing the
+   * same class costs one compare.
+   * @param object object to be tested
+   * @param targetID type reference id corresponding to target
+   *                 class/array/interface
+   * @param cacheOffset JTOC offset of the site's cache slot
+   * @return true iff is object instance of target type?
+   */
+  @Entrypoint
+  static boolean instanceOfCaching(Object object, int targetID, Offset cacheOffset) throws NoClassDefFoundError {
+    boolean result = instanceOf(object, targetID);
+    if (result) {
+      updateTypeCheckCache(object, cacheOffset);
+    }
+    return result;
+  }
+
+  /**
+   * Remember the TIB of an object that passed a type check in the check
+   * site's cache slot.  Only the main architecture's JTOC holds cache
+   * slots.
+   * @param object an object that passed the check
+   * @param cacheOffset JTOC offset of the site's cache slot
+   */
+  @Uninterruptible
+  private static void updateTypeCheckCache(Object object, Offset cacheOffset) {
+    if (!VM_Magic.runningOnSubArch()) {
+      VM_Statics.setSlotContents(cacheOffset, VM_ObjectModel.getTIB(object));
+    }
+  }
+
   /**
    * Uninterruptible version for fully resolved proper classes.
    * @param object object to be tested
@@ -204,6 +239,22 @@ public class VM_Runtime implements VM_Constants, ArchitectureSpecific.VM_Stackfr
     }
   }
 	
+  /**
+   * Version of {@link #checkcast} for check sites with a type check cache.
+   * @param object object to be tested
+   * @param id of type reference corresponding to target class/array/interface
+   * @param cacheOffset JTOC offset of the site's cache slot
+   * @see #instanceOfCaching
+   */
+  @Entrypoint
+  static void checkcastCaching(Object object, int id, Offset cacheOffset)
+      throws ClassCastException, NoClassDefFoundError {
+    checkcast(object, id);
+    if (object != null) {
+      updateTypeCheckCache(object, cacheOffset);
+    }
+  }
+
   /**
    * Throw exception unless object is instance of target resolved proper class.
    * @param object object to be tested
@@ -384,6 +435,9 @@ public class VM_Runtime implements VM_Constants, ArchitectureSpecific.VM_Stackfr
     // GC stress testing
     if (VM.ForceFrequentGC) checkAllocationCountDownToGC();
 
+    // Allocation profiling
+    if (VM_AllocationProfile.enabled) VM_AllocationProfile.countAllocation(size, tib, site);
+
     // Allocate the object and initialize its header
     Object newObj = MM_Interface.allocateScalar(size, tib, allocator, align, offset, site);
 
@@ -468,6 +522,11 @@ public class VM_Runtime implements VM_Constants, ArchitectureSpecific.VM_Stackfr
     // GC stress testing
     if (VM.ForceFrequentGC) checkAllocationCountDownToGC();
 
+    // Allocation profiling
+    if (VM_AllocationProfile.enabled) {
+      VM_AllocationProfile.countAllocation((numElements << logElementSize) + headerSize, tib, site);
+    }
+
     // Allocate the array and initialize its header
     return MM_Interface.allocateArray(numElements, logElementSize, headerSize, tib, allocator, align, offset, site);
   }
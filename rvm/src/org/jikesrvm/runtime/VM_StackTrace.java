@@ -32,7 +32,11 @@ import org.vmmagic.unboxed.Offset;
 
 /**
  * A list of compiled method and instructionOffset pairs that describe the state
- * of the call stack at a particular instant.
+ * of the call stack at a particular instant.  Only these raw pairs are
+ * recorded when the trace is created, and at most
+ * {@link VM_Options#maxStackTraceDepth} of them; mapping them to methods and
+ * line numbers is left to {@link #getStackTrace}, which most exceptions never
+ * call.
  */
 public class VM_StackTrace {
   /**
@@ -47,9 +51,12 @@ public class VM_StackTrace {
   /** Index of the last stack trace */
   private static int lastTraceIndex = 0;
 
-  /** Index of this stack trace */
+  /** Index of this stack trace, 0 unless we're dumping verbose stack traces */
   private final int traceIndex;
 
+  /** Were frames at the bottom of the stack left out because of the depth limit? */
+  private boolean truncated;
+
   /** Should this be (or is this) a verbose stack trace? */
   private boolean isVerbose() {
     // If we're printing verbose stack traces...
@@ -63,12 +70,16 @@ public class VM_StackTrace {
    * Create a trace of the current call stack
    */
   public VM_StackTrace() {
-    // Poor man's atomic integer, to get through bootstrap
-    synchronized(VM_StackTrace.class) {
-      lastTraceIndex++;
-      traceIndex = lastTraceIndex;
+    if (VM.VerboseStackTracePeriod > 0) {
+      // Poor man's atomic integer, to get through bootstrap
+      synchronized(VM_StackTrace.class) {
+        lastTraceIndex++;
+        traceIndex = lastTraceIndex;
+      }
+    } else {
+      traceIndex = 0;
     }
-    // (1) Count the number of frames comprising the stack.
+    // (1) Count the number of frames comprising the stack, up to the limit
     int numFrames = walkFrames(false);
     // (2) Construct arrays to hold raw data
     compiledMethods = new VM_CompiledMethod[numFrames];
@@ -86,12 +97,14 @@ public class VM_StackTrace {
   }
 
   /**
-   * Walk the stack counting the number of stack frames encountered
+   * Walk the stack counting the number of stack frames encountered, stopping
+   * once {@link VM_Options#maxStackTraceDepth} frames have been seen
    * @param record fill in the compiledMethods and instructionOffsets arrays?
    * @return number of stack frames encountered
    */
   private int walkFrames(boolean record) {
     int stackFrameCount = 0;
+    int maxFrames = (VM.maxStackTraceDepth > 0) ? VM.maxStackTraceDepth : Integer.MAX_VALUE;
     VM.disableGC(); // so fp & ip don't change under our feet
     VM_Thread stackTraceThread = VM_Scheduler.getCurrentThread().getThreadForStackTrace();
     LocalAddress fp;
@@ -107,6 +120,10 @@ public class VM_StackTrace {
       fp = VM_Magic.getCallerFramePointer(fp);
     }
     while (VM_Magic.getCallerFramePointer(fp).NE(VM_Magic.addressAsLocalAddress(STACKFRAME_SENTINEL_FP))) {
+      if (stackFrameCount == maxFrames) {
+        truncated = true;
+        break;
+      }
       int compiledMethodId = VM_Magic.getCompiledMethodID(fp);
       if (compiledMethodId != INVISIBLE_METHOD_ID) {
         VM_CompiledMethod compiledMethod =
@@ -135,6 +152,33 @@ public class VM_StackTrace {
     return stackFrameCount;
   }
 
+  /**
+   * Note that the stack trace of the given exception, which is about to be
+   * constructed by the current thread, can never be observed and so need
+   * not be captured.  Calls to this are planted by the opt compiler (see
+   * OPT_LocalStackTraceElision).
+   * @param t the exception
+   */
+  public static void elideTraceOf(Throwable t) {
+    VM_Scheduler.getCurrentThread().stackTraceElidedFor = t;
+  }
+
+  /**
+   * Should capturing the stack trace of the given exception be skipped?
+   * Called when the exception fills in its stack trace; the note made by
+   * {@link #elideTraceOf} is consumed.
+   * @param t the exception
+   * @return true if the exception's stack trace is never observed
+   */
+  public static boolean isTraceElided(Throwable t) {
+    VM_Thread thread = VM_Scheduler.getCurrentThread();
+    if (thread.stackTraceElidedFor == t) {
+      thread.stackTraceElidedFor = null;
+      return true;
+    }
+    return false;
+  }
+
   /** Class to wrap up a stack frame element */
   public static class Element {
     /** Stack trace's method, null => invisible or trap */
@@ -416,7 +460,8 @@ public class VM_StackTrace {
      * at org.jikesrvm.scheduler.VM_Thread.startoff(VM_Thread.java:1113)
      */
     int max = compiledMethods.length-1;
-    if (VM_Options.stackTraceFull) {
+    if (VM_Options.stackTraceFull || truncated) {
+      // keep every frame (a truncated trace has no VM frames at the bottom)
       return max;
     } else {
       // Start at end of array and elide a frame unless we find a place to stop
@@ -21,7 +21,7 @@ import org.jikesrvm.classloader.VM_TypeReference;
 import org.jikesrvm.memorymanagers.mminterface.MM_Constants;
 import org.jikesrvm.memorymanagers.mminterface.MM_Interface;
 import org.jikesrvm.util.VM_HashMap;
-import org.jikesrvm.util.VM_LinkedList;
+import org.jikesrvm.util.VM_LongIntHashMap;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.pragma.UninterruptibleNoWarn;
 import org.vmmagic.unboxed.Address;
@@ -121,15 +121,15 @@ public class VM_Statics implements VM_Constants {
 
   /**
    * Mapping from int like literals (ints and floats) to the jtoc slot
-   * that contains them.
+   * that contains them.  Lookups in the running VM don't lock it.
    */
-  private static final VM_HashMap<Integer, Integer> intSizeLiterals = new VM_HashMap<Integer, Integer>();
+  private static final VM_LongIntHashMap intSizeLiterals = new VM_LongIntHashMap();
 
   /**
    * Mapping from long like literals (longs and doubles) to the jtoc
-   * slot that contains them.
+   * slot that contains them.  Lookups in the running VM don't lock it.
    */
-  private static final VM_HashMap<Long, Integer> longSizeLiterals = new VM_HashMap<Long, Integer>();
+  private static final VM_LongIntHashMap longSizeLiterals = new VM_LongIntHashMap();
 
   /**
    * Mapping from object literals to the jtoc slot that contains them.
@@ -143,19 +143,47 @@ public class VM_Statics implements VM_Constants {
   private static final VM_HashMap<VM_Atom, Integer> stringLiterals = new VM_HashMap<VM_Atom, Integer>();
 
   /**
-   * Linked list of spare numeric slots caused by aligning static of same class for 
-   * subarch caching
+   * Spare numeric slots, caused by aligning statics of the same class
+   * for subarch caching
    */
-  private static final VM_LinkedList<Integer> spareWordSlots = new VM_LinkedList<Integer>();
-  private static final VM_LinkedList<Integer> spareDoubleSlots = new VM_LinkedList<Integer>();
-  
+  private static final SlotList spareWordSlots = new SlotList();
+  private static final SlotList spareDoubleSlots = new SlotList();
+
   /**
-   * Linked list of spare numeric slots caused by aligning static of same class for 
-   * subarch caching
+   * Spare reference slots, caused by aligning statics of the same class
+   * for subarch caching or released by {@link #releaseReferenceSlot}
    */
-  private static final VM_LinkedList<Integer> spareReferenceSlots = new VM_LinkedList<Integer>();
-  
-  
+  private static final SlotList spareReferenceSlots = new SlotList();
+
+  /**
+   * A stack of slot numbers
+   */
+  private static final class SlotList {
+    private int[] slots = new int[16];
+    private int size;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    int size() {
+      return size;
+    }
+
+    void add(int slot) {
+      if (size == slots.length) {
+        int[] newSlots = new int[size * 2];
+        System.arraycopy(slots, 0, newSlots, 0, size);
+        slots = newSlots;
+      }
+      slots[size++] = slot;
+    }
+
+    int remove() {
+      return slots[--size];
+    }
+  }
+
   /**
    * Conversion from JTOC slot index to JTOC offset.
    */
@@ -194,15 +222,19 @@ public class VM_Statics implements VM_Constants {
    * @return the offset in the JTOC of the literal
    */
   public static int findOrCreateIntSizeLiteral(int literal) {
-    Integer offsetAsInt;
+    if (VM.runningVM) {
+      int offsetAsInt = intSizeLiterals.get(literal);
+      if (offsetAsInt != 0) return offsetAsInt;
+    }
     synchronized (intSizeLiterals) {
-      offsetAsInt = intSizeLiterals.get(literal);
-      if (offsetAsInt != null) {
+      int offsetAsInt = intSizeLiterals.get(literal);
+      if (offsetAsInt != 0) {
         return offsetAsInt;
       } else {
         Offset newOff = allocateNumericSlot(BYTES_IN_INT, true);
-        intSizeLiterals.put(literal, newOff.toInt());
+        // fill the slot before unlocked lookups can find it
         setSlotContents(newOff, literal);
+        intSizeLiterals.put(literal, newOff.toInt());
         return newOff.toInt();
       }
     }
@@ -215,15 +247,19 @@ public class VM_Statics implements VM_Constants {
    * @return the offset in the JTOC of the literal
    */
   public static int findOrCreateLongSizeLiteral(long literal) {
-    Integer offsetAsInt;
+    if (VM.runningVM) {
+      int offsetAsInt = longSizeLiterals.get(literal);
+      if (offsetAsInt != 0) return offsetAsInt;
+    }
     synchronized (longSizeLiterals) {
-      offsetAsInt = longSizeLiterals.get(literal);
-      if (offsetAsInt != null) {
+      int offsetAsInt = longSizeLiterals.get(literal);
+      if (offsetAsInt != 0) {
         return offsetAsInt;
       } else {
         Offset newOff = allocateNumericSlot(BYTES_IN_LONG, true);
-        longSizeLiterals.put(literal, newOff.toInt());
+        // fill the slot before unlocked lookups can find it
         setSlotContents(newOff, literal);
+        longSizeLiterals.put(literal, newOff.toInt());
         return newOff.toInt();
       }
     }
@@ -390,7 +426,7 @@ public class VM_Statics implements VM_Constants {
     if (size == BYTES_IN_LONG) {
     	if (useSpareSlots && !spareDoubleSlots.isEmpty()) {
     		// get a spare double slot
-    		slot = spareDoubleSlots.remove(0);
+    		slot = spareDoubleSlots.remove();
     	} else {
 	      // widen for a wide
 	      nextNumericSlot--;
@@ -407,10 +443,10 @@ public class VM_Statics implements VM_Constants {
     } else {
     	if (useSpareSlots && (!spareWordSlots.isEmpty() || !spareDoubleSlots.isEmpty())) {
     		if (spareWordSlots.isEmpty()) {
-      		slot = spareDoubleSlots.remove(0);
+      		slot = spareDoubleSlots.remove();
       		spareWordSlots.add(slot + 1);
     		} else {
-      		slot = spareWordSlots.remove(0);
+      		slot = spareWordSlots.remove();
     		}
     	} else {
 	      // 4byte quantity, try to reuse hole if one is available
@@ -437,7 +473,7 @@ public class VM_Statics implements VM_Constants {
   public static synchronized Offset allocateReferenceSlot(boolean useSpareSlots) {
   	int slot;
   	if (useSpareSlots && !spareReferenceSlots.isEmpty()) {
-  		slot = spareReferenceSlots.remove(0);
+  		slot = spareReferenceSlots.remove();
   	} else {
 	    slot = nextReferenceSlot;
 	    if (VM.BuildFor64Addr) {
@@ -452,6 +488,32 @@ public class VM_Statics implements VM_Constants {
     return slotAsOffset(slot);
   }
   
+  /**
+   * Return a reference slot that is no longer used, such as the type check
+   * cache of a compiled method that has been snipped, so that it can be
+   * allocated again; the table can't grow, so this is all that stops such
+   * slots from filling it.  The slot is cleared so that it no longer keeps
+   * its referent alive.  Literal slots are shared and must never be
+   * released.
+   *
+   * @param offset the offset of the slot
+   */
+  public static synchronized void releaseReferenceSlot(Offset offset) {
+    int slot = offsetAsSlot(offset);
+    if (VM.VerifyAssertions) VM._assert(isReference(slot) && slot < nextReferenceSlot);
+    setSlotContents(offset, (Object) null);
+    spareReferenceSlots.add(slot);
+  }
+
+  /**
+   * Fetch number of allocated jtoc slots that are spare and may be
+   * allocated again.
+   */
+  public static synchronized int getNumberOfSpareSlots() {
+    return spareWordSlots.size() + 2 * spareDoubleSlots.size() +
+      getReferenceSlotSize() * spareReferenceSlots.size();
+  }
+
   public static synchronized Offset moveRefToEnd(Offset oldSlot) {
   	Offset newSlot = allocateReferenceSlot(false);
   	setSlotContents(newSlot, getSlotContentsAsObject(oldSlot));
@@ -513,15 +575,7 @@ public class VM_Statics implements VM_Constants {
       return false;
     } else {
       int ival = getSlotContentsAsInt(slotAsOffset(slot));
-      Integer offsetAsInt;
-      synchronized (intSizeLiterals) {
-        offsetAsInt = intSizeLiterals.get(ival);
-      }
-      if (offsetAsInt == null) {
-        return false;
-      } else {
-        return slotAsOffset(slot).toInt() == offsetAsInt;
-      }
+      return slotAsOffset(slot).toInt() == findLiteral(intSizeLiterals, ival);
     }
   }
 
@@ -535,15 +589,21 @@ public class VM_Statics implements VM_Constants {
       return false;
     } else {
       long lval = getSlotContentsAsLong(slotAsOffset(slot));
-      Integer offsetAsInt;
-      synchronized (longSizeLiterals) {
-        offsetAsInt = longSizeLiterals.get(lval);
-      }
-      if (offsetAsInt == null) {
-        return false;
-      } else {
-        return slotAsOffset(slot).toInt() == offsetAsInt;
-      }
+      return slotAsOffset(slot).toInt() == findLiteral(longSizeLiterals, lval);
+    }
+  }
+
+  /**
+   * Look up a numeric literal, only locking the map when we're not
+   * running the VM.
+   * @param map the int or long sized literal map
+   * @param literal the literal
+   * @return the offset of its slot, 0 if it has none
+   */
+  private static int findLiteral(VM_LongIntHashMap map, long literal) {
+    if (VM.runningVM) return map.get(literal);
+    synchronized (map) {
+      return map.get(literal);
     }
   }
 
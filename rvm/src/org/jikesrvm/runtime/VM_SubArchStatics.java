@@ -52,17 +52,24 @@ public class VM_SubArchStatics implements VM_Constants {
    * of a slot address to its associated object during boot image
    * creation.
    */
-  private static Object[] objectSlots = new Object[0x400];
+  private static Object[] objectSlots = new Object[NO_SLOTS];
   
+  /**
+   * Number of classes the subarch class tables have room for.  The tables
+   * are copied to fixed regions of the subarch's local memory, and compiled
+   * code indexes them at fixed offsets from its jtoc register, so they
+   * can't grow once it is running.
+   */
+  public static final int MAX_CLASSES = 0x200;
   
-  /** Pointers to per-class numeric static blocks */
-  private static final AddressArray staticsTOC  = AddressArray.create(0x400);
+  /** Pointers to per-class numeric and reference static blocks */
+  private static final AddressArray staticsTOC  = AddressArray.create(2 * MAX_CLASSES);
   
-  /** Pointers to per-class reference static blocks */
-  private static final AddressArray methodTIB = AddressArray.create(0x200);
+  /** Pointers to per-class method TIBs */
+  private static final AddressArray methodTIB = AddressArray.create(MAX_CLASSES);
   
   /** Each slot holds the size of the num,ref and method TOCs */
-  private static final int[] sizeStaticsTable = new int [0x200];
+  private static final int[] sizeStaticsTable = new int [MAX_CLASSES];
   
   private static int currTOCidx = 0;
   
@@ -643,6 +650,9 @@ public class VM_SubArchStatics implements VM_Constants {
   			                                       Address refStaticsBlock, int refStaticsLen,
   											              			   Address methodTIBBlock, int methodTIBLen) {
   	
+  	if (currTOCidx == MAX_CLASSES) {
+  		VM.sysFail("VM_SubArchStatics.addNewType: subarch class tables are full");
+  	}
   	if (VM.runningVM) {
 	  	staticsTOC.set((2*currTOCidx), numStaticsBlock);
 	  	staticsTOC.set((2*currTOCidx) + 1, refStaticsBlock);
@@ -669,8 +679,17 @@ public class VM_SubArchStatics implements VM_Constants {
   	
   	Offset ret = Offset.fromIntSignExtend(currTOCidx << LOG_BYTES_IN_ADDRESS);
   	currTOCidx++;
+  	VM_SubArchBootRecord.updateClassTOCs();
   	return ret;
   }
+  
+  /**
+   * Fetch number of classes in the subarch class tables.
+   */
+  @Uninterruptible
+  public static int getNumberOfClasses() {
+    return currTOCidx;
+  }
 
 	public static Object getMethodTIB() {
 		return methodTIB;
@@ -129,6 +129,19 @@ public abstract class VM_SysCall {
   @SysCallTemplate
   public abstract int sysAccess(byte[] name, int kind);
 
+  @SysCallTemplate
+  public abstract int sysFileIsRegular(int fd);
+
+  // file I/O helper threads
+  @SysCallTemplate
+  public abstract Address sysFileIOSubmit(int fd, Address buf, int cnt, int isWrite);
+
+  @SysCallTemplate
+  public abstract int sysFileIODone(Address request);
+
+  @SysCallTemplate
+  public abstract int sysFileIOComplete(Address request, Address buf);
+
   // mmap - memory mapping
   @SysCallTemplate
   public abstract Address sysMMap(Address start, Extent length, int protection, int flags, int fd, Offset offset);
@@ -462,4 +475,7 @@ public abstract class VM_SysCall {
 
   @SysCallTemplate
   public abstract Address subArchGetRefReturn(int threadId);
+
+  @SysCallTemplate
+  public abstract int subArchReleaseThread(int threadId);
 }
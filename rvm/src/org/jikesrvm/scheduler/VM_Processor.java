@@ -214,6 +214,21 @@ public abstract class VM_Processor extends MM_ProcessorContext implements VM_Con
   // How many times timer interrupt has occurred since last thread switch
   public int interruptQuantumCounter = 0;
 
+  /**
+   * Bytes still to be allocated on this processor before the next
+   * allocation is sampled by VM_AllocationProfile
+   */
+  public int allocationSampleCountdown;
+
+  /**
+   * Allocation samples taken on this processor that have not yet been
+   * aggregated (see VM_AllocationProfile)
+   */
+  public int[] allocationSamples;
+
+  /** Number of ints of allocationSamples in use */
+  public int allocationSampleCursor;
+
   /**
    * END FREQUENTLY ACCESSED INSTANCE FIELDS
    */
@@ -199,6 +199,11 @@ public abstract class VM_Thread {
    * The cause of the thread interruption (stop) or interruption
    */
   protected volatile Throwable causeOfThreadDeath;
+  /**
+   * An exception under construction on this thread whose stack trace
+   * need not be captured (see {@link org.jikesrvm.runtime.VM_StackTrace#elideTraceOf})
+   */
+  public Throwable stackTraceElidedFor;
   /**
    * Scheduling priority for this thread.
    * Note that: {@link java.lang.Thread#MIN_PRIORITY} <= priority
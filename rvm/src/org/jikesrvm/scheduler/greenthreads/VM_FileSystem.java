@@ -26,6 +26,7 @@ import org.jikesrvm.runtime.VM_Time;
 import org.jikesrvm.runtime.VM_TimeoutException;
 import org.jikesrvm.util.VM_StringUtilities;
 import org.vmmagic.pragma.Inline;
+import org.vmmagic.unboxed.Address;
 
 /**
  * Interface to filesystem of underlying operating system.
@@ -92,6 +93,12 @@ public class VM_FileSystem {
    */
   private static boolean[] standardFdIsNonblocking = new boolean[3];
 
+  /**
+   * Largest read or write of a regular file handed to a native helper
+   * thread in one request; larger transfers are split.
+   */
+  private static final int FILE_IO_CHUNK = 64 * 1024;
+
   /**
    * Get file status.
    * @param fileName file name
@@ -300,6 +307,10 @@ public class VM_FileSystem {
     boolean hasTimeout = (totalWaitTime >= 0.0);
     double lastWaitTime = hasTimeout ? now() : 0.0;
 
+    if (offloadFileIO(fd)) {
+      return readFileBytes(fd, buf, off, cnt);
+    }
+
     if (!blockingReadHack(fd)) {
       return -2;
     }
@@ -393,6 +404,10 @@ public class VM_FileSystem {
     // If the write would have blocked, put this thread on the
     // IO queue, then try again if it looks like the fd is ready.
 
+    if (offloadFileIO(fd)) {
+      return writeFileBytes(fd, buf, off, cnt);
+    }
+
     if (!blockingWriteHack(fd)) {
       return -2;
     }
@@ -421,6 +436,76 @@ public class VM_FileSystem {
     }
   }
 
+  /**
+   * Should reads and writes of the given fd be handed to native helper
+   * threads?  Regular files are always reported ready by select(), so the
+   * loops above would block the virtual processor, and every thread on it,
+   * whenever the disk has to be accessed.  Only once thread switching
+   * works, though: not early in boot nor while the VM is shutting down.
+   */
+  private static boolean offloadFileIO(int fd) {
+    return VM_GreenScheduler.allProcessorsInitialized && !VM_Wait.isIoWaitDisabled() &&
+           VM_GreenProcessor.getCurrentProcessor().threadSwitchingEnabled() &&
+           sysCall.sysFileIsRegular(fd) != 0;
+  }
+
+  /**
+   * Have a native helper thread read or write part of a regular file, and
+   * wait for it on the processor's file I/O queue.
+   *
+   * @return number of bytes transferred (-2: error)
+   */
+  private static int helperTransfer(int fd, byte[] buf, int off, int cnt, boolean write) {
+    Address request = sysCall.sysFileIOSubmit(fd, VM_Magic.objectAsAddress(buf).plus(off), cnt, write ? 1 : 0);
+    if (request.isZero()) {
+      return -2;
+    }
+    VM_Wait.fileIOWait(request);
+    // buf may have moved while we waited
+    return sysCall.sysFileIOComplete(request, VM_Magic.objectAsAddress(buf).plus(off));
+  }
+
+  /**
+   * Read multiple bytes from a regular file through the helper threads.
+   *
+   * @return number of bytes read (-2: error)
+   */
+  private static int readFileBytes(int fd, byte[] buf, int off, int cnt) {
+    int read = 0;
+    while (cnt > 0) {
+      int chunk = Math.min(cnt, FILE_IO_CHUNK);
+      int rc = helperTransfer(fd, buf, off, chunk, false);
+      if (rc < 0) {
+        return (read != 0) ? read : -2;
+      }
+      read += rc;
+      off += rc;
+      cnt -= rc;
+      // a short read of a regular file means we've reached EOF
+      if (rc < chunk) break;
+    }
+    return read;
+  }
+
+  /**
+   * Write multiple bytes to a regular file through the helper threads.
+   *
+   * @return number of bytes written (-2: error)
+   */
+  private static int writeFileBytes(int fd, byte[] buf, int off, int cnt) {
+    int written = 0;
+    while (cnt > 0) {
+      int rc = helperTransfer(fd, buf, off, Math.min(cnt, FILE_IO_CHUNK), true);
+      if (rc < 0) {
+        return (written != 0) ? written : -2;
+      }
+      written += rc;
+      off += rc;
+      cnt -= rc;
+    }
+    return written;
+  }
+
   public static boolean sync(int fd) {
     return sysCall.sysSyncFile(fd) == 0;
   }
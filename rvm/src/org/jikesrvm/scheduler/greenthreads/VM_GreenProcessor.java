@@ -104,6 +104,11 @@ public final class VM_GreenProcessor extends VM_Processor {
    * threads waiting for migration to subarch to complete
    */
   VM_ThreadSubArchWaitQueue subArchQueue;
+
+  /**
+   * threads waiting for native helpers to read or write regular files
+   */
+  VM_ThreadFileIOWaitQueue fileIOQueue;
   
   /**
    * thread to run when nothing else to do
@@ -151,6 +156,33 @@ public final class VM_GreenProcessor extends VM_Processor {
    */
   static VM_GreenProcessor idleProcessor;
 
+  /**
+   * non-null --> an idle processor that has asked to be given half of
+   * this processor's ready queue at its next dispatch.  Set by the thief
+   * while holding this processor's transferMutex, cleared by the owner.
+   */
+  private VM_GreenProcessor stealRequest;
+
+  /**
+   * true --> this processor has a steal request outstanding, and mustn't
+   * post another until the victim has answered it.  Set by this processor,
+   * cleared only by the victim, under this processor's transferMutex, when
+   * it answers the request.
+   */
+  private boolean stealPending;
+
+  /** seed for the thief's choice of victim */
+  private int stealSeed;
+
+  /** number of steal requests this processor has posted */
+  public int stealsRequested;
+
+  /** number of threads this processor has been given by steals */
+  public int threadsStolen;
+
+  /** number of threads this processor has given away to thieves */
+  public int threadsGivenAway;
+
   /**
    * Create data object to be associated with an o/s kernel thread
    * (aka "virtual cpu" or "pthread").
@@ -165,10 +197,12 @@ public final class VM_GreenProcessor extends VM_Processor {
     this.readyQueue = new VM_GreenThreadQueue();
     this.ioQueue = new VM_ThreadIOQueue();
     this.subArchQueue = new VM_ThreadSubArchWaitQueue();
+    this.fileIOQueue = new VM_ThreadFileIOWaitQueue();
     this.processWaitQueue = new VM_ThreadProcessWaitQueue();
     this.processWaitQueueLock = new VM_ProcessorLock();
     this.idleQueue = new VM_GreenThreadQueue();
     this.isInSelect = false;
+    this.stealSeed = id;
   }
 
   /**
@@ -301,14 +335,9 @@ public final class VM_GreenProcessor extends VM_Processor {
     previousThread = (VM_GreenThread)activeThread;
     activeThread = (VM_GreenThread)newThread;
 
-    if (!previousThread.isDaemonThread() && idleProcessor != null && !readyQueue.isEmpty()) {
-      // if we've got too much work, transfer some of it to another
-      // processor that has nothing to do
-      // don't schedule when switching away from a daemon thread...
-      // kludge to avoid thrashing when VM is underloaded with real threads.
-      VM_GreenThread t = readyQueue.dequeue();
-      if (VM.TraceThreadScheduling > 0) VM_Scheduler.trace("VM_Processor", "dispatch: offload ", t.getIndex());
-      scheduleThread(t);
+    if (stealRequest != null) {
+      // an idle processor has asked for some of our work
+      giveAwayWork();
     }
 
     // If one of the threads has an active timerInteval, then we need to
@@ -385,7 +414,6 @@ public final class VM_GreenProcessor extends VM_Processor {
         readyQueue.enqueue(t);
       }
     }
-
     if ((reportedTimerTicks % VM_GreenScheduler.numProcessors) + 1 == id) {
       // it's my turn to check the io queue early to avoid starvation
       // of threads in io wait.
@@ -473,6 +501,16 @@ public final class VM_GreenProcessor extends VM_Processor {
       }
       return t;
     }
+
+    if (fileIOQueue.isReady()) {
+      VM_GreenThread t = fileIOQueue.dequeue();
+      if (VM.TraceThreadScheduling > 1) VM_Scheduler.trace("VM_Processor", "getRunnableThread: fileIOQueue", t.getIndex());
+      if (VM.VerifyAssertions) {
+        // local queue: no other dispatcher should be running on thread's stack
+        VM._assert(!t.beingDispatched || t == VM_Scheduler.getCurrentThread());
+      }
+      return t;
+    }
     
     if (!idleQueue.isEmpty()) {
       VM_GreenThread t = idleQueue.dequeue();
@@ -560,6 +598,72 @@ public final class VM_GreenProcessor extends VM_Processor {
 
   }
 
+  /**
+   * Called by an idle processor's idle thread: pick a victim at random,
+   * preferring one that appears to have threads waiting in its ready
+   * queue, and ask it to hand over half of them at its next dispatch.
+   * The victim's ready queue is read without a lock; a stale answer only
+   * costs a wasted request.  Only one request is outstanding at a time, and
+   * none is posted while threads given by the last one wait in our transfer
+   * queue, so a thief can't collect half of every busy processor's work.
+   */
+  void requestWork() {
+    int n = VM_GreenScheduler.numProcessors;
+    if (n < 2 || stealPending || !transferQueue.isEmpty()) return;
+    // xorshift, good enough to spread thieves over victims
+    int seed = stealSeed;
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    stealSeed = seed;
+    int start = (seed & 0x7fffffff) % n;
+    for (int i = 0; i < n; i++) {
+      VM_GreenProcessor victim = VM_GreenScheduler.processors[((start + i) % n) + 1];
+      if (victim == null || victim == this || victim.stealRequest != null || victim.readyQueue.isEmpty()) continue;
+      victim.transferMutex.lock("posting steal request");
+      boolean posted = victim.stealRequest == null;
+      if (posted) {
+        stealPending = true;
+        victim.stealRequest = this;
+      }
+      victim.transferMutex.unlock();
+      if (posted) {
+        stealsRequested++;
+        if (VM.TraceThreadScheduling > 0) VM_Scheduler.trace("VM_Processor", "requestWork: victim ", victim.id);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Answer a steal request: move half of the ready queue (rounded up, the
+   * thread about to run stays here) to the thief's transfer queue.  Threads
+   * bound to this processor, and the thread we're switching away from,
+   * whose stack is still in use, are kept.
+   */
+  private void giveAwayWork() {
+    VM_GreenProcessor thief = stealRequest;
+    stealRequest = null;
+    int waiting = readyQueue.length();
+    int give = (waiting + 1) >> 1;
+    int given = 0;
+    thief.transferMutex.lock("giving work to thief");
+    for (int i = 0; i < waiting && given < give; i++) {
+      VM_GreenThread t = readyQueue.dequeue();
+      if (t.processorAffinity != null || t == previousThread) {
+        readyQueue.enqueue(t);
+      } else {
+        thief.transferQueue.enqueue(t);
+        given++;
+      }
+    }
+    thief.threadsStolen += given;
+    thief.stealPending = false;
+    thief.transferMutex.unlock();
+    threadsGivenAway += given;
+    if (VM.TraceThreadScheduling > 0) VM_Scheduler.trace("VM_Processor", "giveAwayWork: threads ", given);
+  }
+
   /**
    * Cycle (round robin) through the available processors.
    */
@@ -631,10 +735,19 @@ public final class VM_GreenProcessor extends VM_Processor {
     if (ioQueue != null) ioQueue.dump();
     VM.sysWrite(" subArchQueue:");
     if (subArchQueue != null) subArchQueue.dump();
+    VM.sysWrite(" fileIOQueue:");
+    if (fileIOQueue != null) fileIOQueue.dump();
     VM.sysWrite(" processWaitQueue:");
     if (processWaitQueue != null) processWaitQueue.dump();
     VM.sysWrite(" idleQueue:");
     if (idleQueue != null) idleQueue.dump();
+    VM.sysWrite(" steals requested: ");
+    VM.sysWriteInt(stealsRequested);
+    VM.sysWrite(" threads stolen: ");
+    VM.sysWriteInt(threadsStolen);
+    VM.sysWrite(" threads given away: ");
+    VM.sysWriteInt(threadsGivenAway);
+    VM.sysWrite("\n");
     VM.sysWrite(" status: ");
     int status = vpStatus;
     if (status == IN_NATIVE) VM.sysWrite("IN_NATIVE\n");
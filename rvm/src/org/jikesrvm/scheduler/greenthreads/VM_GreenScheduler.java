@@ -649,6 +649,9 @@ public final class VM_GreenScheduler extends VM_Scheduler {
       if (p.readyQueue.contains(t)) return "runnable on processor " + i;
       if (p.ioQueue.contains(t)) return "waitingForIO (" + p.ioQueue.getWaitDescription(t) + ") on processor " + i;
       if (p.subArchQueue.contains(t)) return "running on SubArch Processor status - (" + p.subArchQueue.getWaitDescription(t) + ")";
+      if (p.fileIOQueue.contains(t)) {
+        return "waitingForFileIO (" + p.fileIOQueue.getWaitDescription(t) + ") on processor " + i;
+      }
       if (p.processWaitQueue.contains(t)) {
         return "waitingForProcess (" + p.processWaitQueue.getWaitDescription(t) + ") on processor " + i;
       }
@@ -260,13 +260,13 @@ public class VM_GreenThread extends VM_Thread {
             t.schedule();
           }
         }
-        if (VM_GreenScheduler.wakeupQueue.isReady()) {
+        // wake all the threads whose time has come
+        while (VM_GreenScheduler.wakeupQueue.isReady()) {
           VM_GreenScheduler.wakeupMutex.lock("looking at wakeup queue");
           VM_GreenThread t = VM_GreenScheduler.wakeupQueue.dequeue();
           VM_GreenScheduler.wakeupMutex.unlock();
-          if (t != null) {
-            t.schedule();
-          }
+          if (t == null) break;
+          t.schedule();
         }
       }
 
@@ -689,6 +689,18 @@ public class VM_GreenThread extends VM_Thread {
     myThread.changeThreadState(State.SUBARCH_WAITING, State.RUNNABLE);
   }
 
+  /**
+   * Put given thread onto the file I/O wait queue.
+   * @param waitData the wait data specifying the request to wait for
+   */
+  public static void fileIOWaitImpl(VM_ThreadFileIOWaitData waitData) {
+    VM_GreenThread myThread = VM_GreenScheduler.getCurrentThread();
+    myThread.waitData = waitData;
+    myThread.changeThreadState(State.RUNNABLE, State.IO_WAITING);
+    yield(VM_GreenProcessor.getCurrentProcessor().fileIOQueue);
+    myThread.changeThreadState(State.IO_WAITING, State.RUNNABLE);
+  }
+
   /**
    * Put given thread onto the process wait queue.
    * @param waitData the wait data specifying which process to wait for
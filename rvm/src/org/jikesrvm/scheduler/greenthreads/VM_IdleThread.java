@@ -87,6 +87,7 @@ final class VM_IdleThread extends VM_GreenThread {
           VM_GreenThread.yield(VM_GreenProcessor.getCurrentProcessor().idleQueue);
           continue main;
         }
+        if (loadBalancing) myProcessor.requestWork();
       } while (VM_Time.nanoTime() < t);
 
       /* Now go into the long-term sleep/check-for-work loop. */
@@ -95,6 +96,7 @@ final class VM_IdleThread extends VM_GreenThread {
         if (availableWork(myProcessor)) {
           continue main;
         }
+        if (loadBalancing) myProcessor.requestWork();
         VM_GreenThread.yield(VM_GreenProcessor.getCurrentProcessor().idleQueue);
         /* Doze a millisecond (well, Linux rounds it up to a centisecond)  */
         sysCall.sysNanosleep((long)1e6);
@@ -111,6 +113,7 @@ final class VM_IdleThread extends VM_GreenThread {
     if (!p.transferQueue.isEmpty()) return true;
     if (p.ioQueue.isReady()) return true;
     if (p.subArchQueue.isReady()) return true;
+    if (p.fileIOQueue.isReady()) return true;
     if (VM_GreenScheduler.wakeupQueue.isReady()) {
       VM_GreenScheduler.wakeupMutex.lock("wakeup mutex");
       VM_GreenThread t = VM_GreenScheduler.wakeupQueue.dequeue();
@@ -0,0 +1,171 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.scheduler.greenthreads;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jikesrvm.classloader.VM_TypeReference;
+import org.jikesrvm.runtime.VM_Magic;
+import org.jikesrvm.runtime.VM_Reflection;
+import org.vmmagic.unboxed.Address;
+
+import static org.jikesrvm.runtime.VM_SysCall.sysCall;
+
+/**
+ * Handle on a method launched on the subarch by
+ * {@link VM_SubArchMigration#launch}.  The launching thread carries on
+ * while the method runs; {@link #get} waits for it in the processor's
+ * {@link VM_ThreadSubArchWaitQueue}, just as a synchronous migration does,
+ * and returns the method's result boxed as reflection would box it.
+ *
+ * <p> A migrated method can't be stopped once it has been handed to the
+ * subarch, so {@link #cancel} always fails.
+ *
+ * <p> Until the result is collected the future holds a subarch thread, the
+ * native copy of the parameters and pins on the reference arguments.  A
+ * future that is dropped without being waited for is handed, when it is
+ * finalized, to {@link VM_SubArchMigration}, which releases them once the
+ * method has completed.
+ */
+public final class VM_SubArchFuture implements Future<Object>, VM_ThreadSubArchConstants {
+
+  /** Id of the subarch thread running the method */
+  private final int threadId;
+
+  /** Return type of the method */
+  private final VM_TypeReference returnType;
+
+  /** Types of the method's parameters */
+  private final VM_TypeReference[] paramTypes;
+
+  /** The arguments, kept reachable and pinned until the method has completed */
+  private Object[] args;
+
+  /** Native copy of the parameters read by the subarch, freed on completion */
+  private Address params;
+
+  /** Has the result been collected? */
+  private volatile boolean done;
+
+  /** The result, once collected */
+  private Object result;
+
+  VM_SubArchFuture(int threadId, VM_TypeReference returnType, VM_TypeReference[] paramTypes,
+                   Object[] args, Address params) {
+    this.threadId = threadId;
+    this.returnType = returnType;
+    this.paramTypes = paramTypes;
+    this.args = args;
+    this.params = params;
+  }
+
+  /**
+   * @return false, a migrated method can't be cancelled
+   */
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  /**
+   * @return false, a migrated method can't be cancelled
+   */
+  public boolean isCancelled() {
+    return false;
+  }
+
+  /**
+   * Has the method completed?  Polls the subarch without waiting.
+   */
+  public boolean isDone() {
+    if (done) return true;
+    int[] status = new int[] { threadId };
+    sysCall.subArchCheckStatus(status, 1);
+    return (status[0] & SUBARCH_READY_BIT) != 0;
+  }
+
+  /**
+   * Wait for the method to complete.
+   *
+   * @return the method's result, boxed, or null for a void method
+   */
+  public Object get() {
+    if (!done) {
+      VM_Wait.subArchWait(threadId);
+      collect();
+    }
+    return result;
+  }
+
+  /**
+   * Wait for the method to complete, for at most the given time.
+   *
+   * @return the method's result, boxed, or null for a void method
+   * @throws TimeoutException if the method didn't complete in time
+   */
+  public Object get(long timeout, TimeUnit unit) throws TimeoutException {
+    if (!done) {
+      double seconds = unit.toNanos(timeout) / 1.0e9;
+      VM_ThreadSubArchWaitData waitData = VM_Wait.subArchWait(threadId, seconds);
+      if (waitData.isTimedOut()) {
+        throw new TimeoutException();
+      }
+      collect();
+    }
+    return result;
+  }
+
+  /**
+   * Fetch the result of the completed method, releasing its subarch thread
+   * and parameters, and unpinning its arguments.  Does nothing if another
+   * thread collected it first.
+   */
+  synchronized void collect() {
+    if (done) return;
+    if (returnType.isVoidType()) {
+      sysCall.subArchReleaseThread(threadId);
+    } else if (returnType.isBooleanType()) {
+      result = VM_Reflection.wrapBoolean(sysCall.subArchGetIntReturn(threadId));
+    } else if (returnType.isByteType()) {
+      result = VM_Reflection.wrapByte((byte) sysCall.subArchGetIntReturn(threadId));
+    } else if (returnType.isCharType()) {
+      result = VM_Reflection.wrapChar((char) sysCall.subArchGetIntReturn(threadId));
+    } else if (returnType.isShortType()) {
+      result = VM_Reflection.wrapShort((short) sysCall.subArchGetIntReturn(threadId));
+    } else if (returnType.isIntType()) {
+      result = VM_Reflection.wrapInt(sysCall.subArchGetIntReturn(threadId));
+    } else if (returnType.isLongType()) {
+      result = VM_Reflection.wrapLong(sysCall.subArchGetLongReturn(threadId));
+    } else if (returnType.isFloatType()) {
+      result = VM_Reflection.wrapFloat(sysCall.subArchGetFloatReturn(threadId));
+    } else if (returnType.isDoubleType()) {
+      result = VM_Reflection.wrapDouble(sysCall.subArchGetDoubleReturn(threadId));
+    } else {
+      result = VM_Magic.addressAsObject(sysCall.subArchGetRefReturn(threadId));
+    }
+    sysCall.sysFree(params);
+    params = Address.zero();
+    VM_SubArchMigration.unpinArguments(paramTypes, args, args.length);
+    args = null;
+    done = true;
+  }
+
+  /**
+   * Nobody waited for the method: have its subarch thread, parameters and
+   * pins released once it completes, without blocking the finalizer.
+   */
+  protected void finalize() throws Throwable {
+    if (!done) VM_SubArchMigration.abandon(this);
+    super.finalize();
+  }
+}
@@ -1,13 +1,17 @@
 package org.jikesrvm.scheduler.greenthreads;
 
+import java.util.ArrayList;
 import org.jikesrvm.SubordinateArchitecture;
 import org.jikesrvm.VM;
 import org.jikesrvm.VM_Constants;
 import org.jikesrvm.cellspu.VM_SubArchBootRecord;
 import org.jikesrvm.classloader.VM_Class;
 import org.jikesrvm.classloader.VM_Method;
+import org.jikesrvm.classloader.VM_TypeReference;
+import org.jikesrvm.memorymanagers.mminterface.MM_Interface;
 import org.jikesrvm.runtime.VM_BootRecord;
 import org.jikesrvm.runtime.VM_Magic;
+import org.jikesrvm.runtime.VM_Reflection;
 import org.vmmagic.pragma.Entrypoint;
 import org.vmmagic.unboxed.Address;
 import org.vmmagic.unboxed.Offset;
@@ -46,6 +50,8 @@ public class VM_SubArchMigration implements VM_Constants {
 																						paramsLength);
 		// wait for thread to migrate back here
 		VM_Wait.subArchWait(threadId);
+		// no return value to collect, so free the subarch thread
+		sysCall.subArchReleaseThread(threadId);
 		
 		return;
 	}
@@ -188,4 +194,163 @@ public class VM_SubArchMigration implements VM_Constants {
 		// get return value
 		return sysCall.subArchGetRefReturn(threadId);
 	}
+
+	/**
+	 * Launch a static method on the subarch without waiting for it to
+	 * complete.  Launches are queued to the first free subarch processor, so
+	 * one thread can keep every processor busy.
+	 *
+	 * @param method the method, which must be static and compilable for the subarch
+	 * @param args the arguments, boxed as for reflection
+	 * @return a handle on the running method
+	 */
+	public static VM_SubArchFuture launch(java.lang.reflect.Method method, Object... args) {
+		return launch(java.lang.reflect.JikesRVMSupport.getMethodOf(method), args, -1);
+	}
+
+	/**
+	 * Launch a static method on the subarch without waiting for it to complete.
+	 *
+	 * @param method the method, which must be static and compilable for the subarch
+	 * @param args the arguments, boxed as for reflection
+	 * @param procAffinity the subarch processor (numbered from 0) to run the
+	 *   method on, or -1 for the first free one
+	 * @return a handle on the running method
+	 */
+	public static VM_SubArchFuture launch(VM_Method method, Object[] args, int procAffinity) {
+		if (VM.VerifyAssertions) {
+			VM._assert(VM_SubArchBootRecord.isSubArchStarted());
+			VM._assert(method.isStatic() && method.isCompilableForSubArch());
+			VM._assert(procAffinity >= -1 && procAffinity < VM_GreenScheduler.numSubArchProcessors);
+		}
+
+		reapAbandoned();
+
+		VM_Class decClass = method.getDeclaringClass();
+		if (!decClass.isInstantiated(true)) {
+			decClass.resolve(true);
+			decClass.instantiate(true);
+		}
+		int methodTocOffset     = decClass.getSubArchTocIdx().plus(SubordinateArchitecture.VM_ArchConstants.TIB_TABLE_JTOC_OFF).toInt();
+		int methodSubArchOffset = method.getSubArchOffset().toInt();
+
+		// Lay the parameters out as the baseline compiler leaves them on the
+		// expression stack for a synchronous migration: first parameter at
+		// the highest address, paramsStart pointing at the last word
+		VM_TypeReference[] types = method.getParameterTypes();
+		if (VM.VerifyAssertions) VM._assert(args.length == types.length);
+		int paramsLength = method.getParameterWords();
+		Address params = sysCall.sysMalloc(Math.max(paramsLength, 1) << LOG_BYTES_IN_INT);
+		if (params.isZero()) {
+			throw new OutOfMemoryError("parameters for subarch method " + method);
+		}
+		Offset off = Offset.fromIntZeroExtend(paramsLength << LOG_BYTES_IN_INT);
+		for (int i = 0; i < types.length; i++) {
+			VM_TypeReference t = types[i];
+			off = off.minus(t.getStackWords() << LOG_BYTES_IN_INT);
+			if (t.isLongType()) {
+				params.store(VM_Reflection.unwrapLong(args[i]), off);
+			} else if (t.isDoubleType()) {
+				params.store(VM_Reflection.unwrapDouble(args[i]), off);
+			} else if (t.isFloatType()) {
+				params.store(VM_Reflection.unwrapFloat(args[i]), off);
+			} else if (t.isBooleanType()) {
+				params.store(VM_Reflection.unwrapBooleanAsInt(args[i]), off);
+			} else if (t.isByteType()) {
+				params.store((int) VM_Reflection.unwrapByte(args[i]), off);
+			} else if (t.isCharType()) {
+				params.store((int) VM_Reflection.unwrapChar(args[i]), off);
+			} else if (t.isShortType()) {
+				params.store((int) VM_Reflection.unwrapShort(args[i]), off);
+			} else if (t.isIntType()) {
+				params.store(VM_Reflection.unwrapInt(args[i]), off);
+			} else {
+				// the subarch reads the object while this thread carries on
+				// allocating, so it mustn't move until the future is collected
+				Object o = VM_Reflection.unwrapObject(args[i]);
+				if (o != null && !MM_Interface.pinObject(o)) {
+					unpinArguments(types, args, i);
+					sysCall.sysFree(params);
+					throw new OutOfMemoryError("pinning arguments of subarch method " + method);
+				}
+				params.store(VM_Magic.objectAsAddress(o), off);
+			}
+		}
+
+		VM_TypeReference returnType = method.getReturnType();
+		int retType;
+		if (returnType.isVoidType()) {
+			retType = RUN_METHOD_RETURNING_VOID;
+		} else if (returnType.isLongType()) {
+			retType = RUN_METHOD_RETURNING_LONG;
+		} else if (returnType.isFloatType()) {
+			retType = RUN_METHOD_RETURNING_FLOAT;
+		} else if (returnType.isDoubleType()) {
+			retType = RUN_METHOD_RETURNING_DOUBLE;
+		} else if (returnType.isIntLikeType()) {
+			retType = RUN_METHOD_RETURNING_INT;
+		} else {
+			retType = RUN_METHOD_RETURNING_REF;
+		}
+
+		VM_Magic.sync();
+
+		int threadId = sysCall.migrateToSubArch(retType,
+																						procAffinity,
+																						methodTocOffset,
+																						methodSubArchOffset,
+																						params,
+																						paramsLength);
+		return new VM_SubArchFuture(threadId, returnType, types, args, params);
+	}
+
+	/**
+	 * Futures that were finalized before their method completed, waiting to
+	 * have their subarch thread, parameters and pins released
+	 */
+	private static final ArrayList<VM_SubArchFuture> abandoned = new ArrayList<VM_SubArchFuture>();
+
+	/**
+	 * Release a future's subarch thread, parameters and pins once its
+	 * method completes.  Called from the finalizer, so must not block.
+	 *
+	 * @param future a future nobody will wait for
+	 */
+	static void abandon(VM_SubArchFuture future) {
+		synchronized (abandoned) {
+			abandoned.add(future);
+		}
+	}
+
+	/**
+	 * Release the abandoned futures whose methods have completed.  Called
+	 * by each launch, so the subarch threads and native memory held by
+	 * abandoned futures are recovered before more are taken.
+	 */
+	private static void reapAbandoned() {
+		synchronized (abandoned) {
+			for (int i = abandoned.size() - 1; i >= 0; i--) {
+				VM_SubArchFuture future = abandoned.get(i);
+				if (future.isDone()) {
+					future.collect();
+					abandoned.remove(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Unpin the reference arguments pinned by {@link #launch}.
+	 *
+	 * @param types the method's parameter types
+	 * @param args the arguments, boxed as for reflection
+	 * @param count the number of leading arguments to unpin
+	 */
+	static void unpinArguments(VM_TypeReference[] types, Object[] args, int count) {
+		for (int i = 0; i < count; i++) {
+			if (types[i].isReferenceType() && args[i] != null) {
+				MM_Interface.unpinObject(args[i]);
+			}
+		}
+	}
 }
@@ -38,5 +38,10 @@ abstract class VM_ThreadEventWaitDataVisitor {
    */
   abstract void visitThreadSubArchWaitData(VM_ThreadSubArchWaitData waitData);
 
+  /**
+   * Visit a VM_ThreadFileIOWaitData object.
+   */
+  abstract void visitThreadFileIOWaitData(VM_ThreadFileIOWaitData waitData);
+
 
 }
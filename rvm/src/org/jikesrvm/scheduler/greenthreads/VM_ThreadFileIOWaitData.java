@@ -0,0 +1,49 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.scheduler.greenthreads;
+
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+
+/**
+ * Object specifying a read or write of a regular file, handed to a native
+ * helper thread, to wait for.
+ * Used as event wait data for {@link VM_ThreadEventWaitQueue#enqueue}.
+ *
+ * @see VM_ThreadEventWaitData
+ * @see VM_FileSystem
+ */
+@Uninterruptible
+public final class VM_ThreadFileIOWaitData extends VM_ThreadEventWaitData {
+
+  /** The native request, as returned by sysFileIOSubmit */
+  public final Address request;
+
+  /**
+   * Constructor.
+   * @param maxWaitNano the timestamp when the wait should end
+   * @param request the native request
+   */
+  public VM_ThreadFileIOWaitData(long maxWaitNano, Address request) {
+    super(maxWaitNano);
+    this.request = request;
+  }
+
+  /**
+   * Accept a {@link VM_ThreadEventWaitQueue} to inform it
+   * of the actual type of this object.
+   */
+  public void accept(VM_ThreadEventWaitDataVisitor visitor) {
+    visitor.visitThreadFileIOWaitData(this);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.scheduler.greenthreads;
+
+import org.jikesrvm.VM;
+import static org.jikesrvm.runtime.VM_SysCall.sysCall;
+import org.vmmagic.pragma.Interruptible;
+import org.vmmagic.pragma.Uninterruptible;
+
+/**
+ * A list of threads waiting for native helper threads to finish reading or
+ * writing regular files for them.
+ */
+@Uninterruptible
+public final class VM_ThreadFileIOWaitQueue extends VM_ThreadEventWaitQueue {
+
+  /**
+   * Class to safely downcast from <code>VM_ThreadEventWaitData</code>
+   * to <code>VM_ThreadFileIOWaitData</code>.
+   * We use this because an actual Java cast could result in
+   * a thread switch, which is obviously bad in uninterruptible
+   * code.
+   */
+  @Uninterruptible
+  private static class WaitDataDowncaster extends VM_ThreadEventWaitDataVisitor {
+
+    private VM_ThreadFileIOWaitData waitData;
+
+    @Override
+    void visitThreadFileIOWaitData(VM_ThreadFileIOWaitData waitData) {
+      this.waitData = waitData;
+    }
+
+    @Override
+    void visitThreadSubArchWaitData(VM_ThreadSubArchWaitData waitData) {
+      if (VM.VerifyAssertions) VM._assert(false);
+    }
+
+    @Override
+    void visitThreadProcessWaitData(VM_ThreadProcessWaitData waitData) {
+      if (VM.VerifyAssertions) VM._assert(false);
+    }
+
+    @Override
+    void visitThreadIOWaitData(VM_ThreadIOWaitData waitData) {
+      if (VM.VerifyAssertions) VM._assert(false);
+    }
+  }
+
+  /**
+   * Private downcaster object for this queue.
+   * Avoids having to create them repeatedly.
+   */
+  private final WaitDataDowncaster myDowncaster = new WaitDataDowncaster();
+
+  /**
+   * Requests are polled one at a time by {@link #isReady(VM_GreenThread)},
+   * so there is nothing to gather first.
+   * @return true
+   */
+  @Override
+  public boolean pollForEvents() {
+    return true;
+  }
+
+  /**
+   * Determine whether or not given thread has become ready
+   * to run, i.e., because its helper has finished the request.
+   * If the thread is ready, update its wait flags appropriately.
+   */
+  @Override
+  public boolean isReady(VM_GreenThread thread) {
+    // Safe downcast from VM_ThreadEventWaitData to VM_ThreadFileIOWaitData.
+    thread.waitData.accept(myDowncaster);
+    VM_ThreadFileIOWaitData waitData = myDowncaster.waitData;
+    if (VM.VerifyAssertions) VM._assert(waitData == thread.waitData);
+
+    boolean ready = sysCall.sysFileIODone(waitData.request) != 0;
+    if (ready) {
+      waitData.setFinished();
+    }
+    return ready;
+  }
+
+  @Interruptible
+  @Override
+  void dumpWaitDescription(VM_GreenThread thread) {
+    thread.waitData.accept(myDowncaster);
+    VM_ThreadFileIOWaitData waitData = myDowncaster.waitData;
+
+    VM.sysWrite("FileIORequest: ");
+    VM.sysWrite(waitData.request);
+  }
+
+  @Interruptible
+  @Override
+  String getWaitDescription(VM_GreenThread thread) {
+    thread.waitData.accept(myDowncaster);
+    VM_ThreadFileIOWaitData waitData = myDowncaster.waitData;
+
+    StringBuffer buffer = new StringBuffer();
+    buffer.append("FileIORequest:");
+    buffer.append(Integer.toHexString(waitData.request.toInt()));
+    return buffer.toString();
+  }
+}
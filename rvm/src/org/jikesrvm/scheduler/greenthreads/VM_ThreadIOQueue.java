@@ -67,6 +67,11 @@ public final class VM_ThreadIOQueue extends VM_ThreadEventWaitQueue
     void visitThreadSubArchWaitData(VM_ThreadSubArchWaitData waitData) {
     	if (VM.VerifyAssertions) VM._assert(false);
     }
+
+    @Override
+    void visitThreadFileIOWaitData(VM_ThreadFileIOWaitData waitData) {
+      if (VM.VerifyAssertions) VM._assert(false);
+    }
   }
 
   /**
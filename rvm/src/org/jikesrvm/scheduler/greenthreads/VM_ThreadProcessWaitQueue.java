@@ -79,6 +79,11 @@ public class VM_ThreadProcessWaitQueue extends VM_ThreadEventWaitQueue implement
     void visitThreadSubArchWaitData(VM_ThreadSubArchWaitData waitData) {
     	if (VM.VerifyAssertions) VM._assert(false);
     }
+
+    @Override
+    void visitThreadFileIOWaitData(VM_ThreadFileIOWaitData waitData) {
+      if (VM.VerifyAssertions) VM._assert(false);
+    }
   }
 
   /**
@@ -19,28 +19,66 @@ import org.vmmagic.pragma.Uninterruptible;
 /**
  * A queue of VM_Proxys prioritized by their thread wakeup times.
  * based on VM_WakeupQueue (14 October 1998 Bowen Alpern)
+ *
+ * <p> The queue is a hierarchical timer wheel, so that putting a proxy on
+ * it takes constant time however many threads are sleeping.  Time is
+ * divided into ticks of about a millisecond.  Each level of the wheel has
+ * {@link #SLOTS} slots, a slot of level 0 holding the proxies due in one
+ * tick, and a slot of each higher level holding the proxies due in as many
+ * ticks as the whole of the level below.  As time reaches a slot of a
+ * higher level its proxies are cascaded down to the level below, and as
+ * it reaches a slot of level 0 its proxies expire, all at once, onto a
+ * list from which they are dequeued.
+ *
+ * <p> A proxy whose thread has been woken from its waiting queue is left
+ * where it is, and dropped when it is cascaded or expires.
  */
 @Uninterruptible
 public final class VM_ThreadProxyWakeupQueue extends VM_AbstractThreadQueue {
 
-  /** first thread on list */
-  private VM_ThreadProxy head;
+  /** log of the nanoseconds in a tick, about a millisecond */
+  private static final int LOG_NANOS_PER_TICK = 20;
+
+  /** log of the number of slots in each level */
+  private static final int LOG_SLOTS = 6;
+
+  /** number of slots in each level */
+  private static final int SLOTS = 1 << LOG_SLOTS;
+
+  /** number of levels, covering about 4.5 hours */
+  private static final int LEVELS = 4;
+
+  /** proxies in each slot of each level, level 0 first */
+  private final VM_ThreadProxy[] slots = new VM_ThreadProxy[LEVELS * SLOTS];
+
+  /** number of proxies in each level */
+  private final int[] levelCount = new int[LEVELS];
+
+  /** number of proxies in the wheel */
+  private int count;
+
+  /** the next tick to process */
+  private long currentTick;
+
+  /** no proxy will expire or be cascaded before this time */
+  private long nextNano = Long.MAX_VALUE;
+
+  /** proxies that have expired and wait to be dequeued */
+  private VM_ThreadProxy expired;
 
   /**
    * Are any proxies on the queue?
    */
   @Override
   public boolean isEmpty() {
-    return head == null;
+    return count == 0 && expired == null;
   }
 
   /**
-   * Is the head of the queue (the thread set to wake up first) ready to be
-   * restarted?
+   * Is there a thread that may be ready to be restarted?
    */
   public boolean isReady() {
-    VM_ThreadProxy temp = head;
-    return ((temp != null) && (VM_Time.nanoTime() >= temp.getWakeupNano()));
+    return expired != null || VM_Time.nanoTime() >= nextNano;
   }
 
   /**
@@ -61,20 +99,11 @@ public final class VM_ThreadProxyWakeupQueue extends VM_AbstractThreadQueue {
       p.mutex.lock("Enqueueing proxy");
       if (p.getPatron() != null) {
         if(VM.VerifyAssertions) VM._assert(p.getPatron().isQueueable());
-        VM_ThreadProxy previous = null;
-        VM_ThreadProxy current = head;
-        // skip proxies with earlier wakeup timestamps
-        while (current != null && current.getWakeupNano() <= p.getWakeupNano()) {
-          previous = current;
-          current = current.getWakeupNext();
+        if (count == 0) {
+          // nothing to process before now
+          currentTick = VM_Time.nanoTime() >> LOG_NANOS_PER_TICK;
         }
-        // insert p
-        if (previous == null) {
-          head = p;
-        } else {
-          previous.setWakeupNext(p);
-        }
-        p.setWakeupNext(current);
+        insert(p);
       }
       p.mutex.unlock();
     }
@@ -87,10 +116,12 @@ public final class VM_ThreadProxyWakeupQueue extends VM_AbstractThreadQueue {
   @Override
   public VM_GreenThread dequeue() {
     long currentNano = VM_Time.nanoTime();
-    while (head != null) {
-      if (currentNano < head.getWakeupNano()) return null;
-      VM_ThreadProxy p = head;
-      head = head.getWakeupNext();
+    if (currentNano >= nextNano) {
+      advance(currentNano >> LOG_NANOS_PER_TICK);
+    }
+    while (expired != null) {
+      VM_ThreadProxy p = expired;
+      expired = p.getWakeupNext();
       p.setWakeupNext(null);
       VM_GreenThread t = p.unproxy();
       if (t != null) return t;
@@ -98,15 +129,136 @@ public final class VM_ThreadProxyWakeupQueue extends VM_AbstractThreadQueue {
     return null;
   }
 
+  /**
+   * Put a proxy in the slot for its wakeup time.  A proxy due before the
+   * current tick goes in the current tick's slot, and one due beyond the
+   * last level in the last level's furthest slot, to be cascaded again.
+   */
+  private void insert(VM_ThreadProxy p) {
+    // round up so that a thread never wakes early
+    long tick = (p.getWakeupNano() + (1L << LOG_NANOS_PER_TICK) - 1) >> LOG_NANOS_PER_TICK;
+    if (tick < currentTick) {
+      tick = currentTick;
+    }
+    long maxTick = currentTick + (1L << (LEVELS * LOG_SLOTS)) - 1;
+    if (tick > maxTick) {
+      tick = maxTick;
+    }
+    int level = 0;
+    while (level < LEVELS - 1 && tick - currentTick >= (1L << ((level + 1) * LOG_SLOTS))) {
+      level++;
+    }
+    int slot = (level << LOG_SLOTS) + (int) ((tick >> (level * LOG_SLOTS)) & (SLOTS - 1));
+    p.setWakeupNext(slots[slot]);
+    slots[slot] = p;
+    levelCount[level]++;
+    count++;
+    // proxies above level 0 are next looked at when their slot is cascaded
+    long eventTick = (tick >> (level * LOG_SLOTS)) << (level * LOG_SLOTS);
+    long eventNano = eventTick << LOG_NANOS_PER_TICK;
+    if (eventNano < nextNano) {
+      nextNano = eventNano;
+    }
+  }
+
+  /**
+   * Process the ticks up to and including the given one, cascading the
+   * slots reached and moving the proxies of the level 0 slots reached onto
+   * the expired list.  Ticks on which nothing can happen are skipped.
+   */
+  private void advance(long nowTick) {
+    while (currentTick <= nowTick) {
+      if (count == 0) {
+        currentTick = nowTick + 1;
+        break;
+      }
+      // cascade the slots of higher levels whose time has come
+      int level = 1;
+      while (level < LEVELS && (currentTick & ((1L << (level * LOG_SLOTS)) - 1)) == 0) {
+        cascade(level, (int) ((currentTick >> (level * LOG_SLOTS)) & (SLOTS - 1)));
+        level++;
+      }
+      // expire the proxies due now
+      int slot = (int) (currentTick & (SLOTS - 1));
+      VM_ThreadProxy p = slots[slot];
+      slots[slot] = null;
+      while (p != null) {
+        VM_ThreadProxy next = p.getWakeupNext();
+        levelCount[0]--;
+        count--;
+        if (p.getPatron() != null) {
+          p.setWakeupNext(expired);
+          expired = p;
+        } else {
+          p.setWakeupNext(null);
+        }
+        p = next;
+      }
+      currentTick = nextEventTick(currentTick + 1, nowTick + 1);
+    }
+    nextNano = count == 0 ? Long.MAX_VALUE : nextEventTick(currentTick, Long.MAX_VALUE) << LOG_NANOS_PER_TICK;
+  }
+
+  /**
+   * Move the proxies of a slot down a level, dropping those whose thread
+   * has been woken.
+   */
+  private void cascade(int level, int index) {
+    int slot = (level << LOG_SLOTS) + index;
+    VM_ThreadProxy p = slots[slot];
+    slots[slot] = null;
+    while (p != null) {
+      VM_ThreadProxy next = p.getWakeupNext();
+      levelCount[level]--;
+      count--;
+      if (p.getPatron() != null) {
+        insert(p);
+      } else {
+        p.setWakeupNext(null);
+      }
+      p = next;
+    }
+  }
+
+  /**
+   * The first tick, from a given one, at which a slot holding proxies is
+   * reached: a tick of level 0 holding proxies, or the next time the lowest
+   * level above 0 holding proxies is cascaded.
+   *
+   * @param from the first tick not yet processed
+   * @param limit a tick to return if there's nothing to do before it
+   */
+  private long nextEventTick(long from, long limit) {
+    long next = limit;
+    if (levelCount[0] != 0) {
+      for (long tick = from; tick < from + SLOTS && tick < next; tick++) {
+        if (slots[(int) (tick & (SLOTS - 1))] != null) {
+          next = tick;
+          break;
+        }
+      }
+    }
+    for (int level = 1; level < LEVELS; level++) {
+      if (levelCount[level] != 0) {
+        long levelTicks = 1L << (level * LOG_SLOTS);
+        long cascadeTick = ((from + levelTicks - 1) >> (level * LOG_SLOTS)) << (level * LOG_SLOTS);
+        if (cascadeTick < next) {
+          next = cascadeTick;
+        }
+        break;
+      }
+    }
+    return next;
+  }
+
   /**
    * Number of items on queue (an estimate: queue is not locked during the
    * scan).
    */
   @Override
   public int length() {
-    if (head == null) return 0;
-    int length = 1;
-    for (VM_ThreadProxy p = head; p != null; p = p.getWakeupNext()) {
+    int length = count;
+    for (VM_ThreadProxy p = expired; p != null; p = p.getWakeupNext()) {
       length += 1;
     }
     return length;
@@ -115,23 +267,37 @@ public final class VM_ThreadProxyWakeupQueue extends VM_AbstractThreadQueue {
   // Debugging.
   //
   public boolean contains(VM_GreenThread t) {
-    for (VM_ThreadProxy p = head; p != null; p = p.getWakeupNext()) {
+    for (VM_ThreadProxy p = expired; p != null; p = p.getWakeupNext()) {
       if (p.getPatron() == t) return true;
     }
+    for (int slot = 0; slot < slots.length; slot++) {
+      for (VM_ThreadProxy p = slots[slot]; p != null; p = p.getWakeupNext()) {
+        if (p.getPatron() == t) return true;
+      }
+    }
     return false;
   }
 
   public void dump() {
-    if (head != null) {
+    if (!isEmpty()) {
       VM.sysWrite(" nowNano=", VM_Time.nanoTime());
       VM.sysWrite(" ");
-      for (VM_ThreadProxy p = head; p != null; p = p.getWakeupNext()) {
-        if (p.getPatron() != null) {
-          p.getPatron().dump();
-          VM.sysWrite("(wakeupNano=", p.getWakeupNano()); VM.sysWrite(") ");
+      for (VM_ThreadProxy p = expired; p != null; p = p.getWakeupNext()) {
+        dump(p);
+      }
+      for (int slot = 0; slot < slots.length; slot++) {
+        for (VM_ThreadProxy p = slots[slot]; p != null; p = p.getWakeupNext()) {
+          dump(p);
         }
       }
     }
     VM.sysWrite("\n");
   }
+
+  private static void dump(VM_ThreadProxy p) {
+    if (p.getPatron() != null) {
+      p.getPatron().dump();
+      VM.sysWrite("(wakeupNano=", p.getWakeupNano()); VM.sysWrite(") ");
+    }
+  }
 }
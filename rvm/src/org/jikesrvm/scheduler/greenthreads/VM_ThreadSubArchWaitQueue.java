@@ -53,6 +53,11 @@ public final class VM_ThreadSubArchWaitQueue extends VM_ThreadEventWaitQueue
     void visitThreadIOWaitData(VM_ThreadIOWaitData waitData) {
       if (VM.VerifyAssertions) VM._assert(false);
     }
+
+    @Override
+    void visitThreadFileIOWaitData(VM_ThreadFileIOWaitData waitData) {
+      if (VM.VerifyAssertions) VM._assert(false);
+    }
   }
 
   /**
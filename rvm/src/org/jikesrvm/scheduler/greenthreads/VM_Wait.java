@@ -13,6 +13,7 @@
 package org.jikesrvm.scheduler.greenthreads;
 
 import org.jikesrvm.runtime.VM_Time;
+import org.vmmagic.unboxed.Address;
 
 /**
  * A collection of static methods for waiting on some type of event.
@@ -33,6 +34,13 @@ class VM_Wait {
     noIoWait = true;
   }
 
+  /**
+   * Have IO waits been disabled because the VM is shutting down?
+   */
+  static boolean isIoWaitDisabled() {
+    return noIoWait;
+  }
+
   /**
    * Given a total number of seconds to wait, computes timestamp
    * of time when the wait should time out.
@@ -158,6 +166,20 @@ class VM_Wait {
   	return subArchWait(threadId, VM_ThreadEventConstants.WAIT_INFINITE);
   }
   
+  /**
+   * Suspend execution of current thread until a native helper has finished
+   * reading or writing a regular file for it.
+   * @param request the native request, as returned by sysFileIOSubmit
+   * @return the wait data object indicating the result of the wait
+   */
+  public static VM_ThreadFileIOWaitData fileIOWait(Address request) {
+    // A request in progress can't be abandoned, so there is no timeout
+    long maxWaitNano = getMaxWaitNano(VM_ThreadEventConstants.WAIT_INFINITE);
+    VM_ThreadFileIOWaitData waitData = new VM_ThreadFileIOWaitData(maxWaitNano, request);
+    VM_GreenThread.fileIOWaitImpl(waitData);
+    return waitData;
+  }
+
   /**
    * Suspend execution of current thread until thread has migrated back from
    * the subarch
@@ -0,0 +1,118 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.util;
+
+import org.jikesrvm.VM;
+import org.jikesrvm.runtime.VM_Magic;
+
+/**
+ * An insert only map from long keys to non-zero int values, with no
+ * boxing.  Open addressing with linear probing; 0 marks an empty entry,
+ * which is why 0 can't be a value.
+ *
+ * <p> Inserts must be serialized by the caller, but when running the VM
+ * {@link #get} may run concurrently with them without locking: an entry's
+ * key is visible before its value, and a grown table is only published
+ * once it is full.
+ */
+public final class VM_LongIntHashMap {
+  private static final int DEFAULT_SIZE = 64;
+
+  private static final class Table {
+    final long[] keys;
+    final int[] values;
+
+    Table(int size) {
+      keys = new long[size];
+      values = new int[size];
+    }
+  }
+
+  private Table table;
+  private int numElems = 0;
+
+  public VM_LongIntHashMap() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * @param size the initial capacity, rounded up to a power of 2
+   */
+  public VM_LongIntHashMap(int size) {
+    int capacity = 1;
+    while (capacity < size) capacity <<= 1;
+    table = new Table(capacity);
+  }
+
+  public int size() {
+    return numElems;
+  }
+
+  /**
+   * @param key the key
+   * @return the value for the key, 0 if there is none
+   */
+  public int get(long key) {
+    Table t = table;
+    int mask = t.values.length - 1;
+    for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+      int value = t.values[i];
+      if (value == 0) return 0;
+      if (VM.runningVM) VM_Magic.isync(); // don't read the key before the value
+      if (t.keys[i] == key) return value;
+    }
+  }
+
+  /**
+   * Add a key that isn't in the map.  Callers must serialize calls to put.
+   *
+   * @param key the key
+   * @param value the value, not 0
+   */
+  public void put(long key, int value) {
+    if (VM.VerifyAssertions) VM._assert(value != 0 && get(key) == 0);
+    if ((numElems + 1) * 2 > table.values.length) {
+      growMap();
+    }
+    insert(table, key, value);
+    numElems++;
+  }
+
+  private void growMap() {
+    Table old = table;
+    Table t = new Table(old.values.length * 2);
+    for (int i = 0; i < old.values.length; i++) {
+      if (old.values[i] != 0) insert(t, old.keys[i], old.values[i]);
+    }
+    if (VM.runningVM) VM_Magic.sync(); // publish the entries before the table
+    table = t;
+  }
+
+  private static void insert(Table t, long key, int value) {
+    int mask = t.values.length - 1;
+    int i = hash(key) & mask;
+    while (t.values[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    t.keys[i] = key;
+    if (VM.runningVM) VM_Magic.sync(); // publish the key before the value
+    t.values[i] = value;
+  }
+
+  private static int hash(long key) {
+    int h = (int) (key ^ (key >>> 32));
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    return h ^ (h >>> 13);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.aos;
+
+import org.jikesrvm.adaptive.controller.VM_SubArchMigrationProfile;
+
+/**
+ * Replay subarch migration decisions from profile records, as logged by
+ * the AOS controller, through the migration model.
+ */
+class TestSubArchMigrationReplay {
+
+  private static final String[] RECORDS = {
+      // loop heavy, small working set: worth migrating
+      "1234.5  subarch-profile method=LKernel;.sum([I)I futureTime=500.0 speedup=4.0 cost=0.1 length=200 loops=3" +
+      " mainArchCalls=0 allocations=0 workingSet=1024 estimate 208.14152823920267 migrate",
+      // short calls: the migration cost outweighs the speedup
+      "subarch-profile method=LKernel;.step([II)I futureTime=120.0 speedup=4.0 cost=0.1 length=64 loops=2" +
+      " mainArchCalls=0 allocations=0 workingSet=1032",
+      // calls back to the main arch and allocation reduce the speedup
+      "subarch-profile method=LKernel;.io(I)V futureTime=500.0 speedup=4.0 cost=0.1 length=200 loops=3" +
+      " mainArchCalls=2 allocations=1 workingSet=1024",
+      // no loops
+      "subarch-profile method=LKernel;.leaf(I)I futureTime=500.0 speedup=4.0 cost=0.01 length=20 loops=0" +
+      " mainArchCalls=0 allocations=0 workingSet=0",
+      // working set far larger than local store: a much smaller gain
+      "subarch-profile method=LKernel;.big([D)D futureTime=2000.0 speedup=4.0 cost=0.1 length=400 loops=4" +
+      " mainArchCalls=0 allocations=0 workingSet=1048576",
+      // malformed
+      "subarch-profile method=LKernel;.bad()V futureTime=oops speedup=4.0 cost=0.1 length=1 loops=1" +
+      " mainArchCalls=0 allocations=0 workingSet=0",
+      "subarch-profile method=LKernel;.bad()V futureTime=1.0",
+  };
+
+  public static void main(String[] args) {
+    for (String record : RECORDS) {
+      VM_SubArchMigrationProfile profile;
+      try {
+        profile = VM_SubArchMigrationProfile.parse(record);
+      } catch (IllegalArgumentException e) {
+        System.out.println("rejected: " + e.getMessage());
+        continue;
+      }
+      boolean roundTrip = record.indexOf(profile.toString()) >= 0 &&
+          VM_SubArchMigrationProfile.parse(profile.toString()).toString().equals(profile.toString());
+      System.out.println(profile.getMethod() +
+                         " estimate " + Math.round(profile.futureTimeOnSubArch()) +
+                         (profile.shouldMigrate() ? " migrate" : " stay") +
+                         " roundTrip " + roundTrip);
+    }
+  }
+}
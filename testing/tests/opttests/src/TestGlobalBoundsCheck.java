@@ -0,0 +1,235 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+
+/**
+ * Bounds checks the global bounds check elimination may remove, and
+ * checks it must keep.  Each kernel is run on arguments for which it stays
+ * in bounds and on arguments for which Java requires an
+ * ArrayIndexOutOfBoundsException.
+ */
+class TestGlobalBoundsCheck {
+
+  static boolean testSuccess = true;
+
+  public static void main(String[] args) {
+    run();
+  }
+
+  public static boolean run() {
+    System.out.println("TestGlobalBoundsCheck");
+    int[] a = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    // decreasing induction variables
+    check("sumDown", 36, sumDown(a));
+    checkThrows("sumDownFromLength", 8, new Kernel() { int run(int[] x) { return sumDownFromLength(x); } }, a);
+    check("sumDownBy2", 20, sumDownBy2(a));
+
+    // negative induction variables
+    check("sumShifted", 36, sumShifted(a, -3));
+    checkThrows("sumFromNegative", -3, new Kernel() { int run(int[] x) { return sumFrom(x, -3); } }, a);
+    check("sumFromZero", 36, sumFrom(a, 0));
+
+    // arraylength relations across arrays
+    check("copySameLength", 36, copySameLength(a));
+    checkThrows("copyShorter", 7, new Kernel() { int run(int[] x) { return copyShorter(x); } }, a);
+    check("copyViaOtherLength", 36, copyViaOtherLength(a, new int[a.length]));
+    checkThrows("copyViaLongerLength", 8, new Kernel() { int run(int[] x) { return copyViaOtherLength(x, new int[x.length + 1]); } }, a);
+
+    // array parameters
+    check("sumPrefix", 10, sumPrefix(a, 4));
+    checkThrows("sumPrefixTooLong", 8, new Kernel() { int run(int[] x) { return sumPrefix(x, x.length + 1); } }, a);
+    check("sumPairs", 63, sumPairs(a));
+
+    // overflow near Integer.MAX_VALUE
+    checkThrows("sumOffsetOverflow", Integer.MIN_VALUE, new Kernel() { int run(int[] x) { return sumOffset(x, Integer.MAX_VALUE); } }, a);
+    check("sumOffset", 26, sumOffset(a, 3));
+    checkThrows("midpointOverflow", -1, new Kernel() { int run(int[] x) { return midpoint(x, Integer.MAX_VALUE, Integer.MAX_VALUE); } }, a);
+    check("midpoint", 4, midpoint(a, 2, 4));
+    check("unsignedMidpoint", 4, unsignedMidpoint(a, 2, 4));
+    checkThrows("sumToMax", 8, new Kernel() { int run(int[] x) { return sumTo(x, Integer.MAX_VALUE); } }, a);
+
+    // checks that must be kept
+    checkThrows("sumNext", 8, new Kernel() { int run(int[] x) { return sumNext(x); } }, a);
+    checkThrows("sumInclusive", 8, new Kernel() { int run(int[] x) { return sumInclusive(x); } }, a);
+    checkThrows("sumAfterWrongGuard", 8, new Kernel() { int run(int[] x) { return sumAfterWrongGuard(x, 8); } }, a);
+    check("sumAfterGuard", 8, sumAfterGuard(a, 7));
+    checkThrows("sumAfterGuardLength", 8, new Kernel() { int run(int[] x) { return sumAfterGuard(x, 8); } }, a);
+    checkThrows("emptyArray", 0, new Kernel() { int run(int[] x) { return sumDownFromLength(new int[0]); } }, a);
+
+    System.out.println(testSuccess ? "TestGlobalBoundsCheck succeeded." : "TestGlobalBoundsCheck failed.");
+    return testSuccess;
+  }
+
+  abstract static class Kernel {
+    abstract int run(int[] a);
+  }
+
+  static void check(String name, int want, int got) {
+    if (want == got) {
+      System.out.println(name + ": " + got);
+    } else {
+      System.out.println(name + ": want " + want + " got " + got + " ***************");
+      testSuccess = false;
+    }
+  }
+
+  static void checkThrows(String name, int index, Kernel k, int[] a) {
+    try {
+      int got = k.run(a);
+      System.out.println(name + ": no exception, got " + got + " ***************");
+      testSuccess = false;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      String msg = e.getMessage();
+      if (msg == null || msg.indexOf(String.valueOf(index)) >= 0) {
+        System.out.println(name + ": ArrayIndexOutOfBoundsException");
+      } else {
+        System.out.println(name + ": wrong index " + msg + " ***************");
+        testSuccess = false;
+      }
+    }
+  }
+
+  static int sumDown(int[] a) {
+    int sum = 0;
+    for (int i = a.length - 1; i >= 0; i--) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int sumDownFromLength(int[] a) {
+    int sum = 0;
+    for (int i = a.length; i >= 0; i--) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int sumDownBy2(int[] a) {
+    int sum = 0;
+    for (int i = a.length - 1; i >= 0; i -= 2) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int sumShifted(int[] a, int start) {
+    int sum = 0;
+    for (int i = start; i < a.length + start; i++) {
+      sum += a[i - start];
+    }
+    return sum;
+  }
+
+  static int sumFrom(int[] a, int start) {
+    int sum = 0;
+    for (int i = start; i < a.length; i++) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int copySameLength(int[] a) {
+    int[] b = new int[a.length];
+    for (int i = 0; i < a.length; i++) {
+      b[i] = a[i];
+    }
+    return sumDown(b);
+  }
+
+  static int copyShorter(int[] a) {
+    int[] b = new int[a.length - 1];
+    for (int i = 0; i < a.length; i++) {
+      b[i] = a[i];
+    }
+    return sumDown(b);
+  }
+
+  static int copyViaOtherLength(int[] a, int[] b) {
+    for (int i = 0; i < b.length; i++) {
+      b[i] = a[i];
+    }
+    return sumDown(b);
+  }
+
+  static int sumPrefix(int[] a, int n) {
+    int sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int sumPairs(int[] a) {
+    int sum = 0;
+    for (int i = 1; i < a.length; i++) {
+      sum += a[i] + a[i - 1];
+    }
+    return sum;
+  }
+
+  static int sumOffset(int[] a, int k) {
+    int sum = 0;
+    for (int i = 1; i + k < a.length; i++) {
+      sum += a[i + k];
+    }
+    return sum;
+  }
+
+  static int midpoint(int[] a, int lo, int hi) {
+    return a[(lo + hi) / 2] + a[lo] * 0;
+  }
+
+  static int unsignedMidpoint(int[] a, int lo, int hi) {
+    if (lo < 0 || hi >= a.length || lo > hi) return -1;
+    return a[(lo + hi) >>> 1] + a[lo] * 0;
+  }
+
+  static int sumTo(int[] a, int limit) {
+    int sum = 0;
+    for (int i = 0; i <= limit; i++) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int sumNext(int[] a) {
+    int sum = 0;
+    for (int i = 0; i < a.length; i++) {
+      sum += a[i + 1];
+    }
+    return sum;
+  }
+
+  static int sumInclusive(int[] a) {
+    int sum = 0;
+    for (int i = 0; i <= a.length; i++) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int sumAfterWrongGuard(int[] a, int n) {
+    if (n > a.length) return -1;
+    int sum = 0;
+    for (int i = 0; i <= n; i++) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  static int sumAfterGuard(int[] a, int n) {
+    if (n > a.length) return -1;
+    return a[n];
+  }
+}
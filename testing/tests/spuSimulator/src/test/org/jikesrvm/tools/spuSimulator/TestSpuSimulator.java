@@ -0,0 +1,120 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.tools.spuSimulator;
+
+import org.jikesrvm.cellspu.VM_ChannelConstants;
+import org.jikesrvm.tools.spuSimulator.SpuMainMemory;
+import org.jikesrvm.tools.spuSimulator.SpuSimulator;
+
+/**
+ * Run small hand-assembled SPU programs through the simulator, checking
+ * both their results and the cycle counts of the timing model.
+ */
+class TestSpuSimulator implements VM_ChannelConstants {
+
+  private static int rr(int op, int rt, int ra, int rb) {
+    return (op << 21) | (rb << 14) | (ra << 7) | rt;
+  }
+
+  private static int ri10(int op, int rt, int ra, int i10) {
+    return (op << 24) | ((i10 & 0x3ff) << 14) | (ra << 7) | rt;
+  }
+
+  private static int ri16(int op, int rt, int i16) {
+    return (op << 23) | ((i16 & 0xffff) << 7) | rt;
+  }
+
+  private static int ri18(int op, int rt, int i18) {
+    return (op << 25) | ((i18 & 0x3ffff) << 7) | rt;
+  }
+
+  private static int channel(int op, int rt, int ca) {
+    return (op << 21) | (ca << 7) | rt;
+  }
+
+  private static int stop(int code) {
+    return code & 0x3fff;
+  }
+
+  private static byte[] assemble(int[] code) {
+    byte[] bytes = new byte[code.length << 2];
+    for (int i = 0; i < code.length; i++) {
+      bytes[(i << 2)] = (byte) (code[i] >>> 24);
+      bytes[(i << 2) + 1] = (byte) (code[i] >>> 16);
+      bytes[(i << 2) + 2] = (byte) (code[i] >>> 8);
+      bytes[(i << 2) + 3] = (byte) code[i];
+    }
+    return bytes;
+  }
+
+  private static SpuSimulator load(int[] code) {
+    SpuSimulator spu = new SpuSimulator(new SpuMainMemory());
+    spu.loadLocalStore(assemble(code), 0);
+    spu.setPC(0);
+    return spu;
+  }
+
+  private static void result(String name, SpuSimulator spu, int reason, int reg) {
+    System.out.println(name + ": reason " + reason + " stop 0x" + Integer.toHexString(spu.getStopCode()) +
+                       " r" + reg + " " + spu.getRegister(reg) +
+                       " instructions " + spu.getInstructions() + " cycles " + spu.getCycles());
+  }
+
+  /** Sum 10 + 9 + ... + 1 in a counted loop */
+  private static void testLoop() {
+    SpuSimulator spu = load(new int[] {
+        ri16(0x81, 3, 0),            // il    r3, 0
+        ri16(0x81, 4, 10),           // il    r4, 10
+        rr(0xc0, 3, 3, 4),           // a     r3, r3, r4
+        ri10(0x1c, 4, 4, -1),        // ai    r4, r4, -1
+        ri16(0x42, 4, -2),           // brnz  r4, -2
+        stop(0x2001)                 // stop  0x2001
+    });
+    result("loop", spu, spu.run(1000), 3);
+  }
+
+  /** Store a quadword to the local store and load it back */
+  private static void testLocalStore() {
+    SpuSimulator spu = load(new int[] {
+        ri18(0x21, 6, 0x1000),       // ila   r6, 0x1000
+        ri16(0x81, 5, 1234),         // il    r5, 1234
+        ri10(0x24, 5, 6, 1),         // stqd  r5, 16(r6)
+        ri10(0x34, 7, 6, 1),         // lqd   r7, 16(r6)
+        rr(0xc0, 7, 7, 7),           // a     r7, r7, r7
+        stop(0x2002)                 // stop  0x2002
+    });
+    result("localStore", spu, spu.run(1000), 7);
+  }
+
+  /** Read the inbound mailbox and answer on the outbound one */
+  private static void testMailbox() {
+    SpuSimulator spu = load(new int[] {
+        channel(0xd, 8, SPU_RD_IN_MBOX),    // rdch  r8, SPU_RdInMbox
+        ri10(0x1c, 8, 8, 1),                // ai    r8, r8, 1
+        channel(0x10d, 8, SPU_WR_OUT_MBOX), // wrch  SPU_WrOutMbox, r8
+        stop(0x2003)                        // stop  0x2003
+    });
+    int reason = spu.run(1000);
+    System.out.println("mailbox: blocked on empty mailbox " + (reason == SpuSimulator.BLOCKED));
+    spu.writeInMailbox(41);
+    reason = spu.run(1000);
+    System.out.println("mailbox: out " + (spu.hasOutMailbox() ? spu.readOutMailbox() : -1));
+    result("mailbox", spu, reason, 8);
+  }
+
+  public static void main(String[] args) {
+    testLoop();
+    testLocalStore();
+    testMailbox();
+  }
+}
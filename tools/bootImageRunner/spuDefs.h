@@ -6,19 +6,24 @@
 	// 0x0
 #define RUNTIME_CODE_START  		  0x0
 	
-#define TRAP_ENTRYPOINT						0x680
-	// 0x400
-#define CODE_ENTRYPOINT     		  0x700
-#define CODE_ENTRYPOINT_END       0x1000
+#define TRAP_ENTRYPOINT						0x1080
+	// 0x1100
+#define CODE_ENTRYPOINT     		  0x1100
+#define CODE_ENTRYPOINT_END       0x1800
 
-	// 0x800
-#define OBJECT_CACHE_TABLE  			0x1000
+	// 0x1800
+#define OBJECT_CACHE_TABLE  			0x1800
 #define OBJECT_CACHE_TABLE_LENGTH 0x2000
 #define OBJECT_CACHE_TABLE_END    OBJECT_CACHE_TABLE + OBJECT_CACHE_TABLE_LENGTH
 	
-	// 0x3000
-#define CODE_CACHE_START    		  OBJECT_CACHE_TABLE_END
-#define CODE_CACHE_LENGTH   		  0xD000
+	// 0x3800
+#define CODE_CACHE_TABLE          OBJECT_CACHE_TABLE_END
+#define CODE_CACHE_TABLE_LENGTH   0x1000
+#define CODE_CACHE_TABLE_END      CODE_CACHE_TABLE + CODE_CACHE_TABLE_LENGTH
+
+	// 0x4800
+#define CODE_CACHE_START    		  CODE_CACHE_TABLE_END
+#define CODE_CACHE_LENGTH   		  0xB800
 #define CODE_CACHE_END	    		 	CODE_CACHE_START + CODE_CACHE_LENGTH
 
 	// 0x10000
@@ -61,6 +66,10 @@
 #define ATOMIC_CACHE_LINE_LENTH   = 128  // size of cache line
 #define ATOMIC_CACHE_LINE_END     = ATOMIC_CACHE_LINE + ATOMIC_CACHE_LINE_LENTH
 	// 0x38080
+#define STATICS_CACHE_TABLE       0x38080
+#define STATICS_CACHE_TABLE_LENGTH 0x800
+#define STATICS_CACHE_TABLE_END   STATICS_CACHE_TABLE + STATICS_CACHE_TABLE_LENGTH
+	// 0x38880
 		
 	// 0x39800
 #define STACK_END									0x40000 - STACK_SIZE_NORMAL
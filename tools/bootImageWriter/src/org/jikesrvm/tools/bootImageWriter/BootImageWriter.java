@@ -33,6 +33,7 @@ import java.util.LinkedList;
 import org.jikesrvm.*;
 import org.jikesrvm.compilers.common.VM_CompiledMethod;
 import org.jikesrvm.compilers.common.VM_CompiledMethods;
+import org.jikesrvm.objectmodel.VM_FieldLayoutAdvice;
 import org.jikesrvm.objectmodel.VM_ObjectModel;
 import org.jikesrvm.objectmodel.VM_MiscHeader;
 import org.jikesrvm.runtime.VM_Statics;
@@ -373,6 +374,7 @@ public class BootImageWriter extends BootImageWriterMessages
     String   bootImageMapName      = null;
     Vector<String>   bootImageTypeNames    = null;
     String   bootImageTypeNamesFile = null;
+    String   fieldLayoutAdviceFile = null;
     String[] bootImageCompilerArgs = {};
 
     //
@@ -516,6 +518,13 @@ public class BootImageWriter extends BootImageWriterMessages
         littleEndian = true;
         continue;
       }
+      // field access counts used to lay out the fields of boot image classes
+      if (args[i].equals("-fieldLayoutAdvice")) {
+        if (++i >= args.length)
+          fail("argument syntax error: Got a -fieldLayoutAdvice flag without a following file name");
+        fieldLayoutAdviceFile = args[i];
+        continue;
+      }
       fail("unrecognized command line argument: " + args[i]);
     }
 
@@ -594,6 +603,9 @@ public class BootImageWriter extends BootImageWriterMessages
     //   - they are used now, by host jdk, to create the bootimage
     //   - they are used later, by target rvm, to execute the bootimage
     //
+    // Must precede class loading so that the boot image classes use it
+    VM_FieldLayoutAdvice.readAdvice(fieldLayoutAdviceFile);
+
     if (verbose >= 1) say("starting up");
     //    try {
       VM.initForBootImageWriter(bootImageRepositoriesAtBuildTime,
@@ -0,0 +1,505 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.spuSimulator;
+
+import java.io.PrintStream;
+import org.jikesrvm.cellspu.VM_ChannelConstants;
+
+/**
+ * The channel interface of a simulated SPU: its MFC (DMA queue, tag groups
+ * and atomic reservation) and its mailboxes.
+ *
+ * <p> Data is moved when a DMA command is issued, but the command's tag
+ * group only completes after a fixed latency plus the time to move the data
+ * at the modelled bandwidth, with the MFC moving one command's data at a
+ * time.  Code that waits on tag status before touching the data, as all
+ * correct code does, therefore sees the timing of a real MFC.
+ *
+ * <p> Each channel access is in two steps: ready(...) says when the access
+ * can complete, or {@link #BLOCKED} if it is waiting on the host (a
+ * mailbox), and then read or write performs it.
+ */
+final class SpuChannels implements VM_ChannelConstants {
+
+  /** Access can't complete until the host services a mailbox */
+  static final long BLOCKED = -1;
+
+  /** Number of entries in the MFC's SPU command queue */
+  private static final int QUEUE_SIZE = 16;
+  /** Number of entries in the inbound mailbox */
+  private static final int IN_MBOX_SIZE = 4;
+  /** Size of a reservation granule for getllar/putllc */
+  private static final int LINE_SIZE = 128;
+  /** Largest single DMA transfer */
+  private static final int MAX_TRANSFER = 16 * 1024;
+
+  private static final int MFC_GETLLAR_SUCCESS = 4;
+  private static final int MFC_PUTLLC_SUCCESS = 0;
+  private static final int MFC_PUTLLC_FAILURE = 1;
+  private static final int MFC_PUTLLUC_SUCCESS = 2;
+
+  private static final int TAG_UPDATE_IMMEDIATE = 0;
+  private static final int TAG_UPDATE_ANY = 1;
+  private static final int TAG_UPDATE_ALL = 2;
+
+  /** Cycles from a DMA command being issued to its data starting to arrive */
+  int dmaLatency = 400;
+  /** Bytes moved per cycle by the MFC */
+  int dmaBytesPerCycle = 8;
+
+  private final byte[] localStore;
+  private final SpuMainMemory memory;
+
+  // Command parameters written before a command
+  private int lsa;
+  private int eah;
+  private int eal;
+  private int transferSize;
+  private int tagId;
+
+  // Outstanding commands: their tag group and when they complete
+  private final int[] queueTag = new int[QUEUE_SIZE];
+  private final long[] queueDone = new long[QUEUE_SIZE];
+  private int queued;
+  /** When the MFC finishes moving the data of the commands issued so far */
+  private long busyUntil;
+
+  private int tagMask;
+  private int tagUpdate = TAG_UPDATE_IMMEDIATE;
+
+  /** Status of the last atomic command, -1 once read */
+  private int atomicStatus = -1;
+  private long atomicDone;
+  /** Address of the reserved line, -1 if none */
+  private long reservation = -1;
+
+  private final int[] inMbox = new int[IN_MBOX_SIZE];
+  private int inHead;
+  private int inCount;
+  private int outMbox;
+  private boolean outMboxFull;
+  private int outIntrMbox;
+  private boolean outIntrMboxFull;
+
+  // Statistics
+  long gets;
+  long puts;
+  long bytesIn;
+  long bytesOut;
+  long listElements;
+  long atomics;
+  long reservationsLost;
+  long mailboxReads;
+  long mailboxWrites;
+
+  SpuChannels(byte[] localStore, SpuMainMemory memory) {
+    this.localStore = localStore;
+    this.memory = memory;
+  }
+
+  /*
+   * Host side of the mailboxes
+   */
+
+  /** @return true if the SPU's inbound mailbox has room */
+  boolean canWriteInMailbox() {
+    return inCount < IN_MBOX_SIZE;
+  }
+
+  /** Put a value in the SPU's inbound mailbox, which must have room */
+  void writeInMailbox(int value) {
+    if (!canWriteInMailbox()) throw new IllegalStateException("inbound mailbox full");
+    inMbox[(inHead + inCount) % IN_MBOX_SIZE] = value;
+    inCount++;
+  }
+
+  boolean hasOutMailbox() {
+    return outMboxFull;
+  }
+
+  int readOutMailbox() {
+    if (!outMboxFull) throw new IllegalStateException("outbound mailbox empty");
+    outMboxFull = false;
+    return outMbox;
+  }
+
+  boolean hasOutInterruptMailbox() {
+    return outIntrMboxFull;
+  }
+
+  int readOutInterruptMailbox() {
+    if (!outIntrMboxFull) throw new IllegalStateException("outbound interrupt mailbox empty");
+    outIntrMboxFull = false;
+    return outIntrMbox;
+  }
+
+  /*
+   * SPU side
+   */
+
+  /**
+   * @param channel a channel the SPU wants to read
+   * @param now the current cycle
+   * @return the cycle at which the read can complete, or BLOCKED
+   */
+  long readReady(int channel, long now) {
+    switch (channel) {
+      case MFC_READ_TAG_STATUS:
+        return tagStatusReady(now);
+      case MFC_READ_ATOMIC_STAT:
+        return atomicStatus < 0 ? BLOCKED : Math.max(now, atomicDone);
+      case SPU_RD_IN_MBOX:
+        return inCount > 0 ? now : BLOCKED;
+      default:
+        throw new IllegalStateException("read of unsupported channel " + channel);
+    }
+  }
+
+  /**
+   * Read a channel, once readReady says it is ready.
+   *
+   * @param channel the channel
+   * @param now the current cycle
+   * @return the value read
+   */
+  int read(int channel, long now) {
+    switch (channel) {
+      case MFC_READ_TAG_STATUS:
+        return completedTags(now) & tagMask;
+      case MFC_READ_ATOMIC_STAT: {
+        int status = atomicStatus;
+        atomicStatus = -1;
+        return status;
+      }
+      case SPU_RD_IN_MBOX: {
+        int value = inMbox[inHead];
+        inHead = (inHead + 1) % IN_MBOX_SIZE;
+        inCount--;
+        mailboxReads++;
+        return value;
+      }
+      default:
+        throw new IllegalStateException("read of unsupported channel " + channel);
+    }
+  }
+
+  /**
+   * @param channel a channel the SPU wants to write
+   * @param now the current cycle
+   * @return the cycle at which the write can complete, or BLOCKED
+   */
+  long writeReady(int channel, long now) {
+    switch (channel) {
+      case SPU_WR_OUT_MBOX:
+        return outMboxFull ? BLOCKED : now;
+      case SPU_WR_OUT_INTR_MBOX:
+        return outIntrMboxFull ? BLOCKED : now;
+      case MFC_CMD_CHAN:
+        retire(now);
+        if (queued < QUEUE_SIZE) return now;
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < queued; i++) earliest = Math.min(earliest, queueDone[i]);
+        return earliest;
+      default:
+        return now;
+    }
+  }
+
+  /**
+   * Write a channel, once writeReady says it is ready.
+   *
+   * @param channel the channel
+   * @param value the value written
+   * @param now the current cycle
+   */
+  void write(int channel, int value, long now) {
+    switch (channel) {
+      case MFC_LOCAL_ADDR_CHAN:
+        lsa = value;
+        break;
+      case MFC_HI_MAIN_ADDR_CHAN:
+        eah = value;
+        break;
+      case MFC_LO_MAIN_ADDR_CHAN:
+        eal = value;
+        break;
+      case MFC_TRANSFER_SIZE_CHAN:
+        transferSize = value;
+        break;
+      case MFC_TAG_ID_CHAN:
+        tagId = value & 0x1f;
+        break;
+      case MFC_CMD_CHAN:
+        issue(value & 0xff, now);
+        break;
+      case MFC_WRITE_TAG_MASK:
+        tagMask = value;
+        break;
+      case MFC_WRITE_TAG_UPDATE:
+        tagUpdate = value;
+        break;
+      case MFC_WRITE_LIST_STALL_ACK:
+        break;
+      case SPU_WR_OUT_MBOX:
+        outMbox = value;
+        outMboxFull = true;
+        mailboxWrites++;
+        break;
+      case SPU_WR_OUT_INTR_MBOX:
+        outIntrMbox = value;
+        outIntrMboxFull = true;
+        mailboxWrites++;
+        break;
+      default:
+        throw new IllegalStateException("write of unsupported channel " + channel);
+    }
+  }
+
+  /**
+   * @param channel a channel
+   * @param now the current cycle
+   * @return the channel's count, as read by rchcnt
+   */
+  int count(int channel, long now) {
+    switch (channel) {
+      case MFC_READ_TAG_STATUS:
+        return tagStatusReady(now) == now ? 1 : 0;
+      case MFC_READ_ATOMIC_STAT:
+        return (atomicStatus >= 0 && atomicDone <= now) ? 1 : 0;
+      case MFC_CMD_CHAN:
+        retire(now);
+        return QUEUE_SIZE - queued;
+      case SPU_RD_IN_MBOX:
+        return inCount;
+      case SPU_WR_OUT_MBOX:
+        return outMboxFull ? 0 : 1;
+      case SPU_WR_OUT_INTR_MBOX:
+        return outIntrMboxFull ? 0 : 1;
+      default:
+        return 1;
+    }
+  }
+
+  /** Forget the commands that have completed by now */
+  private void retire(long now) {
+    int j = 0;
+    for (int i = 0; i < queued; i++) {
+      if (queueDone[i] > now) {
+        queueTag[j] = queueTag[i];
+        queueDone[j] = queueDone[i];
+        j++;
+      }
+    }
+    queued = j;
+  }
+
+  /** @return the tag groups with no commands outstanding at cycle now */
+  private int completedTags(long now) {
+    int completed = -1;
+    for (int i = 0; i < queued; i++) {
+      if (queueDone[i] > now) completed &= ~(1 << queueTag[i]);
+    }
+    return completed;
+  }
+
+  /** @return the cycle at which the tag group with the given tag completes */
+  private long tagDone(int tag, long now) {
+    long done = now;
+    for (int i = 0; i < queued; i++) {
+      if (queueTag[i] == tag) done = Math.max(done, queueDone[i]);
+    }
+    return done;
+  }
+
+  /** @return when a read of the tag status can complete */
+  private long tagStatusReady(long now) {
+    switch (tagUpdate) {
+      case TAG_UPDATE_ANY: {
+        long ready = Long.MAX_VALUE;
+        for (int tag = 0; tag < 32; tag++) {
+          if ((tagMask & (1 << tag)) != 0) ready = Math.min(ready, tagDone(tag, now));
+        }
+        return ready == Long.MAX_VALUE ? BLOCKED : ready;
+      }
+      case TAG_UPDATE_ALL: {
+        long ready = now;
+        for (int tag = 0; tag < 32; tag++) {
+          if ((tagMask & (1 << tag)) != 0) ready = Math.max(ready, tagDone(tag, now));
+        }
+        return ready;
+      }
+      default:
+        return now;
+    }
+  }
+
+  /**
+   * Queue a command for the tag group and the time to move size bytes.
+   */
+  private void enqueue(int size, long now) {
+    long start = Math.max(now, busyUntil);
+    long transfer = (size + dmaBytesPerCycle - 1) / dmaBytesPerCycle;
+    busyUntil = start + transfer;
+    queueTag[queued] = tagId;
+    queueDone[queued] = busyUntil + dmaLatency;
+    queued++;
+  }
+
+  private long effectiveAddress(int lo) {
+    return ((long) eah << 32) | (lo & 0xffffffffL);
+  }
+
+  private int localAddress(int address, int size) {
+    int a = address & (localStore.length - 1);
+    if (a + size > localStore.length) {
+      throw new IllegalStateException("DMA of " + size + " bytes at 0x" + Integer.toHexString(a) +
+                                      " runs off the end of local store");
+    }
+    return a;
+  }
+
+  private static void checkSize(int size) {
+    if (size < 0 || size > MAX_TRANSFER) {
+      throw new IllegalStateException("bad DMA transfer size " + size);
+    }
+  }
+
+  /** Lose the reservation if [ea, ea+size) overlaps it */
+  private void touch(long ea, int size) {
+    if (reservation >= 0 && ea < reservation + LINE_SIZE && reservation < ea + size) {
+      reservation = -1;
+      reservationsLost++;
+    }
+  }
+
+  /**
+   * Issue an MFC command.  The fence and barrier forms are treated as the
+   * plain form, as commands are ordered here anyway.
+   */
+  private void issue(int command, long now) {
+    switch (command) {
+      case MFC_GET_OPCODE: case MFC_GET_OPCODE | 1: case MFC_GET_OPCODE | 2: {
+        checkSize(transferSize);
+        memory.read(effectiveAddress(eal), localStore, localAddress(lsa, transferSize), transferSize);
+        gets++;
+        bytesIn += transferSize;
+        enqueue(transferSize, now);
+        break;
+      }
+      case MFC_PUT_OPCODE: case MFC_PUT_OPCODE | 1: case MFC_PUT_OPCODE | 2: {
+        checkSize(transferSize);
+        long ea = effectiveAddress(eal);
+        touch(ea, transferSize);
+        memory.write(ea, localStore, localAddress(lsa, transferSize), transferSize);
+        puts++;
+        bytesOut += transferSize;
+        enqueue(transferSize, now);
+        break;
+      }
+      case MFC_GETL_OPCODE: case MFC_GETL_OPCODE | 1: case MFC_GETL_OPCODE | 2:
+        list(false, now);
+        gets++;
+        break;
+      case MFC_PUTL_OPCODE: case MFC_PUTL_OPCODE | 1: case MFC_PUTL_OPCODE | 2:
+        list(true, now);
+        puts++;
+        break;
+      case MFC_GETLLAR_OPCODE: {
+        long ea = effectiveAddress(eal) & ~(long) (LINE_SIZE - 1);
+        memory.read(ea, localStore, localAddress(lsa & ~(LINE_SIZE - 1), LINE_SIZE), LINE_SIZE);
+        reservation = ea;
+        bytesIn += LINE_SIZE;
+        atomic(MFC_GETLLAR_SUCCESS, now);
+        break;
+      }
+      case MFC_PUTLLC_OPCODE: {
+        long ea = effectiveAddress(eal) & ~(long) (LINE_SIZE - 1);
+        if (reservation == ea) {
+          memory.write(ea, localStore, localAddress(lsa & ~(LINE_SIZE - 1), LINE_SIZE), LINE_SIZE);
+          bytesOut += LINE_SIZE;
+          atomic(MFC_PUTLLC_SUCCESS, now);
+        } else {
+          atomic(MFC_PUTLLC_FAILURE, now);
+        }
+        reservation = -1;
+        break;
+      }
+      case MFC_PUTLLUC_OPCODE:
+      case MFC_PUTQLLUC_OPCODE: {
+        long ea = effectiveAddress(eal) & ~(long) (LINE_SIZE - 1);
+        touch(ea, LINE_SIZE);
+        memory.write(ea, localStore, localAddress(lsa & ~(LINE_SIZE - 1), LINE_SIZE), LINE_SIZE);
+        bytesOut += LINE_SIZE;
+        if (command == MFC_PUTLLUC_OPCODE) {
+          atomic(MFC_PUTLLUC_SUCCESS, now);
+        } else {
+          enqueue(LINE_SIZE, now);
+        }
+        break;
+      }
+      default:
+        throw new IllegalStateException("unsupported MFC command 0x" + Integer.toHexString(command));
+    }
+  }
+
+  /** Complete an atomic command, which bypasses the command queue */
+  private void atomic(int status, long now) {
+    atomics++;
+    atomicStatus = status;
+    atomicDone = now + dmaLatency;
+  }
+
+  /**
+   * Run a list command.  The list is in local store at the address written
+   * to MFC_LIST_ADDR_CHAN; each 8 byte element holds a transfer size and the
+   * low word of an effective address.
+   */
+  private void list(boolean put, long now) {
+    int listSize = transferSize;
+    int list = localAddress(eal, listSize);
+    int local = lsa;
+    int total = 0;
+    for (int e = 0; e < listSize; e += 8) {
+      int size = readLocalInt(list + e) & 0x7fff;
+      long ea = effectiveAddress(readLocalInt(list + e + 4));
+      int la = localAddress(local, size);
+      if (put) {
+        touch(ea, size);
+        memory.write(ea, localStore, la, size);
+        bytesOut += size;
+      } else {
+        memory.read(ea, localStore, la, size);
+        bytesIn += size;
+      }
+      local += size;
+      total += size;
+      listElements++;
+    }
+    enqueue(total, now);
+  }
+
+  private int readLocalInt(int a) {
+    return ((localStore[a] & 0xff) << 24) | ((localStore[a + 1] & 0xff) << 16) |
+           ((localStore[a + 2] & 0xff) << 8) | (localStore[a + 3] & 0xff);
+  }
+
+  void report(PrintStream out) {
+    out.println("  DMA gets:              " + gets + " (" + bytesIn + " bytes in)");
+    out.println("  DMA puts:              " + puts + " (" + bytesOut + " bytes out)");
+    if (listElements > 0) out.println("  DMA list elements:     " + listElements);
+    if (atomics > 0) {
+      out.println("  atomic commands:       " + atomics + " (" + reservationsLost + " reservations lost)");
+    }
+    out.println("  mailbox reads/writes:  " + mailboxReads + "/" + mailboxWrites);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.spuSimulator;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * The main memory seen by a simulated SPU through its MFC.  Sparse: pages
+ * are allocated when first written, and memory that has never been written
+ * reads as zero.
+ */
+public final class SpuMainMemory {
+  private static final int LOG_PAGE_SIZE = 12;
+  private static final int PAGE_SIZE = 1 << LOG_PAGE_SIZE;
+  private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+  private final HashMap<Long, byte[]> pages = new HashMap<Long, byte[]>();
+
+  private byte[] page(long ea, boolean create) {
+    Long key = ea >>> LOG_PAGE_SIZE;
+    byte[] page = pages.get(key);
+    if (page == null && create) {
+      page = new byte[PAGE_SIZE];
+      pages.put(key, page);
+    }
+    return page;
+  }
+
+  /**
+   * Copy from main memory.
+   *
+   * @param ea effective address to copy from
+   * @param dst where to copy to
+   * @param off offset in dst
+   * @param len number of bytes
+   */
+  public void read(long ea, byte[] dst, int off, int len) {
+    while (len > 0) {
+      int inPage = (int) (ea & PAGE_MASK);
+      int n = Math.min(len, PAGE_SIZE - inPage);
+      byte[] page = page(ea, false);
+      if (page == null) {
+        for (int i = 0; i < n; i++) dst[off + i] = 0;
+      } else {
+        System.arraycopy(page, inPage, dst, off, n);
+      }
+      ea += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Copy into main memory.
+   *
+   * @param ea effective address to copy to
+   * @param src where to copy from
+   * @param off offset in src
+   * @param len number of bytes
+   */
+  public void write(long ea, byte[] src, int off, int len) {
+    while (len > 0) {
+      int inPage = (int) (ea & PAGE_MASK);
+      int n = Math.min(len, PAGE_SIZE - inPage);
+      System.arraycopy(src, off, page(ea, true), inPage, n);
+      ea += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /** @return the big endian word at ea */
+  public int readInt(long ea) {
+    byte[] b = new byte[4];
+    read(ea, b, 0, 4);
+    return ((b[0] & 0xff) << 24) | ((b[1] & 0xff) << 16) | ((b[2] & 0xff) << 8) | (b[3] & 0xff);
+  }
+
+  /** Store a big endian word at ea */
+  public void writeInt(long ea, int value) {
+    byte[] b = {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    write(ea, b, 0, 4);
+  }
+
+  /**
+   * Copy a file into main memory.
+   *
+   * @param file the file
+   * @param ea where to put it
+   * @return the number of bytes read
+   */
+  public int load(String file, long ea) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      byte[] buf = new byte[PAGE_SIZE];
+      int total = 0;
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        write(ea + total, buf, 0, n);
+        total += n;
+      }
+      return total;
+    } finally {
+      in.close();
+    }
+  }
+}
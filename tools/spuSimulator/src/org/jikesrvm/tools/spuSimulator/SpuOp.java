@@ -0,0 +1,282 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.spuSimulator;
+
+/**
+ * The SPU instructions the simulator understands: those the cellspu
+ * assembler (org.jikesrvm.compilers.common.assembler.cellspu.VM_Assembler)
+ * can emit.  Opcodes and widths are those of the assembler's templates
+ * (e.g. LQDtemplate = 0x34 << 24 is an 8 bit opcode).
+ *
+ * <p> The latencies are the number of cycles before the result can be
+ * used, roughly as given for the SPU pipelines in the Cell Broadband
+ * Engine Programming Handbook.
+ */
+enum SpuOp {
+  // Memory and generate controls
+  LQD(0x34, 8, Format.RI10, 6),
+  LQX(0x1c4, 11, Format.RR, 6),
+  LQA(0x61, 9, Format.RI16, 6),
+  LQR(0x67, 9, Format.RI16, 6),
+  STQD(0x24, 8, Format.RI10, 6),
+  STQX(0x144, 11, Format.RR, 6),
+  STQA(0x41, 9, Format.RI16, 6),
+  STQR(0x47, 9, Format.RI16, 6),
+  CBD(0x1f4, 11, Format.RI7, 4),
+  CBX(0x1d4, 11, Format.RR, 4),
+  CHD(0x1f5, 11, Format.RI7, 4),
+  CHX(0x1d5, 11, Format.RR, 4),
+  CWD(0x1f6, 11, Format.RI7, 4),
+  CWX(0x1d6, 11, Format.RR, 4),
+  CDD(0x1f7, 11, Format.RI7, 4),
+  CDX(0x1d7, 11, Format.RR, 4),
+
+  // Constant formation
+  ILH(0x83, 9, Format.RI16, 2),
+  ILHU(0x82, 9, Format.RI16, 2),
+  IL(0x81, 9, Format.RI16, 2),
+  ILA(0x21, 7, Format.RI18, 2),
+  IOHL(0xc1, 9, Format.RI16, 2),
+  FSMBI(0x65, 9, Format.RI16, 4),
+
+  // Integer and logical
+  AH(0xc8, 11, Format.RR, 2),
+  AHI(0x1d, 8, Format.RI10, 2),
+  A(0xc0, 11, Format.RR, 2),
+  AI(0x1c, 8, Format.RI10, 2),
+  SFH(0x48, 11, Format.RR, 2),
+  SFHI(0xd, 8, Format.RI10, 2),
+  SF(0x40, 11, Format.RR, 2),
+  SFI(0xc, 8, Format.RI10, 2),
+  ADDX(0x340, 11, Format.RR, 2),
+  CG(0xc2, 11, Format.RR, 2),
+  SFX(0x341, 11, Format.RR, 2),
+  BG(0x42, 11, Format.RR, 2),
+  MPY(0x3c4, 11, Format.RR, 7),
+  MPYU(0x3cc, 11, Format.RR, 7),
+  MPYH(0x3c5, 11, Format.RR, 7),
+  MPYI(0x74, 8, Format.RI10, 7),
+  MPYUI(0x75, 8, Format.RI10, 7),
+  CLZ(0x2a5, 11, Format.RR1, 2),
+  FSM(0x1b4, 11, Format.RR1, 4),
+  XSBH(0x2b6, 11, Format.RR1, 2),
+  XSHW(0x2ae, 11, Format.RR1, 2),
+  XSWD(0x2a6, 11, Format.RR1, 2),
+  AND(0xc1, 11, Format.RR, 2),
+  ANDC(0x2c1, 11, Format.RR, 2),
+  ANDBI(0x16, 8, Format.RI10, 2),
+  ANDHI(0x15, 8, Format.RI10, 2),
+  ANDI(0x14, 8, Format.RI10, 2),
+  OR(0x41, 11, Format.RR, 2),
+  ORC(0x2c9, 11, Format.RR, 2),
+  ORBI(0x6, 8, Format.RI10, 2),
+  ORHI(0x5, 8, Format.RI10, 2),
+  ORI(0x4, 8, Format.RI10, 2),
+  XOR(0x241, 11, Format.RR, 2),
+  XORBI(0x46, 8, Format.RI10, 2),
+  XORHI(0x45, 8, Format.RI10, 2),
+  XORI(0x44, 8, Format.RI10, 2),
+  NAND(0xc9, 11, Format.RR, 2),
+  NOR(0x49, 11, Format.RR, 2),
+  EQV(0x249, 11, Format.RR, 2),
+  SELB(0x8, 4, Format.RRR, 2),
+  SHUFB(0xb, 4, Format.RRR, 4),
+
+  // Shift and rotate
+  SHLH(0x5f, 11, Format.RR, 4),
+  SHLHI(0x7f, 11, Format.RI7, 4),
+  SHL(0x5b, 11, Format.RR, 4),
+  SHLI(0x7b, 11, Format.RI7, 4),
+  SHLQBY(0x1df, 11, Format.RR, 4),
+  SHLQBYI(0x1ff, 11, Format.RI7, 4),
+  SHLQBYBI(0x1cf, 11, Format.RR, 4),
+  SHLQBI(0x1db, 11, Format.RR, 4),
+  SHLQBII(0x1fb, 11, Format.RI7, 4),
+  ROTH(0x5c, 11, Format.RR, 4),
+  ROTHI(0x7c, 11, Format.RI7, 4),
+  ROT(0x58, 11, Format.RR, 4),
+  ROTI(0x78, 11, Format.RI7, 4),
+  ROTM(0x59, 11, Format.RR, 4),
+  ROTMI(0x79, 11, Format.RI7, 4),
+  ROTMA(0x5a, 11, Format.RR, 4),
+  ROTMAI(0x7a, 11, Format.RI7, 4),
+  ROTQBY(0x1dc, 11, Format.RR, 4),
+  ROTQBYI(0x1fc, 11, Format.RI7, 4),
+  ROTQMBY(0x1dd, 11, Format.RR, 4),
+  ROTQMBYI(0x1fd, 11, Format.RI7, 4),
+  ROTQBYBI(0x1cc, 11, Format.RR, 4),
+  ROTQBI(0x1d8, 11, Format.RR, 4),
+  ROTQMBI(0x1d9, 11, Format.RR, 4),
+  ROTQMBII(0x1f9, 11, Format.RI7, 4),
+  ROTQMBYBI(0x1cd, 11, Format.RR, 4),
+
+  // Compare
+  CEQB(0x3d0, 11, Format.RR, 2),
+  CEQBI(0x7e, 8, Format.RI10, 2),
+  CEQH(0x3c8, 11, Format.RR, 2),
+  CEQHI(0x7d, 8, Format.RI10, 2),
+  CEQ(0x3c0, 11, Format.RR, 2),
+  CEQI(0x7c, 8, Format.RI10, 2),
+  CGTB(0x250, 11, Format.RR, 2),
+  CGTBI(0x4e, 8, Format.RI10, 2),
+  CGTH(0x248, 11, Format.RR, 2),
+  CGTHI(0x4d, 8, Format.RI10, 2),
+  CGT(0x240, 11, Format.RR, 2),
+  CGTI(0x4c, 8, Format.RI10, 2),
+  CLGTB(0x2d0, 11, Format.RR, 2),
+  CLGTBI(0x5e, 8, Format.RI10, 2),
+  CLGTH(0x2c8, 11, Format.RR, 2),
+  CLGTHI(0x5d, 8, Format.RI10, 2),
+  CLGT(0x2c0, 11, Format.RR, 2),
+  CLGTI(0x5c, 8, Format.RI10, 2),
+
+  // Branch
+  BR(0x64, 9, Format.RI16, 4),
+  BRA(0x60, 9, Format.RI16, 4),
+  BRSL(0x66, 9, Format.RI16, 4),
+  BRASL(0x62, 9, Format.RI16, 4),
+  BI(0x1a8, 11, Format.RR1, 4),
+  BISL(0x1a9, 11, Format.RR1, 4),
+  BRNZ(0x42, 9, Format.RI16, 4),
+  BRZ(0x40, 9, Format.RI16, 4),
+  BIZ(0x128, 11, Format.RR1, 4),
+  BINZ(0x129, 11, Format.RR1, 4),
+
+  // Floating point
+  FA(0x2c4, 11, Format.RR, 6),
+  DFA(0x2cc, 11, Format.RR, 13),
+  FS(0x2c5, 11, Format.RR, 6),
+  DFS(0x2cd, 11, Format.RR, 13),
+  FM(0x2c6, 11, Format.RR, 6),
+  DFM(0x2ce, 11, Format.RR, 13),
+  CSFLT(0x1da, 10, Format.RI8, 7),
+  CFLTS(0x1d8, 10, Format.RI8, 7),
+  CUFLT(0x1db, 10, Format.RI8, 7),
+  CFLTU(0x1d9, 10, Format.RI8, 7),
+  FRDS(0x3b9, 11, Format.RR1, 13),
+  FESD(0x3b8, 11, Format.RR1, 13),
+  FCEQ(0x3c2, 11, Format.RR, 2),
+  FCGT(0x2c2, 11, Format.RR, 2),
+  DFCEQ(0x3c3, 11, Format.RR, 13),
+  DFCGT(0x2c3, 11, Format.RR, 13),
+  FMA(0xe, 4, Format.RRR, 6),
+  FMS(0xf, 4, Format.RRR, 6),
+  FNMS(0xd, 4, Format.RRR, 6),
+  FREST(0x1b8, 11, Format.RR1, 4),
+  FI(0x3d4, 11, Format.RR, 7),
+
+  // Control and channels
+  STOP(0x0, 11, Format.NONE, 0),
+  LNOP(0x1, 11, Format.NONE, 0),
+  SYNC(0x2, 11, Format.NONE, 0),
+  DSYNC(0x3, 11, Format.NONE, 0),
+  NOP(0x201, 11, Format.NONE, 0),
+  RDCH(0xd, 11, Format.CHANNEL, 6),
+  RCHCNT(0xf, 11, Format.CHANNEL, 6),
+  WRCH(0x10d, 11, Format.CHANNEL, 6);
+
+  /** Instruction formats, naming the fields that hold operands */
+  enum Format {
+    /** RT, RA, RB */
+    RR,
+    /** RT, RA */
+    RR1,
+    /** RT, RB, RA, RC: RT is in the high bits */
+    RRR,
+    /** RT, RA, 7 bit immediate */
+    RI7,
+    /** RT, RA, 8 bit immediate */
+    RI8,
+    /** RT, RA, 10 bit immediate */
+    RI10,
+    /** RT, 16 bit immediate */
+    RI16,
+    /** RT, 18 bit immediate */
+    RI18,
+    /** RT, channel in the RA field */
+    CHANNEL,
+    /** no register operands */
+    NONE
+  }
+
+  final int opcode;
+  final int width;
+  final Format format;
+  final int latency;
+
+  SpuOp(int opcode, int width, Format format, int latency) {
+    this.opcode = opcode;
+    this.width = width;
+    this.format = format;
+    this.latency = latency;
+  }
+
+  /** Every opcode extended to 11 bits, to the instruction it encodes */
+  private static final SpuOp[] decodeTable = new SpuOp[1 << 11];
+
+  static {
+    for (SpuOp op : values()) {
+      int first = op.opcode << (11 - op.width);
+      int last = first + (1 << (11 - op.width));
+      for (int i = first; i < last; i++) {
+        if (decodeTable[i] != null) {
+          throw new Error("SPU opcode of " + op + " overlaps " + decodeTable[i]);
+        }
+        decodeTable[i] = op;
+      }
+    }
+  }
+
+  /**
+   * @param instruction an instruction
+   * @return what it is, or null if the simulator doesn't know it
+   */
+  static SpuOp decode(int instruction) {
+    return decodeTable[instruction >>> 21];
+  }
+
+  /** Does the instruction read its RT field as well as (or instead of) writing it? */
+  boolean readsRT() {
+    switch (this) {
+      case STQD: case STQX: case STQA: case STQR:
+      case ADDX: case SFX: case IOHL:
+      case BRZ: case BRNZ: case BIZ: case BINZ:
+      case WRCH:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** Does the instruction write its RT field? */
+  boolean writesRT() {
+    switch (this) {
+      case STQD: case STQX: case STQA: case STQR:
+      case BR: case BRA: case BI: case BRZ: case BRNZ: case BIZ: case BINZ:
+      case WRCH:
+        return false;
+      default:
+        return format != Format.NONE;
+    }
+  }
+
+  /** Is this one of the double precision instructions, which stall issue? */
+  boolean isDouble() {
+    switch (this) {
+      case DFA: case DFS: case DFM: case DFCEQ: case DFCGT: case FRDS: case FESD:
+        return true;
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,1100 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Common Public License (CPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/cpl1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.spuSimulator;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A host side simulator for a single SPU, so that code produced by the
+ * cellspu compilers can be run, traced and timed without Cell hardware.
+ *
+ * <p> The timing model is a simple one: instructions issue in order one per
+ * cycle (no dual issue), an instruction waits for its source registers to
+ * be ready, a taken branch costs a full pipeline refill (no hint
+ * instructions are emitted by our compilers), double precision instructions
+ * stall issue, and channel operations wait for the MFC or mailbox as
+ * modelled by {@link SpuChannels}.  That is enough to compare code
+ * sequences and DMA strategies, not to predict cycle exact timings.
+ *
+ * <p> Run with no arguments for the command line options.
+ */
+public final class SpuSimulator {
+
+  /** Size of local store */
+  public static final int LOCAL_STORE_SIZE = 256 * 1024;
+  private static final int LSLR = LOCAL_STORE_SIZE - 1;
+
+  /** Cycles lost by a taken branch */
+  private static final int BRANCH_PENALTY = 18;
+  /** Cycles a double precision instruction stalls issue for */
+  private static final int DOUBLE_STALL = 6;
+
+  /* Reasons for run returning */
+  public static final int STOPPED = 0;
+  public static final int BLOCKED = 1;
+  public static final int LIMIT = 2;
+
+  final byte[] localStore = new byte[LOCAL_STORE_SIZE];
+  private final SpuMainMemory memory;
+  final SpuChannels channels;
+
+  /** 128 registers of 4 words each, word 0 being the preferred slot */
+  private final int[] regs = new int[128 * 4];
+  /** Cycle at which each register's latest value can be used */
+  private final long[] ready = new long[128];
+  /** Result being computed */
+  private final int[] t = new int[4];
+
+  private int pc;
+  private int stopCode;
+  private boolean trace;
+
+  // Statistics
+  private long cycle;
+  private long instructions;
+  private long dependencyStalls;
+  private long branchesTaken;
+  private long branchStalls;
+  private long doubleStalls;
+  private long channelStalls;
+  private long loads;
+  private long stores;
+  private final long[] opCounts = new long[SpuOp.values().length];
+
+  public SpuSimulator(SpuMainMemory memory) {
+    this.memory = memory;
+    this.channels = new SpuChannels(localStore, memory);
+  }
+
+  /*
+   * Host interface
+   */
+
+  public SpuMainMemory getMainMemory() {
+    return memory;
+  }
+
+  public void setPC(int pc) {
+    this.pc = pc & LSLR & ~3;
+  }
+
+  public int getPC() {
+    return pc;
+  }
+
+  /** @return the signal code of the last stop instruction */
+  public int getStopCode() {
+    return stopCode;
+  }
+
+  public long getCycles() {
+    return cycle;
+  }
+
+  public long getInstructions() {
+    return instructions;
+  }
+
+  public void setTrace(boolean trace) {
+    this.trace = trace;
+  }
+
+  /** Set the model's DMA latency (cycles) and bandwidth (bytes per cycle) */
+  public void setDmaTiming(int latency, int bytesPerCycle) {
+    channels.dmaLatency = latency;
+    channels.dmaBytesPerCycle = bytesPerCycle;
+  }
+
+  /** Set the preferred word of a register, the other words to 0 */
+  public void setRegister(int reg, int value) {
+    regs[reg << 2] = value;
+    regs[(reg << 2) + 1] = 0;
+    regs[(reg << 2) + 2] = 0;
+    regs[(reg << 2) + 3] = 0;
+  }
+
+  /** @return the preferred word of a register */
+  public int getRegister(int reg) {
+    return regs[reg << 2];
+  }
+
+  /** Copy bytes into local store */
+  public void loadLocalStore(byte[] data, int address) {
+    System.arraycopy(data, 0, localStore, address & LSLR, data.length);
+  }
+
+  public boolean canWriteInMailbox() {
+    return channels.canWriteInMailbox();
+  }
+
+  public void writeInMailbox(int value) {
+    channels.writeInMailbox(value);
+  }
+
+  public boolean hasOutMailbox() {
+    return channels.hasOutMailbox();
+  }
+
+  public int readOutMailbox() {
+    return channels.readOutMailbox();
+  }
+
+  public boolean hasOutInterruptMailbox() {
+    return channels.hasOutInterruptMailbox();
+  }
+
+  public int readOutInterruptMailbox() {
+    return channels.readOutInterruptMailbox();
+  }
+
+  /**
+   * Run until a stop instruction, a channel access that waits on the host,
+   * or the instruction limit.  After a stop the pc is that of the following
+   * instruction; after blocking it is that of the channel instruction, which
+   * is retried by the next run.
+   *
+   * @param limit maximum number of instructions to execute
+   * @return STOPPED, BLOCKED or LIMIT
+   */
+  public int run(long limit) {
+    for (long i = 0; i < limit; i++) {
+      int reason = step();
+      if (reason >= 0) return reason;
+    }
+    return LIMIT;
+  }
+
+  /*
+   * Local store and register access
+   */
+
+  private int loadWord(int a) {
+    return ((localStore[a] & 0xff) << 24) | ((localStore[a + 1] & 0xff) << 16) |
+           ((localStore[a + 2] & 0xff) << 8) | (localStore[a + 3] & 0xff);
+  }
+
+  private void storeWord(int a, int v) {
+    localStore[a] = (byte) (v >>> 24);
+    localStore[a + 1] = (byte) (v >>> 16);
+    localStore[a + 2] = (byte) (v >>> 8);
+    localStore[a + 3] = (byte) v;
+  }
+
+  /** @return signed halfword i (0..7) of a register */
+  private int half(int reg, int i) {
+    int w = regs[(reg << 2) + (i >> 1)];
+    return (i & 1) == 0 ? (w >> 16) : (short) w;
+  }
+
+  /** @return byte i (0..15) of a register, unsigned */
+  private int byteOf(int reg, int i) {
+    return (regs[(reg << 2) + (i >> 2)] >>> (24 - ((i & 3) << 3))) & 0xff;
+  }
+
+  private static void setHalf(int[] t, int i, int v) {
+    int w = i >> 1;
+    if ((i & 1) == 0) {
+      t[w] = (t[w] & 0xffff) | (v << 16);
+    } else {
+      t[w] = (t[w] & 0xffff0000) | (v & 0xffff);
+    }
+  }
+
+  private static void setByte(int[] t, int i, int v) {
+    int shift = 24 - ((i & 3) << 3);
+    t[i >> 2] = (t[i >> 2] & ~(0xff << shift)) | ((v & 0xff) << shift);
+  }
+
+  private double dword(int reg, int i) {
+    long bits = ((long) regs[(reg << 2) + 2 * i] << 32) | (regs[(reg << 2) + 2 * i + 1] & 0xffffffffL);
+    return Double.longBitsToDouble(bits);
+  }
+
+  private static void setDword(int[] t, int i, double v) {
+    long bits = Double.doubleToRawLongBits(v);
+    t[2 * i] = (int) (bits >>> 32);
+    t[2 * i + 1] = (int) bits;
+  }
+
+  private float fword(int reg, int i) {
+    return Float.intBitsToFloat(regs[(reg << 2) + i]);
+  }
+
+  private static int bool(boolean b) {
+    return b ? -1 : 0;
+  }
+
+  private static int unsignedCompare(int a, int b) {
+    return (a ^ 0x80000000) < (b ^ 0x80000000) ? -1 : (a == b ? 0 : 1);
+  }
+
+  /*
+   * Execution
+   */
+
+  /** Wait for a source register */
+  private long source(long issue, int reg) {
+    return Math.max(issue, ready[reg]);
+  }
+
+  /**
+   * Execute one instruction.
+   *
+   * @return -1 to carry on, otherwise the reason to stop
+   */
+  private int step() {
+    int w = loadWord(pc);
+    SpuOp op = SpuOp.decode(w);
+    if (op == null) {
+      throw new IllegalStateException("illegal instruction 0x" + Integer.toHexString(w) +
+                                      " at 0x" + Integer.toHexString(pc));
+    }
+
+    int rt, ra, rb, rc;
+    if (op.format == SpuOp.Format.RRR) {
+      rt = (w >>> 21) & 0x7f;
+      rc = w & 0x7f;
+    } else {
+      rt = w & 0x7f;
+      rc = 0;
+    }
+    ra = (w >>> 7) & 0x7f;
+    rb = (w >>> 14) & 0x7f;
+
+    // When can it issue?
+    long issue = cycle;
+    switch (op.format) {
+      case RRR:
+        issue = source(source(source(issue, rc), rb), ra);
+        break;
+      case RR:
+        issue = source(source(issue, rb), ra);
+        break;
+      case RR1:
+      case RI7:
+      case RI8:
+      case RI10:
+        issue = source(issue, ra);
+        break;
+      default:
+        break;
+    }
+    if (op.readsRT()) issue = source(issue, rt);
+    dependencyStalls += issue - cycle;
+
+    if (op.format == SpuOp.Format.CHANNEL && op != SpuOp.RCHCNT) {
+      long channelReady = op == SpuOp.RDCH ? channels.readReady(ra, issue) : channels.writeReady(ra, issue);
+      if (channelReady == SpuChannels.BLOCKED) {
+        cycle = issue;
+        return BLOCKED;
+      }
+      channelStalls += channelReady - issue;
+      issue = channelReady;
+    }
+
+    if (trace) {
+      System.out.println(issue + "\t" + hex(pc) + "\t" + disassemble(w));
+    }
+
+    instructions++;
+    opCounts[op.ordinal()]++;
+    cycle = issue + 1;
+    if (op.isDouble()) {
+      cycle += DOUBLE_STALL;
+      doubleStalls += DOUBLE_STALL;
+    }
+
+    int next = (pc + 4) & LSLR;
+    int target = -1;
+    boolean writeT = op.writesRT();
+    int pa = ra << 2;
+    int pb = rb << 2;
+    int pt = rt << 2;
+
+    int i7 = (w << 11) >> 25;
+    int i8 = (w >>> 14) & 0xff;
+    int i10 = (w << 8) >> 22;
+    int i16 = (w << 9) >> 16;
+    int u16 = (w >>> 7) & 0xffff;
+    int i18 = (w >>> 7) & 0x3ffff;
+
+    switch (op) {
+      // Memory
+      case LQD:
+      case LQX:
+      case LQA:
+      case LQR: {
+        int a = lsAddress(op, ra, rb, i10, i16);
+        for (int i = 0; i < 4; i++) t[i] = loadWord(a + 4 * i);
+        loads++;
+        break;
+      }
+      case STQD:
+      case STQX:
+      case STQA:
+      case STQR: {
+        int a = lsAddress(op, ra, rb, i10, i16);
+        for (int i = 0; i < 4; i++) storeWord(a + 4 * i, regs[pt + i]);
+        stores++;
+        break;
+      }
+      case CBD: case CHD: case CWD: case CDD:
+        generateControl(op, regs[pa] + i7);
+        break;
+      case CBX: case CHX: case CWX: case CDX:
+        generateControl(op, regs[pa] + regs[pb]);
+        break;
+
+      // Constant formation
+      case ILH:
+        for (int i = 0; i < 4; i++) t[i] = (u16 << 16) | u16;
+        break;
+      case ILHU:
+        for (int i = 0; i < 4; i++) t[i] = u16 << 16;
+        break;
+      case IL:
+        for (int i = 0; i < 4; i++) t[i] = i16;
+        break;
+      case ILA:
+        for (int i = 0; i < 4; i++) t[i] = i18;
+        break;
+      case IOHL:
+        for (int i = 0; i < 4; i++) t[i] = regs[pt + i] | u16;
+        break;
+      case FSMBI:
+        for (int i = 0; i < 16; i++) setByte(t, i, (u16 & (0x8000 >>> i)) != 0 ? 0xff : 0);
+        break;
+
+      // Integer
+      case AH:
+        for (int i = 0; i < 8; i++) setHalf(t, i, half(ra, i) + half(rb, i));
+        break;
+      case AHI:
+        for (int i = 0; i < 8; i++) setHalf(t, i, half(ra, i) + i10);
+        break;
+      case A:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] + regs[pb + i];
+        break;
+      case AI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] + i10;
+        break;
+      case SFH:
+        for (int i = 0; i < 8; i++) setHalf(t, i, half(rb, i) - half(ra, i));
+        break;
+      case SFHI:
+        for (int i = 0; i < 8; i++) setHalf(t, i, i10 - half(ra, i));
+        break;
+      case SF:
+        for (int i = 0; i < 4; i++) t[i] = regs[pb + i] - regs[pa + i];
+        break;
+      case SFI:
+        for (int i = 0; i < 4; i++) t[i] = i10 - regs[pa + i];
+        break;
+      case ADDX:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] + regs[pb + i] + (regs[pt + i] & 1);
+        break;
+      case SFX:
+        for (int i = 0; i < 4; i++) t[i] = regs[pb + i] + ~regs[pa + i] + (regs[pt + i] & 1);
+        break;
+      case CG:
+        for (int i = 0; i < 4; i++) {
+          t[i] = (int) (((regs[pa + i] & 0xffffffffL) + (regs[pb + i] & 0xffffffffL)) >>> 32);
+        }
+        break;
+      case BG:
+        for (int i = 0; i < 4; i++) t[i] = unsignedCompare(regs[pb + i], regs[pa + i]) >= 0 ? 1 : 0;
+        break;
+      case MPY:
+        for (int i = 0; i < 4; i++) t[i] = (short) regs[pa + i] * (short) regs[pb + i];
+        break;
+      case MPYU:
+        for (int i = 0; i < 4; i++) t[i] = (regs[pa + i] & 0xffff) * (regs[pb + i] & 0xffff);
+        break;
+      case MPYH:
+        for (int i = 0; i < 4; i++) t[i] = ((regs[pa + i] >> 16) * (short) regs[pb + i]) << 16;
+        break;
+      case MPYI:
+        for (int i = 0; i < 4; i++) t[i] = (short) regs[pa + i] * i10;
+        break;
+      case MPYUI:
+        for (int i = 0; i < 4; i++) t[i] = (regs[pa + i] & 0xffff) * (i10 & 0xffff);
+        break;
+      case CLZ:
+        for (int i = 0; i < 4; i++) t[i] = Integer.numberOfLeadingZeros(regs[pa + i]);
+        break;
+      case FSM:
+        for (int i = 0; i < 4; i++) t[i] = bool((regs[pa] & (8 >>> i)) != 0);
+        break;
+      case XSBH:
+        for (int i = 0; i < 8; i++) setHalf(t, i, (byte) half(ra, i));
+        break;
+      case XSHW:
+        for (int i = 0; i < 4; i++) t[i] = (short) regs[pa + i];
+        break;
+      case XSWD:
+        for (int i = 0; i < 4; i += 2) {
+          t[i] = regs[pa + i + 1] >> 31;
+          t[i + 1] = regs[pa + i + 1];
+        }
+        break;
+
+      // Logical
+      case AND:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] & regs[pb + i];
+        break;
+      case ANDC:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] & ~regs[pb + i];
+        break;
+      case ANDBI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] & ((i10 & 0xff) * 0x01010101);
+        break;
+      case ANDHI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] & ((i10 & 0xffff) * 0x00010001);
+        break;
+      case ANDI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] & i10;
+        break;
+      case OR:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] | regs[pb + i];
+        break;
+      case ORC:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] | ~regs[pb + i];
+        break;
+      case ORBI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] | ((i10 & 0xff) * 0x01010101);
+        break;
+      case ORHI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] | ((i10 & 0xffff) * 0x00010001);
+        break;
+      case ORI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] | i10;
+        break;
+      case XOR:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] ^ regs[pb + i];
+        break;
+      case XORBI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] ^ ((i10 & 0xff) * 0x01010101);
+        break;
+      case XORHI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] ^ ((i10 & 0xffff) * 0x00010001);
+        break;
+      case XORI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pa + i] ^ i10;
+        break;
+      case NAND:
+        for (int i = 0; i < 4; i++) t[i] = ~(regs[pa + i] & regs[pb + i]);
+        break;
+      case NOR:
+        for (int i = 0; i < 4; i++) t[i] = ~(regs[pa + i] | regs[pb + i]);
+        break;
+      case EQV:
+        for (int i = 0; i < 4; i++) t[i] = ~(regs[pa + i] ^ regs[pb + i]);
+        break;
+      case SELB:
+        for (int i = 0; i < 4; i++) {
+          int mask = regs[(rc << 2) + i];
+          t[i] = (regs[pa + i] & ~mask) | (regs[pb + i] & mask);
+        }
+        break;
+      case SHUFB:
+        for (int i = 0; i < 16; i++) {
+          int c = byteOf(rc, i);
+          int v;
+          if ((c & 0xc0) == 0x80) {
+            v = 0;
+          } else if ((c & 0xe0) == 0xc0) {
+            v = 0xff;
+          } else if ((c & 0xe0) == 0xe0) {
+            v = 0x80;
+          } else {
+            int index = c & 0x1f;
+            v = index < 16 ? byteOf(ra, index) : byteOf(rb, index - 16);
+          }
+          setByte(t, i, v);
+        }
+        break;
+
+      // Shift and rotate
+      case SHLH:
+      case SHLHI:
+        for (int i = 0; i < 8; i++) {
+          int n = (op == SpuOp.SHLH ? half(rb, i) : i7) & 0x1f;
+          setHalf(t, i, n > 15 ? 0 : half(ra, i) << n);
+        }
+        break;
+      case SHL:
+      case SHLI:
+        for (int i = 0; i < 4; i++) {
+          int n = (op == SpuOp.SHL ? regs[pb + i] : i7) & 0x3f;
+          t[i] = n > 31 ? 0 : regs[pa + i] << n;
+        }
+        break;
+      case ROTH:
+      case ROTHI:
+        for (int i = 0; i < 8; i++) {
+          int n = (op == SpuOp.ROTH ? half(rb, i) : i7) & 0xf;
+          int h = half(ra, i) & 0xffff;
+          setHalf(t, i, (h << n) | (h >>> (16 - n)));
+        }
+        break;
+      case ROT:
+      case ROTI:
+        for (int i = 0; i < 4; i++) {
+          t[i] = Integer.rotateLeft(regs[pa + i], op == SpuOp.ROT ? regs[pb + i] : i7);
+        }
+        break;
+      case ROTM:
+      case ROTMI:
+        for (int i = 0; i < 4; i++) {
+          int n = -(op == SpuOp.ROTM ? regs[pb + i] : i7) & 0x3f;
+          t[i] = n > 31 ? 0 : regs[pa + i] >>> n;
+        }
+        break;
+      case ROTMA:
+      case ROTMAI:
+        for (int i = 0; i < 4; i++) {
+          int n = -(op == SpuOp.ROTMA ? regs[pb + i] : i7) & 0x3f;
+          t[i] = regs[pa + i] >> (n > 31 ? 31 : n);
+        }
+        break;
+      case SHLQBY:
+        shiftLeftBytes(ra, regs[pb] & 0x1f);
+        break;
+      case SHLQBYI:
+        shiftLeftBytes(ra, i7 & 0x1f);
+        break;
+      case SHLQBYBI:
+        shiftLeftBytes(ra, (regs[pb] >> 3) & 0x1f);
+        break;
+      case SHLQBI:
+        shiftLeftBits(ra, regs[pb] & 7, false);
+        break;
+      case SHLQBII:
+        shiftLeftBits(ra, i7 & 7, false);
+        break;
+      case ROTQBY:
+        rotateBytes(ra, regs[pb] & 0xf);
+        break;
+      case ROTQBYI:
+        rotateBytes(ra, i7 & 0xf);
+        break;
+      case ROTQBYBI:
+        rotateBytes(ra, (regs[pb] >> 3) & 0xf);
+        break;
+      case ROTQBI:
+        shiftLeftBits(ra, regs[pb] & 7, true);
+        break;
+      case ROTQMBY:
+        shiftRightBytes(ra, -regs[pb] & 0x1f);
+        break;
+      case ROTQMBYI:
+        shiftRightBytes(ra, -i7 & 0x1f);
+        break;
+      case ROTQMBYBI:
+        shiftRightBytes(ra, -(regs[pb] >> 3) & 0x1f);
+        break;
+      case ROTQMBI:
+        shiftRightBits(ra, -regs[pb] & 7);
+        break;
+      case ROTQMBII:
+        shiftRightBits(ra, -i7 & 7);
+        break;
+
+      // Compare
+      case CEQB:
+        for (int i = 0; i < 16; i++) setByte(t, i, bool(byteOf(ra, i) == byteOf(rb, i)));
+        break;
+      case CEQBI:
+        for (int i = 0; i < 16; i++) setByte(t, i, bool(byteOf(ra, i) == (i10 & 0xff)));
+        break;
+      case CEQH:
+        for (int i = 0; i < 8; i++) setHalf(t, i, bool(half(ra, i) == half(rb, i)));
+        break;
+      case CEQHI:
+        for (int i = 0; i < 8; i++) setHalf(t, i, bool(half(ra, i) == (short) i10));
+        break;
+      case CEQ:
+        for (int i = 0; i < 4; i++) t[i] = bool(regs[pa + i] == regs[pb + i]);
+        break;
+      case CEQI:
+        for (int i = 0; i < 4; i++) t[i] = bool(regs[pa + i] == i10);
+        break;
+      case CGTB:
+        for (int i = 0; i < 16; i++) setByte(t, i, bool((byte) byteOf(ra, i) > (byte) byteOf(rb, i)));
+        break;
+      case CGTBI:
+        for (int i = 0; i < 16; i++) setByte(t, i, bool((byte) byteOf(ra, i) > (byte) i10));
+        break;
+      case CGTH:
+        for (int i = 0; i < 8; i++) setHalf(t, i, bool(half(ra, i) > half(rb, i)));
+        break;
+      case CGTHI:
+        for (int i = 0; i < 8; i++) setHalf(t, i, bool(half(ra, i) > (short) i10));
+        break;
+      case CGT:
+        for (int i = 0; i < 4; i++) t[i] = bool(regs[pa + i] > regs[pb + i]);
+        break;
+      case CGTI:
+        for (int i = 0; i < 4; i++) t[i] = bool(regs[pa + i] > i10);
+        break;
+      case CLGTB:
+        for (int i = 0; i < 16; i++) setByte(t, i, bool(byteOf(ra, i) > byteOf(rb, i)));
+        break;
+      case CLGTBI:
+        for (int i = 0; i < 16; i++) setByte(t, i, bool(byteOf(ra, i) > (i10 & 0xff)));
+        break;
+      case CLGTH:
+        for (int i = 0; i < 8; i++) setHalf(t, i, bool((half(ra, i) & 0xffff) > (half(rb, i) & 0xffff)));
+        break;
+      case CLGTHI:
+        for (int i = 0; i < 8; i++) setHalf(t, i, bool((half(ra, i) & 0xffff) > (i10 & 0xffff)));
+        break;
+      case CLGT:
+        for (int i = 0; i < 4; i++) t[i] = bool(unsignedCompare(regs[pa + i], regs[pb + i]) > 0);
+        break;
+      case CLGTI:
+        for (int i = 0; i < 4; i++) t[i] = bool(unsignedCompare(regs[pa + i], i10) > 0);
+        break;
+
+      // Branch
+      case BR:
+        target = pc + (i16 << 2);
+        break;
+      case BRA:
+        target = i16 << 2;
+        break;
+      case BRSL:
+        link(next);
+        target = pc + (i16 << 2);
+        break;
+      case BRASL:
+        link(next);
+        target = i16 << 2;
+        break;
+      case BI:
+        target = regs[pa];
+        break;
+      case BISL:
+        target = regs[pa];
+        link(next);
+        break;
+      case BRZ:
+        if (regs[pt] == 0) target = pc + (i16 << 2);
+        break;
+      case BRNZ:
+        if (regs[pt] != 0) target = pc + (i16 << 2);
+        break;
+      case BIZ:
+        if (regs[pt] == 0) target = regs[pa];
+        break;
+      case BINZ:
+        if (regs[pt] != 0) target = regs[pa];
+        break;
+
+      // Floating point
+      case FA:
+        for (int i = 0; i < 4; i++) t[i] = Float.floatToRawIntBits(fword(ra, i) + fword(rb, i));
+        break;
+      case FS:
+        for (int i = 0; i < 4; i++) t[i] = Float.floatToRawIntBits(fword(ra, i) - fword(rb, i));
+        break;
+      case FM:
+        for (int i = 0; i < 4; i++) t[i] = Float.floatToRawIntBits(fword(ra, i) * fword(rb, i));
+        break;
+      case FMA:
+        for (int i = 0; i < 4; i++) t[i] = Float.floatToRawIntBits(fword(ra, i) * fword(rb, i) + fword(rc, i));
+        break;
+      case FMS:
+        for (int i = 0; i < 4; i++) t[i] = Float.floatToRawIntBits(fword(ra, i) * fword(rb, i) - fword(rc, i));
+        break;
+      case FNMS:
+        for (int i = 0; i < 4; i++) t[i] = Float.floatToRawIntBits(fword(rc, i) - fword(ra, i) * fword(rb, i));
+        break;
+      case FREST:
+        // Exact, so that the refinement step (fi) can just pass it on
+        for (int i = 0; i < 4; i++) t[i] = Float.floatToRawIntBits(1.0f / fword(ra, i));
+        break;
+      case FI:
+        for (int i = 0; i < 4; i++) t[i] = regs[pb + i];
+        break;
+      case FCEQ:
+        for (int i = 0; i < 4; i++) t[i] = bool(fword(ra, i) == fword(rb, i));
+        break;
+      case FCGT:
+        for (int i = 0; i < 4; i++) t[i] = bool(fword(ra, i) > fword(rb, i));
+        break;
+      case DFA:
+        for (int i = 0; i < 2; i++) setDword(t, i, dword(ra, i) + dword(rb, i));
+        break;
+      case DFS:
+        for (int i = 0; i < 2; i++) setDword(t, i, dword(ra, i) - dword(rb, i));
+        break;
+      case DFM:
+        for (int i = 0; i < 2; i++) setDword(t, i, dword(ra, i) * dword(rb, i));
+        break;
+      case DFCEQ:
+        for (int i = 0; i < 2; i++) t[2 * i] = t[2 * i + 1] = bool(dword(ra, i) == dword(rb, i));
+        break;
+      case DFCGT:
+        for (int i = 0; i < 2; i++) t[2 * i] = t[2 * i + 1] = bool(dword(ra, i) > dword(rb, i));
+        break;
+      case FRDS:
+        for (int i = 0; i < 2; i++) {
+          t[2 * i] = Float.floatToRawIntBits((float) dword(ra, i));
+          t[2 * i + 1] = 0;
+        }
+        break;
+      case FESD:
+        for (int i = 0; i < 2; i++) setDword(t, i, fword(ra, 2 * i));
+        break;
+      case CSFLT:
+        for (int i = 0; i < 4; i++) {
+          t[i] = Float.floatToRawIntBits((float) scale(regs[pa + i], i8 - 155));
+        }
+        break;
+      case CUFLT:
+        for (int i = 0; i < 4; i++) {
+          t[i] = Float.floatToRawIntBits((float) scale(regs[pa + i] & 0xffffffffL, i8 - 155));
+        }
+        break;
+      case CFLTS:
+        for (int i = 0; i < 4; i++) {
+          t[i] = (int) scale(fword(ra, i), 173 - i8);
+        }
+        break;
+      case CFLTU:
+        for (int i = 0; i < 4; i++) {
+          double v = scale(fword(ra, i), 173 - i8);
+          t[i] = v <= 0 ? 0 : (v >= 4294967295.0 ? -1 : (int) (long) v);
+        }
+        break;
+
+      // Control and channels
+      case STOP:
+        stopCode = w & 0x3fff;
+        pc = next;
+        return STOPPED;
+      case LNOP:
+      case NOP:
+      case SYNC:
+      case DSYNC:
+        break;
+      case RDCH:
+        t[0] = channels.read(ra, issue);
+        t[1] = t[2] = t[3] = 0;
+        break;
+      case RCHCNT:
+        t[0] = channels.count(ra, issue);
+        t[1] = t[2] = t[3] = 0;
+        break;
+      case WRCH:
+        channels.write(ra, regs[pt], issue);
+        break;
+
+      default:
+        throw new IllegalStateException("unimplemented instruction " + op + " at 0x" + Integer.toHexString(pc));
+    }
+
+    if (writeT) {
+      System.arraycopy(t, 0, regs, pt, 4);
+      ready[rt] = issue + op.latency;
+    }
+
+    if (target == -1) {
+      pc = next;
+    } else {
+      pc = target & LSLR & ~3;
+      if (pc != next) {
+        branchesTaken++;
+        branchStalls += BRANCH_PENALTY;
+        cycle += BRANCH_PENALTY;
+      }
+    }
+    return -1;
+  }
+
+  /** @return the local store address of a load or store */
+  private int lsAddress(SpuOp op, int ra, int rb, int i10, int i16) {
+    int a;
+    switch (op) {
+      case LQD: case STQD:
+        a = regs[ra << 2] + (i10 << 4);
+        break;
+      case LQX: case STQX:
+        a = regs[ra << 2] + regs[rb << 2];
+        break;
+      case LQA: case STQA:
+        a = i16 << 2;
+        break;
+      default:
+        a = pc + (i16 << 2);
+        break;
+    }
+    return a & LSLR & ~15;
+  }
+
+  /** Set t to the link register value for a branch and set link */
+  private void link(int next) {
+    t[0] = next;
+    t[1] = t[2] = t[3] = 0;
+  }
+
+  /** The c?d/c?x instructions: a shuffle mask that inserts at address a */
+  private void generateControl(SpuOp op, int a) {
+    t[0] = 0x10111213;
+    t[1] = 0x14151617;
+    t[2] = 0x18191a1b;
+    t[3] = 0x1c1d1e1f;
+    switch (op) {
+      case CBD: case CBX:
+        setByte(t, a & 0xf, 0x03);
+        break;
+      case CHD: case CHX:
+        setHalf(t, (a & 0xe) >> 1, 0x0203);
+        break;
+      case CWD: case CWX:
+        t[(a & 0xc) >> 2] = 0x00010203;
+        break;
+      default:
+        t[(a & 0x8) >> 2] = 0x00010203;
+        t[((a & 0x8) >> 2) + 1] = 0x04050607;
+        break;
+    }
+  }
+
+  /** @return v * 2^n, for the fixed point conversions */
+  private static double scale(double v, int n) {
+    return v * Math.pow(2, n);
+  }
+
+  private void shiftLeftBytes(int ra, int n) {
+    for (int i = 0; i < 16; i++) setByte(t, i, i + n < 16 ? byteOf(ra, i + n) : 0);
+  }
+
+  private void shiftRightBytes(int ra, int n) {
+    for (int i = 0; i < 16; i++) setByte(t, i, i - n >= 0 ? byteOf(ra, i - n) : 0);
+  }
+
+  private void rotateBytes(int ra, int n) {
+    for (int i = 0; i < 16; i++) setByte(t, i, byteOf(ra, (i + n) & 15));
+  }
+
+  private void shiftLeftBits(int ra, int n, boolean rotate) {
+    for (int i = 0; i < 16; i++) {
+      int following = i < 15 ? byteOf(ra, i + 1) : (rotate ? byteOf(ra, 0) : 0);
+      setByte(t, i, (byteOf(ra, i) << n) | (following >>> (8 - n)));
+    }
+  }
+
+  private void shiftRightBits(int ra, int n) {
+    for (int i = 15; i >= 0; i--) {
+      int preceding = i > 0 ? byteOf(ra, i - 1) : 0;
+      setByte(t, i, (byteOf(ra, i) >>> n) | (preceding << (8 - n)));
+    }
+  }
+
+  /*
+   * Tracing and reporting
+   */
+
+  private static String hex(int v) {
+    String s = Integer.toHexString(v);
+    return "0x00000".substring(0, 7 - Math.min(5, s.length())) + s;
+  }
+
+  /**
+   * @param w an instruction
+   * @return it in assembler syntax
+   */
+  public static String disassemble(int w) {
+    SpuOp op = SpuOp.decode(w);
+    if (op == null) return ".long 0x" + Integer.toHexString(w);
+    String name = op.toString().toLowerCase();
+    int rt = w & 0x7f;
+    int ra = (w >>> 7) & 0x7f;
+    int rb = (w >>> 14) & 0x7f;
+    switch (op.format) {
+      case RR:
+        return name + "\t$" + rt + ",$" + ra + ",$" + rb;
+      case RR1:
+        return name + "\t$" + rt + ",$" + ra;
+      case RRR:
+        return name + "\t$" + ((w >>> 21) & 0x7f) + ",$" + ra + ",$" + rb + ",$" + rt;
+      case RI7:
+        return name + "\t$" + rt + ",$" + ra + "," + ((w << 11) >> 25);
+      case RI8:
+        return name + "\t$" + rt + ",$" + ra + "," + ((w >>> 14) & 0xff);
+      case RI10:
+        return name + "\t$" + rt + ",$" + ra + "," + ((w << 8) >> 22);
+      case RI16:
+        return name + "\t$" + rt + "," + ((w << 9) >> 16);
+      case RI18:
+        return name + "\t$" + rt + ",0x" + Integer.toHexString((w >>> 7) & 0x3ffff);
+      case CHANNEL:
+        return name + "\t$" + rt + ",$ch" + ra;
+      default:
+        return op == SpuOp.STOP ? name + "\t0x" + Integer.toHexString(w & 0x3fff) : name;
+    }
+  }
+
+  /** Print what the run so far did and where its cycles went */
+  public void report(PrintStream out) {
+    out.println("SPU simulator report");
+    out.println("  instructions:          " + instructions);
+    out.println("  cycles:                " + cycle +
+                (instructions > 0 ? " (CPI " + ((cycle * 100 / instructions) / 100.0) + ")" : ""));
+    out.println("  dependency stalls:     " + dependencyStalls);
+    out.println("  branch stalls:         " + branchStalls + " (" + branchesTaken + " taken branches)");
+    out.println("  double stalls:         " + doubleStalls);
+    out.println("  channel stalls:        " + channelStalls);
+    out.println("  loads/stores:          " + loads + "/" + stores);
+    channels.report(out);
+
+    SpuOp[] ops = SpuOp.values().clone();
+    Arrays.sort(ops, new Comparator<SpuOp>() {
+      public int compare(SpuOp a, SpuOp b) {
+        long ca = opCounts[a.ordinal()];
+        long cb = opCounts[b.ordinal()];
+        return ca > cb ? -1 : (ca == cb ? 0 : 1);
+      }
+    });
+    out.println("  most executed instructions:");
+    for (int i = 0; i < 10 && opCounts[ops[i].ordinal()] > 0; i++) {
+      out.println("    " + ops[i].toString().toLowerCase() + "\t" + opCounts[ops[i].ordinal()]);
+    }
+  }
+
+  /*
+   * Command line
+   */
+
+  private static void usage() {
+    System.err.println("Usage: SpuSimulator [options]");
+    System.err.println("  -ls <file>@<address>      load file into local store");
+    System.err.println("  -mem <file>@<address>     load file into main memory");
+    System.err.println("  -entry <address>          local store address to start at (default 0)");
+    System.err.println("  -reg <n>=<value>          set the preferred word of register n");
+    System.err.println("  -mbox <value>             queue a value for the inbound mailbox");
+    System.err.println("  -limit <n>                stop after n instructions");
+    System.err.println("  -dmaLatency <cycles>      DMA latency (default 400)");
+    System.err.println("  -dmaBandwidth <bytes>     DMA bytes per cycle (default 8)");
+    System.err.println("  -trace                    print each instruction as it issues");
+    System.exit(-1);
+  }
+
+  private static long number(String s) {
+    return Long.decode(s);
+  }
+
+  private static byte[] readFile(String file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      byte[] data = new byte[in.available()];
+      int n = 0;
+      while (n < data.length) {
+        int r = in.read(data, n, data.length - n);
+        if (r < 0) break;
+        n += r;
+      }
+      return data;
+    } finally {
+      in.close();
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) usage();
+    SpuMainMemory memory = new SpuMainMemory();
+    SpuSimulator spu = new SpuSimulator(memory);
+    ArrayList<Integer> mailbox = new ArrayList<Integer>();
+    long limit = Long.MAX_VALUE;
+    int latency = 400;
+    int bandwidth = 8;
+
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (i + 1 >= args.length && !arg.equals("-trace")) usage();
+      if (arg.equals("-ls") || arg.equals("-mem")) {
+        String spec = args[++i];
+        int at = spec.lastIndexOf('@');
+        if (at < 0) usage();
+        String file = spec.substring(0, at);
+        long address = number(spec.substring(at + 1));
+        if (arg.equals("-ls")) {
+          spu.loadLocalStore(readFile(file), (int) address);
+        } else {
+          memory.load(file, address);
+        }
+      } else if (arg.equals("-entry")) {
+        spu.setPC((int) number(args[++i]));
+      } else if (arg.equals("-reg")) {
+        String spec = args[++i];
+        int eq = spec.indexOf('=');
+        if (eq < 0) usage();
+        spu.setRegister(Integer.parseInt(spec.substring(0, eq)), (int) number(spec.substring(eq + 1)));
+      } else if (arg.equals("-mbox")) {
+        mailbox.add((int) number(args[++i]));
+      } else if (arg.equals("-limit")) {
+        limit = number(args[++i]);
+      } else if (arg.equals("-dmaLatency")) {
+        latency = (int) number(args[++i]);
+      } else if (arg.equals("-dmaBandwidth")) {
+        bandwidth = (int) number(args[++i]);
+      } else if (arg.equals("-trace")) {
+        spu.setTrace(true);
+      } else {
+        usage();
+      }
+    }
+    spu.setDmaTiming(latency, bandwidth);
+
+    // Play the host: feed the inbound mailbox and print what comes out
+    int reason;
+    try {
+      while (true) {
+        while (!mailbox.isEmpty() && spu.canWriteInMailbox()) {
+          spu.writeInMailbox(mailbox.remove(0));
+        }
+        reason = spu.run(limit - spu.getInstructions());
+        if (reason != BLOCKED) break;
+        boolean progress = false;
+        if (spu.hasOutMailbox()) {
+          System.out.println("SPU mailbox: 0x" + Integer.toHexString(spu.readOutMailbox()));
+          progress = true;
+        }
+        if (spu.hasOutInterruptMailbox()) {
+          System.out.println("SPU interrupt mailbox: 0x" + Integer.toHexString(spu.readOutInterruptMailbox()));
+          progress = true;
+        }
+        if (!progress && (mailbox.isEmpty() || !spu.canWriteInMailbox())) {
+          System.out.println("SPU waiting on a channel the host won't service at 0x" +
+                             Integer.toHexString(spu.getPC()));
+          break;
+        }
+      }
+      if (reason == STOPPED) {
+        System.out.println("SPU stopped with code 0x" + Integer.toHexString(spu.getStopCode()));
+      } else if (reason == LIMIT) {
+        System.out.println("SPU reached the instruction limit at 0x" + Integer.toHexString(spu.getPC()));
+      }
+    } catch (IllegalStateException e) {
+      System.out.println("SPU error: " + e.getMessage());
+    }
+    spu.report(System.out);
+  }
+}